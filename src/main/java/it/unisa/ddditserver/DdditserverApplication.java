@@ -2,8 +2,10 @@ package it.unisa.ddditserver;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class DdditserverApplication {
 
 	public static void main(String[] args) {
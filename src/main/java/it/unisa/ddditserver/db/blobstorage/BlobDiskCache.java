@@ -0,0 +1,389 @@
+package it.unisa.ddditserver.db.blobstorage;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import it.unisa.ddditserver.subsystems.versioning.exceptions.version.VersionException;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Size-bounded cache on the local disk of the BLOBs read from BLOB storage, keyed by BLOB path and ETag.
+ *
+ * A BLOB read for the first time is downloaded in background to a file of the cache folder, while that read goes on
+ * from BLOB storage, then later reads of the same BLOB with the same ETag are served from that file without any
+ * request to BLOB storage. A read never waits for a download, so caching never delays the first byte of a response.
+ * When the total size exceeds the limit set in {@link BlobStorageConfig} the files least recently and frequently
+ * read are evicted. Concurrent reads of a BLOB not cached yet start a single download instead of one each.
+ *
+ * Every file is downloaded aside and moved in place only when complete, followed by an index file with its key and
+ * content type, so after a restart the cache is rebuilt from its folder and partial downloads are discarded.
+ * Hits and misses are exposed through the {@code blob.cache} metrics, together with the hit ratio
+ * and the bytes served from the disk instead of BLOB storage.
+ *
+ * @author Angelo Antonio Prisco
+ * @version 1.1
+ * @since 2025-09-02
+ */
+@Component
+public class BlobDiskCache {
+    private static final String DATA_EXTENSION = ".blob";
+    private static final String INDEX_EXTENSION = ".index";
+    private static final String TEMPORARY_EXTENSION = ".tmp";
+    // Downloads waiting for a thread, further misses are read from BLOB storage without being cached
+    private static final int MAX_PENDING_FILLS = 256;
+
+    private final Path folder;
+    private final AsyncCache<String, Entry> cache;
+    private final ThreadPoolExecutor fillExecutor;
+    private final Counter bytesSaved;
+
+    /**
+     * Downloads a BLOB not cached yet.
+     */
+    @FunctionalInterface
+    public interface Filler {
+        /**
+         * @param target the file to create with the content of the BLOB, it doesn't exist yet
+         * @return the content type of the BLOB
+         * @throws IOException if the file can't be written, in which case the BLOB is not cached
+         */
+        String fill(Path target) throws IOException;
+    }
+
+    private static final class Entry {
+        private final String key;
+        private final Path data;
+        private final Path index;
+        private final long size;
+        private final String contentType;
+
+        private Entry(String key, Path data, Path index, long size, String contentType) {
+            this.key = key;
+            this.data = data;
+            this.index = index;
+            this.size = size;
+            this.contentType = contentType;
+        }
+    }
+
+    /**
+     * A cached BLOB opened for reading, it must be closed after use.
+     * The file stays readable while it is open, even if it is evicted meanwhile.
+     */
+    public final class CachedBlob implements Closeable {
+        private final FileChannel channel;
+        private final long size;
+        private final String contentType;
+
+        private CachedBlob(FileChannel channel, long size, String contentType) {
+            this.channel = channel;
+            this.size = size;
+            this.contentType = contentType;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        /**
+         * Copies a range of the BLOB to a stream through {@link FileChannel#transferTo}, without reading it in the heap.
+         *
+         * @param outputStream the stream to write to, not closed
+         * @param offset the first byte to copy
+         * @param count the number of bytes to copy
+         * @throws IOException if the file or the stream fail
+         */
+        public void transferTo(OutputStream outputStream, long offset, long count) throws IOException {
+            WritableByteChannel target = Channels.newChannel(outputStream);
+            long position = offset;
+            long end = offset + count;
+
+            while (position < end) {
+                long transferred = channel.transferTo(position, end - position, target);
+
+                if (transferred <= 0) {
+                    throw new IOException("Cached BLOB shorter than expected");
+                }
+
+                position += transferred;
+            }
+
+            bytesSaved.increment(count);
+        }
+
+        /**
+         * @return a stream over the whole BLOB, closing it closes the cached BLOB too
+         */
+        public InputStream newInputStream() {
+            bytesSaved.increment(size);
+
+            return Channels.newInputStream(channel);
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    @Autowired
+    public BlobDiskCache(BlobStorageConfig config, MeterRegistry meterRegistry) {
+        this.bytesSaved = meterRegistry.counter("blob.cache.bytes.saved");
+
+        if (config.getDiskCacheMaxBytes() < 1) {
+            this.folder = null;
+            this.cache = null;
+            this.fillExecutor = null;
+            return;
+        }
+
+        this.folder = Paths.get(config.getDiskCachePath());
+
+        // Weights are in KiB, so a single BLOB up to 2 TiB fits in the int weight of Caffeine
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(Math.max(1, config.getDiskCacheMaxBytes() / 1024))
+                .<String, Entry>weigher((key, entry) -> (int) Math.min(Integer.MAX_VALUE, Math.max(1, (entry.size + 1023) / 1024)))
+                .<String, Entry>removalListener((key, entry, cause) -> {
+                    if (entry != null) {
+                        delete(entry.index);
+                        delete(entry.data);
+                    }
+                })
+                .recordStats()
+                .buildAsync();
+
+        int fillThreads = Math.max(1, config.getDiskCacheFillConcurrency());
+
+        // The abort policy drops the downloads beyond the queue, since the BLOB is read from storage anyway
+        this.fillExecutor = new ThreadPoolExecutor(fillThreads, fillThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(MAX_PENDING_FILLS), runnable -> {
+                    Thread thread = new Thread(runnable, "blob-cache-fill");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        load();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "blob.cache");
+        Gauge.builder("blob.cache.hit.ratio", cache, c -> c.synchronous().stats().hitRate())
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Interrupted downloads leave temporary files only, which are deleted at the next startup
+        if (fillExecutor != null) {
+            fillExecutor.shutdownNow();
+        }
+    }
+
+    private void load() {
+        List<Entry> entries = new ArrayList<>();
+
+        try {
+            Files.createDirectories(folder);
+
+            // Downloads interrupted by the last shutdown
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(folder, "*" + TEMPORARY_EXTENSION)) {
+                for (Path file : files) {
+                    delete(file);
+                }
+            }
+
+            try (DirectoryStream<Path> indexes = Files.newDirectoryStream(folder, "*" + INDEX_EXTENSION)) {
+                for (Path index : indexes) {
+                    String name = index.getFileName().toString();
+                    Path data = folder.resolve(name.substring(0, name.length() - INDEX_EXTENSION.length()) + DATA_EXTENSION);
+                    Properties properties = new Properties();
+
+                    try (Reader reader = Files.newBufferedReader(index, StandardCharsets.UTF_8)) {
+                        properties.load(reader);
+                    }
+
+                    String key = properties.getProperty("key");
+                    long size = Long.parseLong(properties.getProperty("size", "-1"));
+
+                    // An index without its file, or with a file of another size, is left by a crash during eviction
+                    if (key == null || !Files.exists(data) || Files.size(data) != size) {
+                        delete(index);
+                        delete(data);
+                        continue;
+                    }
+
+                    entries.add(new Entry(key, data, index, size, properties.getProperty("contentType")));
+                }
+            }
+
+            // Files moved in place without their index
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(folder, "*" + DATA_EXTENSION)) {
+                for (Path file : files) {
+                    String name = file.getFileName().toString();
+
+                    if (!Files.exists(folder.resolve(name.substring(0, name.length() - DATA_EXTENSION.length()) + INDEX_EXTENSION))) {
+                        delete(file);
+                    }
+                }
+            }
+
+            // The least recently downloaded files are inserted first, so they are the first ones evicted
+            entries.sort(Comparator.comparingLong(entry -> entry.data.toFile().lastModified()));
+
+            for (Entry entry : entries) {
+                cache.put(entry.key, CompletableFuture.completedFuture(entry));
+            }
+        } catch (IOException | NumberFormatException e) {
+            throw new VersionException("Error reading BLOB disk cache folder");
+        }
+    }
+
+    private void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // At worst the file stays in the folder until the next startup
+        }
+    }
+
+    private Entry fill(String key, Filler filler) throws IOException {
+        // Every download has its own files, so an eviction of the same key in progress never deletes them
+        String name = UUID.randomUUID().toString();
+        Path data = folder.resolve(name + DATA_EXTENSION);
+        Path index = folder.resolve(name + INDEX_EXTENSION);
+        Path temporaryData = folder.resolve(name + DATA_EXTENSION + TEMPORARY_EXTENSION);
+        Path temporaryIndex = folder.resolve(name + INDEX_EXTENSION + TEMPORARY_EXTENSION);
+
+        try {
+            String contentType = filler.fill(temporaryData);
+            long size = Files.size(temporaryData);
+
+            Files.move(temporaryData, data, StandardCopyOption.ATOMIC_MOVE);
+
+            Properties properties = new Properties();
+            properties.setProperty("key", key);
+            properties.setProperty("size", String.valueOf(size));
+
+            if (contentType != null) {
+                properties.setProperty("contentType", contentType);
+            }
+
+            try (Writer writer = Files.newBufferedWriter(temporaryIndex, StandardCharsets.UTF_8)) {
+                properties.store(writer, null);
+            }
+
+            // The index is moved in place last, so a file is found at startup only if it is complete
+            Files.move(temporaryIndex, index, StandardCopyOption.ATOMIC_MOVE);
+
+            return new Entry(key, data, index, size, contentType);
+        } catch (IOException | RuntimeException e) {
+            delete(temporaryData);
+            delete(temporaryIndex);
+            delete(data);
+            throw e;
+        }
+    }
+
+    /**
+     * Opens a cached BLOB. If it is not cached yet, its download is started in background and null is returned,
+     * so the BLOB is read from BLOB storage without waiting for the download, as it is while another read downloads it.
+     *
+     * @param blobPath the path of the BLOB, including its container
+     * @param eTag the ETag of the BLOB, null if its content can't change
+     * @param filler the download of the BLOB, called in background only if it is not cached nor being downloaded
+     * @return the cached BLOB, or null if it is not cached yet or the cache is disabled or failed,
+     *         so the BLOB must be read from BLOB storage
+     */
+    public CachedBlob open(String blobPath, String eTag, Filler filler) {
+        if (cache == null) {
+            return null;
+        }
+
+        String key = eTag == null ? blobPath : blobPath + "@" + eTag;
+        CompletableFuture<Entry> future = cache.getIfPresent(key);
+
+        if (future == null) {
+            fillInBackground(key, filler);
+            return null;
+        }
+
+        // A download still in progress is not waited for, failed ones are removed by the cache itself
+        if (!future.isDone() || future.isCompletedExceptionally()) {
+            return null;
+        }
+
+        CachedBlob cachedBlob = openEntry(future.join());
+
+        // Evicted between the lookup and the opening
+        if (cachedBlob == null) {
+            cache.asMap().remove(key, future);
+        }
+
+        return cachedBlob;
+    }
+
+    private void fillInBackground(String key, Filler filler) {
+        CompletableFuture<Entry> created = new CompletableFuture<>();
+
+        // Only the first miss starts the download, the following ones find it in progress
+        if (cache.asMap().putIfAbsent(key, created) != null) {
+            return;
+        }
+
+        try {
+            fillExecutor.execute(() -> {
+                try {
+                    created.complete(fill(key, filler));
+                } catch (IOException | RuntimeException e) {
+                    cache.asMap().remove(key, created);
+                    created.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Too many downloads in progress, the next read of the BLOB tries again
+            cache.asMap().remove(key, created);
+            created.cancel(false);
+        }
+    }
+
+    private CachedBlob openEntry(Entry entry) {
+        try {
+            return new CachedBlob(FileChannel.open(entry.data, StandardOpenOption.READ), entry.size, entry.contentType);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
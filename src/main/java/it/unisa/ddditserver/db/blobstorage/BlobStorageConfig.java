@@ -15,4 +15,34 @@ public class BlobStorageConfig {
 
     @Value("${BLOB_STORAGE_CONTAINER_MATERIALS}")
     private String materialsContainer;
+
+    // Uploads are split in blocks, so the memory used by an upload doesn't depend on the file size
+    @Value("${BLOB_STORAGE_BLOCK_SIZE_BYTES:8388608}")
+    private long blockSizeBytes;
+
+    @Value("${BLOB_STORAGE_MAX_CONCURRENCY:4}")
+    private int maxConcurrency;
+
+    // Textures of a material uploaded at the same time, each one also split in parallel blocks
+    @Value("${BLOB_STORAGE_TEXTURE_UPLOAD_CONCURRENCY:8}")
+    private int textureUploadConcurrency;
+
+    // Textures of a material downloaded at the same time by a pull
+    @Value("${BLOB_STORAGE_TEXTURE_DOWNLOAD_CONCURRENCY:8}")
+    private int textureDownloadConcurrency;
+
+    // Textures downloaded ahead of a pull are held in memory up to this size over every pull, the others are streamed
+    @Value("${BLOB_STORAGE_READ_AHEAD_MAX_BYTES:268435456}")
+    private long readAheadMaxBytes;
+
+    // Local copy of the BLOBs read by pulls, evicted beyond this size, 0 disables it
+    @Value("${BLOB_STORAGE_DISK_CACHE_MAX_BYTES:10737418240}")
+    private long diskCacheMaxBytes;
+
+    @Value("${BLOB_STORAGE_DISK_CACHE_PATH:blob-cache}")
+    private String diskCachePath;
+
+    // BLOBs downloaded to the disk cache at the same time, in background of the reads that missed them
+    @Value("${BLOB_STORAGE_DISK_CACHE_FILL_CONCURRENCY:2}")
+    private int diskCacheFillConcurrency;
 }
@@ -1,34 +1,118 @@
 package it.unisa.ddditserver.db.blobstorage.versioning;
 
 import it.unisa.ddditserver.subsystems.versioning.dto.version.VersionDTO;
-import org.apache.commons.lang3.tuple.Triple;
+import it.unisa.ddditserver.subsystems.versioning.dto.version.VersionFileDTO;
+import org.apache.commons.lang3.tuple.Pair;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Repository interface for managing version-related operations
  * in a BLOB storage database.
  *
  * @author Angelo Antonio Prisco
- * @version 1.1
+ * @version 1.8
  * @since 2025-08-25
  */
 public interface BlobStorageVersionRepository {
     /**
-     * Saves a new mesh BLOB in the BLOB storage.
+     * Saves the mesh of a version in the BLOB storage under the SHA-256 hash of its content.
+     * If the same content is already stored it is not uploaded again and only gains a reference.
      *
      * @param versionDTO the versionDTO containing version information
+     * @return the SHA-256 hash of the content of the mesh by its file name
+     */
+    Map<String, String> saveMesh(VersionDTO versionDTO);
+
+    /**
+     * Saves a new mesh BLOB in the BLOB storage reading its content from a stream.
+     * The content is uploaded in blocks while the stream is read, so it is never held entirely in memory.
+     *
+     * @param versionDTO the versionDTO containing version information
+     * @param fileName the file name of the mesh
+     * @param contentType the content type of the mesh, null for a generic binary content
+     * @param dataStream the content of the mesh, read until its end
      * @return a string containing the mesh URL
      */
-    String saveMesh(VersionDTO versionDTO);
+    String saveMesh(VersionDTO versionDTO, String fileName, String contentType, InputStream dataStream);
 
     /**
-     * Saves a new material folder with textures BLOB in the BLOB storage.
+     * Stages a chunk of a mesh as an uncommitted block of its BLOB, the mesh becomes visible only
+     * when the chunks are committed. Staging again a chunk with the same index replaces it.
      *
      * @param versionDTO the versionDTO containing version information
-     * @return a string containing the material folder URL
+     * @param fileName the file name of the mesh
+     * @param chunkIndex the position of the chunk in the mesh, starting from 0
+     * @param dataStream the content of the chunk
+     * @param size the size of the chunk in bytes
+     * @param contentMd5 the MD5 hash of the chunk checked by the BLOB storage, null to skip the check
+     */
+    void stageMeshChunk(VersionDTO versionDTO, String fileName, int chunkIndex, InputStream dataStream, long size, byte[] contentMd5);
+
+    /**
+     * Commits the chunks staged for a mesh in order of index, creating its BLOB.
+     *
+     * @param versionDTO the versionDTO containing version information
+     * @param fileName the file name of the mesh
+     * @param chunkCount the number of chunks, with indexes from 0 to chunkCount - 1
+     * @param contentType the content type of the mesh, null for a generic binary content
+     * @return a string containing the mesh URL
+     */
+    String commitMeshChunks(VersionDTO versionDTO, String fileName, int chunkCount, String contentType);
+
+    /**
+     * Discards the chunks staged for a mesh and never committed.
+     *
+     * @param versionDTO the versionDTO containing version information
+     * @param fileName the file name of the mesh
+     */
+    void discardMeshChunks(VersionDTO versionDTO, String fileName);
+
+    /**
+     * Saves the textures of a version in the BLOB storage under the SHA-256 hash of their content.
+     * Textures whose content is already stored are not uploaded again and only gain a reference.
+     *
+     * @param versionDTO the versionDTO containing version information
+     * @return the SHA-256 hash of the content of every texture by its file name
+     */
+    Map<String, String> saveMaterial(VersionDTO versionDTO);
+
+    /**
+     * Releases a reference to content-addressed meshes, deleting each of them when no version references it anymore.
+     *
+     * @param hashes the SHA-256 hashes of the meshes, once per reference to release
      */
-    String saveMaterial(VersionDTO versionDTO);
+    void releaseMesh(Collection<String> hashes);
+
+    /**
+     * Releases a reference to content-addressed textures, deleting each of them when no version references it anymore.
+     *
+     * @param hashes the SHA-256 hashes of the textures, once per reference to release
+     */
+    void releaseMaterial(Collection<String> hashes);
+
+    /**
+     * Retrieves the data of a content-addressed mesh as an input stream, from the local disk cache if it is cached.
+     *
+     * @param fileName the file name of the mesh in the version
+     * @param hash the SHA-256 hash of the content of the mesh
+     * @return a Pair containing an InputStream containing the mesh data and the mesh file with name, content type and size
+     */
+    Pair<InputStream, VersionFileDTO> findMeshByHash(String fileName, String hash);
+
+    /**
+     * Retrieves the data streams of content-addressed textures, from the local disk cache if they are cached.
+     * The textures are downloaded in parallel and the downloads are not awaited, so every texture can be written as soon as it is ready.
+     *
+     * @param contentHashes the SHA-256 hash of the content of every texture by its file name
+     * @return a list of futures of a Pair containing an InputStream containing the texture data and the texture file with name, content type and size,
+     *         completed with a VersionException if the texture can't be downloaded
+     */
+    List<CompletableFuture<Pair<InputStream, VersionFileDTO>>> findMaterialByHashes(Map<String, String> contentHashes);
 
     /**
      * Checks if a mesh exists for the specified URL.
@@ -47,20 +131,53 @@ public interface BlobStorageVersionRepository {
     boolean existsMaterialByUrl(String materialFolderUrl);
 
     /**
-     * Retrieves the mesh data as an input stream for the specified URL.
+     * Retrieves the mesh data as an input stream for the specified URL, from the local disk cache if it is cached.
+     * Name, content type and size come with the first download, so no other request is made to BLOB storage.
      *
      * @param meshUrl the BLOB storage URL that identifies the mesh
-     * @return a Triple containing an InputStream containing the mesh data, the content-type of the file and filename
+     * @return a Pair containing an InputStream containing the mesh data and the mesh file with name, content type and size
      */
-    Triple<InputStream, String, String> findMeshByUrl(String meshUrl);
+    Pair<InputStream, VersionFileDTO> findMeshByUrl(String meshUrl);
 
     /**
-     * Retrieves the list of material data streams for the specified folder URL.
+     * Retrieves the list of material data streams for the specified folder URL, from the local disk cache if they are cached.
+     * The properties of the textures come with a single listing of the folder, then the textures are downloaded in parallel
+     * and the downloads are not awaited, so every texture can be written as soon as it is ready.
      *
      * @param materialFolderUrl the BLOB storage URL that identifies the folder of the material
-     * @return a list of a Triple containing an InputStream containing the texture data, the content-type of the file and filename
+     * @return a list of futures of a Pair containing an InputStream containing the texture data and the texture file with name, content type and size,
+     *         completed with a VersionException if the texture can't be downloaded
+     */
+    List<CompletableFuture<Pair<InputStream, VersionFileDTO>>> findMaterialByUrl(String materialFolderUrl);
+
+    /**
+     * Retrieves name, content type, size and ETag of the mesh for the specified URL with a single request.
+     *
+     * @param meshUrl the BLOB storage URL that identifies the mesh
+     * @return the mesh file, downloaded only while its BLOB keeps the same ETag
+     */
+    VersionFileDTO findMeshPropertiesByUrl(String meshUrl);
+
+    /**
+     * Retrieves content type and size of a content-addressed mesh with a single request.
+     *
+     * @param fileName the file name of the mesh in the version
+     * @param hash the SHA-256 hash of the content of the mesh
+     * @return the mesh file, downloaded without conditions since its content can't change
+     */
+    VersionFileDTO findMeshPropertiesByHash(String fileName, String hash);
+
+    /**
+     * Writes a range of the content of a mesh to an output stream, as it is downloaded.
+     * The download fails if the BLOB of the mesh has changed since its properties were retrieved.
+     * A mesh in the local disk cache is written from the disk, otherwise it is downloaded while it is cached in background.
+     *
+     * @param meshFile the mesh file, as retrieved by its properties
+     * @param outputStream the stream where the content is written, not closed
+     * @param offset the position of the first byte to write
+     * @param count the number of bytes to write
      */
-    List<Triple<InputStream, String, String>> findMaterialByUrl(String materialFolderUrl);
+    void downloadMesh(VersionFileDTO meshFile, OutputStream outputStream, long offset, long count);
 
     /**
      * Delete the mesh BLOB for the specified URL.
@@ -1,32 +1,371 @@
 package it.unisa.ddditserver.db.blobstorage.versioning;
 
 import com.azure.core.http.rest.PagedIterable;
+import com.azure.core.http.rest.Response;
+import com.azure.core.util.Context;
 import com.azure.storage.blob.*;
 import com.azure.storage.blob.models.*;
+import com.azure.storage.blob.options.BlobDownloadToFileOptions;
+import com.azure.storage.blob.options.BlobInputStreamOptions;
+import com.azure.storage.blob.options.BlobParallelUploadOptions;
+import com.azure.storage.blob.options.BlockBlobCommitBlockListOptions;
+import com.azure.storage.blob.specialized.BlobInputStream;
+import com.azure.storage.blob.specialized.BlockBlobClient;
+import it.unisa.ddditserver.db.blobstorage.BlobDiskCache;
 import it.unisa.ddditserver.db.blobstorage.BlobStorageConfig;
 import it.unisa.ddditserver.subsystems.versioning.dto.version.VersionDTO;
+import it.unisa.ddditserver.subsystems.versioning.dto.version.VersionFileDTO;
+import it.unisa.ddditserver.subsystems.versioning.exceptions.version.InvalidMeshException;
 import it.unisa.ddditserver.subsystems.versioning.exceptions.version.VersionException;
 import jakarta.annotation.PostConstruct;
-import org.apache.commons.lang3.tuple.Triple;
+import jakarta.annotation.PreDestroy;
+import org.apache.commons.lang3.tuple.Pair;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 import org.springframework.web.multipart.MultipartFile;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
 
 @Repository
 public class BlobStorageVersionRepositoryImpl implements BlobStorageVersionRepository {
+    // Content-addressed BLOB path: sha256/hash, it never clashes with the five levels of a version path
+    private static final String CONTENT_FOLDER = "sha256/";
+    // Metadata with the number of versions referencing a content-addressed BLOB
+    private static final String REFERENCES_METADATA = "references";
+    // Attempts to update the references before giving up because of concurrent pushes of the same content
+    private static final int MAX_REFERENCE_ATTEMPTS = 10;
+    // Attempts to resume a download interrupted by a network failure
+    private static final int MAX_DOWNLOAD_RETRIES = 5;
+
     private final BlobStorageConfig config;
+    private final BlobDiskCache diskCache;
     private BlobContainerClient meshesContainerClient;
     private BlobContainerClient materialsContainerClient;
+    private ExecutorService uploadExecutor;
+    private ExecutorService downloadExecutor;
+    private Semaphore readAheadBudget;
+
+    // A texture read ahead in memory, whose share of the budget is released when the stream is closed
+    private static final class ReadAheadInputStream extends ByteArrayInputStream {
+        private final Semaphore budget;
+        private final int permits;
+        private boolean released = false;
+
+        private ReadAheadInputStream(byte[] content, Semaphore budget, int permits) {
+            super(content);
+            this.budget = budget;
+            this.permits = permits;
+        }
+
+        @Override
+        public synchronized void close() {
+            if (!released) {
+                released = true;
+                budget.release(permits);
+            }
+        }
+    }
 
     @Autowired
-    public BlobStorageVersionRepositoryImpl(BlobStorageConfig config) {
+    public BlobStorageVersionRepositoryImpl(BlobStorageConfig config, BlobDiskCache diskCache) {
         this.config = config;
+        this.diskCache = diskCache;
+    }
+
+    private ParallelTransferOptions buildParallelTransferOptions() {
+        // Files larger than a block are staged as blocks uploaded in parallel and committed together
+        return new ParallelTransferOptions()
+                .setBlockSizeLong(config.getBlockSizeBytes())
+                .setMaxSingleUploadSizeLong(config.getBlockSizeBytes())
+                .setMaxConcurrency(config.getMaxConcurrency());
+    }
+
+    private void upload(BlobClient blobClient, InputStream dataStream, String contentType, boolean overwrite,
+                        Map<String, String> metadata) {
+        // Headers and metadata are sent with the upload, so no further request is needed to set them
+        BlobHttpHeaders headers = new BlobHttpHeaders()
+                .setContentType(contentType != null ? contentType : "application/octet-stream");
+
+        BlobParallelUploadOptions options = new BlobParallelUploadOptions(dataStream)
+                .setParallelTransferOptions(buildParallelTransferOptions())
+                .setHeaders(headers)
+                .setMetadata(metadata);
+
+        // The wildcard ETag makes the upload fail if the BLOB already exists
+        if (!overwrite) {
+            options.setRequestConditions(new BlobRequestConditions().setIfNoneMatch("*"));
+        }
+
+        blobClient.uploadWithResponse(options, null, Context.NONE);
+    }
+
+    private String hashContent(MultipartFile file) throws IOException {
+        MessageDigest digest;
+
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+
+        try (InputStream dataStream = new DigestInputStream(file.getInputStream(), digest)) {
+            dataStream.transferTo(OutputStream.nullOutputStream());
+        }
+
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private long getReferences(BlobProperties properties) {
+        Map<String, String> metadata = properties.getMetadata();
+        String references = metadata == null ? null : metadata.get(REFERENCES_METADATA);
+
+        try {
+            return references == null ? 1 : Long.parseLong(references);
+        } catch (NumberFormatException e) {
+            return 1;
+        }
+    }
+
+    private void setReferences(BlobClient blobClient, BlobProperties properties, long references) {
+        // The ETag condition fails if the references have been changed after they were read
+        blobClient.setMetadataWithResponse(Map.of(REFERENCES_METADATA, String.valueOf(references)),
+                new BlobRequestConditions().setIfMatch(properties.getETag()), null, Context.NONE);
+    }
+
+    private String saveContent(BlobContainerClient containerClient, MultipartFile file) throws IOException {
+        String hash = hashContent(file);
+        BlobClient blobClient = containerClient.getBlobClient(CONTENT_FOLDER + hash);
+
+        for (int attempt = 0; attempt < MAX_REFERENCE_ATTEMPTS; attempt++) {
+            try {
+                // Content already stored is not uploaded again, it only gains a reference
+                BlobProperties properties = blobClient.getProperties();
+                setReferences(blobClient, properties, getReferences(properties) + 1);
+                return hash;
+            } catch (BlobStorageException e) {
+                // 412: the references changed meanwhile, 404: the content is missing or has just been released
+                if (e.getStatusCode() == 412) {
+                    continue;
+                } else if (e.getStatusCode() != 404) {
+                    throw e;
+                }
+            }
+
+            try (InputStream dataStream = file.getInputStream()) {
+                upload(blobClient, dataStream, file.getContentType(), false, Map.of(REFERENCES_METADATA, "1"));
+                return hash;
+            } catch (BlobStorageException e) {
+                // The same content has been uploaded by a concurrent push, so at the next attempt it gains a reference
+                if (e.getStatusCode() != 409 && e.getStatusCode() != 412) {
+                    throw e;
+                }
+            }
+        }
+
+        throw new VersionException("Too many concurrent pushes of the content of " + file.getOriginalFilename() + " file");
+    }
+
+    private void releaseContent(BlobContainerClient containerClient, String hash) {
+        BlobClient blobClient = containerClient.getBlobClient(CONTENT_FOLDER + hash);
+
+        for (int attempt = 0; attempt < MAX_REFERENCE_ATTEMPTS; attempt++) {
+            try {
+                BlobProperties properties = blobClient.getProperties();
+                long references = getReferences(properties) - 1;
+
+                if (references > 0) {
+                    setReferences(blobClient, properties, references);
+                } else {
+                    // The ETag condition fails if a concurrent push added a reference after they were read
+                    blobClient.deleteWithResponse(null, new BlobRequestConditions().setIfMatch(properties.getETag()),
+                            null, Context.NONE);
+                }
+
+                return;
+            } catch (BlobStorageException e) {
+                // Already deleted, so no version references it
+                if (e.getStatusCode() == 404) {
+                    return;
+                } else if (e.getStatusCode() != 412) {
+                    throw e;
+                }
+            }
+        }
+
+        throw new VersionException("Too many concurrent changes to the references of " + hash + " content");
+    }
+
+    // The container is part of the key, since the same content-addressed path exists in both containers
+    private String cacheKey(BlobClient blobClient) {
+        return blobClient.getContainerName() + "/" + blobClient.getBlobName();
+    }
+
+    private String fileName(String blobPath) {
+        return blobPath.substring(blobPath.lastIndexOf("/") + 1);
+    }
+
+    private void closeQuietly(InputStream inputStream) {
+        try {
+            inputStream.close();
+        } catch (IOException e) {
+            // Nothing more is read from the stream anyway
+        }
+    }
+
+    private BlobDiskCache.CachedBlob openCached(BlobClient blobClient, String eTag) {
+        return diskCache.open(cacheKey(blobClient), eTag, target -> {
+            // The ETag condition fails if the BLOB changed after its properties were read, so a stale copy is never cached
+            Response<BlobProperties> response = blobClient.downloadToFileWithResponse(
+                    new BlobDownloadToFileOptions(target.toString())
+                            .setDownloadRetryOptions(new DownloadRetryOptions().setMaxRetryRequests(MAX_DOWNLOAD_RETRIES))
+                            .setRequestConditions(new BlobRequestConditions().setIfMatch(eTag)),
+                    null, Context.NONE);
+
+            return getContentType(response.getValue().getContentType());
+        });
+    }
+
+    private Pair<InputStream, VersionFileDTO> findContent(BlobContainerClient containerClient, String fileName, String hash) {
+        BlobClient blobClient = containerClient.getBlobClient(CONTENT_FOLDER + hash);
+
+        // The content of a hash never changes, so a cached copy is read without any request to BLOB storage
+        BlobDiskCache.CachedBlob cachedBlob = openCached(blobClient, null);
+
+        if (cachedBlob != null) {
+            return Pair.of(cachedBlob.newInputStream(), new VersionFileDTO(fileName, cachedBlob.getContentType(),
+                    cachedBlob.getSize(), blobClient.getBlobUrl(), null));
+        }
+
+        BlobInputStream inputStream = blobClient.openInputStream();
+
+        // The properties are returned with the first download, so no further request is needed
+        BlobProperties properties = inputStream.getProperties();
+
+        return Pair.of(inputStream, new VersionFileDTO(fileName, getContentType(properties.getContentType()), properties.getBlobSize(),
+                blobClient.getBlobUrl(), null));
+    }
+
+    private Pair<InputStream, VersionFileDTO> findMeshBlob(BlobClient blobClient) {
+        BlobInputStream inputStream = blobClient.openInputStream();
+
+        // The properties are returned with the first download, so no further request is needed
+        BlobProperties properties = inputStream.getProperties();
+        String eTag = properties.getETag();
+        VersionFileDTO file = new VersionFileDTO(fileName(blobClient.getBlobName()), getContentType(properties.getContentType()),
+                properties.getBlobSize(), blobClient.getBlobUrl(), eTag);
+
+        // A mesh not cached yet is streamed from the download already started, while it is cached in background
+        BlobDiskCache.CachedBlob cachedBlob = openCached(blobClient, eTag);
+
+        if (cachedBlob != null) {
+            closeQuietly(inputStream);
+            return Pair.of(cachedBlob.newInputStream(), file);
+        }
+
+        return Pair.of(inputStream, file);
+    }
+
+    private Pair<InputStream, VersionFileDTO> findTexture(BlobItem blobItem) {
+        BlobClient blobClient = materialsContainerClient.getBlobClient(blobItem.getName());
+
+        // The listing already returns the properties of every texture, so the only request is its download
+        BlobItemProperties properties = blobItem.getProperties();
+        String eTag = properties.getETag();
+        VersionFileDTO file = new VersionFileDTO(fileName(blobItem.getName()), getContentType(properties.getContentType()),
+                properties.getContentLength(), blobClient.getBlobUrl(), eTag);
+
+        BlobDiskCache.CachedBlob cachedBlob = openCached(blobClient, eTag);
+
+        if (cachedBlob != null) {
+            return Pair.of(cachedBlob.newInputStream(), file);
+        }
+
+        // The texture is downloaded only if it is unchanged since it was listed
+        return Pair.of(blobClient.openInputStream(new BlobInputStreamOptions()
+                .setRequestConditions(new BlobRequestConditions().setIfMatch(eTag))), file);
+    }
+
+    private Pair<InputStream, VersionFileDTO> readAhead(Pair<InputStream, VersionFileDTO> file) {
+        // Cached textures are already read from the disk, and the size of a texture must be known to reserve its memory
+        if (!(file.getLeft() instanceof BlobInputStream inputStream) || file.getRight().getSize() > Integer.MAX_VALUE - 8) {
+            return file;
+        }
+
+        int size = (int) file.getRight().getSize();
+        int permits = Math.max(1, (size + 1023) / 1024);
+
+        // A texture that doesn't fit in what is left of the budget is streamed from BLOB storage while the response is written
+        if (!readAheadBudget.tryAcquire(permits)) {
+            return file;
+        }
+
+        try (inputStream) {
+            return Pair.of(new ReadAheadInputStream(inputStream.readNBytes(size), readAheadBudget, permits), file.getRight());
+        } catch (IOException e) {
+            readAheadBudget.release(permits);
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            readAheadBudget.release(permits);
+            throw e;
+        }
+    }
+
+    private List<CompletableFuture<Pair<InputStream, VersionFileDTO>>> findInParallel(List<Supplier<Pair<InputStream, VersionFileDTO>>> reads) {
+        // Every file starts downloading at the same time, so the latency of a request is paid once for all of them,
+        // and a texture is fully downloaded in the meantime if it is cached on the disk or read ahead in memory.
+        // The downloads are not awaited here, so the caller can write every file as soon as it is ready
+        List<CompletableFuture<Pair<InputStream, VersionFileDTO>>> downloads = new ArrayList<>();
+
+        for (Supplier<Pair<InputStream, VersionFileDTO>> read : reads) {
+            downloads.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return read.get();
+                } catch (BlobStorageException | UncheckedIOException e) {
+                    // If it is necessary use a RuntimeException for more detailed debug
+                    throw new VersionException("Error during material retrieving in BLOB storage");
+                }
+            }, downloadExecutor));
+        }
+
+        return downloads;
+    }
+
+    private BlobClient meshBlobClientByUrl(String meshUrl) {
+        meshUrl = URLDecoder.decode(meshUrl, StandardCharsets.UTF_8);
+
+        String containerUrl = meshesContainerClient.getBlobContainerUrl() + "/";
+        String relativePath = meshUrl.startsWith(containerUrl)
+                ? meshUrl.substring(containerUrl.length())
+                : meshUrl;
+
+        return meshesContainerClient.getBlobClient(relativePath);
+    }
+
+    private String getContentType(String contentType) {
+        return contentType == null || contentType.isEmpty() ? "application/octet-stream" : contentType;
     }
 
     @PostConstruct
@@ -38,74 +377,228 @@ public class BlobStorageVersionRepositoryImpl implements BlobStorageVersionRepos
 
         this.meshesContainerClient = blobServiceClient.getBlobContainerClient(config.getMeshesContainer());
         this.materialsContainerClient = blobServiceClient.getBlobContainerClient(config.getMaterialsContainer());
+
+        this.uploadExecutor = Executors.newFixedThreadPool(config.getTextureUploadConcurrency(), runnable -> {
+            Thread thread = new Thread(runnable, "blob-texture-upload");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.downloadExecutor = Executors.newFixedThreadPool(config.getTextureDownloadConcurrency(), runnable -> {
+            Thread thread = new Thread(runnable, "blob-texture-download");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        // Permits are KiB, so the budget fits in the int permits of a semaphore
+        this.readAheadBudget = new Semaphore((int) Math.min(Integer.MAX_VALUE, config.getReadAheadMaxBytes() / 1024));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        uploadExecutor.shutdownNow();
+        downloadExecutor.shutdownNow();
+    }
+
+    @Override
+    public Map<String, String> saveMesh(VersionDTO versionDTO) {
+        MultipartFile mesh = versionDTO.getMesh();
+
+        try {
+            return Map.of(mesh.getOriginalFilename(), saveContent(meshesContainerClient, mesh));
+        } catch (BlobStorageException | IOException | UncheckedIOException e) {
+            // If it is necessary use a RuntimeException for more detailed debug
+            throw new VersionException("Error during mesh saving in BLOB storage for " + mesh.getOriginalFilename() + " file");
+        }
     }
 
     @Override
-    public String saveMesh(VersionDTO versionDTO) {
+    public String saveMesh(VersionDTO versionDTO, String fileName, String contentType, InputStream dataStream) {
         String repoFolder = versionDTO.getRepositoryName();
         String branchFolder = versionDTO.getBranchName();
         String resourceFolder = versionDTO.getResourceName();
         String versionName = versionDTO.getVersionName();
-        MultipartFile mesh = versionDTO.getMesh();
 
         // BLOB path: repoName/resourceName/branchName/versionName/fileName
-        String blobPath = repoFolder + "/" + resourceFolder + "/" + branchFolder + "/" + versionName + "/" + mesh.getOriginalFilename();
+        String blobPath = repoFolder + "/" + resourceFolder + "/" + branchFolder + "/" + versionName + "/" + fileName;
 
         try {
             BlobClient blobClient = meshesContainerClient.getBlobClient(blobPath);
 
-            try (InputStream dataStream = mesh.getInputStream()) {
-                blobClient.upload(dataStream, mesh.getSize(), true);
+            upload(blobClient, dataStream, contentType, true, null);
+
+            return blobClient.getBlobUrl();
+        } catch (BlobStorageException | UncheckedIOException e) {
+            // If it is necessary use a RuntimeException for more detailed debug
+            throw new VersionException("Error during mesh saving in BLOB storage for " + fileName + " file");
+        }
+    }
+
+    // Every block ID of a BLOB must have the same length, so the index is zero padded
+    private String blockId(int chunkIndex) {
+        return Base64.getEncoder().encodeToString(String.format("%06d", chunkIndex).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private BlockBlobClient meshBlockBlobClient(VersionDTO versionDTO, String fileName) {
+        // BLOB path: repoName/resourceName/branchName/versionName/fileName
+        String blobPath = versionDTO.getRepositoryName() + "/" + versionDTO.getResourceName() + "/" +
+                versionDTO.getBranchName() + "/" + versionDTO.getVersionName() + "/" + fileName;
+
+        return meshesContainerClient.getBlobClient(blobPath).getBlockBlobClient();
+    }
+
+    @Override
+    public void stageMeshChunk(VersionDTO versionDTO, String fileName, int chunkIndex, InputStream dataStream, long size, byte[] contentMd5) {
+        try {
+            meshBlockBlobClient(versionDTO, fileName)
+                    .stageBlockWithResponse(blockId(chunkIndex), dataStream, size, contentMd5, null, null, Context.NONE);
+        } catch (BlobStorageException e) {
+            if (BlobErrorCode.MD5MISMATCH.equals(e.getErrorCode())) {
+                throw new InvalidMeshException("Checksum mismatch for chunk " + chunkIndex + " of " + fileName + " file");
             }
 
+            // If it is necessary use a RuntimeException for more detailed debug
+            throw new VersionException("Error during chunk saving in BLOB storage for " + fileName + " file");
+        } catch (UncheckedIOException | IllegalStateException e) {
+            // The request body ended before the declared size of the chunk
+            throw new VersionException("Error during chunk saving in BLOB storage for " + fileName + " file");
+        }
+    }
+
+    @Override
+    public String commitMeshChunks(VersionDTO versionDTO, String fileName, int chunkCount, String contentType) {
+        List<String> blockIds = new ArrayList<>();
+
+        for (int i = 0; i < chunkCount; i++) {
+            blockIds.add(blockId(i));
+        }
+
+        try {
+            BlockBlobClient blockBlobClient = meshBlockBlobClient(versionDTO, fileName);
+
             BlobHttpHeaders headers = new BlobHttpHeaders()
-                    .setContentType(mesh.getContentType() != null ? mesh.getContentType() : "application/octet-stream");
-            blobClient.setHttpHeaders(headers);
+                    .setContentType(contentType != null ? contentType : "application/octet-stream");
 
-            return blobClient.getBlobUrl();
-        } catch (BlobStorageException | IOException e) {
+            blockBlobClient.commitBlockListWithResponse(
+                    new BlockBlobCommitBlockListOptions(blockIds).setHeaders(headers), null, Context.NONE);
+
+            return blockBlobClient.getBlobUrl();
+        } catch (BlobStorageException e) {
             // If it is necessary use a RuntimeException for more detailed debug
-            throw new VersionException("Error during mesh saving in BLOB storage for " + mesh.getOriginalFilename() + " file");
+            throw new VersionException("Error during mesh saving in BLOB storage for " + fileName + " file");
         }
     }
 
     @Override
-    public String saveMaterial(VersionDTO versionDTO) {
-        String repoFolder = versionDTO.getRepositoryName();
-        String branchFolder = versionDTO.getBranchName();
-        String resourceFolder = versionDTO.getResourceName();
-        String versionName = versionDTO.getVersionName();
+    public void discardMeshChunks(VersionDTO versionDTO, String fileName) {
+        try {
+            BlockBlobClient blockBlobClient = meshBlockBlobClient(versionDTO, fileName);
+
+            // Uncommitted blocks can't be deleted directly, committing an empty list drops them
+            blockBlobClient.commitBlockList(List.of(), true);
+            blockBlobClient.delete();
+        } catch (BlobStorageException e) {
+            // If it is necessary use a RuntimeException for more detailed debug
+            throw new VersionException("Error discarding mesh chunks in BLOB storage for " + fileName + " file");
+        }
+    }
+
+    @Override
+    public Map<String, String> saveMaterial(VersionDTO versionDTO) {
         List<MultipartFile> material = versionDTO.getMaterial();
 
+        // Textures are hashed and uploaded in parallel, so the push takes about the time of the largest new texture
+        Map<String, Future<String>> uploads = new LinkedHashMap<>();
+
         for (MultipartFile texture : material) {
-            // BLOB path: repoName/resourceName/branchName/versionName/textureFileName
-            String blobPath = repoFolder + "/" + resourceFolder + "/" + branchFolder + "/" + versionName + "/" + texture.getOriginalFilename();
+            uploads.put(texture.getOriginalFilename(), uploadExecutor.submit(() -> saveContent(materialsContainerClient, texture)));
+        }
 
-            BlobClient blobClient = materialsContainerClient.getBlobClient(blobPath);
+        Map<String, String> contentHashes = new LinkedHashMap<>();
+        String failedTexture = null;
 
+        // Every upload is awaited before reporting a failure, so every reference taken is released by the rollback
+        for (Map.Entry<String, Future<String>> upload : uploads.entrySet()) {
             try {
-                InputStream dataStream = texture.getInputStream();
-                blobClient.upload(dataStream, texture.getSize(), false);
+                contentHashes.put(upload.getKey(), upload.getValue().get());
+            } catch (ExecutionException e) {
+                if (failedTexture == null) {
+                    failedTexture = upload.getKey();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
 
-                BlobHttpHeaders headers = new BlobHttpHeaders()
-                        .setContentType(texture.getContentType() != null ? texture.getContentType() : "application/octet-stream");
-                blobClient.setHttpHeaders(headers);
-            } catch (BlobStorageException | IOException e) {
-                // If it is necessary use a RuntimeException for more detailed debug
-                throw new VersionException("Error during material saving in BLOB storage for " + texture.getOriginalFilename() + " file");
+                if (failedTexture == null) {
+                    failedTexture = upload.getKey();
+                }
+            }
+        }
+
+        if (failedTexture != null) {
+            try {
+                releaseMaterial(contentHashes.values());
+            } catch (VersionException e) {
+                // The upload failure is reported anyway, at worst some textures keep a reference of a version never created
             }
+
+            // If it is necessary use a RuntimeException for more detailed debug
+            throw new VersionException("Error during material saving in BLOB storage for " + failedTexture + " file");
         }
 
-        BlobClient folderClient;
+        return contentHashes;
+    }
+
+    @Override
+    public void releaseMesh(Collection<String> hashes) {
+        try {
+            for (String hash : hashes) {
+                releaseContent(meshesContainerClient, hash);
+            }
+        } catch (BlobStorageException e) {
+            // If it is necessary use a RuntimeException for more detailed debug
+            throw new VersionException("Error releasing mesh in BLOB storage");
+        }
+    }
 
+    @Override
+    public void releaseMaterial(Collection<String> hashes) {
         try {
-            String folderBlobPath = repoFolder + "/"  + resourceFolder + "/" + branchFolder + "/" + versionName;
-            folderClient = materialsContainerClient.getBlobClient(folderBlobPath);
+            for (String hash : hashes) {
+                releaseContent(materialsContainerClient, hash);
+            }
         } catch (BlobStorageException e) {
-            throw new VersionException("Error during material saving in BLOB storage");
+            // If it is necessary use a RuntimeException for more detailed debug
+            throw new VersionException("Error releasing material in BLOB storage");
+        }
+    }
+
+    @Override
+    public Pair<InputStream, VersionFileDTO> findMeshByHash(String fileName, String hash) {
+        if (hash == null || hash.isEmpty()) {
+            throw new VersionException("Mesh hash can't be null or empty");
         }
 
-        return folderClient.getBlobUrl();
+        try {
+            return findContent(meshesContainerClient, fileName, hash);
+        } catch (BlobStorageException e) {
+            // If it is necessary use a RuntimeException for more detailed debug
+            throw new VersionException("Error during mesh retrieving in BLOB storage");
+        }
+    }
+
+    @Override
+    public List<CompletableFuture<Pair<InputStream, VersionFileDTO>>> findMaterialByHashes(Map<String, String> contentHashes) {
+        if (contentHashes == null || contentHashes.isEmpty()) {
+            throw new VersionException("Material hashes can't be null or empty");
+        }
+
+        List<Supplier<Pair<InputStream, VersionFileDTO>>> reads = new ArrayList<>();
+
+        for (Map.Entry<String, String> texture : contentHashes.entrySet()) {
+            reads.add(() -> readAhead(findContent(materialsContainerClient, texture.getKey(), texture.getValue())));
+        }
+
+        return findInParallel(reads);
     }
 
     @Override
@@ -160,50 +653,24 @@ public class BlobStorageVersionRepositoryImpl implements BlobStorageVersionRepos
     }
 
     @Override
-    public Triple<InputStream, String, String> findMeshByUrl(String meshUrl) {
+    public Pair<InputStream, VersionFileDTO> findMeshByUrl(String meshUrl) {
         if (meshUrl == null || meshUrl.isEmpty()) {
             throw new VersionException("Mesh URL can't be null or empty");
-        } else {
-            existsMeshByUrl(meshUrl);
         }
 
-        InputStream inputStream;
-        String contentType;
-        String meshName;
-
+        // A missing mesh makes the download fail, so its existence is not checked with a request of its own
         try {
-            meshUrl = URLDecoder.decode(meshUrl, StandardCharsets.UTF_8);
-
-            String containerUrl = meshesContainerClient.getBlobContainerUrl() + "/";
-            String relativePath = meshUrl.startsWith(containerUrl)
-                    ? meshUrl.substring(containerUrl.length())
-                    : meshUrl;
-
-            BlobClient blobClient = meshesContainerClient.getBlobClient(relativePath);
-
-            inputStream = blobClient.openInputStream();
-
-            String path = blobClient.getBlobName();
-            meshName = path.substring(path.lastIndexOf("/") + 1);
-
-            contentType = blobClient.getProperties().getContentType();
-            if (contentType == null || contentType.isEmpty()) {
-                contentType = "application/octet-stream";
-            }
-        } catch (BlobStorageException e) {
+            return findMeshBlob(meshBlobClientByUrl(meshUrl));
+        } catch (BlobStorageException | UncheckedIOException e) {
             // If it is necessary use a RuntimeException for more detailed debug
             throw new VersionException("Error during mesh retrieving in BLOB storage");
         }
-
-        return Triple.of(inputStream, contentType, meshName);
     }
 
     @Override
-    public List<Triple<InputStream, String, String>> findMaterialByUrl(String materialFolderUrl) {
+    public List<CompletableFuture<Pair<InputStream, VersionFileDTO>>> findMaterialByUrl(String materialFolderUrl) {
         if (materialFolderUrl == null || materialFolderUrl.isEmpty()) {
             throw new VersionException("Material URL can't be null or empty");
-        } else {
-            existsMaterialByUrl(materialFolderUrl);
         }
 
         try {
@@ -218,25 +685,85 @@ public class BlobStorageVersionRepositoryImpl implements BlobStorageVersionRepos
                 relativePath += "/";
             }
 
-            return materialsContainerClient.listBlobsByHierarchy(relativePath).stream()
-                    .map(blobItem -> {
-                        BlobClient client = materialsContainerClient.getBlobClient(blobItem.getName());
-                        String path = client.getBlobName();
-                        String textureName = path.substring(path.lastIndexOf("/") + 1);
-                        InputStream inputStream = client.openInputStream();
-                        String contentType = client.getProperties().getContentType();
-                        if (contentType == null || contentType.isEmpty()) {
-                            contentType = "application/octet-stream";
-                        }
-                        return Triple.of(inputStream, contentType, textureName);
-                    })
-                    .toList();
+            // A single listing both checks the existence of the material and returns the properties of its textures
+            List<Supplier<Pair<InputStream, VersionFileDTO>>> reads = new ArrayList<>();
+
+            for (BlobItem blobItem : materialsContainerClient.listBlobsByHierarchy(relativePath)) {
+                if (!Boolean.TRUE.equals(blobItem.isPrefix())) {
+                    reads.add(() -> readAhead(findTexture(blobItem)));
+                }
+            }
+
+            return findInParallel(reads);
         } catch (BlobStorageException e) {
             // If it is necessary use a RuntimeException for more detailed debug
             throw new VersionException("Error during material retrieving in BLOB storage");
         }
     }
 
+    @Override
+    public VersionFileDTO findMeshPropertiesByUrl(String meshUrl) {
+        if (meshUrl == null || meshUrl.isEmpty()) {
+            throw new VersionException("Mesh URL can't be null or empty");
+        }
+
+        try {
+            BlobClient blobClient = meshBlobClientByUrl(meshUrl);
+            BlobProperties properties = blobClient.getProperties();
+
+            String path = blobClient.getBlobName();
+            String meshName = path.substring(path.lastIndexOf("/") + 1);
+
+            // A mesh stored by path could be overwritten, so it is downloaded only if its BLOB is unchanged
+            return new VersionFileDTO(meshName, getContentType(properties.getContentType()), properties.getBlobSize(),
+                    blobClient.getBlobUrl(), properties.getETag());
+        } catch (BlobStorageException e) {
+            // If it is necessary use a RuntimeException for more detailed debug
+            throw new VersionException("Error during mesh retrieving in BLOB storage");
+        }
+    }
+
+    @Override
+    public VersionFileDTO findMeshPropertiesByHash(String fileName, String hash) {
+        if (hash == null || hash.isEmpty()) {
+            throw new VersionException("Mesh hash can't be null or empty");
+        }
+
+        try {
+            BlobClient blobClient = meshesContainerClient.getBlobClient(CONTENT_FOLDER + hash);
+            BlobProperties properties = blobClient.getProperties();
+
+            // The ETag of the BLOB changes with its references, while its content never changes
+            return new VersionFileDTO(fileName, getContentType(properties.getContentType()), properties.getBlobSize(),
+                    blobClient.getBlobUrl(), null);
+        } catch (BlobStorageException e) {
+            // If it is necessary use a RuntimeException for more detailed debug
+            throw new VersionException("Error during mesh retrieving in BLOB storage");
+        }
+    }
+
+    @Override
+    public void downloadMesh(VersionFileDTO meshFile, OutputStream outputStream, long offset, long count) {
+        try {
+            BlobClient blobClient = meshBlobClientByUrl(meshFile.getBlobUrl());
+
+            try (BlobDiskCache.CachedBlob cachedBlob = openCached(blobClient, meshFile.getBlobETag())) {
+                if (cachedBlob != null) {
+                    cachedBlob.transferTo(outputStream, offset, count);
+                    return;
+                }
+            }
+
+            // The downloaded buffers are written to the stream as they arrive, without an intermediate input stream
+            blobClient.downloadStreamWithResponse(outputStream, new BlobRange(offset, count),
+                    new DownloadRetryOptions().setMaxRetryRequests(MAX_DOWNLOAD_RETRIES),
+                    new BlobRequestConditions().setIfMatch(meshFile.getBlobETag()), false, null, Context.NONE);
+        } catch (BlobStorageException | IOException | UncheckedIOException e) {
+            // If it is necessary use a RuntimeException for more detailed debug
+            throw new VersionException("Error during mesh download from BLOB storage for " + meshFile.getFileName() + " file");
+        }
+    }
+
     @Override
     public void deleteMeshByUrl(String meshUrl) {
         if (meshUrl == null || meshUrl.isEmpty()) {
@@ -21,4 +21,11 @@ public class CosmosConfig {
 
     @Value("${COSMOS_SQL_CONTAINER_TOKEN_BLACKLIST}")
     private String tokenBlacklistContainerName;
+
+    // Local copy of the token blacklist, kept fresh with a periodic incremental sync
+    @Value("${COSMOS_TOKEN_BLACKLIST_CACHE_ENABLED:true}")
+    private boolean tokenBlacklistCacheEnabled;
+
+    @Value("${COSMOS_TOKEN_BLACKLIST_SYNC_INTERVAL_MS:10000}")
+    private long tokenBlacklistSyncIntervalMs;
 }
\ No newline at end of file
@@ -1,11 +1,13 @@
 package it.unisa.ddditserver.db.cosmos.auth;
 
+import java.util.Map;
+
 /**
  * Repository interface for managing authentication-related operations
  * in a Cosmos DB.
  *
  * @author Angelo Antonio Prisco
- * @version 1.0
+ * @version 1.1
  * @since 2025-08-25
  */
 public interface CosmosAuthRepository {
@@ -23,4 +25,12 @@ public interface CosmosAuthRepository {
      * @return true if the token is blacklisted (revoked), false otherwise
      */
     boolean isTokenBlacklisted(String token);
-}
\ No newline at end of file
+
+    /**
+     * Finds the tokens added to the blacklist or updated since the specified timestamp.
+     *
+     * @param modifiedSince the epoch second from which the changes are read, 0 to read the whole blacklist
+     * @return a map from each blacklisted token to the epoch second in which its entry expires
+     */
+    Map<String, Long> findBlacklistedTokens(long modifiedSince);
+}
@@ -3,13 +3,19 @@ package it.unisa.ddditserver.db.cosmos.auth;
 import com.auth0.jwt.JWT;
 import com.auth0.jwt.interfaces.DecodedJWT;
 import com.azure.cosmos.*;
+import com.azure.cosmos.models.CosmosQueryRequestOptions;
 import com.azure.cosmos.models.PartitionKey;
+import com.azure.cosmos.models.SqlParameter;
+import com.azure.cosmos.models.SqlQuerySpec;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import it.unisa.ddditserver.subsystems.auth.dto.BlacklistedTokenDTO;
 import it.unisa.ddditserver.subsystems.auth.exceptions.AuthException;
 import it.unisa.ddditserver.db.cosmos.CosmosConfig;
 import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
+import java.util.HashMap;
+import java.util.Map;
 
 @Repository
 public class CosmosAuthRepositoryImpl implements CosmosAuthRepository {
@@ -70,5 +76,26 @@ public class CosmosAuthRepositoryImpl implements CosmosAuthRepository {
             throw new AuthException("Error checking blacklisted token");
         }
     }
-}
 
+    @Override
+    public Map<String, Long> findBlacklistedTokens(long modifiedSince) {
+        // _ts is the epoch second of the last write of the item and the TTL of an item starts from it
+        SqlQuerySpec query = new SqlQuerySpec(
+                "SELECT c.id, c.ttl, c._ts FROM c WHERE c._ts >= @modifiedSince",
+                new SqlParameter("@modifiedSince", modifiedSince));
+
+        try {
+            Map<String, Long> tokens = new HashMap<>();
+
+            for (ObjectNode item : blacklistContainer.queryItems(query, new CosmosQueryRequestOptions(), ObjectNode.class)) {
+                long expiresAt = item.get("_ts").asLong() + item.get("ttl").asLong();
+                tokens.put(item.get("id").asText(), expiresAt);
+            }
+
+            return tokens;
+        } catch (CosmosException e) {
+            // If it is necessary use a RuntimeException for more detailed debug
+            throw new AuthException("Error reading token blacklist");
+        }
+    }
+}
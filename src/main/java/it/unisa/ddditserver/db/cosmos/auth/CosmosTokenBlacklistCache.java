@@ -0,0 +1,123 @@
+package it.unisa.ddditserver.db.cosmos.auth;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.exceptions.JWTDecodeException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import it.unisa.ddditserver.db.cosmos.CosmosConfig;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Component keeping an in-memory copy of the token blacklist stored in Cosmos DB.
+ *
+ * The whole blacklist is loaded with the first sync at startup, then only the entries written
+ * since the previous sync are read, so checking a token that is not revoked is a local lookup.
+ * Entries are dropped when the token expires, exactly as Cosmos DB does with the TTL of the item.
+ * While the local copy is disabled through {@link CosmosConfig}, not loaded yet or stale because
+ * the sync keeps failing, every check falls back to a point read on {@link CosmosAuthRepository}.
+ *
+ * @author Angelo Antonio Prisco
+ * @version 1.0
+ * @since 2025-09-02
+ */
+@Component
+public class CosmosTokenBlacklistCache {
+    // The sync window overlaps the previous one to tolerate clock skew between this server and Cosmos DB
+    private static final long SYNC_OVERLAP_SECONDS = 60;
+    // Number of failed sync intervals after which the local copy is no longer trusted
+    private static final int MAX_MISSED_SYNCS = 3;
+
+    private final CosmosAuthRepository cosmosAuthRepository;
+    private final boolean enabled;
+    private final long syncIntervalMs;
+    private final Map<String, Long> tokens = new ConcurrentHashMap<>();
+    private final Counter remoteChecks;
+    private final Counter syncFailures;
+
+    private volatile long modifiedSince = 0;
+    private volatile long lastSyncMillis = 0;
+
+    @Autowired
+    public CosmosTokenBlacklistCache(CosmosAuthRepository cosmosAuthRepository, CosmosConfig config, MeterRegistry meterRegistry) {
+        this.cosmosAuthRepository = cosmosAuthRepository;
+        this.enabled = config.isTokenBlacklistCacheEnabled();
+        this.syncIntervalMs = config.getTokenBlacklistSyncIntervalMs();
+        this.remoteChecks = meterRegistry.counter("auth.token_blacklist.remote_checks");
+        this.syncFailures = meterRegistry.counter("auth.token_blacklist.sync.failures");
+
+        meterRegistry.gaugeMapSize("auth.token_blacklist.size", Tags.empty(), tokens);
+    }
+
+    private boolean isFresh() {
+        return lastSyncMillis > 0 && System.currentTimeMillis() - lastSyncMillis <= MAX_MISSED_SYNCS * syncIntervalMs;
+    }
+
+    /**
+     * Checks if a token is present in the blacklist, locally when the copy is fresh.
+     *
+     * @param token the unique identifier of the token
+     * @return true if the token is blacklisted (revoked), false otherwise
+     */
+    public boolean isTokenBlacklisted(String token) {
+        if (!enabled || !isFresh()) {
+            remoteChecks.increment();
+            return cosmosAuthRepository.isTokenBlacklisted(token);
+        }
+
+        Long expiresAt = tokens.get(token);
+
+        return expiresAt != null && expiresAt > System.currentTimeMillis() / 1000;
+    }
+
+    /**
+     * Adds a JWT token to the blacklist in Cosmos DB and to the local copy,
+     * so it is revoked immediately on this server and within a sync interval on the others.
+     *
+     * @param token the unique identifier of the token
+     */
+    public void blacklistToken(String token) {
+        cosmosAuthRepository.blacklistToken(token);
+
+        try {
+            Date expiresAt = JWT.decode(token).getExpiresAt();
+
+            if (expiresAt != null) {
+                tokens.put(token, expiresAt.getTime() / 1000);
+            }
+        } catch (JWTDecodeException e) {
+            // The token will be read with the next sync
+        }
+    }
+
+    /**
+     * Reads the entries written since the previous sync and drops the expired ones.
+     * A failed sync keeps the current copy, which is trusted until it becomes stale.
+     */
+    @Scheduled(fixedDelayString = "${COSMOS_TOKEN_BLACKLIST_SYNC_INTERVAL_MS:10000}")
+    public void sync() {
+        if (!enabled) {
+            return;
+        }
+
+        long startedAt = System.currentTimeMillis();
+
+        try {
+            tokens.putAll(cosmosAuthRepository.findBlacklistedTokens(modifiedSince));
+        } catch (Exception e) {
+            syncFailures.increment();
+            return;
+        }
+
+        long now = startedAt / 1000;
+        tokens.values().removeIf(expiresAt -> expiresAt <= now);
+
+        modifiedSince = Math.max(0, now - SYNC_OVERLAP_SECONDS);
+        lastSyncMillis = startedAt;
+    }
+}
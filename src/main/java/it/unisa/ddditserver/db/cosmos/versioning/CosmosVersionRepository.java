@@ -1,13 +1,17 @@
 package it.unisa.ddditserver.db.cosmos.versioning;
 
+import it.unisa.ddditserver.subsystems.versioning.dto.version.CosmosVersionDTO;
+import it.unisa.ddditserver.subsystems.versioning.dto.version.TagsStatus;
 import it.unisa.ddditserver.subsystems.versioning.dto.version.VersionDTO;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Repository interface for managing version-related operations
  * in a Cosmos DB.
  *
  * @author Angelo Antonio Prisco
- * @version 1.0
+ * @version 1.2
  * @since 2025-08-25
  */
 public interface CosmosVersionRepository {
@@ -19,6 +23,16 @@ public interface CosmosVersionRepository {
      */
     String saveVersion(VersionDTO versionDTO, String versionUrl);
 
+    /**
+     * Saves a version document in CosmosDB with version metadata and the hashes of its content-addressed files.
+     *
+     * @param versionDTO the VersionDTO containing all version information
+     * @param versionUrl the BLOB storage URL of the version, null if it is content-addressed
+     * @param contentHashes the SHA-256 hash of the content of every file by file name, null if stored by path
+     * @return the CosmosDB URL of the document
+     */
+    String saveVersion(VersionDTO versionDTO, String versionUrl, Map<String, String> contentHashes);
+
     /**
      * Retrieves a version metadata from CosmosDB based on the provided document URL.
      *
@@ -27,6 +41,14 @@ public interface CosmosVersionRepository {
      */
     VersionDTO findVersionByUrl(String cosmosDocumentUrl);
 
+    /**
+     * Retrieves the whole version document from CosmosDB based on the provided document URL.
+     *
+     * @param cosmosDocumentUrl the CosmosDB URL that identifies the document
+     * @return a {@link CosmosVersionDTO} containing the version document
+     */
+    CosmosVersionDTO findVersionDocumentByUrl(String cosmosDocumentUrl);
+
     /**
      * Retrieves the BLOB URL from the CosmosDB document based on the provided document URL.
      *
@@ -41,4 +63,13 @@ public interface CosmosVersionRepository {
      * @param cosmosDocumentUrl the CosmosDB URL that identifies the document
      */
     void deleteVersionByUrl(String cosmosDocumentUrl);
+
+    /**
+     * Updates the tags of a version and the status of its classification.
+     *
+     * @param cosmosDocumentUrl the CosmosDB URL that identifies the document
+     * @param tags the tags of the version
+     * @param tagsStatus the new status of the tag classification
+     */
+    void updateTags(String cosmosDocumentUrl, List<String> tags, TagsStatus tagsStatus);
 }
@@ -4,6 +4,7 @@ import com.azure.cosmos.*;
 import com.azure.cosmos.models.*;
 import it.unisa.ddditserver.db.cosmos.CosmosConfig;
 import it.unisa.ddditserver.subsystems.versioning.dto.version.CosmosVersionDTO;
+import it.unisa.ddditserver.subsystems.versioning.dto.version.TagsStatus;
 import it.unisa.ddditserver.subsystems.versioning.dto.version.VersionDTO;
 import it.unisa.ddditserver.subsystems.versioning.exceptions.version.VersionException;
 import jakarta.annotation.PostConstruct;
@@ -12,6 +13,8 @@ import org.springframework.stereotype.Repository;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @Repository
@@ -50,6 +53,11 @@ public class CosmosVersionRepositoryImpl implements CosmosVersionRepository {
 
     @Override
     public String saveVersion(VersionDTO versionDTO, String blobUrl) {
+        return saveVersion(versionDTO, blobUrl, null);
+    }
+
+    @Override
+    public String saveVersion(VersionDTO versionDTO, String blobUrl, Map<String, String> contentHashes) {
         CosmosVersionDTO cosmosVersion = new CosmosVersionDTO(
                 UUID.randomUUID().toString(),
                 versionDTO.getResourceName(),
@@ -59,7 +67,9 @@ public class CosmosVersionRepositoryImpl implements CosmosVersionRepository {
                 versionDTO.getPushedAt(),
                 versionDTO.getComment(),
                 versionDTO.getTags(),
-                blobUrl
+                blobUrl,
+                versionDTO.getTagsStatus(),
+                contentHashes
         );
 
         try {
@@ -101,7 +111,7 @@ public class CosmosVersionRepositoryImpl implements CosmosVersionRepository {
                     null, cosmosVersion.getVersionName(),
                     cosmosVersion.getUsername(), cosmosVersion.getPushedAt(),
                     cosmosVersion.getComment(), cosmosVersion.getTags(),
-                    null, null
+                    null, null, cosmosVersion.getTagsStatus()
             );
         } catch (CosmosException | URISyntaxException e) {
             // If it is necessary use a RuntimeException for more detailed debug
@@ -110,7 +120,7 @@ public class CosmosVersionRepositoryImpl implements CosmosVersionRepository {
     }
 
     @Override
-    public String getBlobUrlByUrl(String cosmosDocumentUrl) {
+    public CosmosVersionDTO findVersionDocumentByUrl(String cosmosDocumentUrl) {
         try {
             URI uri = new URI(cosmosDocumentUrl);
             String[] pathSegments = uri.getPath().split("/");
@@ -123,13 +133,18 @@ public class CosmosVersionRepositoryImpl implements CosmosVersionRepository {
                 throw new VersionException("CosmosDB document version not found in CosmosDB");
             }
 
-            return cosmosVersion.getBlobUrl();
+            return cosmosVersion;
         } catch (CosmosException | URISyntaxException e) {
             // If it is necessary use a RuntimeException for more detailed debug
             throw new VersionException("Error retrieving version document from CosmosDB via URL");
         }
     }
 
+    @Override
+    public String getBlobUrlByUrl(String cosmosDocumentUrl) {
+        return findVersionDocumentByUrl(cosmosDocumentUrl).getBlobUrl();
+    }
+
     @Override
     public void deleteVersionByUrl(String cosmosDocumentUrl) {
         try {
@@ -144,4 +159,25 @@ public class CosmosVersionRepositoryImpl implements CosmosVersionRepository {
             throw new VersionException("Error deleting version document in CosmosDB");
         }
     }
+
+    @Override
+    public void updateTags(String cosmosDocumentUrl, List<String> tags, TagsStatus tagsStatus) {
+        try {
+            URI uri = new URI(cosmosDocumentUrl);
+            String[] pathSegments = uri.getPath().split("/");
+            String versionId = pathSegments[pathSegments.length - 1];
+
+            String query = uri.getQuery();
+
+            // Only the classification fields are patched, so the rest of the document is never rewritten
+            CosmosPatchOperations operations = CosmosPatchOperations.create()
+                    .set("/tags", tags)
+                    .set("/tagsStatus", tagsStatus.name());
+
+            container.patchItem(versionId, new PartitionKey(getPartitionKey(query)), operations, CosmosVersionDTO.class);
+        } catch (CosmosException | URISyntaxException e) {
+            // If it is necessary use a RuntimeException for more detailed debug
+            throw new VersionException("Error updating version tags in CosmosDB");
+        }
+    }
 }
\ No newline at end of file
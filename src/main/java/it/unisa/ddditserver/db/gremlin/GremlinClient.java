@@ -0,0 +1,93 @@
+package it.unisa.ddditserver.db.gremlin;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.tinkerpop.gremlin.driver.Client;
+import org.apache.tinkerpop.gremlin.driver.ResultSet;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Thin wrapper of the shared Gremlin {@link Client} that measures how the pool is used.
+ *
+ * The driver does not expose the connections borrowed or the requests queued on them, so every request is tracked
+ * from its submission until all of its results are available, including the wait for a free connection.
+ * The requests in flight are exposed through {@code gremlin.requests.inflight} and their latency through
+ * {@code gremlin.requests}, tagged with the outcome.
+ *
+ * @author Angelo Antonio Prisco
+ * @version 1.0
+ * @since 2025-09-02
+ */
+public class GremlinClient {
+    private final Client client;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Timer succeeded;
+    private final Timer failed;
+
+    public GremlinClient(Client client, MeterRegistry meterRegistry) {
+        this.client = client;
+
+        meterRegistry.gauge("gremlin.requests.inflight", inFlight);
+        this.succeeded = Timer.builder("gremlin.requests")
+                .description("Time from the submission of a Gremlin request until all of its results are available")
+                .tag("outcome", "success")
+                .register(meterRegistry);
+        this.failed = Timer.builder("gremlin.requests")
+                .description("Time from the submission of a Gremlin request until all of its results are available")
+                .tag("outcome", "error")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Submits a script without parameters, see {@link Client#submit(String)}.
+     *
+     * @param gremlin the Gremlin script
+     * @return the results of the script, read asynchronously
+     */
+    public ResultSet submit(String gremlin) {
+        return track(() -> client.submit(gremlin));
+    }
+
+    /**
+     * Submits a parameterized script, see {@link Client#submit(String, Map)}.
+     *
+     * @param gremlin the Gremlin script
+     * @param parameters the values bound to the parameters of the script
+     * @return the results of the script, read asynchronously
+     */
+    public ResultSet submit(String gremlin, Map<String, Object> parameters) {
+        return track(() -> client.submit(gremlin, parameters));
+    }
+
+    private ResultSet track(Supplier<ResultSet> request) {
+        long start = System.nanoTime();
+        inFlight.incrementAndGet();
+
+        ResultSet resultSet;
+
+        try {
+            resultSet = request.get();
+        } catch (RuntimeException e) {
+            complete(failed, start);
+            throw e;
+        }
+
+        // Waiting on the results would consume them, so the request is completed when they are all available
+        resultSet.allItemsAvailableAsync()
+                .whenComplete((ignored, e) -> complete(e == null ? succeeded : failed, start));
+
+        return resultSet;
+    }
+
+    private void complete(Timer timer, long start) {
+        inFlight.decrementAndGet();
+        timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    public void close() {
+        client.close();
+    }
+}
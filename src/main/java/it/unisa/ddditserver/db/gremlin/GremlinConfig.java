@@ -16,4 +16,44 @@ public class GremlinConfig {
 
     @Value("${GREMLIN_KEY}")
     private String key;
+
+    @Value("${GREMLIN_MIN_CONNECTION_POOL_SIZE:2}")
+    private int minConnectionPoolSize;
+
+    @Value("${GREMLIN_MAX_CONNECTION_POOL_SIZE:8}")
+    private int maxConnectionPoolSize;
+
+    @Value("${GREMLIN_MAX_IN_PROCESS_PER_CONNECTION:32}")
+    private int maxInProcessPerConnection;
+
+    @Value("${GREMLIN_MAX_SIMULTANEOUS_USAGE_PER_CONNECTION:32}")
+    private int maxSimultaneousUsagePerConnection;
+
+    @Value("${GREMLIN_MAX_WAIT_FOR_CONNECTION_MS:5000}")
+    private int maxWaitForConnection;
+
+    @Value("${GREMLIN_MAX_CONTENT_LENGTH:2097152}")
+    private int maxContentLength;
+
+    // A value lower than 1 keeps the default of the Gremlin driver (twice the available processors)
+    @Value("${GREMLIN_WORKER_POOL_SIZE:0}")
+    private int workerPoolSize;
+
+    // Cache of the role of a user on a repository, used to answer authorization checks without a round trip
+    @Value("${GREMLIN_ROLE_CACHE_ENABLED:true}")
+    private boolean roleCacheEnabled;
+
+    @Value("${GREMLIN_ROLE_CACHE_TTL_SECONDS:60}")
+    private long roleCacheTtlSeconds;
+
+    @Value("${GREMLIN_ROLE_CACHE_MAX_SIZE:10000}")
+    private long roleCacheMaxSize;
+
+    // One-time migration that creates the HAS_LAST_VERSION pointer for the branches created before its introduction
+    @Value("${GREMLIN_BACKFILL_LAST_VERSION:false}")
+    private boolean backfillLastVersion;
+
+    // One-time migration that stores the composite version key on the versions created before its introduction
+    @Value("${GREMLIN_BACKFILL_VERSION_KEY:false}")
+    private boolean backfillVersionKey;
 }
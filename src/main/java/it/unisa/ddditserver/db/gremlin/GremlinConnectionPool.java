@@ -0,0 +1,106 @@
+package it.unisa.ddditserver.db.gremlin;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.tinkerpop.gremlin.driver.Cluster;
+import org.apache.tinkerpop.gremlin.driver.ser.Serializers;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Component responsible for managing the single Gremlin connection pool shared by every Gremlin repository.
+ *
+ * The {@link Cluster} is built once from {@link GremlinConfig}, so all the repositories share the same
+ * websocket connections, in-flight limits and worker threads. The pool is closed when the Spring context is closed.
+ * Requests are submitted through a {@link GremlinClient}, which measures the requests in flight and their latency.
+ *
+ * @author Angelo Antonio Prisco
+ * @version 1.1
+ * @since 2025-09-02
+ */
+@Component
+public class GremlinConnectionPool {
+    private final GremlinConfig config;
+    private final MeterRegistry meterRegistry;
+    private Cluster cluster;
+    private GremlinClient client;
+
+    @Autowired
+    public GremlinConnectionPool(GremlinConfig config, MeterRegistry meterRegistry) {
+        this.config = config;
+        this.meterRegistry = meterRegistry;
+    }
+
+    static String parseHost(String endpoint) {
+        // Remove protocol prefix (wss://)
+        if (endpoint.startsWith("wss://")) {
+            endpoint = endpoint.substring(6);
+        }
+        // Remove port and path after colon
+        int colonIndex = endpoint.indexOf(':');
+        if (colonIndex != -1) {
+            endpoint = endpoint.substring(0, colonIndex);
+        }
+        // Remove trailing slash if present
+        if (endpoint.endsWith("/")) {
+            endpoint = endpoint.substring(0, endpoint.length() - 1);
+        }
+
+        return endpoint;
+    }
+
+    @PostConstruct
+    public void init() {
+        // Build cluster connection to Gremlin server
+        Cluster.Builder builder = Cluster.build()
+                .addContactPoint(parseHost(config.getEndpoint()))
+                .port(443)
+                .credentials(config.getUsername(), config.getKey())
+                .enableSsl(true)
+                .serializer(Serializers.GRAPHSON_V2D0)
+                .minConnectionPoolSize(config.getMinConnectionPoolSize())
+                .maxConnectionPoolSize(config.getMaxConnectionPoolSize())
+                .maxInProcessPerConnection(config.getMaxInProcessPerConnection())
+                .maxSimultaneousUsagePerConnection(config.getMaxSimultaneousUsagePerConnection())
+                .maxWaitForConnection(config.getMaxWaitForConnection())
+                .maxContentLength(config.getMaxContentLength());
+
+        if (config.getWorkerPoolSize() > 0) {
+            builder.workerPoolSize(config.getWorkerPoolSize());
+        }
+
+        this.cluster = builder.create();
+        this.client = new GremlinClient(cluster.connect(), meterRegistry);
+
+        registerMetrics();
+    }
+
+    private void registerMetrics() {
+        // The pool limits are already in the configuration, the usage is measured by the client
+        Gauge.builder("gremlin.pool.hosts.available", cluster, c -> c.isClosed() ? 0 : c.availableHosts().size())
+                .description("Number of Gremlin hosts currently marked as available")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the shared client, it is thread-safe and borrows connections from the pool for each request.
+     *
+     * @return the measured Gremlin client bound to the shared cluster
+     */
+    public GremlinClient getClient() {
+        return client;
+    }
+
+    @PreDestroy
+    public void close() {
+        if (client != null) {
+            client.close();
+        }
+
+        if (cluster != null && !cluster.isClosed()) {
+            cluster.close();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package it.unisa.ddditserver.db.gremlin;
+
+import it.unisa.ddditserver.subsystems.versioning.dto.PageDTO;
+import it.unisa.ddditserver.subsystems.versioning.exceptions.InvalidPageTokenException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Utility class responsible for the continuation tokens of the Gremlin listings.
+ *
+ * Listings ordered by name use the last returned name as continuation, so the next page starts with a
+ * {@code gt()} filter instead of skipping the previous items. Listings without a natural key, such as the
+ * version chain, use the offset of the next item with {@code range()}.
+ * In both cases the value is encoded, so clients must treat the token as opaque.
+ * Tokens that can't be decoded are rejected with an {@link InvalidPageTokenException}.
+ * Queries ask for one item more than the limit to know if a next page exists.
+ *
+ * @author Angelo Antonio Prisco
+ * @version 1.1
+ * @since 2025-09-02
+ */
+public final class GremlinPagination {
+    private GremlinPagination() {
+    }
+
+    public static String encode(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String decode(String continuationToken) {
+        if (continuationToken == null || continuationToken.isEmpty()) {
+            return null;
+        }
+
+        try {
+            return new String(Base64.getUrlDecoder().decode(continuationToken), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidPageTokenException("Invalid continuation token");
+        }
+    }
+
+    public static long decodeOffset(String continuationToken) {
+        String value = decode(continuationToken);
+
+        if (value == null) {
+            return 0;
+        }
+
+        long offset;
+
+        try {
+            offset = Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new InvalidPageTokenException("Invalid continuation token");
+        }
+
+        if (offset < 0) {
+            throw new InvalidPageTokenException("Invalid continuation token");
+        }
+
+        return offset;
+    }
+
+    /**
+     * Builds a page of a listing ordered by key.
+     *
+     * @param items the items returned by a query asking for limit + 1 items
+     * @param limit the maximum number of items of the page
+     * @param key the function extracting the ordering key from an item
+     * @return the page with a continuation token if more items are available
+     */
+    public static <T> PageDTO<T> toKeyPage(List<T> items, int limit, Function<T, String> key) {
+        if (items.size() <= limit) {
+            return new PageDTO<>(items, null);
+        }
+
+        List<T> page = items.subList(0, limit);
+        return new PageDTO<>(page, encode(key.apply(page.get(limit - 1))));
+    }
+
+    /**
+     * Builds a page of a listing ordered by position.
+     *
+     * @param items the items returned by a query asking for limit + 1 items
+     * @param offset the offset of the first item of the page
+     * @param limit the maximum number of items of the page
+     * @return the page with a continuation token if more items are available
+     */
+    public static <T> PageDTO<T> toOffsetPage(List<T> items, long offset, int limit) {
+        if (items.size() <= limit) {
+            return new PageDTO<>(items, null);
+        }
+
+        return new PageDTO<>(items.subList(0, limit), encode(String.valueOf(offset + limit)));
+    }
+}
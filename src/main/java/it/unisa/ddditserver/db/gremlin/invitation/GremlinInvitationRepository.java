@@ -2,6 +2,8 @@ package it.unisa.ddditserver.db.gremlin.invitation;
 
 import it.unisa.ddditserver.subsystems.auth.dto.UserDTO;
 import it.unisa.ddditserver.subsystems.invitation.dto.InvitationDTO;
+import it.unisa.ddditserver.subsystems.versioning.dto.PageDTO;
+import it.unisa.ddditserver.subsystems.versioning.dto.PageRequestDTO;
 import it.unisa.ddditserver.subsystems.versioning.dto.RepositoryDTO;
 import java.util.List;
 
@@ -10,7 +12,7 @@ import java.util.List;
  * in a Gremlin-compatible graph database.
  *
  * @author Angelo Antonio Prisco
- * @version 1.1
+ * @version 1.2
  * @since 2025-08-13
  */
 public interface GremlinInvitationRepository {
@@ -59,4 +61,13 @@ public interface GremlinInvitationRepository {
      * @return a list of {@link InvitationDTO} representing invitations to the user
      */
     List<InvitationDTO> findInvitationsByUser(UserDTO userDTO);
+
+    /**
+     * Finds a page of the pending invitations of a user, ordered by repository name.
+     *
+     * @param userDTO the user to search for
+     * @param pageRequestDTO the limit and the continuation token of the requested page
+     * @return a {@link PageDTO} of {@link InvitationDTO} with the continuation token of the next page
+     */
+    PageDTO<InvitationDTO> findInvitationsByUser(UserDTO userDTO, PageRequestDTO pageRequestDTO);
 }
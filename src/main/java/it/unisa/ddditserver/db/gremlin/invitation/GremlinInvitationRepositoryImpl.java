@@ -1,59 +1,38 @@
 package it.unisa.ddditserver.db.gremlin.invitation;
 
-import it.unisa.ddditserver.db.gremlin.GremlinConfig;
+import it.unisa.ddditserver.db.gremlin.GremlinClient;
+import it.unisa.ddditserver.db.gremlin.GremlinConnectionPool;
+import it.unisa.ddditserver.db.gremlin.GremlinPagination;
 import it.unisa.ddditserver.subsystems.auth.dto.UserDTO;
 import it.unisa.ddditserver.subsystems.invitation.dto.InvitationDTO;
 import it.unisa.ddditserver.subsystems.invitation.exceptions.InvitationException;
+import it.unisa.ddditserver.subsystems.versioning.dto.PageDTO;
+import it.unisa.ddditserver.subsystems.versioning.dto.PageRequestDTO;
 import it.unisa.ddditserver.subsystems.versioning.dto.RepositoryDTO;
+import it.unisa.ddditserver.subsystems.versioning.exceptions.InvalidPageTokenException;
 import it.unisa.ddditserver.subsystems.versioning.exceptions.repo.RepositoryException;
 import jakarta.annotation.PostConstruct;
-import org.apache.tinkerpop.gremlin.driver.Client;
-import org.apache.tinkerpop.gremlin.driver.Cluster;
 import org.apache.tinkerpop.gremlin.driver.Result;
-import org.apache.tinkerpop.gremlin.driver.ser.Serializers;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 @Repository
 public class GremlinInvitationRepositoryImpl implements GremlinInvitationRepository {
-    private final GremlinConfig config;
-    private Client client;
+    private final GremlinConnectionPool connectionPool;
+    private GremlinClient client;
 
     @Autowired
-    public GremlinInvitationRepositoryImpl(GremlinConfig config) {
-        this.config = config;
+    public GremlinInvitationRepositoryImpl(GremlinConnectionPool connectionPool) {
+        this.connectionPool = connectionPool;
     }
 
     @PostConstruct
     public void init() {
-        String endpoint = config.getEndpoint();
-        // Remove protocol prefix (wss://)
-        if (endpoint.startsWith("wss://")) {
-            endpoint = endpoint.substring(6);
-        }
-        // Remove port and path after colon
-        int colonIndex = endpoint.indexOf(':');
-        if (colonIndex != -1) {
-            endpoint = endpoint.substring(0, colonIndex);
-        }
-        // Remove trailing slash if present
-        if (endpoint.endsWith("/")) {
-            endpoint = endpoint.substring(0, endpoint.length() - 1);
-        }
-
-        // Build cluster connection to Gremlin server
-        Cluster cluster = Cluster.build()
-                .addContactPoint(endpoint)
-                .port(443)
-                .credentials(config.getUsername(), config.getKey())
-                .enableSsl(true)
-                .serializer(Serializers.GRAPHSON_V2D0)
-                .create();
-
-        this.client = cluster.connect();
+        this.client = connectionPool.getClient();
     }
 
     @Override
@@ -178,39 +157,71 @@ public class GremlinInvitationRepositoryImpl implements GremlinInvitationReposit
 
     @Override
     public List<InvitationDTO> findInvitationsByUser(UserDTO userDTO) {
-        String toUsername = userDTO.getUsername();
+        try {
+            return findInvitationsByUser(userDTO.getUsername(), null, null);
+        } catch (InvitationException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RepositoryException("Error finding pending invitations in Gremlin DB");
+        }
+    }
+
+    @Override
+    public PageDTO<InvitationDTO> findInvitationsByUser(UserDTO userDTO, PageRequestDTO pageRequestDTO) {
+        int limit = pageRequestDTO.getEffectiveLimit();
+
+        try {
+            long offset = GremlinPagination.decodeOffset(pageRequestDTO.getContinuationToken());
+            List<InvitationDTO> invitations = findInvitationsByUser(userDTO.getUsername(), offset, limit + 1);
+
+            return GremlinPagination.toOffsetPage(invitations, offset, limit);
+        } catch (InvalidPageTokenException e) {
+            throw e;
+        } catch (InvitationException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RepositoryException("Error finding pending invitations in Gremlin DB");
+        }
+    }
 
+    private List<InvitationDTO> findInvitationsByUser(String toUsername, Long offset, Integer limit) throws Exception {
         String query = "g.V()" +
                 ".hasLabel('user')" +
                 ".has('username', toUsername)" +
                 ".inE('HAS_INVITED')" +
-                ".has('status','pending')" +
-                ".as('e')" +
+                ".has('status','pending')";
+
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("toUsername", toUsername);
+
+        // Invitations have no unique name, so pages are addressed by position in the ordered listing
+        if (limit != null) {
+            query += ".order().by('repositoryName')" +
+                    ".range(offset, end)";
+            parameters.put("offset", offset);
+            parameters.put("end", offset + limit);
+        }
+
+        query += ".as('e')" +
                 ".outV()" +
                 ".as('from')" +
                 ".project('fromUsername','repositoryName')" +
                 "  .by(select('from').values('username'))" +
                 "  .by(select('e').values('repositoryName'))";
 
-        try {
-            List<Result> results = client.submit(query, Map.of("toUsername", toUsername)).all().get();
-            List<InvitationDTO> invitations = new ArrayList<>();
+        List<Result> results = client.submit(query, parameters).all().get();
+        List<InvitationDTO> invitations = new ArrayList<>();
 
-            for (Result result : results) {
-                @SuppressWarnings("unchecked")
-                Map<String, Object> map = (Map<String, Object>) result.getObject();
+        for (Result result : results) {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> map = (Map<String, Object>) result.getObject();
 
-                String fromUsername = map.get("fromUsername").toString();
-                String repositoryName = map.get("repositoryName").toString();
+            String fromUsername = map.get("fromUsername").toString();
+            String repositoryName = map.get("repositoryName").toString();
 
-                invitations.add(new InvitationDTO(fromUsername, repositoryName));
-            }
-
-            return invitations;
-        } catch (InvitationException e) {
-            throw e;
-        } catch (Exception e) {
-            throw new RepositoryException("Error finding pending invitations in Gremlin DB");
+            invitations.add(new InvitationDTO(fromUsername, repositoryName));
         }
+
+        return invitations;
     }
 }
@@ -1,6 +1,8 @@
 package it.unisa.ddditserver.db.gremlin.versioning.branch;
 
 import it.unisa.ddditserver.subsystems.versioning.dto.BranchDTO;
+import it.unisa.ddditserver.subsystems.versioning.dto.PageDTO;
+import it.unisa.ddditserver.subsystems.versioning.dto.PageRequestDTO;
 import it.unisa.ddditserver.subsystems.versioning.dto.ResourceDTO;
 import java.util.List;
 
@@ -9,7 +11,7 @@ import java.util.List;
  * in a Gremlin-compatible graph database.
  *
  * @author Angelo Antonio Prisco
- * @version 1.0
+ * @version 1.1
  * @since 2025-08-13
  */
 public interface GremlinBranchRepository {
@@ -35,4 +37,13 @@ public interface GremlinBranchRepository {
      * @return a list of {@link BranchDTO} representing branches of the resource
      */
     List<BranchDTO> findBranchesByResource(ResourceDTO resourceDTO);
+
+    /**
+     * Finds a page of the branches of the specified resource, ordered by name.
+     *
+     * @param resourceDTO the resource to search for in a specific repository
+     * @param pageRequestDTO the limit and the continuation token of the requested page
+     * @return a {@link PageDTO} of {@link BranchDTO} with the continuation token of the next page
+     */
+    PageDTO<BranchDTO> findBranchesByResource(ResourceDTO resourceDTO, PageRequestDTO pageRequestDTO);
 }
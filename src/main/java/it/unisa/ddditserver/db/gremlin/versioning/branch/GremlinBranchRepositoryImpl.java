@@ -1,58 +1,37 @@
 package it.unisa.ddditserver.db.gremlin.versioning.branch;
 
-import it.unisa.ddditserver.db.gremlin.GremlinConfig;
+import it.unisa.ddditserver.db.gremlin.GremlinClient;
+import it.unisa.ddditserver.db.gremlin.GremlinConnectionPool;
+import it.unisa.ddditserver.db.gremlin.GremlinPagination;
 import it.unisa.ddditserver.subsystems.versioning.dto.BranchDTO;
+import it.unisa.ddditserver.subsystems.versioning.dto.PageDTO;
+import it.unisa.ddditserver.subsystems.versioning.dto.PageRequestDTO;
 import it.unisa.ddditserver.subsystems.versioning.dto.ResourceDTO;
+import it.unisa.ddditserver.subsystems.versioning.exceptions.InvalidPageTokenException;
 import it.unisa.ddditserver.subsystems.versioning.exceptions.branch.BranchException;
 import it.unisa.ddditserver.subsystems.versioning.exceptions.version.VersionException;
 import jakarta.annotation.PostConstruct;
-import org.apache.tinkerpop.gremlin.driver.Client;
-import org.apache.tinkerpop.gremlin.driver.Cluster;
 import org.apache.tinkerpop.gremlin.driver.Result;
-import org.apache.tinkerpop.gremlin.driver.ser.Serializers;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 @Repository
 public class GremlinBranchRepositoryImpl implements GremlinBranchRepository {
-    private final GremlinConfig config;
-    private Client client;
+    private final GremlinConnectionPool connectionPool;
+    private GremlinClient client;
 
     @Autowired
-    public GremlinBranchRepositoryImpl(GremlinConfig config) {
-        this.config = config;
+    public GremlinBranchRepositoryImpl(GremlinConnectionPool connectionPool) {
+        this.connectionPool = connectionPool;
     }
 
     @PostConstruct
     public void init() {
-        String endpoint = config.getEndpoint();
-        // Remove protocol prefix (wss://)
-        if (endpoint.startsWith("wss://")) {
-            endpoint = endpoint.substring(6);
-        }
-        // Remove port and path after colon
-        int colonIndex = endpoint.indexOf(':');
-        if (colonIndex != -1) {
-            endpoint = endpoint.substring(0, colonIndex);
-        }
-        // Remove trailing slash if present
-        if (endpoint.endsWith("/")) {
-            endpoint = endpoint.substring(0, endpoint.length() - 1);
-        }
-
-        // Build cluster connection to Gremlin server
-        Cluster cluster = Cluster.build()
-                .addContactPoint(endpoint)
-                .port(443)
-                .credentials(config.getUsername(), config.getKey())
-                .enableSsl(true)
-                .serializer(Serializers.GRAPHSON_V2D0)
-                .create();
-
-        this.client = cluster.connect();
+        this.client = connectionPool.getClient();
     }
 
     @Override
@@ -125,30 +104,27 @@ public class GremlinBranchRepositoryImpl implements GremlinBranchRepository {
 
     @Override
     public List<BranchDTO> findBranchesByResource(ResourceDTO resourceDTO) {
-        String repositoryName = resourceDTO.getRepositoryName();
-        String resourceName = resourceDTO.getResourceName();
-
         try {
-            String query = "g.V()" +
-                    ".hasLabel('repository')" +
-                    ".has('repositoryName', repositoryName)" +
-                    ".out('CONTAINS')" +
-                    ".has('resourceName', resourceName)" +
-                    ".out('HAS_BRANCH')" +
-                    ".valueMap()";
-
-            List<Result> results = client.submit(query, Map.of("repositoryName", repositoryName, "resourceName", resourceName)).all().get();
+            return findBranchesByResource(resourceDTO.getRepositoryName(), resourceDTO.getResourceName(), null, null);
+        } catch (BranchException e) {
+            throw e;
+        } catch (Exception e) {
+            // If it is necessary use a RuntimeException for more detailed debug
+            throw new VersionException("Error finding branches by resource in Gremlin DB");
+        }
+    }
 
-            List<BranchDTO> branches = new ArrayList<>();
+    @Override
+    public PageDTO<BranchDTO> findBranchesByResource(ResourceDTO resourceDTO, PageRequestDTO pageRequestDTO) {
+        int limit = pageRequestDTO.getEffectiveLimit();
 
-            for (Result result : results) {
-                @SuppressWarnings("unchecked")
-                Map<String, List<Object>> props = (Map<String, List<Object>>) result.getObject();
-                String branchName = props.get("branchName").get(0).toString();
-                branches.add(new BranchDTO(repositoryName, resourceName, branchName));
-            }
+        try {
+            List<BranchDTO> branches = findBranchesByResource(resourceDTO.getRepositoryName(), resourceDTO.getResourceName(),
+                    GremlinPagination.decode(pageRequestDTO.getContinuationToken()), limit + 1);
 
-            return branches;
+            return GremlinPagination.toKeyPage(branches, limit, BranchDTO::getBranchName);
+        } catch (InvalidPageTokenException e) {
+            throw e;
         } catch (BranchException e) {
             throw e;
         } catch (Exception e) {
@@ -156,4 +132,46 @@ public class GremlinBranchRepositoryImpl implements GremlinBranchRepository {
             throw new VersionException("Error finding branches by resource in Gremlin DB");
         }
     }
+
+    private List<BranchDTO> findBranchesByResource(String repositoryName, String resourceName,
+                                                   String after, Integer limit) throws Exception {
+        String query = "g.V()" +
+                ".hasLabel('repository')" +
+                ".has('repositoryName', repositoryName)" +
+                ".out('CONTAINS')" +
+                ".has('resourceName', resourceName)" +
+                ".out('HAS_BRANCH')";
+
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("repositoryName", repositoryName);
+        parameters.put("resourceName", resourceName);
+
+        // Branches are ordered by name, so the next page starts after the last returned name
+        if (after != null) {
+            query += ".has('branchName', gt(after))";
+            parameters.put("after", after);
+        }
+
+        query += ".order().by('branchName')";
+
+        if (limit != null) {
+            query += ".limit(limit)";
+            parameters.put("limit", limit);
+        }
+
+        query += ".valueMap()";
+
+        List<Result> results = client.submit(query, parameters).all().get();
+
+        List<BranchDTO> branches = new ArrayList<>();
+
+        for (Result result : results) {
+            @SuppressWarnings("unchecked")
+            Map<String, List<Object>> props = (Map<String, List<Object>>) result.getObject();
+            String branchName = props.get("branchName").get(0).toString();
+            branches.add(new BranchDTO(repositoryName, resourceName, branchName));
+        }
+
+        return branches;
+    }
 }
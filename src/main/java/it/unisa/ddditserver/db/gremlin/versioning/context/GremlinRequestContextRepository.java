@@ -0,0 +1,27 @@
+package it.unisa.ddditserver.db.gremlin.versioning.context;
+
+import it.unisa.ddditserver.subsystems.versioning.dto.RequestContextDTO;
+
+/**
+ * Repository interface for resolving the context of a versioning request
+ * in a Gremlin-compatible graph database.
+ *
+ * @author Angelo Antonio Prisco
+ * @version 1.0
+ * @since 2025-09-02
+ */
+public interface GremlinRequestContextRepository {
+    /**
+     * Resolves, with a single traversal, the role of the user on the repository and the vertex IDs
+     * of the user, repository, resource, branch and version identified by the given names.
+     *
+     * @param username the name of the user sending the request
+     * @param repositoryName the name of the repository
+     * @param resourceName the name of the resource, null if not requested
+     * @param branchName the name of the branch, null if not requested
+     * @param versionName the name of the version, null if not requested
+     * @return a {@link RequestContextDTO} where every missing vertex has a null ID
+     */
+    RequestContextDTO findRequestContext(String username, String repositoryName,
+                                         String resourceName, String branchName, String versionName);
+}
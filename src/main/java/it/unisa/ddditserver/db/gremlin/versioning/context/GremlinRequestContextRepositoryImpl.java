@@ -0,0 +1,157 @@
+package it.unisa.ddditserver.db.gremlin.versioning.context;
+
+import it.unisa.ddditserver.db.gremlin.GremlinClient;
+import it.unisa.ddditserver.db.gremlin.GremlinConnectionPool;
+import it.unisa.ddditserver.db.gremlin.versioning.version.GremlinVersionKey;
+import it.unisa.ddditserver.subsystems.versioning.dto.RepositoryRole;
+import it.unisa.ddditserver.subsystems.versioning.dto.RequestContextDTO;
+import it.unisa.ddditserver.subsystems.versioning.exceptions.VersionControlSystemException;
+import it.unisa.ddditserver.subsystems.versioning.exceptions.repo.RepositoryException;
+import jakarta.annotation.PostConstruct;
+import org.apache.tinkerpop.gremlin.driver.Result;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Repository
+public class GremlinRequestContextRepositoryImpl implements GremlinRequestContextRepository {
+    private final GremlinConnectionPool connectionPool;
+    private GremlinClient client;
+
+    @Autowired
+    public GremlinRequestContextRepositoryImpl(GremlinConnectionPool connectionPool) {
+        this.connectionPool = connectionPool;
+    }
+
+    @PostConstruct
+    public void init() {
+        this.client = connectionPool.getClient();
+    }
+
+    private String getSingleId(Map<String, Object> map, String key, String vertexName) {
+        @SuppressWarnings("unchecked")
+        List<Object> ids = (List<Object>) map.get(key);
+
+        if (ids == null || ids.isEmpty()) {
+            return null;
+        }
+
+        if (ids.size() > 1) {
+            throw new RepositoryException("More than one " + vertexName + " found in Gremlin DB");
+        }
+
+        return ids.get(0).toString();
+    }
+
+    private String findUnkeyedVersionId(String branchId, String versionName, String versionKey) throws Exception {
+        // Versions saved before the key was introduced, or by instances not yet updated during a rolling deploy,
+        // have no key until the backfill reaches them, so they are found by walking their branch and keyed on the way
+        String query = "g.V(branchId)" +
+                ".out('HAS_VERSION')" +
+                ".union(identity(), repeat(out('HAS_NEXT_VERSION')).emit())" +
+                ".has('versionName', versionName)" +
+                ".property('versionKey', versionKey)" +
+                ".id()";
+
+        List<Result> results = client.submit(query, Map.of(
+                "branchId", branchId,
+                "versionName", versionName,
+                "versionKey", versionKey)).all().get();
+
+        if (results.isEmpty()) {
+            return null;
+        }
+
+        if (results.size() > 1) {
+            throw new RepositoryException("More than one version found in Gremlin DB");
+        }
+
+        return results.get(0).getObject().toString();
+    }
+
+    @Override
+    public RequestContextDTO findRequestContext(String username, String repositoryName,
+                                                String resourceName, String branchName, String versionName) {
+        // Repository, user and version are point lookups folded into one traversal so the whole context costs a single round trip
+        String query = "g.V()" +
+                ".hasLabel('repository')" +
+                ".has('repositoryName', repositoryName)" +
+                ".fold()" +
+                ".as('repository')" +
+                ".V()" +
+                ".hasLabel('user')" +
+                ".has('username', username)" +
+                ".fold()" +
+                ".as('user')" +
+                ".V()" +
+                ".hasLabel('version')" +
+                ".has('repoId', repositoryName)" +
+                ".has('versionKey', versionKey)" +
+                ".fold()" +
+                ".as('version')" +
+                ".project('userIds', 'repositoryIds', 'ownerIds', 'contributorIds', 'resourceIds', 'branchIds', 'versionIds')" +
+                    ".by(select('user').unfold().id().fold())" +
+                    ".by(select('repository').unfold().id().fold())" +
+                    ".by(select('repository').unfold().in('OWNS').has('username', username).id().fold())" +
+                    ".by(select('repository').unfold().in('CONTRIBUTES_TO').has('username', username).id().fold())" +
+                    ".by(select('repository').unfold()" +
+                        ".out('CONTAINS').has('resourceName', resourceName)" +
+                        ".id().fold())" +
+                    ".by(select('repository').unfold()" +
+                        ".out('CONTAINS').has('resourceName', resourceName)" +
+                        ".out('HAS_BRANCH').has('branchName', branchName)" +
+                        ".id().fold())" +
+                    ".by(select('version').unfold().id().fold())";
+
+        // Names not requested are bound to an empty string, so the related lookups never match
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("username", username != null ? username : "");
+        parameters.put("repositoryName", repositoryName != null ? repositoryName : "");
+        parameters.put("resourceName", resourceName != null ? resourceName : "");
+        parameters.put("branchName", branchName != null ? branchName : "");
+        parameters.put("versionKey", versionName != null
+                ? GremlinVersionKey.of(repositoryName, resourceName, branchName, versionName)
+                : "");
+
+        try {
+            List<Result> results = client.submit(query, parameters).all().get();
+
+            if (results.isEmpty()) {
+                throw new RepositoryException("Error resolving request context in Gremlin DB");
+            }
+
+            @SuppressWarnings("unchecked")
+            Map<String, Object> map = (Map<String, Object>) results.get(0).getObject();
+
+            RepositoryRole role = RepositoryRole.NONE;
+            if (getSingleId(map, "ownerIds", "owner") != null) {
+                role = RepositoryRole.OWNER;
+            } else if (getSingleId(map, "contributorIds", "contributor") != null) {
+                role = RepositoryRole.CONTRIBUTOR;
+            }
+
+            String branchId = getSingleId(map, "branchIds", "branch");
+            String versionId = getSingleId(map, "versionIds", "version");
+
+            if (versionName != null && versionId == null && branchId != null) {
+                versionId = findUnkeyedVersionId(branchId, versionName, (String) parameters.get("versionKey"));
+            }
+
+            return new RequestContextDTO(
+                    getSingleId(map, "userIds", "user"),
+                    role,
+                    getSingleId(map, "repositoryIds", "repository"),
+                    getSingleId(map, "resourceIds", "resource"),
+                    branchId,
+                    versionId
+            );
+        } catch (VersionControlSystemException e) {
+            throw e;
+        } catch (Exception e) {
+            // If it is necessary use a RuntimeException for more detailed debug
+            throw new RepositoryException("Error resolving request context in Gremlin DB");
+        }
+    }
+}
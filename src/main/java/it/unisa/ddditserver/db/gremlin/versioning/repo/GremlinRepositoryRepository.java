@@ -1,5 +1,7 @@
 package it.unisa.ddditserver.db.gremlin.versioning.repo;
 import it.unisa.ddditserver.subsystems.auth.dto.UserDTO;
+import it.unisa.ddditserver.subsystems.versioning.dto.PageDTO;
+import it.unisa.ddditserver.subsystems.versioning.dto.PageRequestDTO;
 import it.unisa.ddditserver.subsystems.versioning.dto.RepositoryDTO;
 import java.util.List;
 
@@ -8,7 +10,7 @@ import java.util.List;
  * in a Gremlin-compatible graph database.
  *
  * @author Angelo Antonio Prisco
- * @version 1.1
+ * @version 1.2
  * @since 2025-08-13
  */
 public interface GremlinRepositoryRepository {
@@ -72,6 +74,15 @@ public interface GremlinRepositoryRepository {
      */
     List<RepositoryDTO> findOwnedRepositoriesByUser(UserDTO userDTO);
 
+    /**
+     * Finds a page of the repositories where the user is the owner, ordered by name.
+     *
+     * @param userDTO the user to search owned repositories for
+     * @param pageRequestDTO the limit and the continuation token of the requested page
+     * @return a {@link PageDTO} of {@link RepositoryDTO} with the continuation token of the next page
+     */
+    PageDTO<RepositoryDTO> findOwnedRepositoriesByUser(UserDTO userDTO, PageRequestDTO pageRequestDTO);
+
     /**
      * Finds all repositories where the user is a contributor.
      *
@@ -79,4 +90,13 @@ public interface GremlinRepositoryRepository {
      * @return a list of {@link RepositoryDTO} representing repositories the user contributes to
      */
     List<RepositoryDTO> findContributedRepositoriesByUser(UserDTO userDTO);
+
+    /**
+     * Finds a page of the repositories where the user is a contributor, ordered by name.
+     *
+     * @param userDTO the user to search contributed repositories for
+     * @param pageRequestDTO the limit and the continuation token of the requested page
+     * @return a {@link PageDTO} of {@link RepositoryDTO} with the continuation token of the next page
+     */
+    PageDTO<RepositoryDTO> findContributedRepositoriesByUser(UserDTO userDTO, PageRequestDTO pageRequestDTO);
 }
\ No newline at end of file
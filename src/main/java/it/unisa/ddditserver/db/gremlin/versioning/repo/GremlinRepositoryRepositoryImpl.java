@@ -1,58 +1,41 @@
 package it.unisa.ddditserver.db.gremlin.versioning.repo;
 
 import it.unisa.ddditserver.subsystems.auth.dto.UserDTO;
-import it.unisa.ddditserver.db.gremlin.GremlinConfig;
+import it.unisa.ddditserver.db.gremlin.GremlinClient;
+import it.unisa.ddditserver.db.gremlin.GremlinConnectionPool;
+import it.unisa.ddditserver.db.gremlin.GremlinPagination;
+import it.unisa.ddditserver.subsystems.versioning.dto.PageDTO;
+import it.unisa.ddditserver.subsystems.versioning.dto.PageRequestDTO;
 import it.unisa.ddditserver.subsystems.versioning.dto.RepositoryDTO;
+import it.unisa.ddditserver.subsystems.versioning.dto.RepositoryRole;
+import it.unisa.ddditserver.subsystems.versioning.dto.RequestContextDTO;
+import it.unisa.ddditserver.subsystems.versioning.exceptions.InvalidPageTokenException;
 import it.unisa.ddditserver.subsystems.versioning.exceptions.repo.RepositoryException;
 import it.unisa.ddditserver.subsystems.versioning.exceptions.version.VersionException;
 import jakarta.annotation.PostConstruct;
-import org.apache.tinkerpop.gremlin.driver.Client;
-import org.apache.tinkerpop.gremlin.driver.Cluster;
 import org.apache.tinkerpop.gremlin.driver.Result;
-import org.apache.tinkerpop.gremlin.driver.ser.Serializers;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 @Repository
 public class GremlinRepositoryRepositoryImpl implements GremlinRepositoryRepository {
-    private final GremlinConfig config;
-    private Client client;
+    private final GremlinConnectionPool connectionPool;
+    private final GremlinRoleCache roleCache;
+    private GremlinClient client;
 
     @Autowired
-    public GremlinRepositoryRepositoryImpl(GremlinConfig config) {
-        this.config = config;
+    public GremlinRepositoryRepositoryImpl(GremlinConnectionPool connectionPool, GremlinRoleCache roleCache) {
+        this.connectionPool = connectionPool;
+        this.roleCache = roleCache;
     }
 
     @PostConstruct
     public void init() {
-        String endpoint = config.getEndpoint();
-        // Remove protocol prefix (wss://)
-        if (endpoint.startsWith("wss://")) {
-            endpoint = endpoint.substring(6);
-        }
-        // Remove port and path after colon
-        int colonIndex = endpoint.indexOf(':');
-        if (colonIndex != -1) {
-            endpoint = endpoint.substring(0, colonIndex);
-        }
-        // Remove trailing slash if present
-        if (endpoint.endsWith("/")) {
-            endpoint = endpoint.substring(0, endpoint.length() - 1);
-        }
-
-        // Build cluster connection to Gremlin server
-        Cluster cluster = Cluster.build()
-                .addContactPoint(endpoint)
-                .port(443)
-                .credentials(config.getUsername(), config.getKey())
-                .enableSsl(true)
-                .serializer(Serializers.GRAPHSON_V2D0)
-                .create();
-
-        this.client = cluster.connect();
+        this.client = connectionPool.getClient();
     }
 
     @Override
@@ -73,9 +56,11 @@ public class GremlinRepositoryRepositoryImpl implements GremlinRepositoryReposit
                 ".to('r')";
 
         try {
+            // The write is awaited, so an authorization racing with it can't cache the role read before the write
             client.submit(query, Map.of(
                     "username", username,
-                    "repositoryName", repositoryName));
+                    "repositoryName", repositoryName)).all().get();
+            roleCache.invalidate(username, repositoryName);
         } catch (Exception e) {
             // If it is necessary use a RuntimeException for more detailed debug
             throw new RepositoryException("Error during repository creation in Gremlin DB");
@@ -144,6 +129,11 @@ public class GremlinRepositoryRepositoryImpl implements GremlinRepositoryReposit
         String username = userDTO.getUsername();
         String repositoryName = repositoryDTO.getRepositoryName();
 
+        RequestContextDTO cached = roleCache.get(username, repositoryName);
+        if (cached != null) {
+            return cached.getRole() == RepositoryRole.CONTRIBUTOR;
+        }
+
         String query = "g.V()" +
                 ".hasLabel('user')" +
                 ".has('username', username)" +
@@ -175,6 +165,11 @@ public class GremlinRepositoryRepositoryImpl implements GremlinRepositoryReposit
         String username = userDTO.getUsername();
         String repositoryName = repositoryDTO.getRepositoryName();
 
+        RequestContextDTO cached = roleCache.get(username, repositoryName);
+        if (cached != null) {
+            return cached.getRole() == RepositoryRole.OWNER;
+        }
+
         String query = "g.V()" +
                 ".hasLabel('user')" +
                 ".has('username', username)" +
@@ -227,7 +222,9 @@ public class GremlinRepositoryRepositoryImpl implements GremlinRepositoryReposit
                 ")";
 
         try {
-            client.submit(query, Map.of("username", username, "repositoryName", repositoryName));
+            // The write is awaited, so an authorization racing with it can't cache the role read before the write
+            client.submit(query, Map.of("username", username, "repositoryName", repositoryName)).all().get();
+            roleCache.invalidate(username, repositoryName);
         } catch (RepositoryException e) {
             throw e;
         } catch (Exception e) {
@@ -238,25 +235,27 @@ public class GremlinRepositoryRepositoryImpl implements GremlinRepositoryReposit
 
     @Override
     public List<RepositoryDTO> findOwnedRepositoriesByUser(UserDTO userDTO) {
-        String username = userDTO.getUsername();
-
-        String query = "g.V()" +
-                ".hasLabel('user')" +
-                ".has('username', username)" +
-                ".out('OWNS')" +
-                ".valueMap()";
         try {
-            List<Result> results = client.submit(query, Map.of("username", username)).all().get();
-            List<RepositoryDTO> repositories = new ArrayList<>();
+            return findRepositoriesByUser(userDTO.getUsername(), "OWNS", null, null);
+        } catch (RepositoryException e) {
+            throw e;
+        } catch (Exception e) {
+            // If it is necessary use a RuntimeException for more detailed debug
+            throw new RepositoryException("Error finding owned repositories in Gremlin DB");
+        }
+    }
 
-            for (Result result : results) {
-                @SuppressWarnings("unchecked")
-                Map<String, List<Object>> props = (Map<String, List<Object>>) result.getObject();
-                String repositoryName = props.get("repositoryName").get(0).toString();
-                repositories.add(new RepositoryDTO(repositoryName));
-            }
+    @Override
+    public PageDTO<RepositoryDTO> findOwnedRepositoriesByUser(UserDTO userDTO, PageRequestDTO pageRequestDTO) {
+        int limit = pageRequestDTO.getEffectiveLimit();
+
+        try {
+            List<RepositoryDTO> repositories = findRepositoriesByUser(userDTO.getUsername(), "OWNS",
+                    GremlinPagination.decode(pageRequestDTO.getContinuationToken()), limit + 1);
 
-            return repositories;
+            return GremlinPagination.toKeyPage(repositories, limit, RepositoryDTO::getRepositoryName);
+        } catch (InvalidPageTokenException e) {
+            throw e;
         } catch (RepositoryException e) {
             throw e;
         } catch (Exception e) {
@@ -267,25 +266,27 @@ public class GremlinRepositoryRepositoryImpl implements GremlinRepositoryReposit
 
     @Override
     public List<RepositoryDTO> findContributedRepositoriesByUser(UserDTO userDTO) {
-        String username = userDTO.getUsername();
-
-        String query = "g.V()" +
-                ".hasLabel('user')" +
-                ".has('username', username)" +
-                ".out('CONTRIBUTES_TO')" +
-                ".valueMap()";
         try {
-            List<Result> results = client.submit(query, Map.of("username", username)).all().get();
-            List<RepositoryDTO> repositories = new ArrayList<>();
+            return findRepositoriesByUser(userDTO.getUsername(), "CONTRIBUTES_TO", null, null);
+        } catch (RepositoryException e) {
+            throw e;
+        } catch (Exception e) {
+            // If it is necessary use a RuntimeException for more detailed debug
+            throw new RepositoryException("Error finding contributed repositories in Gremlin DB");
+        }
+    }
 
-            for (Result result : results) {
-                @SuppressWarnings("unchecked")
-                Map<String, List<Object>> props = (Map<String, List<Object>>) result.getObject();
-                String repositoryName = props.get("repositoryName").get(0).toString();
-                repositories.add(new RepositoryDTO(repositoryName));
-            }
+    @Override
+    public PageDTO<RepositoryDTO> findContributedRepositoriesByUser(UserDTO userDTO, PageRequestDTO pageRequestDTO) {
+        int limit = pageRequestDTO.getEffectiveLimit();
+
+        try {
+            List<RepositoryDTO> repositories = findRepositoriesByUser(userDTO.getUsername(), "CONTRIBUTES_TO",
+                    GremlinPagination.decode(pageRequestDTO.getContinuationToken()), limit + 1);
 
-            return repositories;
+            return GremlinPagination.toKeyPage(repositories, limit, RepositoryDTO::getRepositoryName);
+        } catch (InvalidPageTokenException e) {
+            throw e;
         } catch (RepositoryException e) {
             throw e;
         } catch (Exception e) {
@@ -293,4 +294,43 @@ public class GremlinRepositoryRepositoryImpl implements GremlinRepositoryReposit
             throw new RepositoryException("Error finding contributed repositories in Gremlin DB");
         }
     }
-}
\ No newline at end of file
+
+    // The edge label is chosen by the callers only, so it is never built from user input
+    private List<RepositoryDTO> findRepositoriesByUser(String username, String edgeLabel,
+                                                       String after, Integer limit) throws Exception {
+        String query = "g.V()" +
+                ".hasLabel('user')" +
+                ".has('username', username)" +
+                ".out('" + edgeLabel + "')";
+
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("username", username);
+
+        // Repositories are ordered by name, so the next page starts after the last returned name
+        if (after != null) {
+            query += ".has('repositoryName', gt(after))";
+            parameters.put("after", after);
+        }
+
+        query += ".order().by('repositoryName')";
+
+        if (limit != null) {
+            query += ".limit(limit)";
+            parameters.put("limit", limit);
+        }
+
+        query += ".valueMap()";
+
+        List<Result> results = client.submit(query, parameters).all().get();
+        List<RepositoryDTO> repositories = new ArrayList<>();
+
+        for (Result result : results) {
+            @SuppressWarnings("unchecked")
+            Map<String, List<Object>> props = (Map<String, List<Object>>) result.getObject();
+            String repositoryName = props.get("repositoryName").get(0).toString();
+            repositories.add(new RepositoryDTO(repositoryName));
+        }
+
+        return repositories;
+    }
+}
@@ -0,0 +1,100 @@
+package it.unisa.ddditserver.db.gremlin.versioning.repo;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import it.unisa.ddditserver.db.gremlin.GremlinConfig;
+import it.unisa.ddditserver.subsystems.versioning.dto.RequestContextDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import java.time.Duration;
+
+/**
+ * Bounded in-process cache of the role of a user on a repository.
+ *
+ * Each entry keeps the vertex IDs of the user and of the repository together with the role,
+ * so repository level authorization checks can be answered without a round trip to the graph database.
+ * Only entries where both the user and the repository exist are cached, entries expire after the TTL
+ * set in {@link GremlinConfig} and are invalidated explicitly whenever the role of a user changes.
+ * Hits and misses are exposed through the {@code gremlin.role.cache} metrics.
+ *
+ * @author Angelo Antonio Prisco
+ * @version 1.0
+ * @since 2025-09-02
+ */
+@Component
+public class GremlinRoleCache {
+    private final boolean enabled;
+    private final Cache<String, RequestContextDTO> cache;
+
+    @Autowired
+    public GremlinRoleCache(GremlinConfig config, MeterRegistry meterRegistry) {
+        this.enabled = config.isRoleCacheEnabled();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(config.getRoleCacheMaxSize())
+                .expireAfterWrite(Duration.ofSeconds(config.getRoleCacheTtlSeconds()))
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "gremlin.role.cache");
+    }
+
+    // Usernames and repository names can't contain a slash, so it can't produce ambiguous keys
+    private String key(String username, String repositoryName) {
+        return username + "/" + repositoryName;
+    }
+
+    /**
+     * Retrieves the cached role of a user on a repository.
+     *
+     * @param username the username of the user
+     * @param repositoryName the name of the repository
+     * @return a copy of the cached context with user ID, role and repository ID only, or null if not cached
+     */
+    public RequestContextDTO get(String username, String repositoryName) {
+        if (!enabled || username == null || repositoryName == null) {
+            return null;
+        }
+
+        RequestContextDTO cached = cache.getIfPresent(key(username, repositoryName));
+
+        if (cached == null) {
+            return null;
+        }
+
+        return new RequestContextDTO(cached.getUserId(), cached.getRole(), cached.getRepositoryId(), null, null, null);
+    }
+
+    /**
+     * Caches the role of a user on a repository from a resolved request context.
+     * The context is ignored if the user or the repository does not exist.
+     *
+     * @param username the username of the user
+     * @param repositoryName the name of the repository
+     * @param context the resolved request context
+     */
+    public void put(String username, String repositoryName, RequestContextDTO context) {
+        if (!enabled || username == null || repositoryName == null || context == null ||
+                context.getUserId() == null || context.getRepositoryId() == null) {
+            return;
+        }
+
+        cache.put(key(username, repositoryName),
+                new RequestContextDTO(context.getUserId(), context.getRole(), context.getRepositoryId(), null, null, null));
+    }
+
+    /**
+     * Removes the cached role of a user on a repository.
+     *
+     * @param username the username of the user
+     * @param repositoryName the name of the repository
+     */
+    public void invalidate(String username, String repositoryName) {
+        if (username == null || repositoryName == null) {
+            return;
+        }
+
+        cache.invalidate(key(username, repositoryName));
+    }
+}
@@ -1,5 +1,7 @@
 package it.unisa.ddditserver.db.gremlin.versioning.resource;
 
+import it.unisa.ddditserver.subsystems.versioning.dto.PageDTO;
+import it.unisa.ddditserver.subsystems.versioning.dto.PageRequestDTO;
 import it.unisa.ddditserver.subsystems.versioning.dto.RepositoryDTO;
 import it.unisa.ddditserver.subsystems.versioning.dto.ResourceDTO;
 import java.util.List;
@@ -9,7 +11,7 @@ import java.util.List;
  * in a Gremlin-compatible graph database.
  *
  * @author Angelo Antonio Prisco
- * @version 1.0
+ * @version 1.1
  * @since 2025-08-13
  */
 public interface GremlinResourceRepository {
@@ -35,4 +37,13 @@ public interface GremlinResourceRepository {
      * @return a list of {@link ResourceDTO} representing resources contained in the repository
      */
     List<ResourceDTO> findResourcesByRepository(RepositoryDTO repositoryDTO);
+
+    /**
+     * Finds a page of the resources in the specified repository, ordered by name.
+     *
+     * @param repositoryDTO the repository to search for
+     * @param pageRequestDTO the limit and the continuation token of the requested page
+     * @return a {@link PageDTO} of {@link ResourceDTO} with the continuation token of the next page
+     */
+    PageDTO<ResourceDTO> findResourcesByRepository(RepositoryDTO repositoryDTO, PageRequestDTO pageRequestDTO);
 }
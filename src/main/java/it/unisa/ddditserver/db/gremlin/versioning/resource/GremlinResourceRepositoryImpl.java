@@ -1,57 +1,36 @@
 package it.unisa.ddditserver.db.gremlin.versioning.resource;
 
-import it.unisa.ddditserver.db.gremlin.GremlinConfig;
+import it.unisa.ddditserver.db.gremlin.GremlinClient;
+import it.unisa.ddditserver.db.gremlin.GremlinConnectionPool;
+import it.unisa.ddditserver.db.gremlin.GremlinPagination;
+import it.unisa.ddditserver.subsystems.versioning.dto.PageDTO;
+import it.unisa.ddditserver.subsystems.versioning.dto.PageRequestDTO;
 import it.unisa.ddditserver.subsystems.versioning.dto.RepositoryDTO;
 import it.unisa.ddditserver.subsystems.versioning.dto.ResourceDTO;
+import it.unisa.ddditserver.subsystems.versioning.exceptions.InvalidPageTokenException;
 import it.unisa.ddditserver.subsystems.versioning.exceptions.resource.ResourceException;
 import jakarta.annotation.PostConstruct;
-import org.apache.tinkerpop.gremlin.driver.Client;
-import org.apache.tinkerpop.gremlin.driver.Cluster;
 import org.apache.tinkerpop.gremlin.driver.Result;
-import org.apache.tinkerpop.gremlin.driver.ser.Serializers;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 @Repository
 public class GremlinResourceRepositoryImpl implements GremlinResourceRepository {
-    private final GremlinConfig config;
-    private Client client;
+    private final GremlinConnectionPool connectionPool;
+    private GremlinClient client;
 
     @Autowired
-    public GremlinResourceRepositoryImpl(GremlinConfig config) {
-        this.config = config;
+    public GremlinResourceRepositoryImpl(GremlinConnectionPool connectionPool) {
+        this.connectionPool = connectionPool;
     }
 
     @PostConstruct
     public void init() {
-        String endpoint = config.getEndpoint();
-        // Remove protocol prefix (wss://)
-        if (endpoint.startsWith("wss://")) {
-            endpoint = endpoint.substring(6);
-        }
-        // Remove port and path after colon
-        int colonIndex = endpoint.indexOf(':');
-        if (colonIndex != -1) {
-            endpoint = endpoint.substring(0, colonIndex);
-        }
-        // Remove trailing slash if present
-        if (endpoint.endsWith("/")) {
-            endpoint = endpoint.substring(0, endpoint.length() - 1);
-        }
-
-        // Build cluster connection to Gremlin server
-        Cluster cluster = Cluster.build()
-                .addContactPoint(endpoint)
-                .port(443)
-                .credentials(config.getUsername(), config.getKey())
-                .enableSsl(true)
-                .serializer(Serializers.GRAPHSON_V2D0)
-                .create();
-
-        this.client = cluster.connect();
+        this.client = connectionPool.getClient();
     }
 
     @Override
@@ -112,27 +91,27 @@ public class GremlinResourceRepositoryImpl implements GremlinResourceRepository
 
     @Override
     public List<ResourceDTO> findResourcesByRepository(RepositoryDTO repositoryDTO) {
-        String repositoryName = repositoryDTO.getRepositoryName();
-
         try {
-            String query = "g.V()" +
-                    ".hasLabel('repository')" +
-                    ".has('repositoryName', repositoryName)" +
-                    ".out('CONTAINS')" +
-                    ".hasLabel('resource')" +
-                    ".valueMap()";
+            return findResourcesByRepository(repositoryDTO.getRepositoryName(), null, null);
+        } catch (ResourceException e) {
+            throw e;
+        } catch (Exception e) {
+            // If it is necessary use a RuntimeException for more detailed debug
+            throw new ResourceException("Error finding resources by repository in Gremlin DB");
+        }
+    }
 
-            List<Result> results = client.submit(query, Map.of("repositoryName", repositoryName)).all().get();
-            List<ResourceDTO> resources = new ArrayList<>();
+    @Override
+    public PageDTO<ResourceDTO> findResourcesByRepository(RepositoryDTO repositoryDTO, PageRequestDTO pageRequestDTO) {
+        int limit = pageRequestDTO.getEffectiveLimit();
 
-            for (Result result : results) {
-                @SuppressWarnings("unchecked")
-                Map<String, List<Object>> props = (Map<String, List<Object>>) result.getObject();
-                String resourceName = props.get("resourceName").get(0).toString();
-                resources.add(new ResourceDTO(repositoryName, resourceName));
-            }
+        try {
+            List<ResourceDTO> resources = findResourcesByRepository(repositoryDTO.getRepositoryName(),
+                    GremlinPagination.decode(pageRequestDTO.getContinuationToken()), limit + 1);
 
-            return resources;
+            return GremlinPagination.toKeyPage(resources, limit, ResourceDTO::getResourceName);
+        } catch (InvalidPageTokenException e) {
+            throw e;
         } catch (ResourceException e) {
             throw e;
         } catch (Exception e) {
@@ -140,4 +119,42 @@ public class GremlinResourceRepositoryImpl implements GremlinResourceRepository
             throw new ResourceException("Error finding resources by repository in Gremlin DB");
         }
     }
+
+    private List<ResourceDTO> findResourcesByRepository(String repositoryName, String after, Integer limit) throws Exception {
+        String query = "g.V()" +
+                ".hasLabel('repository')" +
+                ".has('repositoryName', repositoryName)" +
+                ".out('CONTAINS')" +
+                ".hasLabel('resource')";
+
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("repositoryName", repositoryName);
+
+        // Resources are ordered by name, so the next page starts after the last returned name
+        if (after != null) {
+            query += ".has('resourceName', gt(after))";
+            parameters.put("after", after);
+        }
+
+        query += ".order().by('resourceName')";
+
+        if (limit != null) {
+            query += ".limit(limit)";
+            parameters.put("limit", limit);
+        }
+
+        query += ".valueMap()";
+
+        List<Result> results = client.submit(query, parameters).all().get();
+        List<ResourceDTO> resources = new ArrayList<>();
+
+        for (Result result : results) {
+            @SuppressWarnings("unchecked")
+            Map<String, List<Object>> props = (Map<String, List<Object>>) result.getObject();
+            String resourceName = props.get("resourceName").get(0).toString();
+            resources.add(new ResourceDTO(repositoryName, resourceName));
+        }
+
+        return resources;
+    }
 }
@@ -0,0 +1,23 @@
+package it.unisa.ddditserver.db.gremlin.versioning.version;
+
+/**
+ * Utility class responsible for building the composite key stored on every version vertex.
+ *
+ * The key joins repository, resource, branch and version names, so together with the repoId
+ * partition key a version can be found with a point lookup instead of walking its branch.
+ * Names can contain letters, digits and underscores only, so the separator is never ambiguous.
+ *
+ * @author Angelo Antonio Prisco
+ * @version 1.0
+ * @since 2025-09-02
+ */
+public final class GremlinVersionKey {
+    private static final String SEPARATOR = "/";
+
+    private GremlinVersionKey() {
+    }
+
+    public static String of(String repositoryName, String resourceName, String branchName, String versionName) {
+        return repositoryName + SEPARATOR + resourceName + SEPARATOR + branchName + SEPARATOR + versionName;
+    }
+}
@@ -0,0 +1,51 @@
+package it.unisa.ddditserver.db.gremlin.versioning.version;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import it.unisa.ddditserver.db.gremlin.GremlinConfig;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+/**
+ * Component responsible for the one-time migrations of the version vertices.
+ *
+ * When enabled through {@link GremlinConfig}, at startup it:
+ * <ul>
+ *     <li>creates the HAS_LAST_VERSION pointer for every branch created before the pointer was introduced</li>
+ *     <li>stores the composite {@link GremlinVersionKey} on every version created before the key was introduced</li>
+ * </ul>
+ * Branches not migrated are still repaired lazily by {@link GremlinVersionRepository} on their next push.
+ *
+ * @author Angelo Antonio Prisco
+ * @version 1.1
+ * @since 2025-09-02
+ */
+@Component
+public class GremlinVersionMigration implements ApplicationRunner {
+    private final GremlinConfig config;
+    private final GremlinVersionRepository gremlinVersionRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public GremlinVersionMigration(GremlinConfig config,
+                                   GremlinVersionRepository gremlinVersionRepository,
+                                   MeterRegistry meterRegistry) {
+        this.config = config;
+        this.gremlinVersionRepository = gremlinVersionRepository;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (config.isBackfillLastVersion()) {
+            int repaired = gremlinVersionRepository.backfillLastVersions();
+            meterRegistry.counter("gremlin.migration.last_version.backfilled").increment(repaired);
+        }
+
+        if (config.isBackfillVersionKey()) {
+            int updated = gremlinVersionRepository.backfillVersionKeys();
+            meterRegistry.counter("gremlin.migration.version_key.backfilled").increment(updated);
+        }
+    }
+}
@@ -1,17 +1,23 @@
 package it.unisa.ddditserver.db.gremlin.versioning.version;
 
 import it.unisa.ddditserver.subsystems.versioning.dto.BranchDTO;
+import it.unisa.ddditserver.subsystems.versioning.dto.PageDTO;
+import it.unisa.ddditserver.subsystems.versioning.dto.PageRequestDTO;
+import it.unisa.ddditserver.subsystems.versioning.dto.ResourceDTO;
 import it.unisa.ddditserver.subsystems.versioning.dto.version.VersionDTO;
+import it.unisa.ddditserver.subsystems.versioning.dto.version.VersionFileDTO;
 import it.unisa.ddditserver.subsystems.versioning.service.version.NonClosingInputStreamResource;
 import org.apache.commons.lang3.tuple.Pair;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Repository interface for managing version-related operations
  * in a Gremlin-compatible graph database.
  *
  * @author Angelo Antonio Prisco
- * @version 1.0
+ * @version 1.6
  * @since 2025-08-13
  */
 public interface GremlinVersionRepository {
@@ -23,6 +29,52 @@ public interface GremlinVersionRepository {
      */
     void saveVersion(VersionDTO versionDTO, boolean resourceType);
 
+    /**
+     * Creates a new version vertex in the graph database and appends it to an already resolved branch vertex.
+     *
+     * @param versionDTO the VersionDTO containing mesh information
+     * @param resourceType indicates a mesh version validation if true or a material version validation if false
+     * @param branchId the vertex ID of the branch that will contain the version
+     * @return the CosmosDB URL of the document with the metadata of the version
+     */
+    String saveVersion(VersionDTO versionDTO, boolean resourceType, String branchId);
+
+    /**
+     * Creates a new mesh version vertex for a mesh already stored in BLOB storage and appends it to
+     * an already resolved branch vertex. If the version can't be saved the mesh is deleted.
+     *
+     * @param versionDTO the VersionDTO containing version information
+     * @param meshUrl the BLOB storage URL of the mesh of the version
+     * @param branchId the vertex ID of the branch that will contain the version
+     * @return the CosmosDB URL of the document with the metadata of the version
+     */
+    String saveUploadedMeshVersion(VersionDTO versionDTO, String meshUrl, String branchId);
+
+    /**
+     * Rebuilds the HAS_LAST_VERSION pointer of a branch by walking its version chain.
+     * It is used when the pointer is missing or stale, and a chain forked by concurrent appends
+     * is merged back by moving every extra last version after the previous one.
+     *
+     * @param branchId the vertex ID of the branch to repair
+     * @return the vertex ID of the last version of the branch, or null if the branch has no versions
+     */
+    String repairLastVersion(String branchId);
+
+    /**
+     * Creates the HAS_LAST_VERSION pointer for every branch with versions but without a pointer.
+     *
+     * @return the number of branches that have been repaired
+     */
+    int backfillLastVersions();
+
+    /**
+     * Stores the composite version key on every version vertex created before its introduction,
+     * so that the version can be found with a point lookup.
+     *
+     * @return the number of version vertices that have been updated
+     */
+    int backfillVersionKeys();
+
     /**
      * Checks whether a version exists in the database.
      *
@@ -39,6 +91,14 @@ public interface GremlinVersionRepository {
      */
     VersionDTO findVersionByBranch(VersionDTO versionDTO);
 
+    /**
+     * Retrieves information about a version vertex from its vertex ID.
+     *
+     * @param versionId the vertex ID of the version
+     * @return the VersionDTO if found
+     */
+    VersionDTO findVersionById(String versionId);
+
     /**
      * Finds all versions in the specified branch.
      *
@@ -47,11 +107,49 @@ public interface GremlinVersionRepository {
      */
     List<VersionDTO> findVersionsByBranch(BranchDTO branchDTO);
 
+    /**
+     * Finds a page of the versions in the specified branch, in chain order.
+     *
+     * @param branchDTO the branch to search for
+     * @param pageRequestDTO the limit and the continuation token of the requested page
+     * @return a {@link PageDTO} of {@link VersionDTO} with the continuation token of the next page
+     */
+    PageDTO<VersionDTO> findVersionsByBranch(BranchDTO branchDTO, PageRequestDTO pageRequestDTO);
+
+    /**
+     * Finds the version tree of the specified resource with a single query.
+     *
+     * @param resourceDTO the resource to search for in a specific repository
+     * @param limit the maximum number of versions returned for each branch, starting from the first one;
+     *              null or a value lower than 1 returns all the versions
+     * @return a map from each branch name to the ordered names of its versions
+     */
+    Map<String, List<String>> findVersionTreeByResource(ResourceDTO resourceDTO, Integer limit);
+
     /**
      * Retrieves the mesh file content or material files content associated with a specific version node.
+     * Material files may still be downloading, so each one is completed when it is ready.
      *
      * @param versionDTO containing the criteria to find the mesh file or the material files
      * @return the mesh file with associated content-type data if found, the material files with associated content-type data if found, or null if not found
      */
-    List<Pair<NonClosingInputStreamResource, String>> getFile(VersionDTO versionDTO);
+    List<CompletableFuture<Pair<NonClosingInputStreamResource, String>>> getFile(VersionDTO versionDTO);
+
+    /**
+     * Retrieves the mesh file content or material files content associated with a version vertex ID.
+     * Material files may still be downloading, so each one is completed when it is ready.
+     *
+     * @param versionId the vertex ID of the version
+     * @return the mesh file with associated content-type data if found, the material files with associated content-type data if found
+     */
+    List<CompletableFuture<Pair<NonClosingInputStreamResource, String>>> getFileByVersionId(String versionId);
+
+    /**
+     * Retrieves name, content type, size and ETag of the mesh of a mesh version, without opening its content.
+     *
+     * @param versionId the vertex ID of the version
+     * @return the mesh file of the version
+     * @throws it.unisa.ddditserver.subsystems.versioning.exceptions.version.InvalidMaterialException if it is a material version
+     */
+    VersionFileDTO getMeshPropertiesByVersionId(String versionId);
 }
\ No newline at end of file
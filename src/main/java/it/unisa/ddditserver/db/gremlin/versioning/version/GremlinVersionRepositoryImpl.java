@@ -1,69 +1,65 @@
 package it.unisa.ddditserver.db.gremlin.versioning.version;
 
 import it.unisa.ddditserver.subsystems.versioning.dto.BranchDTO;
+import it.unisa.ddditserver.subsystems.versioning.dto.PageDTO;
+import it.unisa.ddditserver.subsystems.versioning.dto.PageRequestDTO;
+import it.unisa.ddditserver.subsystems.versioning.dto.ResourceDTO;
+import it.unisa.ddditserver.subsystems.versioning.dto.version.CosmosVersionDTO;
 import it.unisa.ddditserver.subsystems.versioning.dto.version.VersionDTO;
+import it.unisa.ddditserver.subsystems.versioning.dto.version.VersionFileDTO;
 import it.unisa.ddditserver.db.blobstorage.versioning.BlobStorageVersionRepository;
 import it.unisa.ddditserver.db.cosmos.versioning.CosmosVersionRepository;
-import it.unisa.ddditserver.db.gremlin.GremlinConfig;
+import it.unisa.ddditserver.db.gremlin.GremlinClient;
+import it.unisa.ddditserver.db.gremlin.GremlinConnectionPool;
+import it.unisa.ddditserver.db.gremlin.GremlinPagination;
+import it.unisa.ddditserver.subsystems.versioning.exceptions.InvalidPageTokenException;
+import it.unisa.ddditserver.subsystems.versioning.exceptions.version.InvalidMaterialException;
 import it.unisa.ddditserver.subsystems.versioning.exceptions.version.VersionException;
 import it.unisa.ddditserver.subsystems.versioning.service.version.NonClosingInputStreamResource;
 import org.apache.commons.lang3.tuple.Pair;
-import org.apache.commons.lang3.tuple.Triple;
-import org.apache.tinkerpop.gremlin.driver.Cluster;
-import org.apache.tinkerpop.gremlin.driver.Client;
 import org.apache.tinkerpop.gremlin.driver.Result;
-import org.apache.tinkerpop.gremlin.driver.ser.Serializers;
 import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @Repository
 public class GremlinVersionRepositoryImpl implements GremlinVersionRepository {
-    private final GremlinConfig config;
+    private static final int APPEND_LOCK_STRIPES = 64;
+
+    private final GremlinConnectionPool connectionPool;
     private final CosmosVersionRepository cosmosService;
     private final BlobStorageVersionRepository blobStorageService;
-    private Client client;
+    private GremlinClient client;
+
+    // Gremlin traversals are not transactional, so appends to the same branch are serialized on this instance
+    private final Object[] appendLocks = new Object[APPEND_LOCK_STRIPES];
 
     @Autowired
-    public GremlinVersionRepositoryImpl(GremlinConfig config,
+    public GremlinVersionRepositoryImpl(GremlinConnectionPool connectionPool,
                                         CosmosVersionRepository cosmosService,
                                         BlobStorageVersionRepository blobStorageService) {
-        this.config = config;
+        this.connectionPool = connectionPool;
         this.cosmosService = cosmosService;
         this.blobStorageService = blobStorageService;
-    }
 
-    @PostConstruct
-    public void init() {
-        String endpoint = config.getEndpoint();
-        // Remove protocol prefix (wss://)
-        if (endpoint.startsWith("wss://")) {
-            endpoint = endpoint.substring(6);
-        }
-        // Remove port and path after colon
-        int colonIndex = endpoint.indexOf(':');
-        if (colonIndex != -1) {
-            endpoint = endpoint.substring(0, colonIndex);
-        }
-        // Remove trailing slash if present
-        if (endpoint.endsWith("/")) {
-            endpoint = endpoint.substring(0, endpoint.length() - 1);
+        for (int i = 0; i < appendLocks.length; i++) {
+            appendLocks[i] = new Object();
         }
+    }
 
-        // Build cluster connection to Gremlin server
-        Cluster cluster = Cluster.build()
-                .addContactPoint(endpoint)
-                .port(443)
-                .credentials(config.getUsername(), config.getKey())
-                .enableSsl(true)
-                .serializer(Serializers.GRAPHSON_V2D0)
-                .create();
+    private Object appendLock(String branchId) {
+        return appendLocks[Math.floorMod(branchId.hashCode(), appendLocks.length)];
+    }
 
-        this.client = cluster.connect();
+    @PostConstruct
+    public void init() {
+        this.client = connectionPool.getClient();
     }
 
     @Override
@@ -71,32 +67,17 @@ public class GremlinVersionRepositoryImpl implements GremlinVersionRepository {
         String repositoryName = versionDTO.getRepositoryName();
         String resourceName = versionDTO.getResourceName();
         String branchName = versionDTO.getBranchName();
-        String versionName = versionDTO.getVersionName();
 
-        String url = "";
-        String cosmosDocumentUrl = "";
+        Object branchId;
 
         try {
-            if (resourceType) {
-                url = blobStorageService.saveMesh(versionDTO);
-            } else {
-                url = blobStorageService.saveMaterial(versionDTO);
-            }
-
-            cosmosDocumentUrl = cosmosService.saveVersion(versionDTO, url);
-
             String query = "g.V().hasLabel('branch')" +
                     ".has('branchName', branchName)" +
-                    ".as('branch')" +
-                    ".in('HAS_BRANCH')" +
-                    ".has('resourceName', resourceName)" +
-                    ".in('CONTAINS')" +
-                    ".has('repositoryName', repositoryName)" +
-                    ".project('branchId', 'branchProps', 'repositoryId', 'repositoryProps')" +
-                        ".by(select('branch').id())" +
-                        ".by(select('branch').valueMap())" +
-                        ".by(id())" +
-                        ".by(valueMap())";
+                    ".where(in('HAS_BRANCH')" +
+                        ".has('resourceName', resourceName)" +
+                        ".in('CONTAINS')" +
+                        ".has('repositoryName', repositoryName))" +
+                    ".id()";
 
             List<Result> branchResults = client.submit(query, Map.of(
                     "branchName", branchName,
@@ -104,74 +85,116 @@ public class GremlinVersionRepositoryImpl implements GremlinVersionRepository {
                     "repositoryName", repositoryName)).all().get();
 
             if (branchResults.isEmpty()) {
-                // Roll back operations
-                if (resourceType) {
-                    blobStorageService.deleteMeshByUrl(url);
-                } else {
-                    blobStorageService.deleteMaterialByUrl(url);
-                }
-
-                cosmosService.deleteVersionByUrl(cosmosDocumentUrl);
-
                 throw new VersionException("No branch found for " + resourceName + " resource in " + repositoryName +" repository");
             }
 
-            @SuppressWarnings("unchecked")
-            Map<String, Object> branchNodeMap = (Map<String, Object>) branchResults.get(0).getObject();
-            Object branchId = branchNodeMap.get("branchId");
-
-            query = "g.V(branchId)" +
-                    ".out('HAS_VERSION')" +
-                    ".union(" +
-                    "identity()," +
-                    "repeat(out('HAS_NEXT_VERSION')).emit())";
-
-            List<Result> versionResults = client.submit(query, Map.of("branchId", branchId)).all().get();
+            branchId = branchResults.get(0).getObject();
+        } catch (VersionException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new VersionException("Error saving new version in Gremlin DB");
+        }
 
-            query = "g.addV('version')" +
-                    ".property('repoId', repositoryName)" +
-                    ".property('versionName', versionName)" +
-                    ".property('cosmosDocumentUrl', cosmosDocumentUrl)";
+        saveVersion(versionDTO, resourceType, branchId.toString());
+    }
 
-            if (resourceType) {
-                query += ".property('resourceType', 'mesh')";
-            } else {
-                query += ".property('resourceType', 'material')";
-            }
+    @Override
+    public String saveVersion(VersionDTO versionDTO, boolean resourceType, String branchId) {
+        return saveVersion(versionDTO, resourceType, branchId, null);
+    }
 
-            Result versionResult = client.submit(query,
-                    Map.of(
-                    "repositoryName", repositoryName,
-                    "versionName", versionName,
-                    "cosmosDocumentUrl", cosmosDocumentUrl)
-            ).one();
+    @Override
+    public String saveUploadedMeshVersion(VersionDTO versionDTO, String meshUrl, String branchId) {
+        return saveVersion(versionDTO, true, branchId, meshUrl);
+    }
 
-            @SuppressWarnings("unchecked")
-            Map<String, Object> versionNodeMap = (Map<String, Object>) versionResult.getObject();
-            Object versionId = versionNodeMap.get("id");
+    private String saveVersion(VersionDTO versionDTO, boolean resourceType, String branchId, String uploadedUrl) {
+        String repositoryName = versionDTO.getRepositoryName();
+        String resourceName = versionDTO.getResourceName();
+        String branchName = versionDTO.getBranchName();
+        String versionName = versionDTO.getVersionName();
 
-            if (versionResults.isEmpty()) {
-                query = "g.V(branchId)" +
-                        ".addE('HAS_VERSION')" +
-                        ".to(g.V(versionId))";
+        String url = "";
+        Map<String, String> contentHashes = null;
+        String cosmosDocumentUrl = "";
 
-                client.submit(query, Map.of("branchId", branchId, "versionId", versionId)).all().get();
+        try {
+            // Uploaded meshes are stored by path, while the files of the request are stored by content hash
+            if (uploadedUrl != null) {
+                url = uploadedUrl;
+            } else if (resourceType) {
+                contentHashes = blobStorageService.saveMesh(versionDTO);
             } else {
-                Result lastVersionResult = versionResults.get(versionResults.size() - 1);
-                @SuppressWarnings("unchecked")
-                Map<String, Object> lastVersionMap = (Map<String, Object>) lastVersionResult.getObject();
-                Object lastVersionId = lastVersionMap.get("id");
+                contentHashes = blobStorageService.saveMaterial(versionDTO);
+            }
 
-                query= "g.V(lastVersionId)" +
-                        ".addE('HAS_NEXT_VERSION')" +
-                        ".to(g.V(versionId))";
+            cosmosDocumentUrl = cosmosService.saveVersion(versionDTO, uploadedUrl, contentHashes);
 
-                client.submit(query, Map.of("lastVersionId", lastVersionId, "versionId", versionId)).all().get();
+            String addVersion = ".addV('version')" +
+                    ".property('repoId', repositoryName)" +
+                    ".property('versionName', versionName)" +
+                    ".property('versionKey', versionKey)" +
+                    ".property('cosmosDocumentUrl', cosmosDocumentUrl)" +
+                    ".property('resourceType', resourceType)" +
+                    ".as('v')";
+
+            // The tail lookup, the pointer move and the append run in a single traversal to keep the window between them
+            // short, but the traversal is not atomic, so appends are also serialized per branch on this instance.
+            // Pushes served by different instances can still fork the chain, which the repair merges back.
+            // The tail is read from the HAS_LAST_VERSION pointer, so the append does not depend on the branch history,
+            // and a branch with more than one pointer is left untouched instead of appending to both
+            String query = "g.V(branchId)" +
+                    ".as('b')" +
+                    ".coalesce(" +
+                        "__.where(outE('HAS_LAST_VERSION').count().is(1))" +
+                            ".out('HAS_LAST_VERSION')" +
+                            ".not(out('HAS_NEXT_VERSION'))" +
+                            ".as('t')" +
+                            ".sideEffect(inE('HAS_LAST_VERSION').drop())" +
+                            addVersion +
+                            ".addE('HAS_NEXT_VERSION').from('t').to('v')" +
+                            ".addE('HAS_LAST_VERSION').from('b').to('v')" +
+                            ".select('v')," +
+                        "__.not(out('HAS_VERSION'))" +
+                            addVersion +
+                            ".addE('HAS_VERSION').from('b').to('v')" +
+                            ".addE('HAS_LAST_VERSION').from('b').to('v')" +
+                            ".select('v'))" +
+                    ".id()";
+
+            Map<String, Object> parameters = new HashMap<>();
+            parameters.put("branchId", branchId);
+            parameters.put("repositoryName", repositoryName);
+            parameters.put("versionName", versionName);
+            parameters.put("versionKey", GremlinVersionKey.of(repositoryName, resourceName, branchName, versionName));
+            parameters.put("cosmosDocumentUrl", cosmosDocumentUrl);
+            parameters.put("resourceType", resourceType ? "mesh" : "material");
+
+            List<Result> versionResults;
+
+            synchronized (appendLock(branchId)) {
+                versionResults = client.submit(query, parameters).all().get();
+
+                if (versionResults.isEmpty()) {
+                    // Missing, stale or duplicated pointer, e.g. a branch not yet migrated, a previous append
+                    // interrupted or two appends that forked the chain
+                    repairLastVersion(branchId);
+                    versionResults = client.submit(query, parameters).all().get();
+                }
+            }
+
+            if (versionResults.size() != 1) {
+                throw new VersionException("Error appending version to " + branchName + " branch in Gremlin DB");
             }
 
+            return cosmosDocumentUrl;
         } catch (Exception e) {
-            // Roll back operations
-            if (resourceType) {
+            // Roll back operations, content-addressed files are only released since other versions may reference them
+            if (contentHashes != null && resourceType) {
+                blobStorageService.releaseMesh(contentHashes.values());
+            } else if (contentHashes != null) {
+                blobStorageService.releaseMaterial(contentHashes.values());
+            } else if (resourceType) {
                 blobStorageService.deleteMeshByUrl(url);
             } else {
                 blobStorageService.deleteMaterialByUrl(url);
@@ -184,91 +207,197 @@ public class GremlinVersionRepositoryImpl implements GremlinVersionRepository {
     }
 
     @Override
-    public boolean existsByVersion(VersionDTO versionDTO) {
-        String repositoryName = versionDTO.getRepositoryName();
-        String resourceName = versionDTO.getResourceName();
-        String branchName = versionDTO.getBranchName();
-        String versionName = versionDTO.getVersionName();
+    public String repairLastVersion(String branchId) {
+        synchronized (appendLock(branchId)) {
+            return repairLastVersionLocked(branchId);
+        }
+    }
 
+    private String repairLastVersionLocked(String branchId) {
         try {
-            String query = "g.V()" +
-                    ".hasLabel('repository')" +
-                    ".has('repositoryName', repositoryName)" +
-                    ".out('CONTAINS')" +
-                    ".has('resourceName', resourceName)" +
-                    ".out('HAS_BRANCH')" +
-                    ".has('branchName', branchName)" +
+            // Walk the chain once to find the versions without a successor
+            String query = "g.V(branchId)" +
                     ".out('HAS_VERSION')" +
-                    ".union(identity(), repeat(out('HAS_NEXT_VERSION')).emit())" +
-                    ".has('versionName', versionName)" +
-                    ".valueMap()";
+                    ".until(outE('HAS_NEXT_VERSION').count().is(0))" +
+                    ".repeat(out('HAS_NEXT_VERSION'))" +
+                    ".dedup()" +
+                    ".id()";
 
-            List<Result> results = client.submit(query, Map.of(
-                    "repositoryName", repositoryName,
-                    "resourceName", resourceName,
-                    "branchName", branchName,
-                    "versionName", versionName)).all().get();
+            List<Result> results = client.submit(query, Map.of("branchId", branchId)).all().get();
 
             if (results.isEmpty()) {
-                return false;
+                return null;
             }
 
-            if (results.size() > 1) {
-                throw new VersionException("More than one version found in Gremlin DB");
+            // More than one tail means that concurrent appends forked the chain. An append never extends a forked
+            // branch, so every extra tail is a single version, and it is moved after the previous tail
+            List<String> tailIds = new ArrayList<>();
+            for (Result result : results) {
+                tailIds.add(result.getObject().toString());
             }
+            tailIds.sort(null);
 
-            return true;
+            for (int i = 1; i < tailIds.size(); i++) {
+                query = "g.V(previousId)" +
+                        ".as('p')" +
+                        ".V(tailId)" +
+                        ".sideEffect(inE('HAS_VERSION', 'HAS_NEXT_VERSION').drop())" +
+                        ".addE('HAS_NEXT_VERSION')" +
+                        ".from('p')";
+
+                client.submit(query, Map.of(
+                        "previousId", tailIds.get(i - 1),
+                        "tailId", tailIds.get(i))).all().get();
+            }
+
+            String lastVersionId = tailIds.get(tailIds.size() - 1);
+
+            // Point the branch to the last version only
+            query = "g.V(branchId)" +
+                    ".as('b')" +
+                    ".sideEffect(outE('HAS_LAST_VERSION').drop())" +
+                    ".V(lastVersionId)" +
+                    ".addE('HAS_LAST_VERSION')" +
+                    ".from('b')" +
+                    ".inV()" +
+                    ".id()";
+
+            client.submit(query, Map.of(
+                    "branchId", branchId,
+                    "lastVersionId", lastVersionId)).all().get();
+
+            return lastVersionId;
         } catch (VersionException e) {
             throw e;
         } catch (Exception e) {
             // If it is necessary use a RuntimeException for more detailed debug
-            throw new VersionException("Error checking version existence in Gremlin DB");
+            throw new VersionException("Error repairing last version pointer in Gremlin DB");
         }
     }
 
     @Override
-    public VersionDTO findVersionByBranch(VersionDTO versionDTO) {
-        String repositoryName = versionDTO.getRepositoryName();
-        String resourceName = versionDTO.getResourceName();
-        String branchName = versionDTO.getBranchName();
-        String versionName = versionDTO.getVersionName();
+    public int backfillLastVersions() {
+        try {
+            String query = "g.V()" +
+                    ".hasLabel('branch')" +
+                    ".where(out('HAS_VERSION'))" +
+                    ".not(out('HAS_LAST_VERSION'))" +
+                    ".id()";
+
+            List<Result> results = client.submit(query).all().get();
+
+            int repaired = 0;
+
+            for (Result result : results) {
+                if (repairLastVersion(result.getObject().toString()) != null) {
+                    repaired++;
+                }
+            }
 
+            return repaired;
+        } catch (VersionException e) {
+            throw e;
+        } catch (Exception e) {
+            // If it is necessary use a RuntimeException for more detailed debug
+            throw new VersionException("Error backfilling last version pointers in Gremlin DB");
+        }
+    }
+
+    @Override
+    public int backfillVersionKeys() {
         try {
             String query = "g.V()" +
-                    ".hasLabel('repository')" +
-                    ".has('repositoryName', repositoryName)" +
-                    ".out('CONTAINS')" +
-                    ".has('resourceName', resourceName)" +
-                    ".out('HAS_BRANCH')" +
-                    ".has('branchName', branchName)" +
-                    ".out('HAS_VERSION')" +
-                    ".union(identity(), repeat(out('HAS_NEXT_VERSION')).emit())" +
-                    ".has('versionName', versionName)" +
-                    ".valueMap()";
+                    ".hasLabel('branch')" +
+                    ".project('branchId', 'branchName', 'resourceName', 'repositoryName')" +
+                        ".by(id())" +
+                        ".by('branchName')" +
+                        ".by(in('HAS_BRANCH').values('resourceName'))" +
+                        ".by(in('HAS_BRANCH').in('CONTAINS').values('repositoryName'))";
 
-            List<Result> results = client.submit(query, Map.of(
-                    "repositoryName", repositoryName,
-                    "resourceName", resourceName,
-                    "branchName", branchName,
-                    "versionName", versionName)).all().get();
+            List<Result> branchResults = client.submit(query).all().get();
+
+            int updated = 0;
+
+            for (Result branchResult : branchResults) {
+                @SuppressWarnings("unchecked")
+                Map<String, Object> branchMap = (Map<String, Object>) branchResult.getObject();
+                String repositoryName = branchMap.get("repositoryName").toString();
+                String resourceName = branchMap.get("resourceName").toString();
+                String branchName = branchMap.get("branchName").toString();
+
+                query = "g.V(branchId)" +
+                        ".out('HAS_VERSION')" +
+                        ".union(identity(), repeat(out('HAS_NEXT_VERSION')).emit())" +
+                        ".not(has('versionKey'))" +
+                        ".project('versionId', 'versionName')" +
+                            ".by(id())" +
+                            ".by('versionName')";
+
+                List<Result> versionResults = client.submit(query, Map.of("branchId", branchMap.get("branchId"))).all().get();
+
+                for (Result versionResult : versionResults) {
+                    @SuppressWarnings("unchecked")
+                    Map<String, Object> versionMap = (Map<String, Object>) versionResult.getObject();
+                    String versionName = versionMap.get("versionName").toString();
+
+                    query = "g.V(versionId)" +
+                            ".property('versionKey', versionKey)";
+
+                    client.submit(query, Map.of(
+                            "versionId", versionMap.get("versionId"),
+                            "versionKey", GremlinVersionKey.of(repositoryName, resourceName, branchName, versionName))).all().get();
+
+                    updated++;
+                }
+            }
+
+            return updated;
+        } catch (VersionException e) {
+            throw e;
+        } catch (Exception e) {
+            // If it is necessary use a RuntimeException for more detailed debug
+            throw new VersionException("Error backfilling version keys in Gremlin DB");
+        }
+    }
+
+    @Override
+    public boolean existsByVersion(VersionDTO versionDTO) {
+        try {
+            List<Result> results = findVersionByKey(versionDTO, ".id()");
 
             if (results.isEmpty()) {
-                throw new VersionException("Version node not found in Gremlin DB");
+                return false;
             }
 
             if (results.size() > 1) {
                 throw new VersionException("More than one version found in Gremlin DB");
             }
 
-            @SuppressWarnings("unchecked")
-            Map<String, List<Object>> props = (Map<String, List<Object>>) results.get(0).getObject();
-            String cosmosDocumentUrl = props.get("cosmosDocumentUrl").get(0).toString();
+            return true;
+        } catch (VersionException e) {
+            throw e;
+        } catch (Exception e) {
+            // If it is necessary use a RuntimeException for more detailed debug
+            throw new VersionException("Error checking version existence in Gremlin DB");
+        }
+    }
 
-            if (cosmosDocumentUrl == null || cosmosDocumentUrl.isEmpty()) {
-                throw new VersionException("Cosmos DB document not found in the version node of Gremlin DB");
-            }
+    @Override
+    public VersionDTO findVersionByBranch(VersionDTO versionDTO) {
+        try {
+            return toVersionMetadata(findVersionProperties(versionDTO));
+        } catch (VersionException e) {
+            throw e;
+        } catch (Exception e) {
+            // If it is necessary use a RuntimeException for more detailed debug
+            throw new VersionException("Error retrieving version from Gremlin graph");
+        }
+    }
 
-            return cosmosService.findVersionByUrl(cosmosDocumentUrl);
+    @Override
+    public VersionDTO findVersionById(String versionId) {
+        try {
+            return toVersionMetadata(findVersionProperties(versionId));
         } catch (VersionException e) {
             throw e;
         } catch (Exception e) {
@@ -279,120 +408,311 @@ public class GremlinVersionRepositoryImpl implements GremlinVersionRepository {
 
     @Override
     public List<VersionDTO> findVersionsByBranch(BranchDTO branchDTO) {
+        try {
+            return findVersionsByBranch(branchDTO, null, null);
+        } catch (VersionException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new VersionException(e.getMessage());
+        }
+    }
+
+    @Override
+    public PageDTO<VersionDTO> findVersionsByBranch(BranchDTO branchDTO, PageRequestDTO pageRequestDTO) {
+        int limit = pageRequestDTO.getEffectiveLimit();
+
+        try {
+            long offset = GremlinPagination.decodeOffset(pageRequestDTO.getContinuationToken());
+            List<VersionDTO> versions = findVersionsByBranch(branchDTO, offset, limit + 1);
+
+            return GremlinPagination.toOffsetPage(versions, offset, limit);
+        } catch (InvalidPageTokenException e) {
+            throw e;
+        } catch (VersionException e) {
+            throw e;
+        } catch (Exception e) {
+            // If it is necessary use a RuntimeException for more detailed debug
+            throw new VersionException("Error finding versions by branch in Gremlin DB");
+        }
+    }
+
+    private List<VersionDTO> findVersionsByBranch(BranchDTO branchDTO, Long offset, Integer limit) throws Exception {
         String repositoryName = branchDTO.getRepositoryName();
         String resourceName = branchDTO.getResourceName();
         String branchName = branchDTO.getBranchName();
 
+        // emit() before repeat() keeps the versions in chain order, so pages are addressed by position
+        String query = "g.V()" +
+                ".hasLabel('repository')" +
+                ".has('repositoryName', repositoryName)" +
+                ".out('CONTAINS')" +
+                ".has('resourceName', resourceName)" +
+                ".out('HAS_BRANCH')" +
+                ".has('branchName', branchName)" +
+                ".out('HAS_VERSION')" +
+                ".emit()" +
+                ".repeat(out('HAS_NEXT_VERSION'))";
+
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("repositoryName", repositoryName);
+        parameters.put("resourceName", resourceName);
+        parameters.put("branchName", branchName);
+
+        if (limit != null) {
+            query += ".range(offset, end)";
+            parameters.put("offset", offset);
+            parameters.put("end", offset + limit);
+        }
+
+        query += ".valueMap()";
+
+        List<Result> results = client.submit(query, parameters).all().get();
+
+        List<VersionDTO> versions = new ArrayList<>();
+
+        for (Result result : results) {
+            @SuppressWarnings("unchecked")
+            Map<String, List<Object>> props = (Map<String, List<Object>>) result.getObject();
+            String versionName = props.get("versionName").get(0).toString();
+            versions.add(new VersionDTO(
+                    null, null,
+                    null, versionName,
+                    null, null,
+                    null, null,
+                    null, null));
+        }
+
+        return versions;
+    }
+
+    @Override
+    public Map<String, List<String>> findVersionTreeByResource(ResourceDTO resourceDTO, Integer limit) {
+        String repositoryName = resourceDTO.getRepositoryName();
+        String resourceName = resourceDTO.getResourceName();
+
         try {
+            // emit() before repeat() keeps the versions in chain order, starting from the first one
+            String versions = "out('HAS_VERSION')" +
+                    ".emit()" +
+                    ".repeat(out('HAS_NEXT_VERSION'))";
+
+            Map<String, Object> parameters = new HashMap<>();
+            parameters.put("repositoryName", repositoryName);
+            parameters.put("resourceName", resourceName);
+
+            if (limit != null && limit > 0) {
+                versions += ".limit(limit)";
+                parameters.put("limit", limit);
+            }
+
             String query = "g.V()" +
                     ".hasLabel('repository')" +
                     ".has('repositoryName', repositoryName)" +
                     ".out('CONTAINS')" +
                     ".has('resourceName', resourceName)" +
                     ".out('HAS_BRANCH')" +
-                    ".has('branchName', branchName)" +
-                    ".out('HAS_VERSION')" +
-                    ".union(identity(), repeat(out('HAS_NEXT_VERSION')).emit())" +
-                    ".valueMap()";
+                    ".group()" +
+                        ".by('branchName')" +
+                        ".by(" + versions + ".values('versionName').fold())";
 
-            List<Result> results = client.submit(query, Map.of(
-                            "repositoryName", repositoryName,
-                            "resourceName", resourceName,
-                            "branchName", branchName)).all().get();
+            List<Result> results = client.submit(query, parameters).all().get();
 
-            List<VersionDTO> versions = new ArrayList<>();
+            Map<String, List<String>> versionTree = new HashMap<>();
 
-            for (Result result : results) {
+            if (results.isEmpty()) {
+                return versionTree;
+            }
+
+            @SuppressWarnings("unchecked")
+            Map<String, Object> tree = (Map<String, Object>) results.get(0).getObject();
+
+            for (Map.Entry<String, Object> branch : tree.entrySet()) {
                 @SuppressWarnings("unchecked")
-                Map<String, List<Object>> props = (Map<String, List<Object>>) result.getObject();
-                String versionName = props.get("versionName").get(0).toString();
-                versions.add(new VersionDTO(
-                        null, null,
-                        null, versionName,
-                        null, null,
-                        null, null,
-                        null, null));
+                List<Object> versionNames = (List<Object>) branch.getValue();
+                versionTree.put(branch.getKey(), versionNames.stream().map(Object::toString).toList());
             }
 
-            return versions;
+            return versionTree;
         } catch (VersionException e) {
             throw e;
         } catch (Exception e) {
-            throw new VersionException(e.getMessage());
+            // If it is necessary use a RuntimeException for more detailed debug
+            throw new VersionException("Error finding version tree by resource in Gremlin DB");
         }
     }
 
     @Override
-    public List<Pair<NonClosingInputStreamResource, String>> getFile(VersionDTO versionDTO) {
-        String repositoryName = versionDTO.getRepositoryName();
-        String resourceName = versionDTO.getResourceName();
-        String branchName = versionDTO.getBranchName();
-        String versionName = versionDTO.getVersionName();
+    public List<CompletableFuture<Pair<NonClosingInputStreamResource, String>>> getFile(VersionDTO versionDTO) {
+        try {
+            return toFiles(findVersionProperties(versionDTO));
+        } catch (VersionException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new VersionException("Error retrieving mesh file");
+        }
+    }
 
+    @Override
+    public List<CompletableFuture<Pair<NonClosingInputStreamResource, String>>> getFileByVersionId(String versionId) {
         try {
-            String query = "g.V()" +
-                    ".hasLabel('repository')" +
-                    ".has('repositoryName', repositoryName)" +
-                    ".out('CONTAINS')" +
-                    ".has('resourceName', resourceName)" +
-                    ".out('HAS_BRANCH')" +
-                    ".has('branchName', branchName)" +
-                    ".out('HAS_VERSION')" +
-                    ".union(identity(), repeat(out('HAS_NEXT_VERSION')).emit())" +
-                    ".has('versionName', versionName)" +
-                    ".valueMap()";
+            return toFiles(findVersionProperties(versionId));
+        } catch (VersionException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new VersionException("Error retrieving mesh file");
+        }
+    }
 
-            List<Result> results = client.submit(query, Map.of(
-                    "repositoryName", repositoryName,
-                    "resourceName", resourceName,
-                    "branchName", branchName,
-                    "versionName", versionName)).all().get();
+    @Override
+    public VersionFileDTO getMeshPropertiesByVersionId(String versionId) {
+        try {
+            Map<String, List<Object>> props = findVersionProperties(versionId);
 
-            if (results.isEmpty()) {
-                throw new VersionException("Version node not found in Gremlin DB");
-            }
-            if (results.size() > 1) {
-                throw new VersionException("More than one version found in Gremlin DB");
+            if (!props.get("resourceType").get(0).toString().equalsIgnoreCase("mesh")) {
+                throw new InvalidMaterialException("Material versions have more than one file, pull them as multipart");
             }
 
-            @SuppressWarnings("unchecked")
-            Map<String, List<Object>> props = (Map<String, List<Object>>) results.get(0).getObject();
-            String cosmosDocumentUrl = props.get("cosmosDocumentUrl").get(0).toString();
-            String resourceType = props.get("resourceType").get(0).toString();
+            CosmosVersionDTO cosmosVersion = cosmosService.findVersionDocumentByUrl(getCosmosDocumentUrl(props));
+            Map<String, String> contentHashes = cosmosVersion.getContentHashes();
 
-            if (cosmosDocumentUrl == null || cosmosDocumentUrl.isEmpty()) {
-                throw new VersionException("Cosmos DB document not found in the version node of Gremlin DB");
+            if (contentHashes != null && !contentHashes.isEmpty()) {
+                Map.Entry<String, String> mesh = contentHashes.entrySet().iterator().next();
+                return blobStorageService.findMeshPropertiesByHash(mesh.getKey(), mesh.getValue());
             }
 
-            String blobUrl = cosmosService.getBlobUrlByUrl(cosmosDocumentUrl);
-
-            if (blobUrl == null || blobUrl.isEmpty()) {
+            if (cosmosVersion.getBlobUrl() == null || cosmosVersion.getBlobUrl().isEmpty()) {
                 throw new VersionException("BLOB URL not found in the Cosmos DB document");
             }
 
-            List<Pair<NonClosingInputStreamResource, String>> stream;
-
-            if (resourceType.equalsIgnoreCase("mesh")) {
-                Triple<InputStream, String, String> meshData = blobStorageService.findMeshByUrl(blobUrl);
-                stream = List.of(Pair.of(
-                        new NonClosingInputStreamResource(meshData.getLeft(), meshData.getRight(), meshData.getMiddle()),
-                        meshData.getMiddle()
-                ));
-            } else {
-                List<Triple<InputStream, String, String>> textures = blobStorageService.findMaterialByUrl(blobUrl);
-                stream = textures.stream()
-                        .map(p -> Pair.of(
-                                new NonClosingInputStreamResource(p.getLeft(), p.getRight(), p.getMiddle()),
-                                p.getMiddle()
-                        ))
-                        .toList();
-            }
-
-            return stream;
+            return blobStorageService.findMeshPropertiesByUrl(cosmosVersion.getBlobUrl());
         } catch (VersionException e) {
             throw e;
         } catch (Exception e) {
             throw new VersionException("Error retrieving mesh file");
         }
     }
+
+    private Map<String, List<Object>> findVersionProperties(VersionDTO versionDTO) throws Exception {
+        return getSingleVersion(findVersionByKey(versionDTO, ".valueMap()"));
+    }
+
+    private List<Result> findVersionByKey(VersionDTO versionDTO, String projection) throws Exception {
+        String repositoryName = versionDTO.getRepositoryName();
+        String resourceName = versionDTO.getResourceName();
+        String branchName = versionDTO.getBranchName();
+        String versionName = versionDTO.getVersionName();
+
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("repositoryName", repositoryName);
+        parameters.put("resourceName", resourceName);
+        parameters.put("branchName", branchName);
+        parameters.put("versionName", versionName);
+        parameters.put("versionKey", GremlinVersionKey.of(repositoryName, resourceName, branchName, versionName));
+
+        // Point lookup on the composite key inside the repository partition
+        String query = "g.V()" +
+                ".hasLabel('version')" +
+                ".has('repoId', repositoryName)" +
+                ".has('versionKey', versionKey)" +
+                projection;
+
+        List<Result> results = client.submit(query, parameters).all().get();
+
+        if (!results.isEmpty()) {
+            return results;
+        }
+
+        // Versions saved before the key was introduced, or by instances not yet updated during a rolling deploy,
+        // have no key until the backfill reaches them, so they are found by walking their branch and keyed on the way
+        query = "g.V()" +
+                ".hasLabel('branch')" +
+                ".has('branchName', branchName)" +
+                ".where(in('HAS_BRANCH')" +
+                    ".has('resourceName', resourceName)" +
+                    ".in('CONTAINS')" +
+                    ".has('repositoryName', repositoryName))" +
+                ".out('HAS_VERSION')" +
+                ".union(identity(), repeat(out('HAS_NEXT_VERSION')).emit())" +
+                ".has('versionName', versionName)" +
+                ".property('versionKey', versionKey)" +
+                projection;
+
+        return client.submit(query, parameters).all().get();
+    }
+
+    private Map<String, List<Object>> findVersionProperties(String versionId) throws Exception {
+        String query = "g.V(versionId)" +
+                ".hasLabel('version')" +
+                ".valueMap()";
+
+        List<Result> results = client.submit(query, Map.of("versionId", versionId)).all().get();
+
+        return getSingleVersion(results);
+    }
+
+    private Map<String, List<Object>> getSingleVersion(List<Result> results) {
+        if (results.isEmpty()) {
+            throw new VersionException("Version node not found in Gremlin DB");
+        }
+
+        if (results.size() > 1) {
+            throw new VersionException("More than one version found in Gremlin DB");
+        }
+
+        @SuppressWarnings("unchecked")
+        Map<String, List<Object>> props = (Map<String, List<Object>>) results.get(0).getObject();
+
+        return props;
+    }
+
+    private String getCosmosDocumentUrl(Map<String, List<Object>> props) {
+        String cosmosDocumentUrl = props.get("cosmosDocumentUrl").get(0).toString();
+
+        if (cosmosDocumentUrl == null || cosmosDocumentUrl.isEmpty()) {
+            throw new VersionException("Cosmos DB document not found in the version node of Gremlin DB");
+        }
+
+        return cosmosDocumentUrl;
+    }
+
+    private VersionDTO toVersionMetadata(Map<String, List<Object>> props) {
+        return cosmosService.findVersionByUrl(getCosmosDocumentUrl(props));
+    }
+
+    private List<CompletableFuture<Pair<NonClosingInputStreamResource, String>>> toFiles(Map<String, List<Object>> props) {
+        String cosmosDocumentUrl = getCosmosDocumentUrl(props);
+        String resourceType = props.get("resourceType").get(0).toString();
+
+        CosmosVersionDTO cosmosVersion = cosmosService.findVersionDocumentByUrl(cosmosDocumentUrl);
+        Map<String, String> contentHashes = cosmosVersion.getContentHashes();
+        String blobUrl = cosmosVersion.getBlobUrl();
+
+        boolean contentAddressed = contentHashes != null && !contentHashes.isEmpty();
+
+        if (!contentAddressed && (blobUrl == null || blobUrl.isEmpty())) {
+            throw new VersionException("BLOB URL not found in the Cosmos DB document");
+        }
+
+        List<CompletableFuture<Pair<InputStream, VersionFileDTO>>> files;
+
+        if (resourceType.equalsIgnoreCase("mesh") && contentAddressed) {
+            Map.Entry<String, String> mesh = contentHashes.entrySet().iterator().next();
+            files = List.of(CompletableFuture.completedFuture(blobStorageService.findMeshByHash(mesh.getKey(), mesh.getValue())));
+        } else if (resourceType.equalsIgnoreCase("mesh")) {
+            files = List.of(CompletableFuture.completedFuture(blobStorageService.findMeshByUrl(blobUrl)));
+        } else if (contentAddressed) {
+            files = blobStorageService.findMaterialByHashes(contentHashes);
+        } else {
+            files = blobStorageService.findMaterialByUrl(blobUrl);
+        }
+
+        // Every file comes with its size, so every part of the pull can declare its length
+        return files.stream()
+                .map(file -> file.thenApply(p -> Pair.of(
+                        new NonClosingInputStreamResource(p.getLeft(), p.getRight().getFileName(),
+                                p.getRight().getContentType(), p.getRight().getSize()),
+                        p.getRight().getContentType()
+                )))
+                .toList();
+    }
 }
\ No newline at end of file
@@ -10,6 +10,78 @@ public class TagClassificationModelConfig {
     @Value("${MODELS_FOLDER_PATH}")
     private String modelsFolderPath;
 
+    // A value lower than 1 keeps the default of ONNX Runtime
+    @Value("${ONNX_INTRA_OP_THREADS:0}")
+    private int intraOpThreads;
+
+    // A value lower than 1 keeps the default of ONNX Runtime
+    @Value("${ONNX_INTER_OP_THREADS:0}")
+    private int interOpThreads;
+
+    // One of NO_OPT, BASIC_OPT, EXTENDED_OPT, ALL_OPT
+    @Value("${ONNX_OPTIMIZATION_LEVEL:ALL_OPT}")
+    private String optimizationLevel;
+
+    // Models are evaluated in parallel on a bounded pool, a value lower than 1 uses the number of available processors
+    @Value("${CLASSIFICATION_THREADS:0}")
+    private int classificationThreads;
+
+    // Inferences waiting for a thread, when the queue is full new classifications are rejected
+    @Value("${CLASSIFICATION_QUEUE_CAPACITY:256}")
+    private int classificationQueueCapacity;
+
+    // A model not completed within the timeout doesn't contribute to the tags of the mesh
+    @Value("${CLASSIFICATION_MODEL_TIMEOUT_MS:5000}")
+    private long classificationModelTimeoutMs;
+
+    // Inferences on the same model requested by the pipeline workers within the wait are run together,
+    // a size of 1 disables batching
+    @Value("${CLASSIFICATION_BATCH_MAX_SIZE:16}")
+    private int classificationBatchMaxSize;
+
+    @Value("${CLASSIFICATION_BATCH_MAX_WAIT_MS:5}")
+    private long classificationBatchMaxWaitMs;
+
+    // Features and predictions of the meshes already classified, keyed by content hash, a value lower than 1 disables it
+    @Value("${CLASSIFICATION_CACHE_MAX_SIZE:10000}")
+    private long classificationCacheMaxSize;
+
+    // Meshes classified at the same time by the pipeline, so their inferences can share the batches of each model
+    @Value("${CLASSIFICATION_PIPELINE_WORKERS:4}")
+    private int classificationPipelineWorkers;
+
+    // Folder where pending classifications are recorded, so they are resumed after a restart
+    @Value("${CLASSIFICATION_JOURNAL_PATH:classification-journal}")
+    private String classificationJournalPath;
+
+    // Attempts for a classification failed because of storage errors, rejections or timeouts, before it is marked as failed
+    @Value("${CLASSIFICATION_MAX_ATTEMPTS:5}")
+    private int classificationMaxAttempts;
+
+    @Value("${CLASSIFICATION_RETRY_DELAY_MS:30000}")
+    private long classificationRetryDelayMs;
+
+    // Inference thresholds over which an alert is raised
+    @Value("${AI_ALERT_SLOW_INFERENCE_MS:5000}")
+    private long alertSlowInferenceMs;
+
+    @Value("${AI_ALERT_MEMORY_BYTES:734003200}")
+    private long alertMemoryBytes;
+
+    @Value("${AI_ALERT_CPU_NANOS:2000000000}")
+    private long alertCpuNanos;
+
+    // Alerts raised within the window are deduplicated and sent as a single digest
+    @Value("${AI_ALERT_WINDOW_MS:300000}")
+    private long alertWindowMs;
+
+    // One of SMTP, LOG, FILE
+    @Value("${AI_ALERT_SINK:SMTP}")
+    private String alertSink;
+
+    @Value("${AI_ALERT_FILE_PATH:ai-alerts.log}")
+    private String alertFilePath;
+
     @Value("${FROM_EMAIL}")
     private String fromEmail;
 
@@ -0,0 +1,19 @@
+package it.unisa.ddditserver.subsystems.ai.alert;
+
+/**
+ * Destination of the performance alerts of the AI module.
+ *
+ * @author Angelo Antonio Prisco
+ * @version 1.0
+ * @since 2025-09-02
+ */
+public interface AlertSink {
+    /**
+     * Delivers an alert, it is called from the alerting thread and never from a request thread.
+     *
+     * @param subject the subject of the alert
+     * @param body the text of the alert
+     * @throws Exception if the alert can't be delivered
+     */
+    void send(String subject, String body) throws Exception;
+}
@@ -0,0 +1,31 @@
+package it.unisa.ddditserver.subsystems.ai.alert;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+
+/**
+ * Alert sink appending every alert to a local file, useful for tests and local environments.
+ *
+ * @author Angelo Antonio Prisco
+ * @version 1.0
+ * @since 2025-09-02
+ */
+public class FileAlertSink implements AlertSink {
+    private final Path file;
+
+    public FileAlertSink(String filePath) {
+        this.file = Paths.get(filePath);
+    }
+
+    @Override
+    public void send(String subject, String body) throws IOException {
+        String alert = Instant.now() + " " + subject + System.lineSeparator() + body + System.lineSeparator();
+
+        Files.writeString(file, alert, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+}
@@ -0,0 +1,172 @@
+package it.unisa.ddditserver.subsystems.ai.alert;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import it.unisa.ddditserver.subsystems.ai.TagClassificationModelConfig;
+import it.unisa.ddditserver.subsystems.ai.exceptions.TagClassificationException;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Component recording the measurements of every inference and raising alerts when they cross the thresholds.
+ *
+ * Measurements are exposed as the {@code ai.inference.*} metrics, tagged by model. Alerts are never sent
+ * from the thread running the inference: they are aggregated by model and threshold, so repeated alerts only
+ * increase a counter, and a single digest is delivered to the configured {@link AlertSink} at the end of each window.
+ *
+ * @author Angelo Antonio Prisco
+ * @version 1.0
+ * @since 2025-09-02
+ */
+@Component
+public class InferenceAlertService {
+    private static final String SUBJECT = "[ALERT] Dddit AI module performance risk";
+
+    private final TagClassificationModelConfig config;
+    private final MeterRegistry meterRegistry;
+    private final AlertSink sink;
+    private final ConcurrentMap<String, PendingAlert> pending = new ConcurrentHashMap<>();
+    private final ScheduledThreadPoolExecutor worker;
+    private final Counter sent;
+    private final Counter sendFailures;
+
+    private static final class PendingAlert {
+        private final String modelName;
+        private final InferenceAlertType type;
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong worst = new AtomicLong();
+
+        private PendingAlert(String modelName, InferenceAlertType type) {
+            this.modelName = modelName;
+            this.type = type;
+        }
+
+        private void add(long value) {
+            count.incrementAndGet();
+            worst.accumulateAndGet(value, Math::max);
+        }
+    }
+
+    @Autowired
+    public InferenceAlertService(TagClassificationModelConfig config, MeterRegistry meterRegistry) {
+        this.config = config;
+        this.meterRegistry = meterRegistry;
+        this.sink = buildSink(config);
+        this.sent = meterRegistry.counter("ai.alert.sent");
+        this.sendFailures = meterRegistry.counter("ai.alert.send.failures");
+
+        this.worker = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "ai-alerts");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        worker.scheduleWithFixedDelay(this::flush, config.getAlertWindowMs(), config.getAlertWindowMs(), TimeUnit.MILLISECONDS);
+    }
+
+    private static AlertSink buildSink(TagClassificationModelConfig config) {
+        switch (config.getAlertSink().toUpperCase()) {
+            case "SMTP":
+                return new SmtpAlertSink(config.getFromEmail(), config.getAppPassword(), config.getToEmail());
+            case "LOG":
+                return new LogAlertSink();
+            case "FILE":
+                return new FileAlertSink(config.getAlertFilePath());
+            default:
+                throw new TagClassificationException("Unknown AI alert sink " + config.getAlertSink());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        worker.shutdownNow();
+
+        // Alerts of the last window are delivered before stopping
+        flush();
+    }
+
+    /**
+     * Records the measurements of an inference and queues an alert for every threshold crossed.
+     *
+     * @param modelName the file name of the model
+     * @param durationNanos the wall-clock time of the inference
+     * @param allocatedBytes the memory allocated by the thread running the inference
+     * @param cpuNanos the CPU time of the thread running the inference, negative if not available
+     */
+    public void record(String modelName, long durationNanos, long allocatedBytes, long cpuNanos) {
+        Timer.builder("ai.inference.duration").tag("model", modelName).register(meterRegistry)
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+
+        if (allocatedBytes >= 0) {
+            DistributionSummary.builder("ai.inference.memory").baseUnit("bytes").tag("model", modelName)
+                    .register(meterRegistry).record(allocatedBytes);
+
+            if (allocatedBytes >= config.getAlertMemoryBytes()) {
+                raise(modelName, InferenceAlertType.TOO_MUCH_MEMORY, allocatedBytes / (1024 * 1024));
+            }
+        }
+
+        if (cpuNanos >= 0) {
+            Timer.builder("ai.inference.cpu").tag("model", modelName).register(meterRegistry)
+                    .record(cpuNanos, TimeUnit.NANOSECONDS);
+
+            if (cpuNanos >= config.getAlertCpuNanos()) {
+                raise(modelName, InferenceAlertType.HIGH_CPU, cpuNanos / 1_000_000);
+            }
+        }
+
+        long durationMs = durationNanos / 1_000_000;
+
+        if (durationMs >= config.getAlertSlowInferenceMs()) {
+            raise(modelName, InferenceAlertType.SLOW_INFERENCE, durationMs);
+        }
+    }
+
+    private void raise(String modelName, InferenceAlertType type, long value) {
+        meterRegistry.counter("ai.alert.raised", "model", modelName, "type", type.name()).increment();
+        pending.computeIfAbsent(modelName + "/" + type.name(), key -> new PendingAlert(modelName, type)).add(value);
+    }
+
+    private void flush() {
+        // Alerts raised while the digest is built are kept for the next window
+        Map<String, PendingAlert> digest = new TreeMap<>();
+
+        for (String key : pending.keySet()) {
+            PendingAlert alert = pending.remove(key);
+
+            if (alert != null) {
+                digest.put(key, alert);
+            }
+        }
+
+        if (digest.isEmpty()) {
+            return;
+        }
+
+        StringBuilder body = new StringBuilder("ATTENTION - Dddit AI module performance issues detected:\n");
+
+        for (PendingAlert alert : digest.values()) {
+            body.append("\n- ").append(alert.modelName).append(" - ").append(alert.type.getDescription())
+                    .append(": worst ").append(alert.worst.get()).append(' ').append(alert.type.getUnit())
+                    .append(" over ").append(alert.count.get()).append(" inferences");
+        }
+
+        try {
+            sink.send(SUBJECT, body.toString());
+            sent.increment();
+        } catch (Exception e) {
+            // The digest is dropped, the measurements are still available as metrics
+            sendFailures.increment();
+        }
+    }
+}
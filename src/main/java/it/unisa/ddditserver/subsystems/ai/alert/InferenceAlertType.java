@@ -0,0 +1,30 @@
+package it.unisa.ddditserver.subsystems.ai.alert;
+
+import lombok.Getter;
+
+/**
+ * Thresholds crossed by an inference:
+ * <ul>
+ *   <li>{@code SLOW_INFERENCE} - the inference took too long</li>
+ *   <li>{@code TOO_MUCH_MEMORY} - the inference allocated too much memory</li>
+ *   <li>{@code HIGH_CPU} - the inference used too much CPU time</li>
+ * </ul>
+ *
+ * @author Angelo Antonio Prisco
+ * @version 1.0
+ * @since 2025-09-02
+ */
+@Getter
+public enum InferenceAlertType {
+    SLOW_INFERENCE("Inference time", "ms"),
+    TOO_MUCH_MEMORY("Memory allocated", "MB"),
+    HIGH_CPU("CPU time", "ms");
+
+    private final String description;
+    private final String unit;
+
+    InferenceAlertType(String description, String unit) {
+        this.description = description;
+        this.unit = unit;
+    }
+}
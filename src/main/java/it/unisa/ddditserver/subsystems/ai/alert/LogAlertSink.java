@@ -0,0 +1,20 @@
+package it.unisa.ddditserver.subsystems.ai.alert;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Alert sink writing every alert to the application log.
+ *
+ * @author Angelo Antonio Prisco
+ * @version 1.0
+ * @since 2025-09-02
+ */
+public class LogAlertSink implements AlertSink {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LogAlertSink.class);
+
+    @Override
+    public void send(String subject, String body) {
+        LOGGER.warn("{}\n{}", subject, body);
+    }
+}
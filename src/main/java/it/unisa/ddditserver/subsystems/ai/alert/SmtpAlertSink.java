@@ -0,0 +1,48 @@
+package it.unisa.ddditserver.subsystems.ai.alert;
+
+import jakarta.mail.*;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import java.util.Properties;
+
+/**
+ * Alert sink sending every alert by mail through the Gmail SMTP server.
+ *
+ * @author Angelo Antonio Prisco
+ * @version 1.0
+ * @since 2025-09-02
+ */
+public class SmtpAlertSink implements AlertSink {
+    private final Session session;
+    private final String from;
+    private final String to;
+
+    public SmtpAlertSink(String from, String appPassword, String to) {
+        Properties props = new Properties();
+        props.put("mail.smtp.auth", "true");
+        props.put("mail.smtp.starttls.enable", "true");
+        props.put("mail.smtp.host", "smtp.gmail.com");
+        props.put("mail.smtp.port", "587");
+
+        // The session only holds the settings, a connection is opened for every alert sent
+        this.session = Session.getInstance(props, new Authenticator() {
+            protected PasswordAuthentication getPasswordAuthentication() {
+                return new PasswordAuthentication(from, appPassword);
+            }
+        });
+        this.from = from;
+        this.to = to;
+    }
+
+    @Override
+    public void send(String subject, String body) throws MessagingException {
+        Message message = new MimeMessage(session);
+
+        message.setFrom(new InternetAddress(from));
+        message.setRecipients(Message.RecipientType.TO, InternetAddress.parse(to));
+        message.setSubject(subject);
+        message.setText(body);
+
+        Transport.send(message);
+    }
+}
@@ -0,0 +1,18 @@
+package it.unisa.ddditserver.subsystems.ai.exceptions;
+
+/**
+ * Custom exception used when a classification can't be completed now, but may be completed later.
+ *
+ * This exception should be used when the mesh is valid but the classification is rejected because too many
+ * are in progress, a model doesn't complete within its timeout, or the mesh or the models can't be read,
+ * so the classification is retried instead of being marked as failed.
+ *
+ * @author Angelo Antonio Prisco
+ * @version 1.0
+ * @since 2025-09-02
+ */
+public class TagClassificationUnavailableException extends TagClassificationException {
+    public TagClassificationUnavailableException(String message) {
+        super(message);
+    }
+}
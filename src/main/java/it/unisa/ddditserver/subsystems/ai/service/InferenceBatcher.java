@@ -0,0 +1,199 @@
+package it.unisa.ddditserver.subsystems.ai.service;
+
+import ai.onnxruntime.OrtSession;
+import it.unisa.ddditserver.subsystems.ai.exceptions.TagClassificationUnavailableException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+/**
+ * Groups the inferences requested on the same model by concurrent classifications.
+ *
+ * The feature vectors submitted for a session within the maximum wait are run together as the rows of a single
+ * tensor, and every request receives the prediction of its own row. A batch is run as soon as it reaches the maximum
+ * size, so a maximum size of 1 runs every inference on its own. Each request keeps its reference to the sessions
+ * until the batch has run, and requests cancelled before that are left out of the batch.
+ *
+ * @author Angelo Antonio Prisco
+ * @version 1.1
+ * @since 2025-09-02
+ */
+public class InferenceBatcher {
+    private final Executor executor;
+    private final BatchRunner runner;
+    private final int maxBatchSize;
+    private final long maxWaitMs;
+    private final ScheduledThreadPoolExecutor timer;
+    private final Map<OrtSession, Batch> openBatches = new HashMap<>();
+
+    /**
+     * Runs a model on a batch of feature vectors.
+     */
+    @FunctionalInterface
+    public interface BatchRunner {
+        /**
+         * @param inputFeatures the feature vectors, one per row
+         * @param modelName the file name of the model
+         * @param session the session of the model
+         * @return the prediction of every row, in the same order
+         */
+        long[] run(float[][] inputFeatures, String modelName, OrtSession session);
+    }
+
+    private static final class PendingInference {
+        private final float[] inputFeatures;
+        private final OnnxSessionRegistry.OnnxModels reference;
+        private final CompletableFuture<Long> prediction = new CompletableFuture<>();
+
+        private PendingInference(float[] inputFeatures, OnnxSessionRegistry.OnnxModels reference) {
+            this.inputFeatures = inputFeatures;
+            this.reference = reference;
+        }
+    }
+
+    private static final class Batch {
+        private final String modelName;
+        private final OrtSession session;
+        private final List<PendingInference> inferences = new ArrayList<>();
+
+        private Batch(String modelName, OrtSession session) {
+            this.modelName = modelName;
+            this.session = session;
+        }
+    }
+
+    public InferenceBatcher(Executor executor, BatchRunner runner, int maxBatchSize, long maxWaitMs) {
+        this.executor = executor;
+        this.runner = runner;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.maxWaitMs = Math.max(0, maxWaitMs);
+
+        this.timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "tag-classification-batcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void shutdown() {
+        timer.shutdownNow();
+    }
+
+    /**
+     * Queues an inference in the open batch of the model.
+     *
+     * @param models the sessions in use by the request, retained until the batch has run
+     * @param modelName the file name of the model
+     * @param session the session of the model
+     * @param inputFeatures the feature vector of the mesh
+     * @return the prediction of the model, cancelling it leaves the inference out of the batch if it hasn't run yet
+     */
+    public CompletableFuture<Long> submit(OnnxSessionRegistry.OnnxModels models, String modelName,
+                                          OrtSession session, float[] inputFeatures) {
+        PendingInference inference = new PendingInference(inputFeatures, models.retain());
+        Batch full = null;
+        Batch opened = null;
+
+        synchronized (openBatches) {
+            Batch batch = openBatches.get(session);
+
+            if (batch == null) {
+                batch = new Batch(modelName, session);
+                openBatches.put(session, batch);
+                opened = batch;
+            }
+
+            batch.inferences.add(inference);
+
+            if (batch.inferences.size() >= maxBatchSize) {
+                openBatches.remove(session);
+                full = batch;
+            }
+        }
+
+        if (full != null) {
+            dispatch(full);
+        } else if (opened != null) {
+            Batch waiting = opened;
+
+            try {
+                timer.schedule(() -> flush(waiting), maxWaitMs, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                flush(waiting);
+            }
+        }
+
+        return inference.prediction;
+    }
+
+    private void flush(Batch batch) {
+        synchronized (openBatches) {
+            // The batch has already been dispatched because it was full
+            if (openBatches.get(batch.session) != batch) {
+                return;
+            }
+
+            openBatches.remove(batch.session);
+        }
+
+        dispatch(batch);
+    }
+
+    private void dispatch(Batch batch) {
+        try {
+            executor.execute(() -> run(batch));
+        } catch (RejectedExecutionException e) {
+            complete(batch.inferences, null,
+                    new TagClassificationUnavailableException("Too many classifications in progress, retry later"));
+        }
+    }
+
+    private void run(Batch batch) {
+        List<PendingInference> inferences = new ArrayList<>();
+
+        for (PendingInference inference : batch.inferences) {
+            if (inference.prediction.isDone()) {
+                inference.reference.close();
+            } else {
+                inferences.add(inference);
+            }
+        }
+
+        if (inferences.isEmpty()) {
+            return;
+        }
+
+        float[][] inputFeatures = new float[inferences.size()][];
+
+        for (int i = 0; i < inferences.size(); i++) {
+            inputFeatures[i] = inferences.get(i).inputFeatures;
+        }
+
+        long[] predictions;
+
+        try {
+            predictions = runner.run(inputFeatures, batch.modelName, batch.session);
+        } catch (RuntimeException e) {
+            complete(inferences, null, e);
+            return;
+        }
+
+        complete(inferences, predictions, null);
+    }
+
+    private void complete(List<PendingInference> inferences, long[] predictions, RuntimeException error) {
+        for (int i = 0; i < inferences.size(); i++) {
+            PendingInference inference = inferences.get(i);
+
+            if (error != null) {
+                inference.prediction.completeExceptionally(error);
+            } else {
+                inference.prediction.complete(predictions[i]);
+            }
+
+            inference.reference.close();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package it.unisa.ddditserver.subsystems.ai.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import it.unisa.ddditserver.subsystems.ai.TagClassificationModelConfig;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bounded cache of the meshes already classified, keyed by the SHA-256 hash of the mesh content.
+ *
+ * Each entry keeps the feature vector extracted by Assimp and the prediction of every model version
+ * evaluated on it, so the same mesh pushed again skips feature extraction and the models already evaluated.
+ * Predictions of models changed or removed by a reload are dropped, while the features stay valid.
+ * Hits and misses are exposed through the {@code ai.classification.cache} metrics.
+ *
+ * @author Angelo Antonio Prisco
+ * @version 1.0
+ * @since 2025-09-02
+ */
+@Component
+public class MeshClassificationCache {
+    private final Cache<String, CachedMesh> cache;
+
+    /**
+     * Features of a mesh and the predictions of the model versions evaluated on it.
+     */
+    public static final class CachedMesh {
+        private final float[] features;
+        private final Map<String, Boolean> predictions = new ConcurrentHashMap<>();
+
+        private CachedMesh(float[] features) {
+            this.features = features;
+        }
+
+        public float[] getFeatures() {
+            return features;
+        }
+
+        /**
+         * @param modelVersion the version of the model
+         * @return true if the model associates its tag to the mesh, false if it doesn't, null if not evaluated yet
+         */
+        public Boolean getPrediction(String modelVersion) {
+            return predictions.get(modelVersion);
+        }
+
+        public void putPrediction(String modelVersion, boolean prediction) {
+            predictions.put(modelVersion, prediction);
+        }
+    }
+
+    @Autowired
+    public MeshClassificationCache(TagClassificationModelConfig config, MeterRegistry meterRegistry) {
+        if (config.getClassificationCacheMaxSize() < 1) {
+            this.cache = null;
+            return;
+        }
+
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(config.getClassificationCacheMaxSize())
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "ai.classification.cache");
+    }
+
+    /**
+     * Retrieves the cached mesh with the specified content hash.
+     *
+     * @param hash the SHA-256 hash of the mesh content
+     * @return the cached mesh, or null if not cached
+     */
+    public CachedMesh get(String hash) {
+        return cache == null ? null : cache.getIfPresent(hash);
+    }
+
+    /**
+     * Caches the features of a mesh, keeping the entry already cached for the same content if any.
+     *
+     * @param hash the SHA-256 hash of the mesh content
+     * @param features the feature vector extracted from the mesh
+     * @return the cached mesh, not stored in the cache if it is disabled
+     */
+    public CachedMesh put(String hash, float[] features) {
+        if (cache == null) {
+            return new CachedMesh(features);
+        }
+
+        return cache.get(hash, key -> new CachedMesh(features));
+    }
+
+    /**
+     * Drops the predictions of every model version not in use anymore.
+     *
+     * @param modelVersions the versions of the models currently loaded
+     */
+    public void retainModels(Collection<String> modelVersions) {
+        if (cache == null) {
+            return;
+        }
+
+        for (CachedMesh mesh : cache.asMap().values()) {
+            mesh.predictions.keySet().retainAll(modelVersions);
+        }
+    }
+}
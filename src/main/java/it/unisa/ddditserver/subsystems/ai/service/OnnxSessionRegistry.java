@@ -0,0 +1,177 @@
+package it.unisa.ddditserver.subsystems.ai.service;
+
+import ai.onnxruntime.OrtEnvironment;
+import ai.onnxruntime.OrtException;
+import ai.onnxruntime.OrtSession;
+import it.unisa.ddditserver.subsystems.ai.TagClassificationModelConfig;
+import it.unisa.ddditserver.subsystems.ai.exceptions.TagClassificationException;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import java.io.File;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Component holding an ONNX session for every model in the models folder.
+ *
+ * Sessions are created once, when the models are loaded or reloaded, and shared by concurrent classifications,
+ * since running an {@link OrtSession} is thread-safe. A reload builds the new sessions before swapping them atomically,
+ * the old sessions are closed as soon as every {@link OnnxModels} still using them is closed.
+ *
+ * @author Angelo Antonio Prisco
+ * @version 1.2
+ * @since 2025-09-02
+ */
+@Component
+public class OnnxSessionRegistry {
+    private final TagClassificationModelConfig config;
+    private final AtomicReference<OnnxModels> current = new AtomicReference<>(new OnnxModels(Collections.emptyMap(), Collections.emptyMap()));
+
+    /**
+     * Sessions loaded together, kept open while they are referenced.
+     * The registry holds a reference to the current sessions, every user of the sessions holds another one
+     * and releases it with {@link #close()}, also from a different thread.
+     */
+    public static final class OnnxModels implements AutoCloseable {
+        private final Map<String, OrtSession> sessions;
+        private final Map<String, String> versions;
+        private final AtomicInteger references = new AtomicInteger(1);
+
+        private OnnxModels(Map<String, OrtSession> sessions, Map<String, String> versions) {
+            this.sessions = sessions;
+            this.versions = versions;
+        }
+
+        /**
+         * @return the sessions keyed by model file name, sorted by name
+         */
+        public Map<String, OrtSession> getSessions() {
+            return sessions;
+        }
+
+        /**
+         * @return the versions of the models keyed by model file name, a version changes when the model file changes
+         */
+        public Map<String, String> getVersions() {
+            return versions;
+        }
+
+        private boolean tryRetain() {
+            int count;
+
+            do {
+                count = references.get();
+
+                // The sessions have already been closed
+                if (count == 0) {
+                    return false;
+                }
+            } while (!references.compareAndSet(count, count + 1));
+
+            return true;
+        }
+
+        /**
+         * Adds a reference to the sessions, that must be released with {@link #close()}.
+         *
+         * @return this
+         */
+        public OnnxModels retain() {
+            if (!tryRetain()) {
+                throw new IllegalStateException("ONNX sessions already closed");
+            }
+
+            return this;
+        }
+
+        @Override
+        public void close() {
+            if (references.decrementAndGet() == 0) {
+                closeAll(sessions.values());
+            }
+        }
+    }
+
+    @Autowired
+    public OnnxSessionRegistry(TagClassificationModelConfig config) {
+        this.config = config;
+    }
+
+    private static void closeAll(Collection<OrtSession> sessions) {
+        for (OrtSession session : sessions) {
+            try {
+                session.close();
+            } catch (OrtException e) {
+                // The session can't be used anymore, so there is nothing else to do
+            }
+        }
+    }
+
+    private OrtSession.SessionOptions buildSessionOptions() throws OrtException {
+        OrtSession.SessionOptions options = new OrtSession.SessionOptions();
+
+        if (config.getIntraOpThreads() > 0) {
+            options.setIntraOpNumThreads(config.getIntraOpThreads());
+        }
+
+        if (config.getInterOpThreads() > 0) {
+            options.setInterOpNumThreads(config.getInterOpThreads());
+        }
+
+        options.setOptimizationLevel(OrtSession.SessionOptions.OptLevel.valueOf(config.getOptimizationLevel()));
+
+        return options;
+    }
+
+    /**
+     * Loads a session for every ONNX model in the models folder and replaces the current sessions.
+     * If a model can't be loaded the current sessions are kept.
+     */
+    public void reload() {
+        File folder = new File(config.getModelsFolderPath());
+        File[] files = folder.listFiles((dir, name) -> name.toLowerCase().endsWith(".onnx"));
+
+        // Models are sorted by file name so that the tags are always returned in the same order
+        Map<String, OrtSession> sessions = new TreeMap<>();
+        Map<String, String> versions = new HashMap<>();
+
+        try (OrtSession.SessionOptions options = buildSessionOptions()) {
+            OrtEnvironment env = OrtEnvironment.getEnvironment();
+
+            if (files != null) {
+                for (File file : files) {
+                    sessions.put(file.getName(), env.createSession(file.getAbsolutePath(), options));
+                    versions.put(file.getName(), file.getName() + "@" + file.lastModified() + "@" + file.length());
+                }
+            }
+        } catch (OrtException | IllegalArgumentException e) {
+            closeAll(sessions.values());
+            throw new TagClassificationException("Error loading ONNX models");
+        }
+
+        current.getAndSet(new OnnxModels(Collections.unmodifiableMap(sessions), Collections.unmodifiableMap(versions))).close();
+    }
+
+    /**
+     * Acquires the current sessions, which are kept open until the returned {@link OnnxModels} is closed.
+     *
+     * @return the current sessions
+     */
+    public OnnxModels acquire() {
+        while (true) {
+            OnnxModels models = current.get();
+
+            // The sessions have been replaced and closed in the meantime, so the new ones are read
+            if (models.tryRetain()) {
+                return models;
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        current.getAndSet(new OnnxModels(Collections.emptyMap(), Collections.emptyMap())).close();
+    }
+}
@@ -0,0 +1,256 @@
+package it.unisa.ddditserver.subsystems.ai.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import it.unisa.ddditserver.db.blobstorage.versioning.BlobStorageVersionRepository;
+import it.unisa.ddditserver.db.cosmos.versioning.CosmosVersionRepository;
+import it.unisa.ddditserver.subsystems.ai.TagClassificationModelConfig;
+import it.unisa.ddditserver.subsystems.ai.exceptions.TagClassificationException;
+import it.unisa.ddditserver.subsystems.ai.exceptions.TagClassificationUnavailableException;
+import it.unisa.ddditserver.subsystems.versioning.dto.version.CosmosVersionDTO;
+import it.unisa.ddditserver.subsystems.versioning.dto.version.TagsStatus;
+import it.unisa.ddditserver.subsystems.versioning.dto.version.VersionFileDTO;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.commons.lang3.tuple.Pair;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Component computing the tags of mesh versions in background, outside the push request.
+ *
+ * A version is stored with {@link TagsStatus#PENDING} tags and submitted to the pipeline, which records it
+ * in a local journal, downloads the mesh from BLOB storage, classifies it and patches the CosmosDB document.
+ * Journal entries are deleted only when the document is updated, so pending classifications are resumed
+ * after a restart. Storage errors and classifications that can't be completed now, e.g. rejected or timed out,
+ * are retried, while meshes that can't be imported are marked as {@link TagsStatus#FAILED}. Versions still pending
+ * after the last attempt are marked as failed too, or counted as stuck if even their document can't be updated.
+ * A mesh already copied locally while it was pushed is read from the local copy instead of BLOB storage.
+ * A mesh whose content hash is known and already classified is not read at all.
+ * Several meshes are classified at the same time, so their inferences on the same model are run as a single batch.
+ *
+ * @author Angelo Antonio Prisco
+ * @version 1.5
+ * @since 2025-09-02
+ */
+@Component
+public class TagClassificationPipeline {
+    private static final String JOURNAL_EXTENSION = ".job";
+
+    private final TagClassificationModelConfig config;
+    private final TagClassificationService tagClassificationService;
+    private final CosmosVersionRepository cosmosVersionRepository;
+    private final BlobStorageVersionRepository blobStorageVersionRepository;
+    private final ScheduledThreadPoolExecutor worker;
+    private final Counter completed;
+    private final Counter failed;
+    private final Counter retried;
+    private final Counter exhausted;
+    private final AtomicInteger stuck = new AtomicInteger();
+    private final Counter journalErrors;
+    private Path journal;
+
+    @Autowired
+    public TagClassificationPipeline(TagClassificationModelConfig config,
+                                     TagClassificationService tagClassificationService,
+                                     CosmosVersionRepository cosmosVersionRepository,
+                                     BlobStorageVersionRepository blobStorageVersionRepository,
+                                     MeterRegistry meterRegistry) {
+        this.config = config;
+        this.tagClassificationService = tagClassificationService;
+        this.cosmosVersionRepository = cosmosVersionRepository;
+        this.blobStorageVersionRepository = blobStorageVersionRepository;
+        this.completed = meterRegistry.counter("ai.classification.pipeline.completed");
+        this.failed = meterRegistry.counter("ai.classification.pipeline.failed");
+        this.retried = meterRegistry.counter("ai.classification.pipeline.retried");
+        this.exhausted = meterRegistry.counter("ai.classification.pipeline.exhausted");
+        this.journalErrors = meterRegistry.counter("ai.classification.pipeline.journal.errors");
+
+        // Every worker classifies a mesh, so concurrent meshes are batched together on each model
+        this.worker = new ScheduledThreadPoolExecutor(Math.max(1, config.getClassificationPipelineWorkers()), runnable -> {
+            Thread thread = new Thread(runnable, "tag-classification-pipeline");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        meterRegistry.gauge("ai.classification.pipeline.queued", worker, executor -> executor.getQueue().size());
+        // Versions left pending in the journal after the last attempt, until the next restart resumes them
+        meterRegistry.gauge("ai.classification.pipeline.stuck", stuck);
+    }
+
+    @PostConstruct
+    public void init() {
+        journal = Paths.get(config.getClassificationJournalPath());
+
+        try {
+            Files.createDirectories(journal);
+
+            // Classifications not completed before the last shutdown
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(journal, "*" + JOURNAL_EXTENSION)) {
+                for (Path entry : entries) {
+                    // First line: CosmosDB document URL, optional second line: local copy of the mesh, empty if none,
+                    // optional third line: content hash of the mesh
+                    List<String> lines = Files.readAllLines(entry, StandardCharsets.UTF_8);
+                    Path spool = lines.size() > 1 && !lines.get(1).isEmpty() ? Paths.get(lines.get(1)) : null;
+                    String contentHash = lines.size() > 2 ? lines.get(2) : null;
+                    worker.execute(() -> process(entry, lines.get(0), spool, contentHash, 1));
+                }
+            }
+        } catch (IOException e) {
+            throw new TagClassificationException("Error reading classification journal");
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Pending classifications stay in the journal and are resumed at the next startup
+        worker.shutdownNow();
+    }
+
+    /**
+     * Records a version to classify and queues its classification.
+     *
+     * @param cosmosDocumentUrl the CosmosDB URL of the document with the metadata of the version
+     */
+    public void submit(String cosmosDocumentUrl) {
+        submit(cosmosDocumentUrl, null, null);
+    }
+
+    /**
+     * Records a version to classify and queues its classification, reading the mesh from a local copy.
+     * The copy is deleted once the classification is completed.
+     * A mesh with an already classified content hash is not read at all.
+     *
+     * @param cosmosDocumentUrl the CosmosDB URL of the document with the metadata of the version
+     * @param spool the local copy of the mesh, null to read the mesh from BLOB storage
+     * @param contentHash the SHA-256 hash of the mesh content as a lowercase hex string, null if unknown
+     */
+    public void submit(String cosmosDocumentUrl, Path spool, String contentHash) {
+        Path entry = journal.resolve(UUID.randomUUID() + JOURNAL_EXTENSION);
+
+        try {
+            // The entry is written aside and moved, so a crash never leaves a partial entry in the journal
+            Path temporary = journal.resolve(entry.getFileName() + ".tmp");
+            String content = cosmosDocumentUrl;
+
+            if (spool != null || contentHash != null) {
+                content += "\n" + (spool == null ? "" : spool.toAbsolutePath());
+            }
+
+            if (contentHash != null) {
+                content += "\n" + contentHash;
+            }
+
+            Files.writeString(temporary, content, StandardCharsets.UTF_8);
+            Files.move(temporary, entry, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // The version is already stored, so the classification is still run even if it won't survive a restart
+            journalErrors.increment();
+        }
+
+        worker.execute(() -> process(entry, cosmosDocumentUrl, spool, contentHash, 1));
+    }
+
+    private List<String> classifySpool(Path spool, String contentHash) {
+        // The spool file name keeps the extension of the mesh, which is used as format hint
+        return tagClassificationService.classify(contentHash, () -> Pair.of(Files.newInputStream(spool),
+                new VersionFileDTO(spool.getFileName().toString(), null, Files.size(spool), null, null)));
+    }
+
+    private List<String> classifyBlob(String cosmosDocumentUrl, String contentHash) {
+        CosmosVersionDTO cosmosVersion = cosmosVersionRepository.findVersionDocumentByUrl(cosmosDocumentUrl);
+        Map<String, String> contentHashes = cosmosVersion.getContentHashes();
+
+        // The mesh is downloaded only if its content has not been classified yet
+        if (contentHashes != null && !contentHashes.isEmpty()) {
+            Map.Entry<String, String> meshHash = contentHashes.entrySet().iterator().next();
+            return tagClassificationService.classify(meshHash.getValue(),
+                    () -> blobStorageVersionRepository.findMeshByHash(meshHash.getKey(), meshHash.getValue()));
+        }
+
+        return tagClassificationService.classify(contentHash,
+                () -> blobStorageVersionRepository.findMeshByUrl(cosmosVersion.getBlobUrl()));
+    }
+
+    private void process(Path entry, String cosmosDocumentUrl, Path spool, String contentHash, int attempt) {
+        List<String> tags;
+        TagsStatus tagsStatus;
+
+        try {
+            try {
+                tags = spool != null && Files.exists(spool)
+                        ? classifySpool(spool, contentHash)
+                        : classifyBlob(cosmosDocumentUrl, contentHash);
+                tagsStatus = TagsStatus.COMPLETE;
+            } catch (TagClassificationUnavailableException e) {
+                // Rejected, timed out or unreadable, the same mesh may be classified by a later attempt
+                throw e;
+            } catch (TagClassificationException e) {
+                tags = List.of();
+                tagsStatus = TagsStatus.FAILED;
+            }
+
+            cosmosVersionRepository.updateTags(cosmosDocumentUrl, tags, tagsStatus);
+        } catch (Exception e) {
+            retry(entry, cosmosDocumentUrl, spool, contentHash, attempt);
+            return;
+        }
+
+        if (tagsStatus == TagsStatus.COMPLETE) {
+            completed.increment();
+        } else {
+            failed.increment();
+        }
+
+        delete(entry, spool);
+    }
+
+    private void delete(Path entry, Path spool) {
+        try {
+            if (spool != null) {
+                Files.deleteIfExists(spool);
+            }
+
+            Files.deleteIfExists(entry);
+        } catch (IOException e) {
+            // The classification would be repeated after a restart, which only rewrites the same tags
+            journalErrors.increment();
+        }
+    }
+
+    private void retry(Path entry, String cosmosDocumentUrl, Path spool, String contentHash, int attempt) {
+        if (attempt >= config.getClassificationMaxAttempts()) {
+            exhaust(entry, cosmosDocumentUrl, spool);
+            return;
+        }
+
+        retried.increment();
+        worker.schedule(() -> process(entry, cosmosDocumentUrl, spool, contentHash, attempt + 1),
+                config.getClassificationRetryDelayMs() * attempt, TimeUnit.MILLISECONDS);
+    }
+
+    private void exhaust(Path entry, String cosmosDocumentUrl, Path spool) {
+        exhausted.increment();
+
+        // The version would otherwise look pending until the next restart, with nothing reporting it
+        try {
+            cosmosVersionRepository.updateTags(cosmosDocumentUrl, List.of(), TagsStatus.FAILED);
+        } catch (Exception e) {
+            // Even the document can't be updated, so the entry stays in the journal and is resumed at the next startup
+            stuck.incrementAndGet();
+            return;
+        }
+
+        failed.increment();
+        delete(entry, spool);
+    }
+}
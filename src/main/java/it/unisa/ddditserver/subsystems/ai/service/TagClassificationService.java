@@ -2,6 +2,10 @@ package it.unisa.ddditserver.subsystems.ai.service;
 
 import it.unisa.ddditserver.subsystems.versioning.dto.BranchDTO;
 import it.unisa.ddditserver.subsystems.versioning.dto.version.VersionDTO;
+import it.unisa.ddditserver.subsystems.versioning.dto.version.VersionFileDTO;
+import org.apache.commons.lang3.tuple.Pair;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 /**
@@ -9,10 +13,23 @@ import java.util.List;
  * Provides methods to associate tags to a mesh.
  *
  * @author Angelo Antonio Prisco
- * @version 1.0
+ * @version 1.4
  * @since 2025-08-30
  */
 public interface TagClassificationService {
+    /**
+     * Opens the mesh to classify, only when a mesh with the same content has not been classified yet.
+     */
+    @FunctionalInterface
+    interface MeshSource {
+        /**
+         * @return a Pair containing the stream of the mesh and the mesh file, whose name is used to detect its format
+         *         and whose size is a negative value if unknown
+         * @throws IOException if the mesh can't be opened
+         */
+        Pair<InputStream, VersionFileDTO> open() throws IOException;
+    }
+
     /**
      * Associate a list of the to a version.
      *
@@ -21,5 +38,20 @@ public interface TagClassificationService {
      */
     List<String> classify(VersionDTO versionDTO);
 
+    /**
+     * Associate a list of tags to a mesh, which is read only if its content hash is unknown or not cached.
+     *
+     * @param contentHash the SHA-256 hash of the mesh content as a lowercase hex string,
+     *                    null if unknown so it is computed while the mesh is read
+     * @param meshSource opens the mesh to read, the stream is closed once read
+     * @return a list of tags representing the result of classification
+     * @throws it.unisa.ddditserver.subsystems.ai.exceptions.TagClassificationUnavailableException if the mesh can't
+     *         be classified now but may be later, e.g. when too many classifications are in progress or a model times out
+     */
+    List<String> classify(String contentHash, MeshSource meshSource);
+
+    /**
+     * Loads the ONNX models in the models folder, replacing the models currently in use.
+     */
     void getOnnxModelsInFolder();
 }
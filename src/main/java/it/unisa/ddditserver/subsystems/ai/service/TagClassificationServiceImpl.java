@@ -2,37 +2,78 @@ package it.unisa.ddditserver.subsystems.ai.service;
 
 import ai.onnxruntime.OnnxTensor;
 import ai.onnxruntime.OrtEnvironment;
+import ai.onnxruntime.OrtException;
 import ai.onnxruntime.OrtSession;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import it.unisa.ddditserver.subsystems.ai.TagClassificationModelConfig;
+import it.unisa.ddditserver.subsystems.ai.alert.InferenceAlertService;
 import it.unisa.ddditserver.subsystems.ai.exceptions.TagClassificationException;
+import it.unisa.ddditserver.subsystems.ai.exceptions.TagClassificationUnavailableException;
 import it.unisa.ddditserver.subsystems.versioning.dto.version.VersionDTO;
+import it.unisa.ddditserver.subsystems.versioning.dto.version.VersionFileDTO;
+import org.apache.commons.lang3.tuple.Pair;
 import jakarta.annotation.PostConstruct;
-import jakarta.mail.*;
-import jakarta.mail.internet.*;
-import java.io.FileOutputStream;
-import java.util.Properties;
+import jakarta.annotation.PreDestroy;
 import org.lwjgl.PointerBuffer;
 import org.lwjgl.assimp.AIMaterial;
 import org.lwjgl.assimp.AIMesh;
 import org.lwjgl.assimp.AIScene;
 import org.lwjgl.assimp.Assimp;
+import org.lwjgl.system.MemoryUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
-import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 import java.lang.management.ManagementFactory;
 import java.lang.management.ThreadMXBean;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
+import java.util.concurrent.*;
 
 @Service
 public class TagClassificationServiceImpl implements TagClassificationService {
     private final TagClassificationModelConfig config;
-    private final List<File> models;
+    private final OnnxSessionRegistry sessionRegistry;
+    private final MeshClassificationCache classificationCache;
+    private final InferenceAlertService alertService;
+    private final ThreadPoolExecutor executor;
+    private final InferenceBatcher batcher;
+    private final Counter modelTimeouts;
 
     @Autowired
-    public TagClassificationServiceImpl(TagClassificationModelConfig config) {
-        this.models = new ArrayList<>();
+    public TagClassificationServiceImpl(TagClassificationModelConfig config, OnnxSessionRegistry sessionRegistry,
+                                        MeshClassificationCache classificationCache, InferenceAlertService alertService,
+                                        MeterRegistry meterRegistry) {
         this.config = config;
+        this.sessionRegistry = sessionRegistry;
+        this.classificationCache = classificationCache;
+        this.alertService = alertService;
+        this.modelTimeouts = meterRegistry.counter("ai.classification.model.timeouts");
+
+        int threads = config.getClassificationThreads() > 0
+                ? config.getClassificationThreads()
+                : Runtime.getRuntime().availableProcessors();
+
+        // The default abort policy rejects inferences when the queue is full instead of slowing down request threads
+        this.executor = new ThreadPoolExecutor(
+                threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(config.getClassificationQueueCapacity()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "tag-classification");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        // Concurrent classifications share a single run of each model, with a row per mesh
+        this.batcher = new InferenceBatcher(executor, this::runOnnxModel,
+                config.getClassificationBatchMaxSize(), config.getClassificationBatchMaxWaitMs());
     }
 
     @PostConstruct
@@ -40,141 +81,228 @@ public class TagClassificationServiceImpl implements TagClassificationService {
         getOnnxModelsInFolder();
     }
 
-    private static void sendEmail(String from, String appPassword, String to, String subject, String body) {
-        Properties props = new Properties();
-        props.put("mail.smtp.auth", "true");
-        props.put("mail.smtp.starttls.enable", "true");
-        props.put("mail.smtp.host", "smtp.gmail.com");
-        props.put("mail.smtp.port", "587");
-
-        Session session = Session.getInstance(props, new Authenticator() {
-            protected PasswordAuthentication getPasswordAuthentication() {
-                return new PasswordAuthentication(from, appPassword);
-            }
-        });
-
-        Message message;
-
-        try {
-            message = new MimeMessage(session);
+    @PreDestroy
+    public void shutdown() {
+        batcher.shutdown();
+        executor.shutdownNow();
+    }
 
-                message.setFrom(new InternetAddress(from));
-            message.setRecipients(Message.RecipientType.TO, InternetAddress.parse(to));
-            message.setSubject(subject);
-            message.setText(body);
+    public void getOnnxModelsInFolder() {
+        // Sessions are created once here and reused by every classification until the next reload
+        sessionRegistry.reload();
 
-            Transport.send(message);
-        } catch (MessagingException e) {
-            throw new TagClassificationException("Error sending alert message during classification");
+        // Cached features are still valid, while predictions of changed or removed models are dropped
+        try (OnnxSessionRegistry.OnnxModels models = sessionRegistry.acquire()) {
+            classificationCache.retainModels(models.getVersions().values());
         }
     }
 
-    public void getOnnxModelsInFolder() {
-        models.clear();
+    private ArrayList<String> predictAllModels(MeshClassificationCache.CachedMesh mesh) {
+        float[] inputFeatures = mesh.getFeatures();
+        Map<String, CompletableFuture<Long>> predictions = new LinkedHashMap<>();
 
-        String folderPath = config.getModelsFolderPath();
+        try (OnnxSessionRegistry.OnnxModels models = sessionRegistry.acquire()) {
+            Map<String, Boolean> cachedPredictions = new HashMap<>();
 
-        File folder = new File(folderPath);
-        File[] files = folder.listFiles((dir, name) -> name.toLowerCase().endsWith(".onnx"));
+            for (Map.Entry<String, OrtSession> model : models.getSessions().entrySet()) {
+                Boolean cachedPrediction = mesh.getPrediction(models.getVersions().get(model.getKey()));
 
-        if (files != null) {
-            models.addAll(Arrays.asList(files));
-        }
-    }
+                // Models already evaluated on the same mesh content are not run again
+                if (cachedPrediction != null) {
+                    cachedPredictions.put(model.getKey(), cachedPrediction);
+                    continue;
+                }
 
-    private ArrayList<String> predictAllModels(float[] inputFeatures) {
-        ArrayList<String> results = new ArrayList<>();
-
-        for (File modelFile : models) {
-            long[] output;
+                // Every inference holds its own reference, so the session stays open even if the request stops waiting
+                predictions.put(model.getKey(), batcher.submit(models, model.getKey(), model.getValue(), inputFeatures));
+            }
 
-            try {
-                output = runOnnxModel(inputFeatures, modelFile);
-            } catch (TagClassificationException e) {
-                throw e;
-            } catch (Exception e) {
-                throw new TagClassificationException("Error predicting for " + modelFile + " model");
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.getClassificationModelTimeoutMs());
+            ArrayList<String> results = new ArrayList<>();
+
+            // Predictions are read in the order of the model names, so the tags don't depend on completion order
+            for (String modelName : models.getSessions().keySet()) {
+                CompletableFuture<Long> prediction = predictions.get(modelName);
+
+                if (prediction == null) {
+                    if (cachedPredictions.get(modelName)) {
+                        results.add(modelName.split("_")[2].split("\\.")[0]);
+                    }
+
+                    continue;
+                }
+
+                long output;
+
+                try {
+                    output = prediction.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                } catch (TimeoutException e) {
+                    // Tags without a model would look complete, so the classification is retried later instead.
+                    // Predictions already completed are cached, so the retry only runs the models still missing
+                    modelTimeouts.increment();
+                    throw new TagClassificationUnavailableException(modelName + " model not completed within the timeout");
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof TagClassificationException cause) {
+                        throw cause;
+                    }
+
+                    throw new TagClassificationUnavailableException("Error predicting for " + modelName + " model");
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new TagClassificationUnavailableException("Classification interrupted");
+                }
+
+                mesh.putPrediction(models.getVersions().get(modelName), output == 1);
+
+                if (output == 1) {
+                    results.add(modelName.split("_")[2].split("\\.")[0]);
+                }
             }
 
-            if (output[0] == 1) {
-                results.add(modelFile.getName().split("_")[2].split("\\.")[0]);
+            return results;
+        } finally {
+            // Inferences still waiting for their batch are left out, since nobody reads them anymore
+            for (CompletableFuture<Long> prediction : predictions.values()) {
+                prediction.cancel(false);
             }
         }
-
-        return results;
     }
 
-    private long[] runOnnxModel(float[] inputFeatures, File modelFile) {
-        try (OrtEnvironment env = OrtEnvironment.getEnvironment();
-             OrtSession session = env.createSession(modelFile.getAbsolutePath(), new OrtSession.SessionOptions())) {
+    private long[] runOnnxModel(float[][] inputFeatures, String modelName, OrtSession session) {
+        // The environment is a shared singleton, so it must not be closed after a single inference
+        OrtEnvironment env = OrtEnvironment.getEnvironment();
 
-            OnnxTensor inputTensor = OnnxTensor.createTensor(env, new float[][] { inputFeatures });
+        try (OnnxTensor inputTensor = OnnxTensor.createTensor(env, inputFeatures)) {
             String inputName = session.getInputNames().iterator().next();
 
-            // CPU & RAM start
-            Runtime runtime = Runtime.getRuntime();
-            long usedMemoryBefore = runtime.totalMemory() - runtime.freeMemory();
+            // CPU & memory of the current thread only, so concurrent inferences don't affect each other
             ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+            long threadId = Thread.currentThread().getId();
+            long allocatedBefore = getThreadAllocatedBytes(threadBean, threadId);
             long cpuTimeBefore = threadBean.getCurrentThreadCpuTime();
 
-            // Predictions time start
             long startTime = System.nanoTime();
             OrtSession.Result result = session.run(Collections.singletonMap(inputName, inputTensor));
-            long endTime = System.nanoTime();
-
-            // CPU & RAM end
-            long usedMemoryAfter = runtime.totalMemory() - runtime.freeMemory();
-            long memoryUsed = usedMemoryAfter - usedMemoryBefore;
-            long cpuTime = threadBean.getCurrentThreadCpuTime() - cpuTimeBefore;
-            long durationMs = (endTime - startTime) / 1_000_000;
-
-            // Thresholds
-            boolean slowInference = durationMs >= 5000;
-            boolean tooMuchMemory = memoryUsed >= 700L * 1024 * 1024;
-            boolean highCpu = cpuTime >= 2_000_000_000L;
-
-            if (slowInference || tooMuchMemory || highCpu) {
-                String from = config.getFromEmail();
-                String appPassword = config.getAppPassword();
-                String to = config.getToEmail();
-                String subject = "[ALERT] Dddit AI module performance risk";
-                String body = "ATTENTION - Dddit AI module performance issue detected:\n\n"
-                        + "- Inference time: " + durationMs + " ms\n"
-                        + "- Memory used: " + (memoryUsed / (1024 * 1024)) + " MB\n"
-                        + "- CPU time: " + (cpuTime / 1_000_000) + " ms";
-
-                sendEmail(from, appPassword, to, subject, body);
-            }
+            long duration = System.nanoTime() - startTime;
 
+            long allocatedAfter = getThreadAllocatedBytes(threadBean, threadId);
+            long cpuTimeAfter = threadBean.getCurrentThreadCpuTime();
+
+            long[] output = readOutput(result, inputFeatures.length);
+
+            // Only records the measurements, alerts are delivered later by the alerting thread
+            alertService.record(modelName, duration,
+                    allocatedBefore < 0 ? -1 : allocatedAfter - allocatedBefore,
+                    cpuTimeBefore < 0 ? -1 : cpuTimeAfter - cpuTimeBefore);
+
+            return output;
+        } catch (TagClassificationException e) {
+            throw e;
+        } catch (Exception e) {
+            // The mesh has already been imported, so the failure depends on the model and not on the mesh
+            throw new TagClassificationUnavailableException("Error during ONNX model running");
+        }
+    }
+
+    // Only the HotSpot MXBean measures the allocations of a single thread, -1 if not available
+    private long getThreadAllocatedBytes(ThreadMXBean threadBean, long threadId) {
+        if (threadBean instanceof com.sun.management.ThreadMXBean hotSpotBean && hotSpotBean.isThreadAllocatedMemoryEnabled()) {
+            return hotSpotBean.getThreadAllocatedBytes(threadId);
+        }
+
+        return -1;
+    }
+
+    private long[] readOutput(OrtSession.Result result, int rows) throws OrtException {
+        // The result holds native memory, so it is released as soon as the output is copied
+        try (result) {
             Object rawOutput = result.get(0).getValue();
 
+            // One prediction per row of the batch, the first column when the model returns a matrix
             long[] output;
             if (rawOutput instanceof long[]) {
                 output = (long[]) rawOutput;
             } else if (rawOutput instanceof long[][]) {
-                output = ((long[][]) rawOutput)[0];
+                long[][] matrix = (long[][]) rawOutput;
+                output = new long[matrix.length];
+
+                for (int i = 0; i < matrix.length; i++) {
+                    output[i] = matrix[i][0];
+                }
             } else {
-                throw new TagClassificationException("Unexpected ONNX output type during classification");
+                throw new TagClassificationUnavailableException("Unexpected ONNX output type during classification");
+            }
+
+            if (output.length < rows) {
+                throw new TagClassificationUnavailableException("Unexpected ONNX output size during classification");
             }
 
             return output;
-        } catch (TagClassificationException e) {
+        }
+    }
+
+    // Assimp uses the hint to pick the importer, since a buffer in memory has no file name
+    private String getFormatHint(String filename) {
+        if (filename == null || filename.lastIndexOf('.') < 0) {
+            return "fbx";
+        }
+
+        return filename.substring(filename.lastIndexOf('.') + 1).toLowerCase();
+    }
+
+    private ByteBuffer readMesh(InputStream inputStream, long size) throws IOException {
+        if (size == 0 || size > Integer.MAX_VALUE) {
+            throw new TagClassificationException("Mesh file size not supported by classification");
+        }
+
+        // The mesh is copied once, straight from the stream to native memory outside the Java heap
+        // When the size is unknown the buffer starts small and grows while the stream is read
+        ByteBuffer buffer = MemoryUtil.memAlloc(size > 0 ? (int) size : 1024 * 1024);
+
+        try {
+            ReadableByteChannel channel = Channels.newChannel(inputStream);
+
+            while (channel.read(buffer) != -1) {
+                if (!buffer.hasRemaining()) {
+                    if (size > 0 || buffer.capacity() > Integer.MAX_VALUE / 2) {
+                        break;
+                    }
+
+                    int position = buffer.position();
+                    buffer = MemoryUtil.memRealloc(buffer, buffer.capacity() * 2);
+                    buffer.position(position);
+                }
+            }
+
+            buffer.flip();
+
+            return buffer;
+        } catch (IOException | RuntimeException e) {
+            MemoryUtil.memFree(buffer);
             throw e;
-        } catch (Exception e) {
-            throw new TagClassificationException("Error during ONNX model running");
         }
     }
 
-    private Map<String, Double> extractFbxFeatures(File fbxFile) {
-        AIScene scene = Assimp.aiImportFile(
-                fbxFile.getAbsolutePath(),
-                Assimp.aiProcess_Triangulate | Assimp.aiProcess_JoinIdenticalVertices
+    private Map<String, Double> extractFbxFeatures(ByteBuffer buffer, String filename) {
+        AIScene scene = Assimp.aiImportFileFromMemory(
+                buffer,
+                Assimp.aiProcess_Triangulate | Assimp.aiProcess_JoinIdenticalVertices,
+                getFormatHint(filename)
         );
 
         if (scene == null) {
             throw new TagClassificationException("Error during fbx file reading");
         }
 
+        // The scene is allocated by Assimp, so it must be released explicitly
+        try {
+            return extractFeatures(scene);
+        } finally {
+            Assimp.aiReleaseImport(scene);
+        }
+    }
+
+    private Map<String, Double> extractFeatures(AIScene scene) {
         int vertexCount = 0;
         int faceCount = 0;
         int materialCount = scene.mNumMaterials();
@@ -213,40 +341,77 @@ public class TagClassificationServiceImpl implements TagClassificationService {
     public ArrayList<String> classify(VersionDTO versionDTO) {
         MultipartFile mesh = versionDTO.getMesh();
 
-        byte[] bytes = null;
+        return classify(null, () -> Pair.of(mesh.getInputStream(),
+                new VersionFileDTO(mesh.getOriginalFilename(), mesh.getContentType(), mesh.getSize(), null, null)));
+    }
+
+    private MeshClassificationCache.CachedMesh importMesh(InputStream inputStream, long size, String filename,
+                                                          String contentHash) throws IOException, NoSuchAlgorithmException {
+        // Without a known hash, it is computed while the mesh is copied, so the stream is read only once
+        MessageDigest digest = contentHash == null ? MessageDigest.getInstance("SHA-256") : null;
+        ByteBuffer buffer = readMesh(digest == null ? inputStream : new DigestInputStream(inputStream, digest), size);
 
         try {
-            // A copy of the file is necessary because Tomcat can throw an exception
-            bytes = mesh.getBytes();
-            File tempFile = null;
-            tempFile = File.createTempFile("mesh_", ".fbx");
+            String hash = contentHash;
+
+            if (hash == null) {
+                hash = HexFormat.of().formatHex(digest.digest());
+                MeshClassificationCache.CachedMesh mesh = classificationCache.get(hash);
 
-            try (FileOutputStream fos = new FileOutputStream(tempFile)) {
-                fos.write(bytes);
+                // The same mesh content has already been imported, so Assimp is skipped
+                if (mesh != null) {
+                    return mesh;
+                }
             }
 
-            Map<String, Double> features = extractFbxFeatures(tempFile);
+            return classificationCache.put(hash, toInputFeatures(extractFbxFeatures(buffer, filename)));
+        } finally {
+            MemoryUtil.memFree(buffer);
+        }
+    }
 
-            if (!tempFile.delete()) {
-                throw new TagClassificationException("Error during deletion of multipart copy");
+    @Override
+    public ArrayList<String> classify(String contentHash, MeshSource meshSource) {
+        try {
+            // The same mesh content has already been imported, so the mesh is neither read nor imported again
+            MeshClassificationCache.CachedMesh mesh = contentHash == null ? null : classificationCache.get(contentHash);
+
+            if (mesh == null) {
+                Pair<InputStream, VersionFileDTO> file;
+
+                try {
+                    file = meshSource.open();
+                } catch (IOException | RuntimeException e) {
+                    // The mesh couldn't be opened, which says nothing about the mesh itself
+                    throw new TagClassificationUnavailableException("Error opening mesh for classification");
+                }
+
+                try (InputStream inputStream = file.getLeft()) {
+                    mesh = importMesh(inputStream, file.getRight().getSize(), file.getRight().getFileName(), contentHash);
+                }
             }
 
-            float[] inputFeatures = new float[] {
-                    features.get("vertex_count").floatValue(),
-                    features.get("face_count").floatValue(),
-                    features.get("material_count").floatValue(),
-                    features.get("texture_count").floatValue(),
-                    features.get("animation_count").floatValue(),
-                    features.get("texture_richness").floatValue(),
-                    features.get("vertex_count_scaled").floatValue(),
-                    features.get("material_count_scaled").floatValue()
-            };
-
-            return predictAllModels(inputFeatures);
+            return predictAllModels(mesh);
         } catch (TagClassificationException e) {
             throw e;
+        } catch (IOException e) {
+            // The mesh couldn't be read from its stream, which says nothing about the mesh itself
+            throw new TagClassificationUnavailableException("Error reading mesh for classification");
         } catch (Exception e) {
             throw new TagClassificationException("Error during classification");
         }
     }
+
+    private float[] toInputFeatures(Map<String, Double> features) {
+        return new float[] {
+                features.get("vertex_count").floatValue(),
+                features.get("face_count").floatValue(),
+                features.get("material_count").floatValue(),
+                features.get("texture_count").floatValue(),
+                features.get("animation_count").floatValue(),
+                features.get("texture_richness").floatValue(),
+                features.get("vertex_count_scaled").floatValue(),
+                features.get("material_count_scaled").floatValue()
+        };
+    }
 }
@@ -1,23 +1,17 @@
 package it.unisa.ddditserver.subsystems.auth.service;
 
-import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.security.Keys;
 import it.unisa.ddditserver.subsystems.auth.dto.UserDTO;
-import it.unisa.ddditserver.db.cosmos.auth.CosmosAuthRepository;
+import it.unisa.ddditserver.db.cosmos.auth.CosmosTokenBlacklistCache;
 import it.unisa.ddditserver.db.gremlin.auth.GremlinAuthRepository;
 import it.unisa.ddditserver.subsystems.auth.exceptions.*;
+import it.unisa.ddditserver.validators.auth.JWT.JWTokenProvider;
 import it.unisa.ddditserver.validators.auth.JWT.JWTokenValidator;
 import it.unisa.ddditserver.validators.auth.user.UserValidationDTO;
 import it.unisa.ddditserver.validators.auth.user.UserValidator;
-import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
-import javax.crypto.SecretKey;
-import java.util.Base64;
-import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -26,33 +20,14 @@ public class AuthServiceImpl implements AuthService {
     @Autowired
     private GremlinAuthRepository gremlinService;
     @Autowired
-    private CosmosAuthRepository cosmosAuthRepository;
+    private CosmosTokenBlacklistCache tokenBlacklistCache;
     @Autowired
     private JWTokenValidator jwtTokenValidator;
     @Autowired
+    private JWTokenProvider jwtTokenProvider;
+    @Autowired
     private UserValidator userValidator;
 
-    @Value("${JWT_SECRET}")
-    public String jwtSecretBase64;
-
-    private SecretKey secretKey;
-
-    @PostConstruct
-    public void init() {
-        byte[] decodedKey = Base64.getDecoder().decode(jwtSecretBase64);
-        this.secretKey = Keys.hmacShaKeyFor(decodedKey);
-    }
-
-    private String generateToken(String username) {
-        long expirationMillis = 1000 * 60 * 480; // 8 hours
-        return Jwts.builder()
-                .setSubject(username)
-                .setIssuedAt(new Date())
-                .setExpiration(new Date(System.currentTimeMillis() + expirationMillis))
-                .signWith(secretKey)
-                .compact();
-    }
-
     @Override
     public ResponseEntity<Map<String, String>> signup(UserDTO userDTO, String token) {
         // Check if the token is valid, if it is valid the user is already logged in
@@ -86,7 +61,7 @@ public class AuthServiceImpl implements AuthService {
         }
 
         try {
-            token = generateToken(username);
+            token = jwtTokenProvider.generateToken(username);
         } catch (Exception e) {
             throw new AuthException("Signup failed during token generation");
         }
@@ -124,7 +99,7 @@ public class AuthServiceImpl implements AuthService {
 
         // Generate a JWT token for authentication
         try {
-            token = generateToken(username);
+            token = jwtTokenProvider.generateToken(username);
         } catch (Exception e) {
             throw new AuthException("Login failed during token generation");
         }
@@ -146,7 +121,7 @@ public class AuthServiceImpl implements AuthService {
         }
 
         try {
-            cosmosAuthRepository.blacklistToken(token);
+            tokenBlacklistCache.blacklistToken(token);
         } catch(Exception e){
             throw new AuthException(e.getMessage());
         }
@@ -4,6 +4,7 @@ import it.unisa.ddditserver.subsystems.invitation.dto.InvitationDTO;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 
 /**
  * Controller interface for invitation endpoints.
@@ -12,7 +13,7 @@ import org.springframework.web.bind.annotation.RequestBody;
  * within the repository management system.
  *
  * @author Angelo Antonio Prisco
- * @version 1.0
+ * @version 1.1
  * @since 2025-08-11
  */
 public interface InvitationController {
@@ -38,8 +39,10 @@ public interface InvitationController {
     /**
      * Handles the request to list all pending invitations.
      *
+     * @param limit the optional maximum number of items of the page
+     * @param continuationToken the optional continuation token returned with the previous page
      * @param request the HTTP servlet request object
      * @return a ResponseEntity containing the list of pending invitations
      */
-    ResponseEntity<?> listPendingInvitations(HttpServletRequest request);
+    ResponseEntity<?> listPendingInvitations(@RequestParam(required = false) Integer limit, @RequestParam(required = false) String continuationToken, HttpServletRequest request);
 }
@@ -6,6 +6,8 @@ import it.unisa.ddditserver.subsystems.invitation.exceptions.AlreadyInvitedExcep
 import it.unisa.ddditserver.subsystems.invitation.exceptions.InvitationException;
 import it.unisa.ddditserver.subsystems.invitation.exceptions.InvitationNotFoundException;
 import it.unisa.ddditserver.subsystems.invitation.service.InvitationService;
+import it.unisa.ddditserver.subsystems.versioning.dto.PageRequestDTO;
+import it.unisa.ddditserver.subsystems.versioning.exceptions.InvalidPageTokenException;
 import it.unisa.ddditserver.subsystems.versioning.exceptions.repo.RepositoryException;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -77,12 +79,14 @@ public class InvitationControllerImpl implements  InvitationController {
 
     @Override
     @GetMapping("/list")
-    public ResponseEntity<Map<String, Object>> listPendingInvitations(HttpServletRequest request) {
+    public ResponseEntity<Map<String, Object>> listPendingInvitations(@RequestParam(name = "limit", required = false) Integer limit,
+                                                                      @RequestParam(name = "continuationToken", required = false) String continuationToken,
+                                                                      HttpServletRequest request) {
         String token = extractToken(request);
 
         try {
-            return invitationService.listPendingInvitations(token);
-        } catch (NotLoggedUserException e) {
+            return invitationService.listPendingInvitations(new PageRequestDTO(limit, continuationToken), token);
+        } catch (NotLoggedUserException | InvalidPageTokenException e) {
             return ResponseEntity
                     .status(HttpStatus.BAD_REQUEST)
                     .body(Map.of("error", e.getMessage()));
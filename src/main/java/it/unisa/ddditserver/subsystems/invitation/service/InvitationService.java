@@ -1,6 +1,7 @@
 package it.unisa.ddditserver.subsystems.invitation.service;
 
 import it.unisa.ddditserver.subsystems.invitation.dto.InvitationDTO;
+import it.unisa.ddditserver.subsystems.versioning.dto.PageRequestDTO;
 import org.springframework.http.ResponseEntity;
 import java.util.Map;
 
@@ -9,7 +10,7 @@ import java.util.Map;
  * Provides methods to send, accept, and list invitations for authenticated users.
  *
  * Author: Angelo Antonio Prisco
- * @version 1.0
+ * @version 1.1
  * @since 2025-08-16
  */
 public interface InvitationService {
@@ -35,8 +36,9 @@ public interface InvitationService {
     /**
      * Retrieves a list of pending invitations for the authenticated user.
      *
+     * @param pageRequestDTO the limit and the continuation token of the requested page
      * @param token the JWT token representing the authenticated user
      * @return a ResponseEntity containing a map with the list of pending invitations
      */
-    ResponseEntity<Map<String, Object>> listPendingInvitations(String token);
+    ResponseEntity<Map<String, Object>> listPendingInvitations(PageRequestDTO pageRequestDTO, String token);
 }
@@ -3,11 +3,17 @@ package it.unisa.ddditserver.subsystems.invitation.service;
 import it.unisa.ddditserver.db.gremlin.invitation.GremlinInvitationRepository;
 import it.unisa.ddditserver.db.gremlin.versioning.repo.GremlinRepositoryRepository;
 import it.unisa.ddditserver.subsystems.auth.dto.UserDTO;
+import it.unisa.ddditserver.subsystems.auth.exceptions.UserNotFoundException;
 import it.unisa.ddditserver.subsystems.auth.exceptions.NotLoggedUserException;
 import it.unisa.ddditserver.subsystems.invitation.dto.InvitationDTO;
 import it.unisa.ddditserver.subsystems.invitation.exceptions.InvitationException;
+import it.unisa.ddditserver.subsystems.versioning.dto.PageDTO;
+import it.unisa.ddditserver.subsystems.versioning.dto.PageRequestDTO;
 import it.unisa.ddditserver.subsystems.versioning.dto.RepositoryDTO;
+import it.unisa.ddditserver.subsystems.versioning.dto.RequestContextDTO;
+import it.unisa.ddditserver.subsystems.versioning.exceptions.InvalidPageTokenException;
 import it.unisa.ddditserver.subsystems.versioning.exceptions.repo.RepositoryException;
+import it.unisa.ddditserver.subsystems.versioning.service.context.RequestContextResolver;
 import it.unisa.ddditserver.validators.auth.JWT.JWTokenValidator;
 import it.unisa.ddditserver.validators.auth.user.UserValidationDTO;
 import it.unisa.ddditserver.validators.auth.user.UserValidator;
@@ -17,7 +23,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 @Service
@@ -27,19 +32,23 @@ public class InvitationServiceImpl implements  InvitationService {
     @Autowired
     private GremlinRepositoryRepository gremlinRepositoryRepository;
     @Autowired
+    private RequestContextResolver requestContextResolver;
+    @Autowired
     private JWTokenValidator jwTokenValidator;
     @Autowired
     private UserValidator userValidator;
     @Autowired
     private InvitationValidator invitationValidator;
 
-    private void checkUserStatus(String repositoryName, String username) {
-        RepositoryDTO repositoryDTO = new RepositoryDTO(repositoryName);
-        UserDTO userDTO = new UserDTO(username, null);
+    private RequestContextDTO resolveRecipient(String username, String repositoryName) {
+        RequestContextDTO recipientContext = requestContextResolver.resolve(username, repositoryName, null, null, null);
 
-        if (!gremlinRepositoryRepository.isContributor(repositoryDTO, userDTO) && !gremlinRepositoryRepository.isOwner(repositoryDTO, userDTO)) {
-            throw new RepositoryException("Permission denied because " + username + " is not a contributor or the owner of " + repositoryName + " repository");
+        // Check if the invited user exists in graph database
+        if (recipientContext.getUserId() == null) {
+            throw new UserNotFoundException(username + " does not exist as username");
         }
+
+        return recipientContext;
     }
 
     @Override
@@ -52,19 +61,16 @@ public class InvitationServiceImpl implements  InvitationService {
             throw new NotLoggedUserException("Missing, invalid, or expired Authorization token");
         }
 
-        checkUserStatus(repositoryName, retrievedUsername);
+        // Check sender's permissions, sender's existence and the existence of the repository in graph database
+        // Check RequestContextResolver interface for more information about the exists flag
+        requestContextResolver.authorize(retrievedUsername, repositoryName, null, null, null, true);
 
-        UserValidationDTO fromUserValidationDTO = new UserValidationDTO(retrievedUsername, null);
-        UserValidationDTO toUserValidationDTO = new UserValidationDTO(toUsername, null);
-
-        // Check if users exist in graph database
-        userValidator.validateExistence(fromUserValidationDTO, true);
-        userValidator.validateExistence(toUserValidationDTO, true);
+        RequestContextDTO recipientContext = resolveRecipient(toUsername, repositoryName);
 
         InvitationValidationDTO invitationValidationDTO = new InvitationValidationDTO(retrievedUsername, toUsername, repositoryName);
 
         // Check if invitation's data are well-formed
-        invitationValidator.validateInvitation(invitationValidationDTO);
+        invitationValidator.validateInvitation(invitationValidationDTO, recipientContext);
 
         // Check if invitation is already been sent
         invitationValidator.validatePendingInvitation(invitationValidationDTO, false);
@@ -94,17 +100,17 @@ public class InvitationServiceImpl implements  InvitationService {
             throw new NotLoggedUserException("Missing, invalid, or expired Authorization token");
         }
 
-        UserValidationDTO toUserValidationDTO = new UserValidationDTO(retrievedUsername, null);
+        RequestContextDTO recipientContext = resolveRecipient(retrievedUsername, repositoryName);
+
         UserValidationDTO fromUserValidationDTO = new UserValidationDTO(fromUsername, null);
 
-        // Check if users exist in graph database
-        userValidator.validateExistence(toUserValidationDTO, true);
+        // Check if the sender exists in graph database
         userValidator.validateExistence(fromUserValidationDTO, true);
 
         InvitationValidationDTO invitationValidationDTO = new InvitationValidationDTO(fromUsername, retrievedUsername, repositoryName);
 
         // Check if invitation's data are well-formed
-        invitationValidator.validateInvitation(invitationValidationDTO);
+        invitationValidator.validateInvitation(invitationValidationDTO, recipientContext);
 
         // Check if invitation is already been sent
         invitationValidator.validatePendingInvitation(invitationValidationDTO, true);
@@ -126,24 +132,27 @@ public class InvitationServiceImpl implements  InvitationService {
     }
 
     @Override
-    public ResponseEntity<Map<String, Object>> listPendingInvitations(String token) {
+    public ResponseEntity<Map<String, Object>> listPendingInvitations(PageRequestDTO pageRequestDTO, String token) {
         String retrievedUsername = jwTokenValidator.isTokenValid(token);
 
         if (retrievedUsername == null) {
             throw new NotLoggedUserException("Missing, invalid, or expired Authorization token");
         }
 
-        List<InvitationDTO> pendingInvitations;
+        PageDTO<InvitationDTO> pendingInvitations;
 
         try {
-            pendingInvitations = gremlinInvitationRepository.findInvitationsByUser(new UserDTO(retrievedUsername, null));
+            pendingInvitations = gremlinInvitationRepository.findInvitationsByUser(new UserDTO(retrievedUsername, null), pageRequestDTO);
+        } catch (InvalidPageTokenException e) {
+            throw e;
         } catch (Exception e) {
             throw new InvitationException(e.getMessage());
         }
 
         Map<String, Object> response = new HashMap<>();
         response.put("message", "Pending invitations found successfully");
-        response.put("invitations", pendingInvitations);
+        response.put("invitations", pendingInvitations.getItems());
+        response.put("continuationToken", pendingInvitations.getContinuationToken());
 
         return ResponseEntity.ok(response);
     }
@@ -0,0 +1,36 @@
+package it.unisa.ddditserver.subsystems.versioning;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Getter
+@Component
+public class VersioningConfig {
+    // Folder where streamed meshes are copied for the classification, so they are not downloaded again
+    @Value("${VERSION_PUSH_SPOOL_PATH:push-spool}")
+    private String pushSpoolPath;
+
+    // Meshes larger than this are not copied and the classification reads them from BLOB storage
+    @Value("${VERSION_PUSH_SPOOL_MAX_BYTES:268435456}")
+    private long pushSpoolMaxBytes;
+
+    // Upload sessions not used for this time expire and their chunks are discarded
+    @Value("${VERSION_UPLOAD_SESSION_TTL_SECONDS:3600}")
+    private long uploadSessionTtlSeconds;
+
+    @Value("${VERSION_UPLOAD_SESSION_MAX_COUNT:1000}")
+    private long uploadSessionMaxCount;
+
+    // Each chunk is a single request, so the limit bounds how long a request is kept open
+    @Value("${VERSION_UPLOAD_CHUNK_MAX_BYTES:104857600}")
+    private long uploadChunkMaxBytes;
+
+    // Downloaded bytes are gathered up to this size before each write to the response of a file pull
+    @Value("${VERSION_PULL_BUFFER_BYTES:1048576}")
+    private int pullBufferBytes;
+
+    // Pushed versions never change, so pulled versions can be kept by clients for this time
+    @Value("${VERSION_PULL_CACHE_MAX_AGE_SECONDS:31536000}")
+    private long pullCacheMaxAgeSeconds;
+}
@@ -5,6 +5,7 @@ import it.unisa.ddditserver.subsystems.versioning.dto.ResourceDTO;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 
 /**
  * Controller interface for branch endpoints.
@@ -14,7 +15,7 @@ import org.springframework.web.bind.annotation.RequestBody;
  * within the versioning subsystem.
  *
  * @author Angelo Antonio Prisco
- * @version 1.0
+ * @version 1.1
  * @since 2025-08-11
  */
 public interface BranchController {
@@ -32,8 +33,10 @@ public interface BranchController {
      * Handles the request to list all branches of a given resource.
      *
      * @param resourceDTO the resource data transfer object identifying the resource
+     * @param limit the optional maximum number of items of the page
+     * @param continuationToken the optional continuation token returned with the previous page
      * @param request the HTTP servlet request object
      * @return a ResponseEntity containing the list of branches for the specified resource
      */
-    ResponseEntity<?> listBranchesByResource(@RequestBody ResourceDTO resourceDTO, HttpServletRequest request);
+    ResponseEntity<?> listBranchesByResource(@RequestBody ResourceDTO resourceDTO, @RequestParam(required = false) Integer limit, @RequestParam(required = false) String continuationToken, HttpServletRequest request);
 }
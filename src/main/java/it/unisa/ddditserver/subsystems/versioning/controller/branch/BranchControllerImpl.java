@@ -2,7 +2,9 @@ package it.unisa.ddditserver.subsystems.versioning.controller.branch;
 
 import it.unisa.ddditserver.subsystems.auth.exceptions.NotLoggedUserException;
 import it.unisa.ddditserver.subsystems.versioning.dto.BranchDTO;
+import it.unisa.ddditserver.subsystems.versioning.dto.PageRequestDTO;
 import it.unisa.ddditserver.subsystems.versioning.dto.ResourceDTO;
+import it.unisa.ddditserver.subsystems.versioning.exceptions.InvalidPageTokenException;
 import it.unisa.ddditserver.subsystems.versioning.exceptions.branch.BranchException;
 import it.unisa.ddditserver.subsystems.versioning.exceptions.branch.ExistingBranchException;
 import it.unisa.ddditserver.subsystems.versioning.exceptions.branch.InvalidBranchNameException;
@@ -58,12 +60,16 @@ public class BranchControllerImpl implements BranchController {
 
     @Override
     @PostMapping("/list")
-    public ResponseEntity<Map<String, Object>> listBranchesByResource(@RequestBody ResourceDTO resourceDTO, HttpServletRequest request) {
+    public ResponseEntity<Map<String, Object>> listBranchesByResource(@RequestBody ResourceDTO resourceDTO,
+                                                                      @RequestParam(name = "limit", required = false) Integer limit,
+                                                                      @RequestParam(name = "continuationToken", required = false) String continuationToken,
+                                                                      HttpServletRequest request) {
         String token = extractToken(request);
 
         try {
-            return branchService.listBranchesByResource(resourceDTO, token);
-        } catch (RepositoryException | ResourceException | NotLoggedUserException e) {
+            return branchService.listBranchesByResource(resourceDTO, new PageRequestDTO(limit, continuationToken), token);
+        } catch (RepositoryException | ResourceException | NotLoggedUserException |
+                 InvalidPageTokenException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(Map.of("error", e.getMessage()));
         } catch (BranchException e) {
@@ -4,6 +4,7 @@ import it.unisa.ddditserver.subsystems.versioning.dto.RepositoryDTO;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 
 /**
  * Controller interface for repository endpoints.
@@ -13,7 +14,7 @@ import org.springframework.web.bind.annotation.RequestBody;
  * by the authenticated user within the versioning subsystem.
  *
  * @author Angelo Antonio Prisco
- * @version 1.0
+ * @version 1.1
  * @since 2025-08-12
  */
 public interface RepositoryController {
@@ -30,16 +31,20 @@ public interface RepositoryController {
     /**
      * Handles the request to list all repositories owned by the authenticated user.
      *
+     * @param limit the optional maximum number of items of the page
+     * @param continuationToken the optional continuation token returned with the previous page
      * @param request the HTTP servlet request object
      * @return a ResponseEntity containing the list of repositories owned by the user
      */
-    ResponseEntity<?> listOwnedRepositories(HttpServletRequest request);
+    ResponseEntity<?> listOwnedRepositories(@RequestParam(required = false) Integer limit, @RequestParam(required = false) String continuationToken, HttpServletRequest request);
 
     /**
      * Handles the request to list all repositories where the authenticated user is a contributor.
      *
+     * @param limit the optional maximum number of items of the page
+     * @param continuationToken the optional continuation token returned with the previous page
      * @param request the HTTP servlet request object
      * @return a ResponseEntity containing the list of repositories the user contributes to
      */
-    ResponseEntity<?> listContributedRepositories(HttpServletRequest request);
+    ResponseEntity<?> listContributedRepositories(@RequestParam(required = false) Integer limit, @RequestParam(required = false) String continuationToken, HttpServletRequest request);
 }
@@ -1,7 +1,9 @@
 package it.unisa.ddditserver.subsystems.versioning.controller.repo;
 
 import it.unisa.ddditserver.subsystems.auth.exceptions.NotLoggedUserException;
+import it.unisa.ddditserver.subsystems.versioning.dto.PageRequestDTO;
 import it.unisa.ddditserver.subsystems.versioning.dto.RepositoryDTO;
+import it.unisa.ddditserver.subsystems.versioning.exceptions.InvalidPageTokenException;
 import it.unisa.ddditserver.subsystems.versioning.exceptions.repo.ExistingRepositoryException;
 import it.unisa.ddditserver.subsystems.versioning.exceptions.repo.InvalidRepositoryNameException;
 import it.unisa.ddditserver.subsystems.versioning.exceptions.repo.RepositoryException;
@@ -46,12 +48,14 @@ public class RepositoryControllerImpl implements RepositoryController {
     }
 
     @GetMapping("/owned")
-    public ResponseEntity<Map<String, Object>> listOwnedRepositories(HttpServletRequest request) {
+    public ResponseEntity<Map<String, Object>> listOwnedRepositories(@RequestParam(name = "limit", required = false) Integer limit,
+                                                                     @RequestParam(name = "continuationToken", required = false) String continuationToken,
+                                                                     HttpServletRequest request) {
         String token = extractToken(request);
 
         try {
-            return repositoryService.listRepositoriesOwned(token);
-        } catch (NotLoggedUserException e) {
+            return repositoryService.listRepositoriesOwned(new PageRequestDTO(limit, continuationToken), token);
+        } catch (NotLoggedUserException | InvalidPageTokenException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(Map.of("error", e.getMessage()));
         } catch (RepositoryException e) {
@@ -64,12 +68,14 @@ public class RepositoryControllerImpl implements RepositoryController {
     }
 
     @GetMapping("/contributed")
-    public ResponseEntity<Map<String, Object>> listContributedRepositories(HttpServletRequest request) {
+    public ResponseEntity<Map<String, Object>> listContributedRepositories(@RequestParam(name = "limit", required = false) Integer limit,
+                                                                           @RequestParam(name = "continuationToken", required = false) String continuationToken,
+                                                                           HttpServletRequest request) {
         String token = extractToken(request);
 
         try {
-            return repositoryService.listRepositoriesContributed(token);
-        } catch (NotLoggedUserException e) {
+            return repositoryService.listRepositoriesContributed(new PageRequestDTO(limit, continuationToken), token);
+        } catch (NotLoggedUserException | InvalidPageTokenException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(Map.of("error", e.getMessage()));
         } catch (RepositoryException e) {
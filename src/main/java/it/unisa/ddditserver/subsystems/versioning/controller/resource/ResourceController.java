@@ -5,6 +5,7 @@ import it.unisa.ddditserver.subsystems.versioning.dto.ResourceDTO;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 
 /**
  * Controller interface for resource endpoints.
@@ -14,7 +15,7 @@ import org.springframework.web.bind.annotation.RequestBody;
  * in the versioning subsystem.
  *
  * @author Angelo Antonio Prisco
- * @version 1.0
+ * @version 1.1
  * @since 2025-08-14
  */
 public interface ResourceController {
@@ -32,17 +33,20 @@ public interface ResourceController {
      * Handles the request to list all resources contained in a repository.
      *
      * @param repositoryDTO the repository data transfer object identifying the repository
+     * @param limit the optional maximum number of items of the page
+     * @param continuationToken the optional continuation token returned with the previous page
      * @param request the HTTP servlet request object
      * @return a ResponseEntity containing the list of resources in the specified repository
      */
-    ResponseEntity<?> listResourcesByRepository(@RequestBody RepositoryDTO repositoryDTO, HttpServletRequest request);
+    ResponseEntity<?> listResourcesByRepository(@RequestBody RepositoryDTO repositoryDTO, @RequestParam(required = false) Integer limit, @RequestParam(required = false) String continuationToken, HttpServletRequest request);
 
     /**
      * Handles the request to display the version tree of a resource.
      *
      * @param resourceDTO the resource data transfer object identifying the resource
+     * @param limit the optional maximum number of versions returned for each branch
      * @param request the HTTP servlet request object
      * @return a ResponseEntity containing the version tree of the specified resource
      */
-    ResponseEntity<?> showVersionTree(@RequestBody ResourceDTO resourceDTO, HttpServletRequest request);
+    ResponseEntity<?> showVersionTree(@RequestBody ResourceDTO resourceDTO, @RequestParam(required = false) Integer limit, HttpServletRequest request);
 }
@@ -1,8 +1,10 @@
 package it.unisa.ddditserver.subsystems.versioning.controller.resource;
 
 import it.unisa.ddditserver.subsystems.auth.exceptions.NotLoggedUserException;
+import it.unisa.ddditserver.subsystems.versioning.dto.PageRequestDTO;
 import it.unisa.ddditserver.subsystems.versioning.dto.RepositoryDTO;
 import it.unisa.ddditserver.subsystems.versioning.dto.ResourceDTO;
+import it.unisa.ddditserver.subsystems.versioning.exceptions.InvalidPageTokenException;
 import it.unisa.ddditserver.subsystems.versioning.exceptions.repo.InvalidRepositoryNameException;
 import it.unisa.ddditserver.subsystems.versioning.exceptions.repo.RepositoryException;
 import it.unisa.ddditserver.subsystems.versioning.exceptions.repo.RepositoryNotFoundException;
@@ -53,12 +55,15 @@ public class ResourceControllerImpl implements ResourceController {
 
     @Override
     @PostMapping("/list")
-    public ResponseEntity<Map<String, Object>> listResourcesByRepository(@RequestBody RepositoryDTO repositoryDTO, HttpServletRequest request) {
+    public ResponseEntity<Map<String, Object>> listResourcesByRepository(@RequestBody RepositoryDTO repositoryDTO,
+                                                                         @RequestParam(name = "limit", required = false) Integer limit,
+                                                                         @RequestParam(name = "continuationToken", required = false) String continuationToken,
+                                                                         HttpServletRequest request) {
         String token = extractToken(request);
 
         try {
-            return resourceService.listResourcesByRepository(repositoryDTO, token);
-        } catch (RepositoryException | NotLoggedUserException e) {
+            return resourceService.listResourcesByRepository(repositoryDTO, new PageRequestDTO(limit, continuationToken), token);
+        } catch (RepositoryException | NotLoggedUserException | InvalidPageTokenException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(Map.of("error", e.getMessage()));
         } catch (ResourceException e) {
@@ -72,11 +77,13 @@ public class ResourceControllerImpl implements ResourceController {
 
     @Override
     @PostMapping("/tree")
-    public ResponseEntity<Map<String, Object>> showVersionTree(@RequestBody ResourceDTO resourceDTO, HttpServletRequest request) {
+    public ResponseEntity<Map<String, Object>> showVersionTree(@RequestBody ResourceDTO resourceDTO,
+                                                               @RequestParam(name = "limit", required = false) Integer limit,
+                                                               HttpServletRequest request) {
         String token = extractToken(request);
 
         try {
-            return resourceService.showVersionTree(resourceDTO, token);
+            return resourceService.showVersionTree(resourceDTO, limit, token);
         } catch (RepositoryException | InvalidResourceNameException |
                  ExistingResourceException | NotLoggedUserException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
@@ -0,0 +1,65 @@
+package it.unisa.ddditserver.subsystems.versioning.controller.version;
+
+import it.unisa.ddditserver.subsystems.versioning.dto.version.UploadSessionDTO;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RequestBody;
+
+/**
+ * Controller interface for chunked upload session endpoints.
+ *
+ * Provides operations for opening an upload session for a mesh version, sending the mesh as numbered chunks,
+ * checking the chunks already received, and committing or aborting the session.
+ *
+ * @author Angelo Antonio Prisco
+ * @version 1.0
+ * @since 2025-09-02
+ */
+public interface UploadSessionController {
+
+    /**
+     * Handles the request to open an upload session for a new mesh version.
+     *
+     * @param uploadSessionDTO the data transfer object containing the version information and the mesh size
+     * @param request the HTTP servlet request object
+     * @return a ResponseEntity containing the session ID or an error status
+     */
+    ResponseEntity<?> openSession(@RequestBody UploadSessionDTO uploadSessionDTO, HttpServletRequest request);
+
+    /**
+     * Handles the request to store a chunk of the mesh, sent as the raw request body.
+     *
+     * @param sessionId the ID of the upload session
+     * @param chunkIndex the position of the chunk in the mesh, starting from 0
+     * @param request the HTTP servlet request object, whose body is the chunk
+     * @return a ResponseEntity indicating the result of the operation
+     */
+    ResponseEntity<?> uploadChunk(String sessionId, int chunkIndex, HttpServletRequest request);
+
+    /**
+     * Handles the request to retrieve the chunks already received by an upload session.
+     *
+     * @param sessionId the ID of the upload session
+     * @param request the HTTP servlet request object
+     * @return a ResponseEntity containing the received chunks or an error status
+     */
+    ResponseEntity<?> showSession(String sessionId, HttpServletRequest request);
+
+    /**
+     * Handles the request to commit an upload session, creating the version.
+     *
+     * @param sessionId the ID of the upload session
+     * @param request the HTTP servlet request object
+     * @return a ResponseEntity indicating the result of the version creation operation
+     */
+    ResponseEntity<?> commitSession(String sessionId, HttpServletRequest request);
+
+    /**
+     * Handles the request to abort an upload session, discarding its chunks.
+     *
+     * @param sessionId the ID of the upload session
+     * @param request the HTTP servlet request object
+     * @return a ResponseEntity indicating the result of the operation
+     */
+    ResponseEntity<?> abortSession(String sessionId, HttpServletRequest request);
+}
@@ -0,0 +1,113 @@
+package it.unisa.ddditserver.subsystems.versioning.controller.version;
+
+import it.unisa.ddditserver.subsystems.auth.exceptions.NotLoggedUserException;
+import it.unisa.ddditserver.subsystems.versioning.dto.version.UploadSessionDTO;
+import it.unisa.ddditserver.subsystems.versioning.exceptions.branch.BranchException;
+import it.unisa.ddditserver.subsystems.versioning.exceptions.repo.RepositoryException;
+import it.unisa.ddditserver.subsystems.versioning.exceptions.resource.ResourceException;
+import it.unisa.ddditserver.subsystems.versioning.exceptions.version.*;
+import it.unisa.ddditserver.subsystems.versioning.service.version.UploadSessionService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import java.io.InputStream;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/versions/push/sessions")
+public class UploadSessionControllerImpl implements UploadSessionController {
+    @Autowired
+    private UploadSessionService uploadSessionService;
+
+    private String extractToken(HttpServletRequest request) {
+        String bearerToken = request.getHeader("Authorization");
+        if (bearerToken == null || !bearerToken.startsWith("Bearer ")) {
+            return null;
+        }
+        return bearerToken.substring(7);
+    }
+
+    private ResponseEntity<Map<String, String>> handleException(Exception e, String unexpectedMessage) {
+        if (e instanceof RepositoryException || e instanceof ResourceException ||
+                e instanceof BranchException || e instanceof InvalidVersionNameException ||
+                e instanceof InvalidCommentException || e instanceof InvalidMeshException ||
+                e instanceof UploadSessionNotFoundException || e instanceof NotLoggedUserException) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", e.getMessage()));
+        }
+
+        if (e instanceof VersionException) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", e.getMessage()));
+        }
+
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("error", unexpectedMessage, "details", String.valueOf(e.getMessage())));
+    }
+
+    @Override
+    @PostMapping
+    public ResponseEntity<?> openSession(@RequestBody UploadSessionDTO uploadSessionDTO, HttpServletRequest request) {
+        String token = extractToken(request);
+
+        try {
+            return uploadSessionService.openSession(uploadSessionDTO, token);
+        } catch (Exception e) {
+            return handleException(e, "Unexpected error during upload session opening");
+        }
+    }
+
+    @Override
+    @PutMapping(value = "/{sessionId}/chunks/{chunkIndex}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<?> uploadChunk(@PathVariable("sessionId") String sessionId,
+                                         @PathVariable("chunkIndex") int chunkIndex,
+                                         HttpServletRequest request) {
+        String token = extractToken(request);
+
+        try (InputStream chunkStream = request.getInputStream()) {
+            return uploadSessionService.uploadChunk(sessionId, chunkIndex, chunkStream,
+                    request.getContentLengthLong(), request.getHeader("Content-MD5"), token);
+        } catch (Exception e) {
+            return handleException(e, "Unexpected error during chunk upload");
+        }
+    }
+
+    @Override
+    @GetMapping("/{sessionId}")
+    public ResponseEntity<?> showSession(@PathVariable("sessionId") String sessionId, HttpServletRequest request) {
+        String token = extractToken(request);
+
+        try {
+            return uploadSessionService.showSession(sessionId, token);
+        } catch (Exception e) {
+            return handleException(e, "Unexpected error during upload session retrieve");
+        }
+    }
+
+    @Override
+    @PostMapping("/{sessionId}/commit")
+    public ResponseEntity<?> commitSession(@PathVariable("sessionId") String sessionId, HttpServletRequest request) {
+        String token = extractToken(request);
+
+        try {
+            return uploadSessionService.commitSession(sessionId, token);
+        } catch (Exception e) {
+            return handleException(e, "Unexpected error during mesh version push");
+        }
+    }
+
+    @Override
+    @DeleteMapping("/{sessionId}")
+    public ResponseEntity<?> abortSession(@PathVariable("sessionId") String sessionId, HttpServletRequest request) {
+        String token = extractToken(request);
+
+        try {
+            return uploadSessionService.abortSession(sessionId, token);
+        } catch (Exception e) {
+            return handleException(e, "Unexpected error during upload session abort");
+        }
+    }
+}
@@ -13,7 +13,7 @@ import org.springframework.web.bind.annotation.ModelAttribute;
  * within the versioning subsystem.
  *
  * @author Angelo Antonio Prisco
- * @version 1.0
+ * @version 1.3
  * @since 2025-08-14
  */
 public interface VersionController {
@@ -28,7 +28,19 @@ public interface VersionController {
     ResponseEntity<?> pushVersion(@ModelAttribute VersionDTO versionDTO, HttpServletRequest request);
 
     /**
-     * Handles the request to retrieve a specific version resource.
+     * Handles the request to create a new version of a mesh sent as the raw request body,
+     * so the mesh is streamed to storage instead of being parsed as a multipart file.
+     *
+     * @param versionDTO the version data transfer object containing version details, without the mesh
+     * @param meshFileName the file name of the mesh
+     * @param request the HTTP servlet request object, whose body is the mesh
+     * @return a ResponseEntity indicating the result of the version creation operation
+     */
+    ResponseEntity<?> pushVersionStream(@ModelAttribute VersionDTO versionDTO, String meshFileName, HttpServletRequest request);
+
+    /**
+     * Handles the request to retrieve a specific version resource, streamed as a multipart response
+     * or as a single ZIP archive when the Accept header asks for application/zip.
      *
      * @param versionDTO the version data transfer object identifying the version to retrieve
      * @param request the HTTP servlet request object
@@ -36,6 +48,16 @@ public interface VersionController {
      */
     ResponseEntity<?> pullVersion(@ModelAttribute VersionDTO versionDTO, HttpServletRequest request);
 
+    /**
+     * Handles the request to retrieve the mesh of a mesh version as its raw content,
+     * honoring the Range and If-Range headers so an interrupted download can be resumed.
+     *
+     * @param versionDTO the version data transfer object identifying the version to retrieve
+     * @param request the HTTP servlet request object
+     * @return a ResponseEntity streaming the requested bytes of the mesh or an error status
+     */
+    ResponseEntity<?> pullVersionFile(@ModelAttribute VersionDTO versionDTO, HttpServletRequest request);
+
     /**
      * Handles the request to display metadata for a specific version.
      *
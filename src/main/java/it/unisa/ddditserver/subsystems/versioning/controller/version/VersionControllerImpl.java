@@ -1,5 +1,6 @@
 package it.unisa.ddditserver.subsystems.versioning.controller.version;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import it.unisa.ddditserver.subsystems.auth.exceptions.NotLoggedUserException;
 import it.unisa.ddditserver.subsystems.versioning.dto.version.VersionDTO;
 import it.unisa.ddditserver.subsystems.versioning.exceptions.branch.BranchException;
@@ -9,16 +10,29 @@ import it.unisa.ddditserver.subsystems.versioning.exceptions.version.*;
 import it.unisa.ddditserver.subsystems.versioning.service.version.VersionService;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.io.Closeable;
+import java.io.InputStream;
 import java.util.Map;
+import java.util.concurrent.Callable;
 
 @RestController
 @RequestMapping("/versions")
 public class VersionControllerImpl implements VersionController {
+    private static final String PULL_RELEASE_KEY = VersionControllerImpl.class.getName() + ".pullRelease";
+
     @Autowired
     private VersionService versionService;
+    @Autowired
+    private ObjectMapper objectMapper;
 
     private String extractToken(HttpServletRequest request) {
         String bearerToken = request.getHeader("Authorization");
@@ -27,7 +41,29 @@ public class VersionControllerImpl implements VersionController {
         }
         return bearerToken.substring(7);
     }
+
+    // A streamed response is written as is, so errors are serialized here instead of by the message converters
+    private ResponseEntity<StreamingResponseBody> streamError(HttpStatus status, Map<String, String> error) {
+        return ResponseEntity.status(status)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(outputStream -> objectMapper.writeValue(outputStream, error));
+    }
     
+    // The body of a pull holds files already downloading, and it may never be written if the request times out
+    // or is rejected before it starts, so they are released when the request completes anyway
+    private void releaseOnCompletion(HttpServletRequest request, StreamingResponseBody body) {
+        if (!(body instanceof Closeable resources)) {
+            return;
+        }
+
+        WebAsyncUtils.getAsyncManager(request).registerCallableInterceptor(PULL_RELEASE_KEY, new CallableProcessingInterceptor() {
+            @Override
+            public <T> void afterCompletion(NativeWebRequest webRequest, Callable<T> task) throws Exception {
+                resources.close();
+            }
+        });
+    }
+
     @Override
     @PostMapping("/push")
     public ResponseEntity<Map<String, String>> pushVersion(@ModelAttribute VersionDTO versionDTO, HttpServletRequest request) {
@@ -51,12 +87,15 @@ public class VersionControllerImpl implements VersionController {
     }
 
     @Override
-    @PostMapping("/pull")
-    public ResponseEntity<?> pullVersion(@RequestBody VersionDTO versionDTO, HttpServletRequest request) {
+    @PostMapping(value = "/push/stream", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<Map<String, String>> pushVersionStream(@ModelAttribute VersionDTO versionDTO,
+                                                                 @RequestParam("meshFileName") String meshFileName,
+                                                                 HttpServletRequest request) {
         String token = extractToken(request);
 
-        try {
-            return versionService.pullVersion(versionDTO, token);
+        try (InputStream meshStream = request.getInputStream()) {
+            return versionService.createVersionFromStream(versionDTO, meshFileName, request.getContentType(),
+                    request.getContentLengthLong(), meshStream, token);
         } catch (RepositoryException | ResourceException |
                  BranchException | InvalidVersionNameException |
                  InvalidCommentException | InvalidMeshException |
@@ -68,7 +107,52 @@ public class VersionControllerImpl implements VersionController {
                     .body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(Map.of("error", "Unexpected error during version pull", "details", e.getMessage()));
+                    .body(Map.of("error", "Unexpected error during mesh version push", "details", e.getMessage()));
+        }
+    }
+
+    @Override
+    @PostMapping("/pull")
+    public ResponseEntity<StreamingResponseBody> pullVersion(@RequestBody VersionDTO versionDTO, HttpServletRequest request) {
+        String token = extractToken(request);
+
+        try {
+            ResponseEntity<StreamingResponseBody> response = versionService.pullVersion(versionDTO,
+                    request.getHeader(HttpHeaders.ACCEPT), request.getHeader(HttpHeaders.IF_NONE_MATCH), token);
+            releaseOnCompletion(request, response.getBody());
+
+            return response;
+        } catch (RepositoryException | ResourceException |
+                 BranchException | InvalidVersionNameException |
+                 InvalidCommentException | InvalidMeshException |
+                 InvalidMaterialException | NotLoggedUserException e) {
+            return streamError(HttpStatus.BAD_REQUEST, Map.of("error", e.getMessage()));
+        } catch (VersionException e) {
+            return streamError(HttpStatus.INTERNAL_SERVER_ERROR, Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return streamError(HttpStatus.INTERNAL_SERVER_ERROR,
+                    Map.of("error", "Unexpected error during version pull", "details", e.getMessage()));
+        }
+    }
+
+    @Override
+    @GetMapping("/pull/file")
+    public ResponseEntity<StreamingResponseBody> pullVersionFile(@ModelAttribute VersionDTO versionDTO, HttpServletRequest request) {
+        String token = extractToken(request);
+
+        try {
+            return versionService.pullVersionFile(versionDTO, request.getHeader(HttpHeaders.RANGE),
+                    request.getHeader(HttpHeaders.IF_RANGE), request.getHeader(HttpHeaders.IF_NONE_MATCH), token);
+        } catch (RepositoryException | ResourceException |
+                 BranchException | InvalidVersionNameException |
+                 InvalidCommentException | InvalidMeshException |
+                 InvalidMaterialException | NotLoggedUserException e) {
+            return streamError(HttpStatus.BAD_REQUEST, Map.of("error", e.getMessage()));
+        } catch (VersionException e) {
+            return streamError(HttpStatus.INTERNAL_SERVER_ERROR, Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return streamError(HttpStatus.INTERNAL_SERVER_ERROR,
+                    Map.of("error", "Unexpected error during version pull", "details", e.getMessage()));
         }
     }
 
@@ -78,7 +162,7 @@ public class VersionControllerImpl implements VersionController {
         String token = extractToken(request);
 
         try {
-            return versionService.showVersionMetadata(versionDTO, token);
+            return versionService.showVersionMetadata(versionDTO, request.getHeader(HttpHeaders.IF_NONE_MATCH), token);
         } catch (RepositoryException | ResourceException |
                  BranchException | InvalidVersionNameException |
                  InvalidCommentException | InvalidMeshException |
@@ -0,0 +1,32 @@
+package it.unisa.ddditserver.subsystems.versioning.dto;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object (DTO) representing the page requested by a listing endpoint.
+ *
+ * <ul>
+ *     <li>{@code limit} - the maximum number of items of the page, the default is used if it is missing or not positive.</li>
+ *     <li>{@code continuationToken} - the opaque token returned with the previous page, missing for the first page.</li>
+ * </ul>
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PageRequestDTO {
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAX_LIMIT = 1000;
+
+    private Integer limit;
+    private String continuationToken;
+
+    public int getEffectiveLimit() {
+        if (limit == null || limit < 1) {
+            return DEFAULT_LIMIT;
+        }
+
+        return Math.min(limit, MAX_LIMIT);
+    }
+}
@@ -0,0 +1,16 @@
+package it.unisa.ddditserver.subsystems.versioning.dto;
+
+/**
+ * Role of a user on a repository.
+ *
+ * <ul>
+ *     <li>{@code OWNER} - the user created the repository.</li>
+ *     <li>{@code CONTRIBUTOR} - the user accepted an invitation to the repository.</li>
+ *     <li>{@code NONE} - the user has no access to the repository.</li>
+ * </ul>
+ */
+public enum RepositoryRole {
+    OWNER,
+    CONTRIBUTOR,
+    NONE
+}
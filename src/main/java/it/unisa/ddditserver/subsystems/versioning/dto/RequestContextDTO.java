@@ -0,0 +1,34 @@
+package it.unisa.ddditserver.subsystems.versioning.dto;
+
+import lombok.Data;
+import lombok.AllArgsConstructor;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object (DTO) representing the authorization and existence context of a versioning request,
+ * resolved with a single traversal of the graph database.
+ *
+ * <ul>
+ *     <li>{@code userId} - the vertex ID of the user, null if the user does not exist.</li>
+ *     <li>{@code role} - the role of the user on the repository.</li>
+ *     <li>{@code repositoryId} - the vertex ID of the repository, null if it does not exist.</li>
+ *     <li>{@code resourceId} - the vertex ID of the resource, null if it does not exist or was not requested.</li>
+ *     <li>{@code branchId} - the vertex ID of the branch, null if it does not exist or was not requested.</li>
+ *     <li>{@code versionId} - the vertex ID of the version, null if it does not exist or was not requested.</li>
+ * </ul>
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RequestContextDTO {
+    private String userId;
+    private RepositoryRole role;
+    private String repositoryId;
+    private String resourceId;
+    private String branchId;
+    private String versionId;
+
+    public boolean isMember() {
+        return role == RepositoryRole.OWNER || role == RepositoryRole.CONTRIBUTOR;
+    }
+}
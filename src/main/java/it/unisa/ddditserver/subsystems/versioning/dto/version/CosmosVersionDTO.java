@@ -5,6 +5,7 @@ import lombok.AllArgsConstructor;
 import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Data Transfer Object (DTO) representing a version metadata to store in CosmosDB.
@@ -17,7 +18,10 @@ import java.util.List;
  *     <li>{@code pushedAt} - the date and time when the version was pushed.</li>
  *     <li>{@code comment} - an optional comment describing the version.</li>
  *     <li>{@code tags} - a list of tags associated with the version.</li>
- *     <li>{@code blobUrl} - the URL pointing to the version stored in BLOB Storage.</li>
+ *     <li>{@code blobUrl} - the URL pointing to the version stored in BLOB Storage, null for content-addressed versions.</li>
+ *     <li>{@code tagsStatus} - the status of the tag classification, null for versions stored before it was introduced.</li>
+ *     <li>{@code contentHashes} - the SHA-256 hash of the content of every file of the version by file name,
+ *     null for versions stored by path under {@code blobUrl}.</li>
  * </ul>
  */
 @Data
@@ -33,4 +37,16 @@ public class CosmosVersionDTO {
     private String comment;
     private List<String> tags;
     private String blobUrl;
+    private TagsStatus tagsStatus;
+    private Map<String, String> contentHashes;
+
+    public CosmosVersionDTO(String id, String resourceId, String resourceName, String versionName, String username,
+                            LocalDateTime pushedAt, String comment, List<String> tags, String blobUrl) {
+        this(id, resourceId, resourceName, versionName, username, pushedAt, comment, tags, blobUrl, null, null);
+    }
+
+    public CosmosVersionDTO(String id, String resourceId, String resourceName, String versionName, String username,
+                            LocalDateTime pushedAt, String comment, List<String> tags, String blobUrl, TagsStatus tagsStatus) {
+        this(id, resourceId, resourceName, versionName, username, pushedAt, comment, tags, blobUrl, tagsStatus, null);
+    }
 }
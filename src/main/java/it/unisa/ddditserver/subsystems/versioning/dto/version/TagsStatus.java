@@ -0,0 +1,16 @@
+package it.unisa.ddditserver.subsystems.versioning.dto.version;
+
+/**
+ * Status of the tag classification of a version.
+ *
+ * <ul>
+ *     <li>{@code PENDING} - the version has been stored and its tags are being computed.</li>
+ *     <li>{@code COMPLETE} - the tags of the version are final.</li>
+ *     <li>{@code FAILED} - the mesh couldn't be classified, so the version has no tags.</li>
+ * </ul>
+ */
+public enum TagsStatus {
+    PENDING,
+    COMPLETE,
+    FAILED
+}
@@ -0,0 +1,33 @@
+package it.unisa.ddditserver.subsystems.versioning.dto.version;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object (DTO) representing the request to open a chunked upload session for a mesh version.
+ *
+ * <ul>
+ *     <li>{@code repositoryName} - the name of the repository containing the resource.</li>
+ *     <li>{@code resourceName} - the name of the resource for which the version is created.</li>
+ *     <li>{@code branchName} - the name of the branch where the version will reside.</li>
+ *     <li>{@code versionName} - the name of the version.</li>
+ *     <li>{@code comment} - an optional comment describing the version.</li>
+ *     <li>{@code meshFileName} - the file name of the mesh.</li>
+ *     <li>{@code meshSize} - the size of the mesh in bytes.</li>
+ *     <li>{@code contentType} - the content type of the mesh, generic binary content if missing.</li>
+ * </ul>
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadSessionDTO {
+    private String repositoryName;
+    private String resourceName;
+    private String branchName;
+    private String versionName;
+    private String comment;
+    private String meshFileName;
+    private long meshSize;
+    private String contentType;
+}
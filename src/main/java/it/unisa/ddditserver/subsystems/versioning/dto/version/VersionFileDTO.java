@@ -0,0 +1,27 @@
+package it.unisa.ddditserver.subsystems.versioning.dto.version;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object (DTO) representing a file of a version stored in BLOB storage, without its content.
+ *
+ * <ul>
+ *     <li>{@code fileName} - the file name in the version.</li>
+ *     <li>{@code contentType} - the content type of the file.</li>
+ *     <li>{@code size} - the size of the file in bytes.</li>
+ *     <li>{@code blobUrl} - the URL of the BLOB with the content of the file.</li>
+ *     <li>{@code blobETag} - the ETag the BLOB must still have when downloaded, null if its content can't change.</li>
+ * </ul>
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VersionFileDTO {
+    private String fileName;
+    private String contentType;
+    private long size;
+    private String blobUrl;
+    private String blobETag;
+}
@@ -0,0 +1,17 @@
+package it.unisa.ddditserver.subsystems.versioning.exceptions;
+
+/**
+ * Exception thrown when the continuation token of a paginated listing can't be decoded.
+ *
+ * This subclass of {@link VersionControlSystemException} indicates that the client sent a token
+ * that was not returned by a previous page, so the request is rejected instead of reaching the database.
+ *
+ * @author Angelo Antonio Prisco
+ * @version 1.0
+ * @since 2025-09-02
+ */
+public class InvalidPageTokenException extends VersionControlSystemException {
+    public InvalidPageTokenException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,16 @@
+package it.unisa.ddditserver.subsystems.versioning.exceptions.version;
+
+/**
+ * Exception thrown when an upload session does not exist, has expired or belongs to another user.
+ *
+ * This subclass of {@link VersionException} indicates that the chunked upload must be restarted with a new session.
+ *
+ * @author Angelo Antonio Prisco
+ * @version 1.0
+ * @since 2025-09-02
+ */
+public class UploadSessionNotFoundException extends VersionException {
+    public UploadSessionNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -1,6 +1,7 @@
 package it.unisa.ddditserver.subsystems.versioning.service.branch;
 
 import it.unisa.ddditserver.subsystems.versioning.dto.BranchDTO;
+import it.unisa.ddditserver.subsystems.versioning.dto.PageRequestDTO;
 import it.unisa.ddditserver.subsystems.versioning.dto.ResourceDTO;
 import org.springframework.http.ResponseEntity;
 import java.util.Map;
@@ -11,7 +12,7 @@ import java.util.Map;
  * for authenticated users.
  *
  * @author Angelo Antonio Prisco
- * @version 1.0
+ * @version 1.1
  * @since 2025-08-12
  */
 public interface BranchService {
@@ -30,8 +31,9 @@ public interface BranchService {
      * Retrieves all branches associated with a given resource and owned by the authenticated user.
      *
      * @param resourceDTO the data transfer object representing the resource to search branches for
+     * @param pageRequestDTO the limit and the continuation token of the requested page
      * @param token the JWT token representing the authenticated user
      * @return a ResponseEntity containing a map with the list of branches related to the resource
      */
-    ResponseEntity<Map<String, Object>> listBranchesByResource(ResourceDTO resourceDTO, String token);
+    ResponseEntity<Map<String, Object>> listBranchesByResource(ResourceDTO resourceDTO, PageRequestDTO pageRequestDTO, String token);
 }
@@ -1,26 +1,19 @@
 package it.unisa.ddditserver.subsystems.versioning.service.branch;
 
 import it.unisa.ddditserver.db.gremlin.versioning.branch.GremlinBranchRepository;
-import it.unisa.ddditserver.db.gremlin.versioning.repo.GremlinRepositoryRepository;
-import it.unisa.ddditserver.subsystems.auth.dto.UserDTO;
 import it.unisa.ddditserver.subsystems.auth.exceptions.NotLoggedUserException;
 import it.unisa.ddditserver.subsystems.versioning.dto.BranchDTO;
-import it.unisa.ddditserver.subsystems.versioning.dto.RepositoryDTO;
+import it.unisa.ddditserver.subsystems.versioning.dto.PageDTO;
+import it.unisa.ddditserver.subsystems.versioning.dto.PageRequestDTO;
 import it.unisa.ddditserver.subsystems.versioning.dto.ResourceDTO;
+import it.unisa.ddditserver.subsystems.versioning.exceptions.InvalidPageTokenException;
 import it.unisa.ddditserver.subsystems.versioning.exceptions.branch.BranchException;
-import it.unisa.ddditserver.subsystems.versioning.exceptions.repo.RepositoryException;
+import it.unisa.ddditserver.subsystems.versioning.service.context.RequestContextResolver;
 import it.unisa.ddditserver.validators.auth.JWT.JWTokenValidator;
-import it.unisa.ddditserver.validators.auth.user.UserValidationDTO;
-import it.unisa.ddditserver.validators.auth.user.UserValidator;
-import it.unisa.ddditserver.validators.versioning.branch.BranchValidationDTO;
-import it.unisa.ddditserver.validators.versioning.branch.BranchValidator;
-import it.unisa.ddditserver.validators.versioning.resource.ResourceValidationDTO;
-import it.unisa.ddditserver.validators.versioning.resource.ResourceValidator;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 @Service
@@ -28,24 +21,9 @@ public class BranchServiceImpl implements BranchService {
     @Autowired
     private GremlinBranchRepository gremlinService;
     @Autowired
-    private GremlinRepositoryRepository gremlinRepositoryRepository;
-    @Autowired
     private JWTokenValidator jwTokenValidator;
     @Autowired
-    private UserValidator userValidator;
-    @Autowired
-    private ResourceValidator resourceValidator;
-    @Autowired
-    private BranchValidator branchValidator;
-
-    private void checkUserStatus(String repositoryName, String username) {
-        RepositoryDTO repositoryDTO = new RepositoryDTO(repositoryName);
-        UserDTO userDTO = new UserDTO(username, null);
-
-        if (!gremlinRepositoryRepository.isContributor(repositoryDTO, userDTO) && !gremlinRepositoryRepository.isOwner(repositoryDTO, userDTO)) {
-            throw new RepositoryException("Permission denied because " + username + " is not a contributor or the owner of " + repositoryName + " repository");
-        }
-    }
+    private RequestContextResolver requestContextResolver;
 
     @Override
     public ResponseEntity<Map<String, String>> createBranch(BranchDTO branchDTO, String token) {
@@ -58,21 +36,9 @@ public class BranchServiceImpl implements BranchService {
             throw new NotLoggedUserException("Missing, invalid, or expired Authorization token");
         }
 
-        checkUserStatus(repositoryName, retrievedUsername);
-
-        UserValidationDTO userValidationDTO = new UserValidationDTO(retrievedUsername, null);
-
-        // Check if user exists in graph database
-        userValidator.validateExistence(userValidationDTO, true);
-
-        BranchValidationDTO branchValidationDTO = new BranchValidationDTO(repositoryName, resourceName, branchName);
-
-        // Check if branch's data are well-formed
-        branchValidator.validateBranch(branchValidationDTO);
-
-        // Check if the branch already exists in graph database
-        // Check BranchValidator interface for more information about the exists flag
-        branchValidator.validateExistence(branchValidationDTO, false);
+        // Check user's permissions, user's existence and that the branch does not exist yet in graph database
+        // Check RequestContextResolver interface for more information about the exists flag
+        requestContextResolver.authorize(retrievedUsername, repositoryName, resourceName, branchName, null, false);
 
         try {
             gremlinService.saveBranch(branchDTO);
@@ -87,7 +53,7 @@ public class BranchServiceImpl implements BranchService {
     }
 
     @Override
-    public ResponseEntity<Map<String, Object>> listBranchesByResource(ResourceDTO resourceDTO, String token) {
+    public ResponseEntity<Map<String, Object>> listBranchesByResource(ResourceDTO resourceDTO, PageRequestDTO pageRequestDTO, String token) {
         String retrievedUsername = jwTokenValidator.isTokenValid(token);
         String repositoryName = resourceDTO.getRepositoryName();
         String resourceName = resourceDTO.getResourceName();
@@ -96,33 +62,24 @@ public class BranchServiceImpl implements BranchService {
             throw new NotLoggedUserException("Missing, invalid, or expired Authorization token");
         }
 
-        checkUserStatus(repositoryName, retrievedUsername);
-
-        UserValidationDTO userValidationDTO = new UserValidationDTO(retrievedUsername, null);
-
-        // Check if user exists in graph database
-        userValidator.validateExistence(userValidationDTO, true);
-
-        ResourceValidationDTO resourceValidationDTO = new ResourceValidationDTO(repositoryName, resourceName);
-
-        // Check if resource's data are well-formed
-        resourceValidator.validateResource(resourceValidationDTO);
-
-        // Check if the resource already exists in graph database
-        // Check BranchValidator interface for more information about the exists flag
-        resourceValidator.validateExistence(resourceValidationDTO, true);
+        // Check user's permissions, user's existence and the existence of the resource in graph database
+        // Check RequestContextResolver interface for more information about the exists flag
+        requestContextResolver.authorize(retrievedUsername, repositoryName, resourceName, null, null, true);
 
-        List<BranchDTO> branches;
+        PageDTO<BranchDTO> branches;
 
         try {
-            branches = gremlinService.findBranchesByResource(resourceDTO);
+            branches = gremlinService.findBranchesByResource(resourceDTO, pageRequestDTO);
+        } catch (InvalidPageTokenException e) {
+            throw e;
         } catch (Exception e) {
             throw new BranchException(e.getMessage());
         }
 
         Map<String, Object> response = new HashMap<>();
         response.put("message", "Branches found successfully for " + resourceName + " resource in " + repositoryName + " repository");
-        response.put("branches", branches);
+        response.put("branches", branches.getItems());
+        response.put("continuationToken", branches.getContinuationToken());
 
         return ResponseEntity.ok(response);
     }
@@ -0,0 +1,45 @@
+package it.unisa.ddditserver.subsystems.versioning.service.context;
+
+import it.unisa.ddditserver.subsystems.versioning.dto.RequestContextDTO;
+
+/**
+ * Service interface for resolving the authorization and existence context of versioning requests.
+ * Replaces the chain of role checks and existence validations with a single graph traversal.
+ * Resolved roles are cached, so repository level requests and denied requests don't reach the graph database.
+ *
+ * @author Angelo Antonio Prisco
+ * @version 1.1
+ * @since 2025-09-02
+ */
+public interface RequestContextResolver {
+
+    /**
+     * Resolves the role of the user on the repository and the vertex IDs of the requested elements,
+     * without performing any check.
+     *
+     * @param username the name of the user sending the request
+     * @param repositoryName the name of the repository
+     * @param resourceName the name of the resource, null if not requested
+     * @param branchName the name of the branch, null if not requested
+     * @param versionName the name of the version, null if not requested
+     * @return the resolved {@link RequestContextDTO}
+     */
+    RequestContextDTO resolve(String username, String repositoryName,
+                              String resourceName, String branchName, String versionName);
+
+    /**
+     * Resolves the context and checks that the user exists and is the owner or a contributor of the repository,
+     * that the requested names are well-formed and that every parent element exists.
+     * The deepest requested element is checked against the exists flag.
+     *
+     * @param username the name of the user sending the request
+     * @param repositoryName the name of the repository
+     * @param resourceName the name of the resource, null if not requested
+     * @param branchName the name of the branch, null if not requested
+     * @param versionName the name of the version, null if not requested
+     * @param exists if true the deepest requested element must exist, if false it must not exist
+     * @return the resolved {@link RequestContextDTO}, if a check fails the method throws a custom exception with the reason of the failure
+     */
+    RequestContextDTO authorize(String username, String repositoryName,
+                                String resourceName, String branchName, String versionName, boolean exists);
+}
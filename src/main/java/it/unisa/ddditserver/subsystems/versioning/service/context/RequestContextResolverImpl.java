@@ -0,0 +1,117 @@
+package it.unisa.ddditserver.subsystems.versioning.service.context;
+
+import it.unisa.ddditserver.db.gremlin.versioning.context.GremlinRequestContextRepository;
+import it.unisa.ddditserver.db.gremlin.versioning.repo.GremlinRoleCache;
+import it.unisa.ddditserver.subsystems.auth.exceptions.UserNotFoundException;
+import it.unisa.ddditserver.subsystems.versioning.dto.RequestContextDTO;
+import it.unisa.ddditserver.subsystems.versioning.exceptions.branch.BranchNotFoundException;
+import it.unisa.ddditserver.subsystems.versioning.exceptions.branch.ExistingBranchException;
+import it.unisa.ddditserver.subsystems.versioning.exceptions.repo.ExistingRepositoryException;
+import it.unisa.ddditserver.subsystems.versioning.exceptions.repo.RepositoryException;
+import it.unisa.ddditserver.subsystems.versioning.exceptions.repo.RepositoryNotFoundException;
+import it.unisa.ddditserver.subsystems.versioning.exceptions.resource.ExistingResourceException;
+import it.unisa.ddditserver.subsystems.versioning.exceptions.resource.ResourceNotFoundException;
+import it.unisa.ddditserver.subsystems.versioning.exceptions.version.ExistingVersionException;
+import it.unisa.ddditserver.subsystems.versioning.exceptions.version.VersionNotFoundException;
+import it.unisa.ddditserver.validators.versioning.branch.BranchValidationDTO;
+import it.unisa.ddditserver.validators.versioning.branch.BranchValidator;
+import it.unisa.ddditserver.validators.versioning.repo.RepositoryValidationDTO;
+import it.unisa.ddditserver.validators.versioning.repo.RepositoryValidator;
+import it.unisa.ddditserver.validators.versioning.resource.ResourceValidationDTO;
+import it.unisa.ddditserver.validators.versioning.resource.ResourceValidator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+@Service
+public class RequestContextResolverImpl implements RequestContextResolver {
+    @Autowired
+    private GremlinRequestContextRepository gremlinRequestContextRepository;
+    @Autowired
+    private GremlinRoleCache roleCache;
+    @Autowired
+    private RepositoryValidator repositoryValidator;
+    @Autowired
+    private ResourceValidator resourceValidator;
+    @Autowired
+    private BranchValidator branchValidator;
+
+    @Override
+    public RequestContextDTO resolve(String username, String repositoryName,
+                                     String resourceName, String branchName, String versionName) {
+        RequestContextDTO context = gremlinRequestContextRepository.findRequestContext(username, repositoryName, resourceName, branchName, versionName);
+        roleCache.put(username, repositoryName, context);
+
+        return context;
+    }
+
+    @Override
+    public RequestContextDTO authorize(String username, String repositoryName,
+                                       String resourceName, String branchName, String versionName, boolean exists) {
+        RequestContextDTO context = roleCache.get(username, repositoryName);
+
+        // A cached role answers repository level requests and denied requests without a round trip,
+        // deeper requests still need the traversal to resolve the vertex IDs of resource, branch and version
+        if (context == null || (resourceName != null && context.isMember())) {
+            context = resolve(username, repositoryName, resourceName, branchName, versionName);
+        }
+
+        if (!context.isMember()) {
+            throw new RepositoryException("Permission denied because " + username + " is not a contributor or the owner of " + repositoryName + " repository");
+        }
+
+        // Check if user exists in graph database
+        if (context.getUserId() == null) {
+            throw new UserNotFoundException(username + " does not exist as username");
+        }
+
+        // Check if repository's data are well-formed and if the repository exists
+        repositoryValidator.validateRepository(new RepositoryValidationDTO(repositoryName));
+        boolean deepest = resourceName == null;
+        if (context.getRepositoryId() == null && (exists || !deepest)) {
+            throw new RepositoryNotFoundException(repositoryName + " does not exist as repository name");
+        }
+        if (context.getRepositoryId() != null && !exists && deepest) {
+            throw new ExistingRepositoryException(repositoryName + " already exists as repository name");
+        }
+        if (deepest) {
+            return context;
+        }
+
+        // Check if resource's data are well-formed and if the resource exists
+        resourceValidator.validateResourceName(new ResourceValidationDTO(repositoryName, resourceName));
+        deepest = branchName == null;
+        if (context.getResourceId() == null && (exists || !deepest)) {
+            throw new ResourceNotFoundException(resourceName + " does not exist as resource name");
+        }
+        if (context.getResourceId() != null && !exists && deepest) {
+            throw new ExistingResourceException(resourceName + " already exists as resource name");
+        }
+        if (deepest) {
+            return context;
+        }
+
+        // Check if branch's data are well-formed and if the branch exists
+        branchValidator.validateBranchName(new BranchValidationDTO(repositoryName, resourceName, branchName));
+        deepest = versionName == null;
+        if (context.getBranchId() == null && (exists || !deepest)) {
+            throw new BranchNotFoundException(branchName + " does not exist as branch name");
+        }
+        if (context.getBranchId() != null && !exists && deepest) {
+            throw new ExistingBranchException(branchName + " already exists as branch name");
+        }
+        if (deepest) {
+            return context;
+        }
+
+        // Check if the version exists
+        if (context.getVersionId() == null && exists) {
+            throw new VersionNotFoundException(versionName + " does not exist as version name");
+        }
+        if (context.getVersionId() != null && !exists) {
+            throw new ExistingVersionException(versionName + " already exists as version name." +
+                    " This can happen due to a collision when generating a version name for a resource");
+        }
+
+        return context;
+    }
+}
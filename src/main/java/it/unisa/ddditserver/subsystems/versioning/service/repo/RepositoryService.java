@@ -1,5 +1,6 @@
 package it.unisa.ddditserver.subsystems.versioning.service.repo;
 
+import it.unisa.ddditserver.subsystems.versioning.dto.PageRequestDTO;
 import it.unisa.ddditserver.subsystems.versioning.dto.RepositoryDTO;
 import org.springframework.http.ResponseEntity;
 import java.util.Map;
@@ -10,7 +11,7 @@ import java.util.Map;
  * by authenticated users.
  *
  * @author Angelo Antonio Prisco
- * @version 1.0
+ * @version 1.1
  * @since 2025-08-12
  */
 public interface RepositoryService {
@@ -28,16 +29,18 @@ public interface RepositoryService {
     /**
      * Retrieves all repositories owned by the authenticated user identified by the provided token.
      *
+     * @param pageRequestDTO the limit and the continuation token of the requested page
      * @param token the JWT token representing the authenticated user
      * @return a ResponseEntity containing a map with the list of repositories owned by the user
      */
-    ResponseEntity<Map<String, Object>> listRepositoriesOwned(String token);
+    ResponseEntity<Map<String, Object>> listRepositoriesOwned(PageRequestDTO pageRequestDTO, String token);
 
     /**
      * Retrieves all repositories to which the authenticated user contributes.
      *
+     * @param pageRequestDTO the limit and the continuation token of the requested page
      * @param token the JWT token representing the authenticated user
      * @return a ResponseEntity containing a map with the list of repositories the user contributes to
      */
-    ResponseEntity<Map<String, Object>> listRepositoriesContributed(String token);
+    ResponseEntity<Map<String, Object>> listRepositoriesContributed(PageRequestDTO pageRequestDTO, String token);
 }
@@ -3,18 +3,20 @@ package it.unisa.ddditserver.subsystems.versioning.service.repo;
 import it.unisa.ddditserver.subsystems.auth.dto.UserDTO;
 import it.unisa.ddditserver.subsystems.auth.exceptions.NotLoggedUserException;
 import it.unisa.ddditserver.db.gremlin.versioning.repo.GremlinRepositoryRepository;
+import it.unisa.ddditserver.subsystems.versioning.exceptions.InvalidPageTokenException;
 import it.unisa.ddditserver.validators.auth.JWT.JWTokenValidator;
 import it.unisa.ddditserver.validators.auth.user.UserValidationDTO;
 import it.unisa.ddditserver.validators.auth.user.UserValidator;
 import it.unisa.ddditserver.validators.versioning.repo.RepositoryValidationDTO;
 import it.unisa.ddditserver.validators.versioning.repo.RepositoryValidator;
+import it.unisa.ddditserver.subsystems.versioning.dto.PageDTO;
+import it.unisa.ddditserver.subsystems.versioning.dto.PageRequestDTO;
 import it.unisa.ddditserver.subsystems.versioning.dto.RepositoryDTO;
 import it.unisa.ddditserver.subsystems.versioning.exceptions.repo.RepositoryException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 @Service
@@ -64,7 +66,7 @@ public class RepositoryServiceImpl implements  RepositoryService {
     }
 
     @Override
-    public ResponseEntity<Map<String, Object>> listRepositoriesOwned(String token) {
+    public ResponseEntity<Map<String, Object>> listRepositoriesOwned(PageRequestDTO pageRequestDTO, String token) {
         String retrievedUsername = jwTokenValidator.isTokenValid(token);
 
         if (retrievedUsername == null) {
@@ -76,23 +78,26 @@ public class RepositoryServiceImpl implements  RepositoryService {
         // Check if user exists in graph database
         userValidator.validateExistence(userValidationDTO, true);
 
-        List<RepositoryDTO> ownedRepositories;
+        PageDTO<RepositoryDTO> ownedRepositories;
 
         try {
-            ownedRepositories = gremlinService.findOwnedRepositoriesByUser(new UserDTO(retrievedUsername, null));
+            ownedRepositories = gremlinService.findOwnedRepositoriesByUser(new UserDTO(retrievedUsername, null), pageRequestDTO);
+        } catch (InvalidPageTokenException e) {
+            throw e;
         } catch (Exception e) {
             throw new RepositoryException(e.getMessage());
         }
 
         Map<String, Object> response = new HashMap<>();
         response.put("message", "Owned repositories found successfully");
-        response.put("ownedRepositories", ownedRepositories);
+        response.put("ownedRepositories", ownedRepositories.getItems());
+        response.put("continuationToken", ownedRepositories.getContinuationToken());
 
         return ResponseEntity.ok(response);
     }
 
     @Override
-    public ResponseEntity<Map<String, Object>> listRepositoriesContributed(String token) {
+    public ResponseEntity<Map<String, Object>> listRepositoriesContributed(PageRequestDTO pageRequestDTO, String token) {
         String retrievedUsername = jwTokenValidator.isTokenValid(token);
 
         if (retrievedUsername == null) {
@@ -104,17 +109,20 @@ public class RepositoryServiceImpl implements  RepositoryService {
         // Check if user exists in graph database
         userValidator.validateExistence(userValidationDTO, true);
 
-        List<RepositoryDTO> contributedRepositories;
+        PageDTO<RepositoryDTO> contributedRepositories;
 
         try {
-            contributedRepositories = gremlinService.findContributedRepositoriesByUser(new UserDTO(retrievedUsername, null));
+            contributedRepositories = gremlinService.findContributedRepositoriesByUser(new UserDTO(retrievedUsername, null), pageRequestDTO);
+        } catch (InvalidPageTokenException e) {
+            throw e;
         } catch (Exception e) {
             throw new RepositoryException(e.getMessage());
         }
 
         Map<String, Object> response = new HashMap<>();
         response.put("message", "Contributed repositories found successfully");
-        response.put("contributedRepositories", contributedRepositories);
+        response.put("contributedRepositories", contributedRepositories.getItems());
+        response.put("continuationToken", contributedRepositories.getContinuationToken());
 
         return ResponseEntity.ok(response);
     }
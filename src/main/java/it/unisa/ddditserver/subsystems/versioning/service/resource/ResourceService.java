@@ -1,5 +1,6 @@
 package it.unisa.ddditserver.subsystems.versioning.service.resource;
 
+import it.unisa.ddditserver.subsystems.versioning.dto.PageRequestDTO;
 import it.unisa.ddditserver.subsystems.versioning.dto.RepositoryDTO;
 import it.unisa.ddditserver.subsystems.versioning.dto.ResourceDTO;
 import org.springframework.http.ResponseEntity;
@@ -11,7 +12,7 @@ import java.util.Map;
  * and retrieve the version tree of a resource for authenticated users.
  *
  * @author Angelo Antonio Prisco
- * @version 1.0
+ * @version 1.1
  * @since 2025-08-14
  */
 public interface ResourceService {
@@ -30,17 +31,19 @@ public interface ResourceService {
      * Retrieves all resources contained in the specified repository for the authenticated user.
      *
      * @param repositoryDTO the data transfer object representing the repository to search resources for
+     * @param pageRequestDTO the limit and the continuation token of the requested page
      * @param token the JWT token representing the authenticated user
      * @return a ResponseEntity containing a map with the list of resources in the repository
      */
-    ResponseEntity<Map<String, Object>> listResourcesByRepository(RepositoryDTO repositoryDTO, String token);
+    ResponseEntity<Map<String, Object>> listResourcesByRepository(RepositoryDTO repositoryDTO, PageRequestDTO pageRequestDTO, String token);
 
     /**
      * Retrieves the version tree of the specified resource for the authenticated user.
      *
      * @param resourceDTO the data transfer object representing the resource whose version tree is requested
+     * @param limit the maximum number of versions returned for each branch, null to return all the versions
      * @param token the JWT token representing the authenticated user
      * @return a ResponseEntity containing a map with the version tree of the specified resource
      */
-    ResponseEntity<Map<String, Object>> showVersionTree(ResourceDTO resourceDTO, String token);
+    ResponseEntity<Map<String, Object>> showVersionTree(ResourceDTO resourceDTO, Integer limit, String token);
 }
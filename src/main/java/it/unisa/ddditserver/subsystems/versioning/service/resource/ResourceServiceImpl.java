@@ -1,28 +1,19 @@
 package it.unisa.ddditserver.subsystems.versioning.service.resource;
 
-import it.unisa.ddditserver.db.gremlin.versioning.branch.GremlinBranchRepository;
-import it.unisa.ddditserver.db.gremlin.versioning.repo.GremlinRepositoryRepository;
 import it.unisa.ddditserver.db.gremlin.versioning.resource.GremlinResourceRepository;
 import it.unisa.ddditserver.db.gremlin.versioning.version.GremlinVersionRepository;
-import it.unisa.ddditserver.subsystems.auth.dto.UserDTO;
 import it.unisa.ddditserver.subsystems.auth.exceptions.NotLoggedUserException;
-import it.unisa.ddditserver.subsystems.versioning.dto.BranchDTO;
+import it.unisa.ddditserver.subsystems.versioning.dto.PageDTO;
+import it.unisa.ddditserver.subsystems.versioning.dto.PageRequestDTO;
 import it.unisa.ddditserver.subsystems.versioning.dto.RepositoryDTO;
 import it.unisa.ddditserver.subsystems.versioning.dto.ResourceDTO;
-import it.unisa.ddditserver.subsystems.versioning.dto.version.VersionDTO;
-import it.unisa.ddditserver.subsystems.versioning.exceptions.repo.RepositoryException;
+import it.unisa.ddditserver.subsystems.versioning.exceptions.InvalidPageTokenException;
 import it.unisa.ddditserver.subsystems.versioning.exceptions.resource.ResourceException;
+import it.unisa.ddditserver.subsystems.versioning.service.context.RequestContextResolver;
 import it.unisa.ddditserver.validators.auth.JWT.JWTokenValidator;
-import it.unisa.ddditserver.validators.auth.user.UserValidationDTO;
-import it.unisa.ddditserver.validators.auth.user.UserValidator;
-import it.unisa.ddditserver.validators.versioning.repo.RepositoryValidationDTO;
-import it.unisa.ddditserver.validators.versioning.repo.RepositoryValidator;
-import it.unisa.ddditserver.validators.versioning.resource.ResourceValidationDTO;
-import it.unisa.ddditserver.validators.versioning.resource.ResourceValidator;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -32,28 +23,11 @@ public class ResourceServiceImpl implements  ResourceService {
     @Autowired
     private GremlinResourceRepository gremlinResourceRepository;
     @Autowired
-    private GremlinBranchRepository gremlinBranchRepository;
-    @Autowired
     private GremlinVersionRepository gremlinVersionRepository;
     @Autowired
     private JWTokenValidator jwTokenValidator;
     @Autowired
-    private UserValidator userValidator;
-    @Autowired
-    private RepositoryValidator repositoryValidator;
-    @Autowired
-    private ResourceValidator resourceValidator;
-    @Autowired
-    private GremlinRepositoryRepository gremlinRepositoryRepository;
-
-    private void checkUserStatus(String repositoryName, String username) {
-        RepositoryDTO repositoryDTO = new RepositoryDTO(repositoryName);
-        UserDTO userDTO = new UserDTO(username, null);
-
-        if (!gremlinRepositoryRepository.isContributor(repositoryDTO, userDTO) && !gremlinRepositoryRepository.isOwner(repositoryDTO, userDTO)) {
-            throw new RepositoryException("Permission denied because " + username + " is not a contributor or the owner of " + repositoryName + " repository");
-        }
-    }
+    private RequestContextResolver requestContextResolver;
 
     @Override
     public ResponseEntity<Map<String, String>> createResource(ResourceDTO resourceDTO, String token) {
@@ -65,21 +39,9 @@ public class ResourceServiceImpl implements  ResourceService {
             throw new NotLoggedUserException("Missing, invalid, or expired Authorization token");
         }
 
-        checkUserStatus(repositoryName, retrievedUsername);
-
-        UserValidationDTO userValidationDTO = new UserValidationDTO(retrievedUsername, null);
-
-        // Check if user exists in graph database
-        userValidator.validateExistence(userValidationDTO, true);
-
-        ResourceValidationDTO resourceValidationDTO = new ResourceValidationDTO(repositoryName, resourceName);
-
-        // Check if resource's data are well-formed
-        resourceValidator.validateResource(resourceValidationDTO);
-
-        // Check if the resource already exists in graph database
-        // Check ResourceValidator interface for more information about the exists flag
-        resourceValidator.validateExistence(resourceValidationDTO, false);
+        // Check user's permissions, user's existence and that the resource does not exist yet in graph database
+        // Check RequestContextResolver interface for more information about the exists flag
+        requestContextResolver.authorize(retrievedUsername, repositoryName, resourceName, null, null, false);
 
         try {
             gremlinResourceRepository.saveResource(resourceDTO);
@@ -94,7 +56,7 @@ public class ResourceServiceImpl implements  ResourceService {
     }
 
     @Override
-    public ResponseEntity<Map<String, Object>> listResourcesByRepository(RepositoryDTO repositoryDTO, String token) {
+    public ResponseEntity<Map<String, Object>> listResourcesByRepository(RepositoryDTO repositoryDTO, PageRequestDTO pageRequestDTO, String token) {
         String retrievedUsername = jwTokenValidator.isTokenValid(token);
         String repositoryName = repositoryDTO.getRepositoryName();
 
@@ -102,39 +64,30 @@ public class ResourceServiceImpl implements  ResourceService {
             throw new NotLoggedUserException("Missing, invalid, or expired Authorization token");
         }
 
-        checkUserStatus(repositoryName, retrievedUsername);
-
-        UserValidationDTO userValidationDTO = new UserValidationDTO(retrievedUsername, null);
+        // Check user's permissions, user's existence and the existence of the repository in graph database
+        // Check RequestContextResolver interface for more information about the exists flag
+        requestContextResolver.authorize(retrievedUsername, repositoryName, null, null, null, true);
 
-        // Check if user exists in graph database
-        userValidator.validateExistence(userValidationDTO, true);
-
-        RepositoryValidationDTO repositoryValidationDTO = new RepositoryValidationDTO(repositoryName);
-
-        // Check if repository's data are well-formed
-        repositoryValidator.validateRepository(repositoryValidationDTO);
-
-        // Check if the repository already exists in graph database
-        // Check RepositoryValidator interface for more information about the exists flag
-        repositoryValidator.validateExistence(repositoryValidationDTO, true);
-
-        List<ResourceDTO> resources;
+        PageDTO<ResourceDTO> resources;
 
         try {
-            resources = gremlinResourceRepository.findResourcesByRepository(repositoryDTO);
+            resources = gremlinResourceRepository.findResourcesByRepository(repositoryDTO, pageRequestDTO);
+        } catch (InvalidPageTokenException e) {
+            throw e;
         } catch (Exception e) {
             throw new ResourceException(e.getMessage());
         }
 
         Map<String, Object> response = new HashMap<>();
         response.put("message", "Resources found successfully in " + repositoryName + " repository");
-        response.put("resources", resources);
+        response.put("resources", resources.getItems());
+        response.put("continuationToken", resources.getContinuationToken());
 
         return ResponseEntity.ok(response);
     }
 
     @Override
-    public ResponseEntity<Map<String, Object>> showVersionTree(ResourceDTO resourceDTO, String token) {
+    public ResponseEntity<Map<String, Object>> showVersionTree(ResourceDTO resourceDTO, Integer limit, String token) {
         String retrievedUsername = jwTokenValidator.isTokenValid(token);
         String repositoryName = resourceDTO.getRepositoryName();
         String resourceName = resourceDTO.getResourceName();
@@ -143,40 +96,14 @@ public class ResourceServiceImpl implements  ResourceService {
             throw new NotLoggedUserException("Missing, invalid, or expired Authorization token");
         }
 
-        checkUserStatus(repositoryName, retrievedUsername);
-
-        UserValidationDTO userValidationDTO = new UserValidationDTO(retrievedUsername, null);
-
-        // Check if user exists in graph database
-        userValidator.validateExistence(userValidationDTO, true);
-
-        ResourceValidationDTO resourceValidationDTO = new ResourceValidationDTO(repositoryName, resourceName);
+        // Check user's permissions, user's existence and the existence of the resource in graph database
+        // Check RequestContextResolver interface for more information about the exists flag
+        requestContextResolver.authorize(retrievedUsername, repositoryName, resourceName, null, null, true);
 
-        // Check if resource's data are well-formed
-        resourceValidator.validateResource(resourceValidationDTO);
-
-        // Check if the resource already exists in graph database
-        // Check ResourceValidator interface for more information about the exists flag
-        resourceValidator.validateExistence(resourceValidationDTO, true);
-
-        HashMap<String, List<String>> versionTree = new HashMap<>();
+        Map<String, List<String>> versionTree;
 
         try {
-            List<BranchDTO> branches = gremlinBranchRepository.findBranchesByResource(resourceDTO);
-            List<String> branchNames =  new ArrayList<>();
-
-            for (BranchDTO branch : branches) {
-                branchNames.add(branch.getBranchName());
-
-                List<VersionDTO> versions = gremlinVersionRepository.findVersionsByBranch(branch);
-                List<String> versionNames =  new ArrayList<>();
-
-                for (VersionDTO version : versions) {
-                    versionNames.add(version.getVersionName());
-                }
-
-                versionTree.put(branch.getBranchName(), versionNames);
-            }
+            versionTree = gremlinVersionRepository.findVersionTreeByResource(resourceDTO, limit);
         } catch (Exception e) {
             throw new ResourceException(e.getMessage());
         }
@@ -8,20 +8,27 @@ import java.io.InputStream;
  * A specialized {@link InputStreamResource} that represents an input stream
  * resource with a specific filename and content type, where the underlying
  * input stream is not automatically closed by the resource.
+ * When the length of the content is known it is declared, so the response can carry it.
  *
  * @author Angelo Antonio Prisco
- * @version 1.0
+ * @version 1.1
  * @since 2025-08-23
  */
 public class NonClosingInputStreamResource extends InputStreamResource {
     private final String filename;
     @Getter
     private final String contentType;
+    private final long contentLength;
 
     public NonClosingInputStreamResource(InputStream inputStream, String filename, String contentType) {
+        this(inputStream, filename, contentType, -1);
+    }
+
+    public NonClosingInputStreamResource(InputStream inputStream, String filename, String contentType, long contentLength) {
         super(inputStream);
         this.filename = filename;
         this.contentType = contentType;
+        this.contentLength = contentLength;
     }
 
     @Override
@@ -31,7 +38,7 @@ public class NonClosingInputStreamResource extends InputStreamResource {
 
     @Override
     public long contentLength() {
-        return -1;
+        return contentLength;
     }
 }
 
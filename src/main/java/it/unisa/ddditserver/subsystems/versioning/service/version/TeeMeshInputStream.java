@@ -0,0 +1,190 @@
+package it.unisa.ddditserver.subsystems.versioning.service.version;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * An {@link InputStream} over the body of a streamed mesh push that, while it is read by the BLOB storage upload,
+ * computes the SHA-256 hash of the mesh and copies it to a local spool file for the classification.
+ *
+ * The stream fails as soon as more bytes than the maximum mesh size are read. The spool is bounded too:
+ * when the mesh exceeds its limit the copy is abandoned and deleted, while the upload goes on.
+ * Only the buffer of a single read is held in memory, whatever the size of the mesh.
+ *
+ * @author Angelo Antonio Prisco
+ * @version 1.0
+ * @since 2025-09-02
+ */
+public class TeeMeshInputStream extends FilterInputStream {
+    private final MessageDigest digest;
+    private final long maxSize;
+    private final Path spool;
+    private final long spoolMaxBytes;
+    private OutputStream spoolStream;
+    private long size = 0;
+    private boolean sizeExceeded = false;
+
+    public TeeMeshInputStream(InputStream in, long maxSize, Path spool, long spoolMaxBytes) throws IOException {
+        super(in);
+
+        try {
+            this.digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+
+        this.maxSize = maxSize;
+        this.spool = spool;
+        this.spoolMaxBytes = spoolMaxBytes;
+        this.spoolStream = spool != null && spoolMaxBytes > 0 ? Files.newOutputStream(spool) : null;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        int read = read(single, 0, 1);
+
+        return read == -1 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        int read = super.read(buffer, offset, length);
+
+        if (read <= 0) {
+            return read;
+        }
+
+        size += read;
+
+        if (size > maxSize) {
+            sizeExceeded = true;
+            throw new IOException("Mesh larger than " + maxSize + " bytes");
+        }
+
+        digest.update(buffer, offset, read);
+
+        if (spoolStream != null) {
+            if (size > spoolMaxBytes) {
+                abandonSpool();
+            } else {
+                spoolStream.write(buffer, offset, read);
+            }
+        }
+
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        // Skipped bytes would be missing from the hash and from the spool
+        byte[] buffer = new byte[(int) Math.min(8192, Math.max(0, n))];
+        long skipped = 0;
+
+        while (skipped < n) {
+            int read = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+
+            if (read == -1) {
+                break;
+            }
+
+            skipped += read;
+        }
+
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readLimit) {
+        // Not supported, a reset would count the same bytes twice
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("Mark and reset not supported");
+    }
+
+    private void abandonSpool() {
+        try {
+            spoolStream.close();
+            Files.deleteIfExists(spool);
+        } catch (IOException e) {
+            // The spool is not used anyway, at worst the file stays in the spool folder
+        }
+
+        spoolStream = null;
+    }
+
+    /**
+     * Completes the spool after the whole mesh has been read.
+     *
+     * @return the spool file with the whole mesh, or null if the mesh has not been spooled
+     */
+    public Path finishSpool() {
+        if (spoolStream == null) {
+            return null;
+        }
+
+        try {
+            spoolStream.close();
+            spoolStream = null;
+            return spool;
+        } catch (IOException e) {
+            abandonSpool();
+            return null;
+        }
+    }
+
+    /**
+     * Deletes the spool file, used when the push fails.
+     */
+    public void discardSpool() {
+        if (spoolStream != null) {
+            abandonSpool();
+            return;
+        }
+
+        try {
+            if (spool != null) {
+                Files.deleteIfExists(spool);
+            }
+        } catch (IOException e) {
+            // At worst the file stays in the spool folder
+        }
+    }
+
+    /**
+     * Completes the hash, so it must be called only once after the whole mesh has been read.
+     *
+     * @return the SHA-256 hash of the mesh, as a lowercase hex string
+     */
+    public String getSha256() {
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * @return the number of bytes read so far
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * @return true if the stream failed because the mesh is larger than the maximum size
+     */
+    public boolean isSizeExceeded() {
+        return sizeExceeded;
+    }
+}
@@ -0,0 +1,73 @@
+package it.unisa.ddditserver.subsystems.versioning.service.version;
+
+import it.unisa.ddditserver.subsystems.versioning.dto.version.UploadSessionDTO;
+import org.springframework.http.ResponseEntity;
+import java.io.InputStream;
+import java.util.Map;
+
+/**
+ * Service interface for resumable chunked pushes of mesh versions.
+ *
+ * A session is opened with the version information, then the mesh is sent as numbered chunks,
+ * each one stored directly in BLOB storage, and finally the session is committed, creating the version.
+ * A chunk that fails can be sent again without restarting the upload. Sessions not used for a while expire
+ * and their chunks are discarded.
+ *
+ * @author Angelo Antonio Prisco
+ * @version 1.1
+ * @since 2025-09-02
+ */
+public interface UploadSessionService {
+
+    /**
+     * Opens an upload session for a new mesh version, after checking the version data and the user's permissions.
+     *
+     * @param uploadSessionDTO the data transfer object containing the version information and the mesh size
+     * @param token the JWT token representing the authenticated user
+     * @return a ResponseEntity containing a map with the session ID and the maximum size of a chunk
+     */
+    ResponseEntity<Map<String, Object>> openSession(UploadSessionDTO uploadSessionDTO, String token);
+
+    /**
+     * Stores a chunk of the mesh of an upload session, replacing the chunk with the same index if any.
+     * Chunks may be sent concurrently, but not two uploads of the same chunk at the same time.
+     *
+     * @param sessionId the ID of the upload session
+     * @param chunkIndex the position of the chunk in the mesh, starting from 0
+     * @param chunkStream the content of the chunk
+     * @param chunkSize the size of the chunk in bytes
+     * @param contentMd5 the Base64 MD5 hash of the chunk, checked by the storage if present
+     * @param token the JWT token representing the authenticated user
+     * @return a ResponseEntity containing a map with the bytes received so far
+     */
+    ResponseEntity<Map<String, Object>> uploadChunk(String sessionId, int chunkIndex, InputStream chunkStream,
+                                                    long chunkSize, String contentMd5, String token);
+
+    /**
+     * Retrieves the chunks already received by an upload session, so an interrupted upload can be resumed.
+     *
+     * @param sessionId the ID of the upload session
+     * @param token the JWT token representing the authenticated user
+     * @return a ResponseEntity containing a map with the indexes of the received chunks and the bytes received so far
+     */
+    ResponseEntity<Map<String, Object>> showSession(String sessionId, String token);
+
+    /**
+     * Commits an upload session, creating the version with the mesh made of all the chunks in order of index.
+     * The session can't be committed while a chunk is still being uploaded.
+     *
+     * @param sessionId the ID of the upload session
+     * @param token the JWT token representing the authenticated user
+     * @return a ResponseEntity containing a map with the result of the version creation operation
+     */
+    ResponseEntity<Map<String, String>> commitSession(String sessionId, String token);
+
+    /**
+     * Aborts an upload session, discarding its chunks.
+     *
+     * @param sessionId the ID of the upload session
+     * @param token the JWT token representing the authenticated user
+     * @return a ResponseEntity containing a map with the result of the operation
+     */
+    ResponseEntity<Map<String, String>> abortSession(String sessionId, String token);
+}
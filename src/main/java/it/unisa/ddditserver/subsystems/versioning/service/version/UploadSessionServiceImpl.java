@@ -0,0 +1,329 @@
+package it.unisa.ddditserver.subsystems.versioning.service.version;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import it.unisa.ddditserver.db.blobstorage.versioning.BlobStorageVersionRepository;
+import it.unisa.ddditserver.db.gremlin.versioning.version.GremlinVersionRepository;
+import it.unisa.ddditserver.subsystems.ai.service.TagClassificationPipeline;
+import it.unisa.ddditserver.subsystems.auth.exceptions.NotLoggedUserException;
+import it.unisa.ddditserver.subsystems.versioning.VersioningConfig;
+import it.unisa.ddditserver.subsystems.versioning.dto.RequestContextDTO;
+import it.unisa.ddditserver.subsystems.versioning.dto.version.TagsStatus;
+import it.unisa.ddditserver.subsystems.versioning.dto.version.UploadSessionDTO;
+import it.unisa.ddditserver.subsystems.versioning.dto.version.VersionDTO;
+import it.unisa.ddditserver.subsystems.versioning.exceptions.version.InvalidMeshException;
+import it.unisa.ddditserver.subsystems.versioning.exceptions.version.UploadSessionNotFoundException;
+import it.unisa.ddditserver.subsystems.versioning.exceptions.version.VersionException;
+import it.unisa.ddditserver.subsystems.versioning.service.context.RequestContextResolver;
+import it.unisa.ddditserver.validators.auth.JWT.JWTokenValidator;
+import it.unisa.ddditserver.validators.versioning.version.VersionValidationDTO;
+import it.unisa.ddditserver.validators.versioning.version.VersionValidator;
+import it.unisa.ddditserver.validators.versioning.version.VersionValidatorImpl;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+@Service
+public class UploadSessionServiceImpl implements UploadSessionService {
+    // Limit of uncommitted blocks of a single BLOB
+    private static final int MAX_CHUNKS = 50000;
+
+    @Autowired
+    private GremlinVersionRepository gremlinVersionRepository;
+    @Autowired
+    private BlobStorageVersionRepository blobStorageVersionRepository;
+    @Autowired
+    private RequestContextResolver requestContextResolver;
+    @Autowired
+    private JWTokenValidator jwTokenValidator;
+    @Autowired
+    private VersionValidator versionValidator;
+    @Autowired
+    private TagClassificationPipeline tagClassificationPipeline;
+    @Autowired
+    private VersioningConfig versioningConfig;
+
+    private Cache<String, UploadSession> sessions;
+
+    private static final class UploadSession {
+        private final String username;
+        private final VersionDTO versionDTO;
+        private final String meshFileName;
+        private final long meshSize;
+        private final String contentType;
+        private final Map<Integer, Long> chunks = new ConcurrentSkipListMap<>();
+        // Chunks still being staged, guarded by the session, so their size counts before they are received
+        private final Map<Integer, Long> staging = new HashMap<>();
+        private boolean committed = false;
+
+        private UploadSession(String username, VersionDTO versionDTO, String meshFileName, long meshSize, String contentType) {
+            this.username = username;
+            this.versionDTO = versionDTO;
+            this.meshFileName = meshFileName;
+            this.meshSize = meshSize;
+            this.contentType = contentType;
+        }
+
+        private long receivedBytes() {
+            return chunks.values().stream().mapToLong(Long::longValue).sum();
+        }
+
+        private long stagingBytes() {
+            return staging.values().stream().mapToLong(Long::longValue).sum();
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        // The scheduler evicts expired sessions even if no other session is used, so their chunks are discarded on time
+        this.sessions = Caffeine.newBuilder()
+                .maximumSize(versioningConfig.getUploadSessionMaxCount())
+                .expireAfterAccess(Duration.ofSeconds(versioningConfig.getUploadSessionTtlSeconds()))
+                .scheduler(Scheduler.systemScheduler())
+                .<String, UploadSession>removalListener((sessionId, session, cause) -> {
+                    if (cause.wasEvicted() && session != null) {
+                        discard(session);
+                    }
+                })
+                .build();
+    }
+
+    private void discard(UploadSession session) {
+        // Nothing has been staged yet, so there is nothing to discard
+        if (session.chunks.isEmpty()) {
+            return;
+        }
+
+        try {
+            blobStorageVersionRepository.discardMeshChunks(session.versionDTO, session.meshFileName);
+        } catch (VersionException e) {
+            // Uncommitted blocks are anyway dropped by BLOB storage after a week
+        }
+    }
+
+    private String authenticate(String token) {
+        String retrievedUsername = jwTokenValidator.isTokenValid(token);
+
+        if (retrievedUsername == null) {
+            throw new NotLoggedUserException("Missing, invalid, or expired Authorization token");
+        }
+
+        return retrievedUsername;
+    }
+
+    private UploadSession getSession(String sessionId, String username) {
+        UploadSession session = sessionId == null ? null : sessions.getIfPresent(sessionId);
+
+        // A session of another user is reported as missing, so session IDs can't be probed
+        if (session == null || !session.username.equals(username)) {
+            throw new UploadSessionNotFoundException("Upload session not found or expired");
+        }
+
+        return session;
+    }
+
+    @Override
+    public ResponseEntity<Map<String, Object>> openSession(UploadSessionDTO uploadSessionDTO, String token) {
+        String retrievedUsername = authenticate(token);
+        String repositoryName = uploadSessionDTO.getRepositoryName();
+        String resourceName = uploadSessionDTO.getResourceName();
+        String branchName = uploadSessionDTO.getBranchName();
+        String versionName = uploadSessionDTO.getVersionName();
+        String comment = uploadSessionDTO.getComment();
+        String meshFileName = uploadSessionDTO.getMeshFileName();
+
+        // Check if version's data are well-formed, the mesh is checked by name and declared size
+        VersionValidationDTO versionValidationDTO = new VersionValidationDTO(
+                repositoryName, resourceName, branchName, versionName, comment, null, null);
+        versionValidator.validateStreamedMeshData(versionValidationDTO, meshFileName, uploadSessionDTO.getMeshSize());
+
+        VersionDTO versionDTO = new VersionDTO(
+                repositoryName, resourceName,
+                branchName, versionName,
+                retrievedUsername, null, comment,
+                new ArrayList<>(), null, null, TagsStatus.PENDING
+        );
+
+        String generatedVersionName = VersionServiceImpl.generateVersionName(versionDTO);
+        versionDTO.setVersionName(generatedVersionName);
+
+        // Check user's permissions, user's existence, the existence of the branch and that the generated version does not exist yet
+        // Check RequestContextResolver interface for more information about the exists flag
+        requestContextResolver.authorize(retrievedUsername, repositoryName, resourceName, branchName, generatedVersionName, false);
+
+        String sessionId = UUID.randomUUID().toString();
+        sessions.put(sessionId, new UploadSession(retrievedUsername, versionDTO, meshFileName,
+                uploadSessionDTO.getMeshSize(), uploadSessionDTO.getContentType()));
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("message", "Upload session opened for " + meshFileName + " as " + generatedVersionName);
+        response.put("sessionId", sessionId);
+        response.put("chunkMaxBytes", versioningConfig.getUploadChunkMaxBytes());
+
+        return ResponseEntity.ok(response);
+    }
+
+    @Override
+    public ResponseEntity<Map<String, Object>> uploadChunk(String sessionId, int chunkIndex, InputStream chunkStream,
+                                                           long chunkSize, String contentMd5, String token) {
+        String retrievedUsername = authenticate(token);
+        UploadSession session = getSession(sessionId, retrievedUsername);
+
+        if (chunkIndex < 0 || chunkIndex >= MAX_CHUNKS) {
+            throw new InvalidMeshException("Chunk index must be between 0 and " + (MAX_CHUNKS - 1));
+        }
+
+        if (chunkSize <= 0 || chunkSize > versioningConfig.getUploadChunkMaxBytes()) {
+            throw new InvalidMeshException("Chunk size must be declared and at most " +
+                    versioningConfig.getUploadChunkMaxBytes() + " bytes");
+        }
+
+        byte[] md5 = null;
+
+        if (contentMd5 != null && !contentMd5.isEmpty()) {
+            try {
+                md5 = Base64.getDecoder().decode(contentMd5);
+            } catch (IllegalArgumentException e) {
+                throw new InvalidMeshException("Content-MD5 must be a Base64 MD5 hash");
+            }
+        }
+
+        synchronized (session) {
+            if (session.committed) {
+                throw new UploadSessionNotFoundException("Upload session already committed");
+            }
+
+            // Two uploads of the same chunk would stage the same block, so the recorded size may not be the staged one
+            if (session.staging.containsKey(chunkIndex)) {
+                throw new InvalidMeshException("Chunk " + chunkIndex + " is already being uploaded");
+            }
+
+            // Chunks staged concurrently are reserved too, so together they can't exceed the declared size
+            long receivedBytes = session.receivedBytes() + session.stagingBytes() -
+                    session.chunks.getOrDefault(chunkIndex, 0L) + chunkSize;
+
+            if (receivedBytes > session.meshSize || receivedBytes > VersionValidatorImpl.MAX_FILE_SIZE) {
+                throw new InvalidMeshException("Chunks exceed the declared size of the mesh");
+            }
+
+            session.staging.put(chunkIndex, chunkSize);
+        }
+
+        boolean staged = false;
+
+        try {
+            blobStorageVersionRepository.stageMeshChunk(session.versionDTO, session.meshFileName, chunkIndex, chunkStream, chunkSize, md5);
+            staged = true;
+        } finally {
+            synchronized (session) {
+                session.staging.remove(chunkIndex);
+
+                if (staged) {
+                    session.chunks.put(chunkIndex, chunkSize);
+                }
+            }
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("message", "Chunk " + chunkIndex + " received");
+        response.put("receivedBytes", session.receivedBytes());
+
+        return ResponseEntity.ok(response);
+    }
+
+    @Override
+    public ResponseEntity<Map<String, Object>> showSession(String sessionId, String token) {
+        String retrievedUsername = authenticate(token);
+        UploadSession session = getSession(sessionId, retrievedUsername);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("message", "Upload session retrieved successfully");
+        response.put("chunks", new ArrayList<>(session.chunks.keySet()));
+        response.put("receivedBytes", session.receivedBytes());
+        response.put("meshSize", session.meshSize);
+
+        return ResponseEntity.ok(response);
+    }
+
+    @Override
+    public ResponseEntity<Map<String, String>> commitSession(String sessionId, String token) {
+        String retrievedUsername = authenticate(token);
+        UploadSession session = getSession(sessionId, retrievedUsername);
+        VersionDTO versionDTO = session.versionDTO;
+
+        synchronized (session) {
+            if (session.committed) {
+                throw new UploadSessionNotFoundException("Upload session already committed");
+            }
+
+            // A chunk still being staged would be missing from the committed block list
+            if (!session.staging.isEmpty()) {
+                throw new InvalidMeshException("Chunks still uploading, commit once they are received");
+            }
+
+            int chunkCount = session.chunks.size();
+
+            // Chunks must be contiguous from 0, so the mesh has no holes
+            if (chunkCount == 0 || !session.chunks.containsKey(chunkCount - 1) || session.receivedBytes() != session.meshSize) {
+                throw new InvalidMeshException("Missing chunks, " + session.receivedBytes() + " of " +
+                        session.meshSize + " bytes received");
+            }
+
+            // Permissions are checked again, since they may have changed while the mesh was uploaded
+            RequestContextDTO context = requestContextResolver.authorize(
+                    retrievedUsername, versionDTO.getRepositoryName(), versionDTO.getResourceName(),
+                    versionDTO.getBranchName(), versionDTO.getVersionName(), false);
+
+            String meshUrl = blobStorageVersionRepository.commitMeshChunks(
+                    versionDTO, session.meshFileName, chunkCount, session.contentType);
+
+            versionDTO.setPushedAt(LocalDateTime.now());
+
+            String cosmosDocumentUrl;
+
+            try {
+                cosmosDocumentUrl = gremlinVersionRepository.saveUploadedMeshVersion(versionDTO, meshUrl, context.getBranchId());
+            } catch (Exception e) {
+                sessions.invalidate(sessionId);
+                throw new VersionException(e.getMessage());
+            }
+
+            session.committed = true;
+            sessions.invalidate(sessionId);
+
+            tagClassificationPipeline.submit(cosmosDocumentUrl);
+        }
+
+        Map<String, String> response = new HashMap<>();
+        response.put("message", "Version of " + session.meshFileName +
+                " pushed successfully as " + versionDTO.getVersionName() + " in " +
+                versionDTO.getBranchName() + " branch for " + versionDTO.getResourceName() + " resource in " +
+                versionDTO.getRepositoryName() + " repository");
+
+        return ResponseEntity.ok(response);
+    }
+
+    @Override
+    public ResponseEntity<Map<String, String>> abortSession(String sessionId, String token) {
+        String retrievedUsername = authenticate(token);
+        UploadSession session = getSession(sessionId, retrievedUsername);
+
+        synchronized (session) {
+            if (session.committed) {
+                throw new UploadSessionNotFoundException("Upload session already committed");
+            }
+
+            sessions.invalidate(sessionId);
+            discard(session);
+        }
+
+        return ResponseEntity.ok(Map.of("message", "Upload session aborted"));
+    }
+}
@@ -2,7 +2,8 @@ package it.unisa.ddditserver.subsystems.versioning.service.version;
 
 import it.unisa.ddditserver.subsystems.versioning.dto.version.VersionDTO;
 import org.springframework.http.ResponseEntity;
-import org.springframework.util.MultiValueMap;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.io.InputStream;
 import java.util.Map;
 
 /**
@@ -11,7 +12,7 @@ import java.util.Map;
  * and pull version data for authenticated users.
  *
  * @author Angelo Antonio Prisco
- * @version 1.0
+ * @version 1.5
  * @since 2025-08-16
  */
 public interface VersionService {
@@ -26,21 +27,61 @@ public interface VersionService {
      */
     ResponseEntity<Map<String, String>> createVersion(VersionDTO versionDTO, String token);
 
+    /**
+     * Creates a new mesh version reading the mesh from a stream, for the authenticated user.
+     * The mesh is read once and uploaded while it is read, so its size doesn't affect the memory used.
+     *
+     * @param versionDTO the data transfer object containing the version information, without the mesh
+     * @param meshFileName the file name of the mesh
+     * @param contentType the content type of the mesh, null for a generic binary content
+     * @param meshSize the size of the mesh in bytes, -1 if not known in advance
+     * @param meshStream the content of the mesh
+     * @param token the JWT token representing the authenticated user
+     * @return a ResponseEntity containing a map with relevant response data,
+     *         such as the result of the mesh version creation operation and the SHA-256 hash of the mesh
+     */
+    ResponseEntity<Map<String, String>> createVersionFromStream(VersionDTO versionDTO, String meshFileName, String contentType,
+                                                                long meshSize, InputStream meshStream, String token);
+
     /**
      * Pulls the specified version data for the authenticated user.
+     * Versions never change, so if the client already holds the version only the user's permissions are checked.
+     * The files are downloaded in parallel and written to the response in order as soon as each one is available,
+     * as the parts of a multipart response or, if the client accepts it, as the entries of a single ZIP archive.
+     * The body is {@link java.io.Closeable}: closing it releases the files it hasn't written, so it must be closed
+     * if it may never be written.
+     *
+     * @param versionDTO the data transfer object representing the version to pull
+     * @param accept the value of the Accept header, a ZIP archive is sent only if it explicitly lists application/zip
+     * @param ifNoneMatch the value of the If-None-Match header, null to pull the version unconditionally
+     * @param token the JWT token representing the authenticated user
+     * @return a ResponseEntity streaming the version data, or without body if the version is not modified
+     */
+    ResponseEntity<StreamingResponseBody> pullVersion(VersionDTO versionDTO, String accept, String ifNoneMatch, String token);
+
+    /**
+     * Pulls the mesh of the specified mesh version for the authenticated user, as a raw stream of its content.
+     * The response declares the length and the ETag of the mesh, and a single byte range is honored
+     * when the client still holds the same content, so an interrupted download can be resumed.
      *
      * @param versionDTO the data transfer object representing the version to pull
+     * @param range the value of the Range header, null to pull the whole mesh
+     * @param ifRange the value of the If-Range header, null to honor the range unconditionally
+     * @param ifNoneMatch the value of the If-None-Match header, null to pull the mesh unconditionally
      * @param token the JWT token representing the authenticated user
-     * @return a ResponseEntity containing a map with the version data
+     * @return a ResponseEntity streaming the requested bytes of the mesh, or without body if the mesh is not modified
      */
-    ResponseEntity<MultiValueMap<String, Object>> pullVersion(VersionDTO versionDTO, String token);
+    ResponseEntity<StreamingResponseBody> pullVersionFile(VersionDTO versionDTO, String range, String ifRange,
+                                                          String ifNoneMatch, String token);
 
     /**
      * Retrieves detailed information about a specified version for the authenticated user.
+     * The metadata can be cached once the tags of the version are final, and conditional requests are evaluated only then.
      *
      * @param versionDTO the data transfer object representing the version whose information is requested
+     * @param ifNoneMatch the value of the If-None-Match header, null to retrieve the metadata unconditionally
      * @param token the JWT token representing the authenticated user
-     * @return a ResponseEntity containing a map with version details
+     * @return a ResponseEntity containing a map with version details, or without body if the metadata is not modified
      */
-    ResponseEntity<Map<String, Object>> showVersionMetadata(VersionDTO versionDTO, String token);
+    ResponseEntity<Map<String, Object>> showVersionMetadata(VersionDTO versionDTO, String ifNoneMatch, String token);
 }
@@ -1,55 +1,84 @@
 package it.unisa.ddditserver.subsystems.versioning.service.version;
 
-import it.unisa.ddditserver.db.gremlin.versioning.repo.GremlinRepositoryRepository;
+import it.unisa.ddditserver.db.blobstorage.versioning.BlobStorageVersionRepository;
 import it.unisa.ddditserver.db.gremlin.versioning.version.GremlinVersionRepository;
-import it.unisa.ddditserver.subsystems.ai.service.TagClassificationService;
-import it.unisa.ddditserver.subsystems.auth.dto.UserDTO;
+import it.unisa.ddditserver.subsystems.ai.service.TagClassificationPipeline;
 import it.unisa.ddditserver.subsystems.auth.exceptions.NotLoggedUserException;
-import it.unisa.ddditserver.subsystems.versioning.dto.RepositoryDTO;
+import it.unisa.ddditserver.subsystems.versioning.VersioningConfig;
+import it.unisa.ddditserver.subsystems.versioning.dto.RequestContextDTO;
+import it.unisa.ddditserver.subsystems.versioning.dto.version.TagsStatus;
 import it.unisa.ddditserver.subsystems.versioning.dto.version.VersionDTO;
-import it.unisa.ddditserver.subsystems.versioning.exceptions.repo.RepositoryException;
+import it.unisa.ddditserver.subsystems.versioning.dto.version.VersionFileDTO;
+import it.unisa.ddditserver.subsystems.versioning.exceptions.version.InvalidMaterialException;
+import it.unisa.ddditserver.subsystems.versioning.exceptions.version.InvalidMeshException;
 import it.unisa.ddditserver.subsystems.versioning.exceptions.version.VersionException;
+import it.unisa.ddditserver.subsystems.versioning.service.context.RequestContextResolver;
 import it.unisa.ddditserver.validators.auth.JWT.JWTokenValidator;
-import it.unisa.ddditserver.validators.auth.user.UserValidationDTO;
-import it.unisa.ddditserver.validators.auth.user.UserValidator;
 import it.unisa.ddditserver.validators.versioning.version.VersionValidationDTO;
 import it.unisa.ddditserver.validators.versioning.version.VersionValidator;
+import it.unisa.ddditserver.validators.versioning.version.VersionValidatorImpl;
+import jakarta.annotation.PostConstruct;
 import org.apache.commons.lang3.tuple.Pair;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
-import org.springframework.util.LinkedMultiValueMap;
-import org.springframework.util.MultiValueMap;
+import org.springframework.util.MimeTypeUtils;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 @Service
 public class VersionServiceImpl implements VersionService {
     @Autowired
     private GremlinVersionRepository gremlinVersionRepository;
     @Autowired
-    private GremlinRepositoryRepository gremlinRepositoryRepository;
+    private RequestContextResolver requestContextResolver;
     @Autowired
     private JWTokenValidator jwTokenValidator;
     @Autowired
-    private UserValidator userValidator;
-    @Autowired
     private VersionValidator versionValidator;
     @Autowired
-    private TagClassificationService tagClassificationService;
+    private TagClassificationPipeline tagClassificationPipeline;
+    @Autowired
+    private BlobStorageVersionRepository blobStorageVersionRepository;
+    @Autowired
+    private VersioningConfig versioningConfig;
 
-    private void checkUserStatus(String repositoryName, String username) {
-        RepositoryDTO repositoryDTO = new RepositoryDTO(repositoryName);
-        UserDTO userDTO = new UserDTO(username, null);
+    private Path spoolFolder;
 
-        if (!gremlinRepositoryRepository.isContributor(repositoryDTO, userDTO) && !gremlinRepositoryRepository.isOwner(repositoryDTO, userDTO)) {
-            throw new RepositoryException("Permission denied because " + username + " is not a contributor or the owner of " + repositoryName + " repository");
+    @PostConstruct
+    public void init() {
+        spoolFolder = Paths.get(versioningConfig.getPushSpoolPath());
+
+        try {
+            Files.createDirectories(spoolFolder);
+        } catch (IOException e) {
+            throw new VersionException("Error creating push spool folder");
         }
     }
 
     // The probability of a collision with 1.000.000 versions for a single resource, so with the same base, is ca. 6.37%
-    private String generateVersionName(VersionDTO versionDTO) {
+    static String generateVersionName(VersionDTO versionDTO) {
         String base = versionDTO.getVersionName()
                 .replaceAll("[^a-zA-Z0-9]", "")
                 .toLowerCase();
@@ -61,6 +90,185 @@ public class VersionServiceImpl implements VersionService {
         return base + uuidPart;
     }
 
+    // Versions are never changed once pushed, so a representation of a version is identified by its vertex ID
+    private static String versionETag(String versionId, String representation) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest((representation + ":" + versionId).getBytes(StandardCharsets.UTF_8));
+
+            return "\"" + HexFormat.of().formatHex(hash, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    // If-None-Match uses the weak comparison, so weak validators sent by caches match too
+    private static boolean matchesETag(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+
+            if (candidate.equals("*") || candidate.equals(eTag)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    // Wildcards are not enough, so clients that don't ask for the archive keep receiving the multipart response
+    private static boolean acceptsZip(String accept) {
+        if (accept == null) {
+            return false;
+        }
+
+        try {
+            return MediaType.parseMediaTypes(accept).stream()
+                    .anyMatch(mediaType -> mediaType.getType().equalsIgnoreCase("application") &&
+                            mediaType.getSubtype().equalsIgnoreCase("zip") && mediaType.getQualityValue() > 0);
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+    }
+
+    // The body of a pull, which releases the files it doesn't write even if it is never written at all
+    private static final class PullBody implements StreamingResponseBody, Closeable {
+        private final List<CompletableFuture<Pair<NonClosingInputStreamResource, String>>> resources;
+        private final StreamingResponseBody writer;
+        private final AtomicBoolean closed = new AtomicBoolean(false);
+
+        private PullBody(List<CompletableFuture<Pair<NonClosingInputStreamResource, String>>> resources,
+                         StreamingResponseBody writer) {
+            this.resources = resources;
+            this.writer = writer;
+        }
+
+        @Override
+        public void writeTo(OutputStream outputStream) throws IOException {
+            try {
+                writer.writeTo(outputStream);
+            } finally {
+                close();
+            }
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                closeUnread(resources);
+            }
+        }
+    }
+
+    // Each file is awaited only when it is its turn to be written, so the first one is sent while the others download
+    private static Pair<NonClosingInputStreamResource, String> awaitFile(
+            CompletableFuture<Pair<NonClosingInputStreamResource, String>> resource) throws IOException {
+        try {
+            return resource.get();
+        } catch (ExecutionException e) {
+            throw new IOException("Error retrieving file of the version", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while retrieving file of the version");
+        }
+    }
+
+    private static void writePartHeaders(OutputStream outputStream, String boundary, ContentDisposition disposition,
+                                         String contentType, long contentLength) throws IOException {
+        StringBuilder headers = new StringBuilder("--").append(boundary).append("\r\n")
+                .append(HttpHeaders.CONTENT_DISPOSITION).append(": ").append(disposition).append("\r\n")
+                .append(HttpHeaders.CONTENT_TYPE).append(": ").append(contentType).append("\r\n");
+
+        if (contentLength >= 0) {
+            headers.append(HttpHeaders.CONTENT_LENGTH).append(": ").append(contentLength).append("\r\n");
+        }
+
+        outputStream.write(headers.append("\r\n").toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Same layout written by Spring for a multipart body, so clients parse the response as before
+    private static void writeMultipart(OutputStream outputStream, String boundary, String message,
+                                       List<CompletableFuture<Pair<NonClosingInputStreamResource, String>>> resources)
+            throws IOException {
+        byte[] messageBytes = message.getBytes(StandardCharsets.UTF_8);
+
+        writePartHeaders(outputStream, boundary, ContentDisposition.formData().name("message").build(),
+                "text/plain;charset=UTF-8", messageBytes.length);
+        outputStream.write(messageBytes);
+        outputStream.write("\r\n".getBytes(StandardCharsets.UTF_8));
+
+        for (CompletableFuture<Pair<NonClosingInputStreamResource, String>> file : resources) {
+            Pair<NonClosingInputStreamResource, String> pair = awaitFile(file);
+            NonClosingInputStreamResource resource = pair.getLeft();
+
+            writePartHeaders(outputStream, boundary,
+                    ContentDisposition.formData().name("file").filename(resource.getFilename()).build(),
+                    MediaType.parseMediaType(pair.getRight()).toString(), resource.contentLength());
+
+            try (InputStream inputStream = resource.getInputStream()) {
+                inputStream.transferTo(outputStream);
+            }
+
+            outputStream.write("\r\n".getBytes(StandardCharsets.UTF_8));
+        }
+
+        outputStream.write(("--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void writeZip(OutputStream outputStream,
+                                 List<CompletableFuture<Pair<NonClosingInputStreamResource, String>>> resources) throws IOException {
+        ZipOutputStream zipStream = new ZipOutputStream(outputStream);
+
+        // Meshes compress well while textures are usually compressed already, so the fastest level is enough
+        zipStream.setLevel(Deflater.BEST_SPEED);
+
+        for (CompletableFuture<Pair<NonClosingInputStreamResource, String>> file : resources) {
+            NonClosingInputStreamResource resource = awaitFile(file).getLeft();
+            zipStream.putNextEntry(new ZipEntry(resource.getFilename()));
+
+            try (InputStream inputStream = resource.getInputStream()) {
+                inputStream.transferTo(zipStream);
+            }
+
+            zipStream.closeEntry();
+        }
+
+        // The archive is completed without closing the response stream
+        zipStream.finish();
+    }
+
+    // Files not written because the client went away or a download failed still release their stream,
+    // and files still downloading release it as soon as they are downloaded
+    private static void closeUnread(List<CompletableFuture<Pair<NonClosingInputStreamResource, String>>> resources) {
+        for (CompletableFuture<Pair<NonClosingInputStreamResource, String>> file : resources) {
+            file.whenComplete((pair, e) -> {
+                if (pair == null) {
+                    return;
+                }
+
+                try {
+                    pair.getLeft().getInputStream().close();
+                } catch (IOException | IllegalStateException ex) {
+                    // The stream has already been read and closed
+                }
+            });
+        }
+    }
+
+    private CacheControl immutableCacheControl() {
+        // The content requires authorization, so it can be kept only by the cache of the client
+        return CacheControl.maxAge(versioningConfig.getPullCacheMaxAgeSeconds(), TimeUnit.SECONDS)
+                .cachePrivate()
+                .immutable();
+    }
+
     @Override
     public ResponseEntity<Map<String, String>> createVersion(VersionDTO versionDTO, String token) {
         String retrievedUsername = jwTokenValidator.isTokenValid(token);
@@ -83,20 +291,12 @@ public class VersionServiceImpl implements VersionService {
         else {
             resourceType = true;
             mesh =  versionDTO.getMesh();
-            tags = tagClassificationService.classify(versionDTO);
         }
 
         if (retrievedUsername == null) {
             throw new NotLoggedUserException("Missing, invalid, or expired Authorization token");
         }
 
-        checkUserStatus(repositoryName, retrievedUsername);
-
-        UserValidationDTO userValidationDTO = new UserValidationDTO(retrievedUsername, null);
-
-        // Check if user exists in graph database
-        userValidator.validateExistence(userValidationDTO, true);
-
         VersionValidationDTO versionValidationDTO;
 
         if (mesh != null && material != null) {
@@ -106,44 +306,52 @@ public class VersionServiceImpl implements VersionService {
         if (resourceType) {
             versionValidationDTO = new VersionValidationDTO(repositoryName, resourceName, branchName, versionName, comment, mesh, null);
             // Check if version's data are well-formed
-            versionValidator.validateVersion(versionValidationDTO, true);
+            versionValidator.validateVersionData(versionValidationDTO, true);
         } else {
             versionValidationDTO = new VersionValidationDTO(repositoryName, resourceName, branchName, versionName, comment, null, material);
             // Check if version's data are well-formed
-            versionValidator.validateVersion(versionValidationDTO, false);
+            versionValidator.validateVersionData(versionValidationDTO, false);
         }
 
         String generatedVersionName = generateVersionName(versionDTO);
         versionDTO.setVersionName(generatedVersionName);
 
-        // Check if the resource already exists in graph database
-        // Check ResourceValidator interface for more information about the exists flag
-        versionValidator.validateExistence(versionValidationDTO, false);
+        // Check user's permissions, user's existence, the existence of the branch and that the generated version does not exist yet
+        // Check RequestContextResolver interface for more information about the exists flag
+        RequestContextDTO context = requestContextResolver.authorize(
+                retrievedUsername, repositoryName, resourceName, branchName, generatedVersionName, false);
 
         VersionDTO enrichedVersionDTO;
 
+        // Mesh tags are computed in background after the version is stored, so the push doesn't wait for the inference
         if (resourceType) {
             enrichedVersionDTO = new VersionDTO(
                     repositoryName, resourceName,
                     branchName, generatedVersionName ,
                     retrievedUsername, pushedAt, comment,
-                    tags, mesh, null
+                    tags, mesh, null, TagsStatus.PENDING
             );
         } else {
             enrichedVersionDTO = new VersionDTO(
                     repositoryName, resourceName,
                     branchName, generatedVersionName ,
                     retrievedUsername, pushedAt, comment,
-                    tags, null, material
+                    tags, null, material, TagsStatus.COMPLETE
             );
         }
 
+        String cosmosDocumentUrl;
+
         try {
-            gremlinVersionRepository.saveVersion(enrichedVersionDTO, resourceType);
+            cosmosDocumentUrl = gremlinVersionRepository.saveVersion(enrichedVersionDTO, resourceType, context.getBranchId());
         } catch (Exception e) {
             throw new VersionException(e.getMessage());
         }
 
+        if (resourceType) {
+            tagClassificationPipeline.submit(cosmosDocumentUrl);
+        }
+
         Map<String, String> response = new HashMap<>();
         if (resourceType) {
             response.put("message", "Version of " + mesh.getOriginalFilename() +
@@ -161,71 +369,173 @@ public class VersionServiceImpl implements VersionService {
     }
 
     @Override
-    public ResponseEntity<MultiValueMap<String, Object>> pullVersion(VersionDTO versionDTO, String token) {
+    public ResponseEntity<Map<String, String>> createVersionFromStream(VersionDTO versionDTO, String meshFileName, String contentType,
+                                                                       long meshSize, InputStream meshStream, String token) {
         String retrievedUsername = jwTokenValidator.isTokenValid(token);
         String repositoryName = versionDTO.getRepositoryName();
         String resourceName = versionDTO.getResourceName();
         String branchName = versionDTO.getBranchName();
         String versionName = versionDTO.getVersionName();
+        LocalDateTime pushedAt = LocalDateTime.now();
+        String comment = versionDTO.getComment();
 
         if (retrievedUsername == null) {
             throw new NotLoggedUserException("Missing, invalid, or expired Authorization token");
         }
 
-        checkUserStatus(repositoryName, retrievedUsername);
+        // Check if version's data are well-formed, the mesh is checked by name and declared size before reading it
+        VersionValidationDTO versionValidationDTO = new VersionValidationDTO(
+                repositoryName, resourceName, branchName, versionName, comment, null, null);
+        versionValidator.validateStreamedMeshData(versionValidationDTO, meshFileName, meshSize);
 
-        UserValidationDTO userValidationDTO = new UserValidationDTO(retrievedUsername, null);
+        String generatedVersionName = generateVersionName(versionDTO);
+        versionDTO.setVersionName(generatedVersionName);
 
-        // Check if user exists in graph database
-        userValidator.validateExistence(userValidationDTO, true);
+        // Check user's permissions, user's existence, the existence of the branch and that the generated version does not exist yet
+        // Check RequestContextResolver interface for more information about the exists flag
+        RequestContextDTO context = requestContextResolver.authorize(
+                retrievedUsername, repositoryName, resourceName, branchName, generatedVersionName, false);
 
-        VersionValidationDTO versionValidationDTO = new VersionValidationDTO(
+        VersionDTO enrichedVersionDTO = new VersionDTO(
                 repositoryName, resourceName,
-                branchName, versionName,
-                null, null,
-                null
+                branchName, generatedVersionName,
+                retrievedUsername, pushedAt, comment,
+                new ArrayList<>(), null, null, TagsStatus.PENDING
         );
 
-        // Check if the version already exists in graph database
-        // Check VersionValidator interface for more information about the exists flag
-        versionValidator.validateExistence(versionValidationDTO, true);
+        // The request body is read once: uploaded to BLOB storage, hashed and copied locally for the classification
+        Path spool = spoolFolder.resolve(UUID.randomUUID() + "-" + meshFileName);
+        TeeMeshInputStream teeStream;
+
+        try {
+            teeStream = new TeeMeshInputStream(meshStream, VersionValidatorImpl.MAX_FILE_SIZE, spool,
+                    versioningConfig.getPushSpoolMaxBytes());
+        } catch (IOException e) {
+            throw new VersionException("Error creating push spool for " + meshFileName + " file");
+        }
+
+        String meshUrl;
+        String cosmosDocumentUrl;
 
-        List<Pair<NonClosingInputStreamResource, String>> resources;
         try {
-            resources = gremlinVersionRepository.getFile(versionDTO);
+            meshUrl = blobStorageVersionRepository.saveMesh(enrichedVersionDTO, meshFileName, contentType, teeStream);
+        } catch (RuntimeException e) {
+            teeStream.discardSpool();
+
+            // The storage client wraps the failure of the stream, so the size is checked on the stream itself
+            if (teeStream.isSizeExceeded()) {
+                throw new InvalidMeshException("Mesh must be less than 1GB");
+            }
+
+            if (e instanceof VersionException) {
+                throw e;
+            }
+
+            throw new VersionException("Error during mesh saving in BLOB storage for " + meshFileName + " file");
+        }
+
+        if (teeStream.getSize() == 0) {
+            teeStream.discardSpool();
+            blobStorageVersionRepository.deleteMeshByUrl(meshUrl);
+            throw new InvalidMeshException("Mesh can't be empty");
+        }
+
+        Path spooledMesh = teeStream.finishSpool();
+        String sha256 = teeStream.getSha256();
+
+        try {
+            cosmosDocumentUrl = gremlinVersionRepository.saveUploadedMeshVersion(enrichedVersionDTO, meshUrl, context.getBranchId());
         } catch (Exception e) {
+            teeStream.discardSpool();
             throw new VersionException(e.getMessage());
         }
 
-        MultiValueMap<String, Object> body = new LinkedMultiValueMap<>();
-        body.add("message", new HttpEntity<>(
-                "Version " + versionName + " pulled successfully from " + branchName +
-                        " branch for " + resourceName + " resource in " + repositoryName + " repository",
-                new HttpHeaders()
-        ));
+        // The hash is already known, so a mesh with the same content is classified without reading it again
+        tagClassificationPipeline.submit(cosmosDocumentUrl, spooledMesh, sha256);
 
-        for (Pair<NonClosingInputStreamResource, String> pair : resources) {
-            NonClosingInputStreamResource resource = pair.getLeft();
-            String contentType = pair.getRight();
+        Map<String, String> response = new HashMap<>();
+        response.put("message", "Version of " + meshFileName +
+                " pushed successfully as " + generatedVersionName + " in " +
+                branchName + " branch for " + resourceName + " resource in " +
+                repositoryName + " repository");
+        response.put("sha256", sha256);
+
+        return ResponseEntity.ok(response);
+    }
 
-            HttpHeaders fileHeaders = new HttpHeaders();
-            fileHeaders.setContentType(MediaType.parseMediaType(contentType));
-            fileHeaders.setContentDisposition(ContentDisposition.builder("form-data")
-                    .name("file")
-                    .filename(resource.getFilename())
-                    .build());
+    @Override
+    public ResponseEntity<StreamingResponseBody> pullVersion(VersionDTO versionDTO, String accept, String ifNoneMatch, String token) {
+        String retrievedUsername = jwTokenValidator.isTokenValid(token);
+        String repositoryName = versionDTO.getRepositoryName();
+        String resourceName = versionDTO.getResourceName();
+        String branchName = versionDTO.getBranchName();
+        String versionName = versionDTO.getVersionName();
 
-            body.add("file", new HttpEntity<>(resource, fileHeaders));
+        if (retrievedUsername == null) {
+            throw new NotLoggedUserException("Missing, invalid, or expired Authorization token");
         }
 
+        // Check user's permissions, user's existence and the existence of the version in graph database
+        // Check RequestContextResolver interface for more information about the exists flag
+        RequestContextDTO context = requestContextResolver.authorize(
+                retrievedUsername, repositoryName, resourceName, branchName, versionName, true);
+
+        boolean zip = acceptsZip(accept);
+        String eTag = versionETag(context.getVersionId(), zip ? "pull-zip" : "pull");
+
+        // The client already holds the version, so no file is retrieved
+        if (matchesETag(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(eTag)
+                    .cacheControl(immutableCacheControl())
+                    .varyBy(HttpHeaders.ACCEPT)
+                    .build();
+        }
+
+        // The files are downloaded in parallel by the repository, while the response writes them in order
+        List<CompletableFuture<Pair<NonClosingInputStreamResource, String>>> resources;
+        try {
+            resources = gremlinVersionRepository.getFileByVersionId(context.getVersionId());
+        } catch (Exception e) {
+            throw new VersionException(e.getMessage());
+        }
+
+        String message = "Version " + versionName + " pulled successfully from " + branchName +
+                " branch for " + resourceName + " resource in " + repositoryName + " repository";
+        String boundary = MimeTypeUtils.generateMultipartBoundaryString();
+
         HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.MULTIPART_FORM_DATA);
+        headers.setETag(eTag);
+        headers.setCacheControl(immutableCacheControl());
+        headers.setVary(List.of(HttpHeaders.ACCEPT));
+
+        if (zip) {
+            headers.setContentType(MediaType.parseMediaType("application/zip"));
+            headers.setContentDisposition(ContentDisposition.attachment().filename(versionName + ".zip").build());
+        } else {
+            headers.setContentType(new MediaType(MediaType.MULTIPART_FORM_DATA, Map.of("boundary", boundary)));
+        }
+
+        // The body is written by an async task, the file contents are gathered into large writes to the response.
+        // The files are released once it is written, or by closing it if it is never written
+        StreamingResponseBody body = new PullBody(resources, outputStream -> {
+            BufferedOutputStream bufferedStream = new BufferedOutputStream(outputStream, versioningConfig.getPullBufferBytes());
+
+            if (zip) {
+                writeZip(bufferedStream, resources);
+            } else {
+                writeMultipart(bufferedStream, boundary, message, resources);
+            }
+
+            bufferedStream.flush();
+        });
 
         return new ResponseEntity<>(body, headers, HttpStatus.OK);
     }
 
     @Override
-    public ResponseEntity<Map<String, Object>> showVersionMetadata(VersionDTO versionDTO, String token) {
+    public ResponseEntity<StreamingResponseBody> pullVersionFile(VersionDTO versionDTO, String range, String ifRange,
+                                                                 String ifNoneMatch, String token) {
         String retrievedUsername = jwTokenValidator.isTokenValid(token);
         String repositoryName = versionDTO.getRepositoryName();
         String resourceName = versionDTO.getResourceName();
@@ -236,28 +546,128 @@ public class VersionServiceImpl implements VersionService {
             throw new NotLoggedUserException("Missing, invalid, or expired Authorization token");
         }
 
-        checkUserStatus(repositoryName, retrievedUsername);
+        // Check user's permissions, user's existence and the existence of the version in graph database
+        // Check RequestContextResolver interface for more information about the exists flag
+        RequestContextDTO context = requestContextResolver.authorize(
+                retrievedUsername, repositoryName, resourceName, branchName, versionName, true);
+
+        String eTag = versionETag(context.getVersionId(), "file");
 
-        UserValidationDTO userValidationDTO = new UserValidationDTO(retrievedUsername, null);
+        // The client already holds the mesh, so neither its properties nor its content are retrieved
+        if (matchesETag(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(eTag)
+                    .cacheControl(immutableCacheControl())
+                    .build();
+        }
 
-        // Check if user exists in graph database
-        userValidator.validateExistence(userValidationDTO, true);
+        VersionFileDTO meshFile;
 
-        VersionValidationDTO versionValidationDTO = new VersionValidationDTO(
-                repositoryName, resourceName, branchName, versionName,
-                null, null, null
-        );
+        try {
+            meshFile = gremlinVersionRepository.getMeshPropertiesByVersionId(context.getVersionId());
+        } catch (InvalidMaterialException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new VersionException(e.getMessage());
+        }
+
+        long size = meshFile.getSize();
+        long offset = 0;
+        long count = size;
+        HttpStatus status = HttpStatus.OK;
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(eTag);
+        headers.setCacheControl(immutableCacheControl());
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+        headers.setContentType(MediaType.parseMediaType(meshFile.getContentType()));
+        headers.setContentDisposition(ContentDisposition.attachment().filename(meshFile.getFileName()).build());
+
+        // The range is honored only if the client holds the same content, otherwise the whole mesh is sent
+        if (range != null && (ifRange == null || ifRange.equals(eTag))) {
+            List<HttpRange> ranges;
+
+            try {
+                ranges = HttpRange.parseRanges(range);
+            } catch (IllegalArgumentException e) {
+                // A malformed Range header is ignored
+                ranges = List.of();
+            }
+
+            // Several ranges are not worth a multipart response for a resumed download, so the whole mesh is sent
+            if (ranges.size() == 1) {
+                try {
+                    offset = ranges.get(0).getRangeStart(size);
+                    count = ranges.get(0).getRangeEnd(size) - offset + 1;
+                } catch (IllegalArgumentException e) {
+                    offset = size;
+                }
+
+                if (offset >= size || count <= 0) {
+                    headers.set(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                    return new ResponseEntity<>(headers, HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
+                }
+
+                headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + offset + "-" + (offset + count - 1) + "/" + size);
+                status = HttpStatus.PARTIAL_CONTENT;
+            }
+        }
+
+        headers.setContentLength(count);
+
+        long start = offset;
+        long length = count;
+
+        // The body is written by an async task, the downloaded buffers are gathered into large writes to the response
+        StreamingResponseBody body = outputStream -> {
+            if (length == 0) {
+                return;
+            }
 
-        // Check if the version already exists in graph database
-        // Check VersionValidator interface for more information about the exists flag
-        versionValidator.validateExistence(versionValidationDTO, true);
+            BufferedOutputStream bufferedStream = new BufferedOutputStream(outputStream, versioningConfig.getPullBufferBytes());
+            blobStorageVersionRepository.downloadMesh(meshFile, bufferedStream, start, length);
+            bufferedStream.flush();
+        };
+
+        return new ResponseEntity<>(body, headers, status);
+    }
+
+    @Override
+    public ResponseEntity<Map<String, Object>> showVersionMetadata(VersionDTO versionDTO, String ifNoneMatch, String token) {
+        String retrievedUsername = jwTokenValidator.isTokenValid(token);
+        String repositoryName = versionDTO.getRepositoryName();
+        String resourceName = versionDTO.getResourceName();
+        String branchName = versionDTO.getBranchName();
+        String versionName = versionDTO.getVersionName();
+
+        if (retrievedUsername == null) {
+            throw new NotLoggedUserException("Missing, invalid, or expired Authorization token");
+        }
+
+        // Check user's permissions, user's existence and the existence of the version in graph database
+        // Check RequestContextResolver interface for more information about the exists flag
+        RequestContextDTO context = requestContextResolver.authorize(
+                retrievedUsername, repositoryName, resourceName, branchName, versionName, true);
 
         try {
-            versionDTO = gremlinVersionRepository.findVersionByBranch(versionDTO);
+            versionDTO = gremlinVersionRepository.findVersionById(context.getVersionId());
         } catch (Exception e) {
             throw new VersionException(e.getMessage());
         }
 
+        // Versions stored before the classification pipeline have no status and their tags are final
+        TagsStatus tagsStatus = versionDTO.getTagsStatus() == null ? TagsStatus.COMPLETE : versionDTO.getTagsStatus();
+        String eTag = versionETag(context.getVersionId(), "metadata");
+
+        // Conditional requests are evaluated only once the tags are final, since If-None-Match: * would match
+        // while they are still pending and the client would keep the metadata without its tags
+        if (tagsStatus != TagsStatus.PENDING && matchesETag(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(eTag)
+                    .cacheControl(immutableCacheControl())
+                    .build();
+        }
+
         Map<String, Object> response = new HashMap<>();
         response.put("message", "Version information retrieved successfully");
         response.put("versionName", versionDTO.getVersionName());
@@ -265,8 +675,19 @@ public class VersionServiceImpl implements VersionService {
         response.put("pushedAt", versionDTO.getPushedAt());
         response.put("comment", versionDTO.getComment());
         response.put("tags", versionDTO.getTagsAsString());
+        response.put("tagsStatus", tagsStatus);
+
+        // Pending tags will still change, so the metadata must be revalidated until the classification ends
+        if (tagsStatus == TagsStatus.PENDING) {
+            return ResponseEntity.ok()
+                    .cacheControl(CacheControl.noCache())
+                    .body(response);
+        }
 
-        return  ResponseEntity.ok(response);
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(immutableCacheControl())
+                .body(response);
     }
 }
 
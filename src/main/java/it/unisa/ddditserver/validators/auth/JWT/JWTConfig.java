@@ -0,0 +1,16 @@
+package it.unisa.ddditserver.validators.auth.JWT;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Getter
+@Component
+public class JWTConfig {
+    @Value("${JWT_SECRET}")
+    private String secretBase64;
+
+    // Bounded cache of the tokens already verified, a value lower than 1 disables it
+    @Value("${JWT_VERIFIED_CACHE_MAX_SIZE:10000}")
+    private long verifiedCacheMaxSize;
+}
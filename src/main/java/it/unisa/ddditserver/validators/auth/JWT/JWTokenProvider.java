@@ -0,0 +1,27 @@
+package it.unisa.ddditserver.validators.auth.JWT;
+
+/**
+ * Interface for signing and verifying JWT tokens with the secret key of the server.
+ *
+ * @author Angelo Antonio Prisco
+ * @version 1.0
+ * @since 2025-09-02
+ */
+public interface JWTokenProvider {
+    /**
+     * Generates a signed token for the user.
+     *
+     * @param username the username of the user, used as subject of the token
+     * @return the signed token
+     */
+    String generateToken(String username);
+
+    /**
+     * Verifies the signature and the expiry of the token.
+     * It doesn't check if the token has been revoked.
+     *
+     * @param token the token to verify
+     * @return the username contained in the token, null if the token is not valid
+     */
+    String verifyToken(String token);
+}
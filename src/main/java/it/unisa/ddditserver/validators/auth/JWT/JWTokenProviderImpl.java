@@ -0,0 +1,120 @@
+package it.unisa.ddditserver.validators.auth.JWT;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import javax.crypto.SecretKey;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * Component responsible for signing and verifying JWT tokens.
+ *
+ * The signing key and the parser are built once and shared, since both are thread-safe.
+ * Verified tokens are kept in a bounded cache until they expire, so repeated requests with the same
+ * token skip parsing and signature verification. Revocation is checked by {@link JWTokenValidator} on every request.
+ *
+ * @author Angelo Antonio Prisco
+ * @version 1.0
+ * @since 2025-09-02
+ */
+@Component
+public class JWTokenProviderImpl implements JWTokenProvider {
+    private static final long EXPIRATION_MILLIS = 1000 * 60 * 480; // 8 hours
+
+    private final SecretKey secretKey;
+    private final JwtParser parser;
+    private final Cache<String, VerifiedToken> verifiedTokens;
+
+    private record VerifiedToken(String username, long expiresAtMillis) {}
+
+    @Autowired
+    public JWTokenProviderImpl(JWTConfig config) {
+        this(config.getSecretBase64(), config.getVerifiedCacheMaxSize());
+    }
+
+    public JWTokenProviderImpl(String secretBase64, long verifiedCacheMaxSize) {
+        byte[] decodedKey = Base64.getDecoder().decode(secretBase64);
+        this.secretKey = Keys.hmacShaKeyFor(decodedKey);
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(secretKey)
+                .build();
+
+        if (verifiedCacheMaxSize < 1) {
+            this.verifiedTokens = null;
+            return;
+        }
+
+        // Each entry expires together with its token
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(verifiedCacheMaxSize)
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(String token, VerifiedToken verified, long currentTime) {
+                        return Math.max(0, verified.expiresAtMillis() - System.currentTimeMillis()) * 1_000_000;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String token, VerifiedToken verified, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String token, VerifiedToken verified, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    @Override
+    public String generateToken(String username) {
+        return Jwts.builder()
+                .setSubject(username)
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + EXPIRATION_MILLIS))
+                .signWith(secretKey)
+                .compact();
+    }
+
+    @Override
+    public String verifyToken(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+
+        if (verifiedTokens != null) {
+            VerifiedToken verified = verifiedTokens.getIfPresent(token);
+
+            if (verified != null && verified.expiresAtMillis() > System.currentTimeMillis()) {
+                return verified.username();
+            }
+        }
+
+        try {
+            Claims claims = parser.parseClaimsJws(token).getBody();
+
+            String username = claims.getSubject();
+
+            if (username == null || username.isBlank()) {
+                throw new JwtException("Username can't be null or empty in JWT token");
+            }
+
+            // Tokens without an expiry are valid but never cached
+            if (verifiedTokens != null && claims.getExpiration() != null) {
+                verifiedTokens.put(token, new VerifiedToken(username, claims.getExpiration().getTime()));
+            }
+
+            return username;
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -1,64 +1,34 @@
 package it.unisa.ddditserver.validators.auth.JWT;
 
-import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.JwtException;
-import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.security.Keys;
-import it.unisa.ddditserver.db.cosmos.auth.CosmosAuthRepository;
-import jakarta.annotation.PostConstruct;
+import it.unisa.ddditserver.db.cosmos.auth.CosmosTokenBlacklistCache;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
-import javax.crypto.SecretKey;
-import java.util.Base64;
 
 /**
  * Component responsible for validating JWT token.
  *
  * This validator verifies that the token sent by the user is valid.
+ * Signature and expiry are verified before the blacklist, so malformed or expired tokens never reach Cosmos DB.
  *
  * @author Angelo Antonio Prisco
- * @version 1.0
+ * @version 1.2
  * @since 2025-08-13
  */
 @Component
 public class JWTokenValidatorImpl implements JWTokenValidator {
     @Autowired
-    private CosmosAuthRepository cosmosAuthService;
-
-    @Value("${JWT_SECRET}")
-    public String jwtSecretBase64;
-
-    private SecretKey secretKey;
-
-    @PostConstruct
-    public void init() {
-        byte[] decodedKey = Base64.getDecoder().decode(jwtSecretBase64);
-        this.secretKey = Keys.hmacShaKeyFor(decodedKey);
-    }
+    private JWTokenProvider jwTokenProvider;
+    @Autowired
+    private CosmosTokenBlacklistCache tokenBlacklistCache;
 
     @Override
     public String isTokenValid(String token) {
-        if (cosmosAuthService.isTokenBlacklisted(token)) {
-            return null;
-        }
-
-        try {
-            Claims claims = Jwts.parserBuilder()
-                    .setSigningKey(secretKey)
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
-
-            String username = claims.getSubject();
+        String username = jwTokenProvider.verifyToken(token);
 
-            if (username == null || username.isBlank()) {
-                throw new JwtException("Username can't be null or empty in JWT token");
-            }
-
-            return username;
-        } catch (JwtException | IllegalArgumentException e) {
+        if (username == null || tokenBlacklistCache.isTokenBlacklisted(token)) {
             return null;
         }
+
+        return username;
     }
 }
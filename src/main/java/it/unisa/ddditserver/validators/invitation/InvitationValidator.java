@@ -1,12 +1,13 @@
 package it.unisa.ddditserver.validators.invitation;
 
+import it.unisa.ddditserver.subsystems.versioning.dto.RequestContextDTO;
 import it.unisa.ddditserver.validators.ValidationResult;
 
 /**
  * Interface for validating invitation data.
  *
  * @author Angelo Antonio Prisco
- * @version 1.0
+ * @version 1.1
  * @since 2025-08-15
  */
 public interface InvitationValidator {
@@ -19,6 +20,17 @@ public interface InvitationValidator {
      */
     ValidationResult validateInvitation(InvitationValidationDTO invitationValidationDTO);
 
+    /**
+     * Validates the provided invitation using an already resolved context of the invited user,
+     * so the role of the invited user and the existence of the repository are not queried again.
+     *
+     * @param invitationValidationDTO the invitation data transfer object containing invitation information to validate
+     * @param recipientContext the context of the invited user resolved on the invitation's repository
+     * @return a ValidationResult indicating if the invitation is valid or not.
+     *         If not, the method throws a custom exception with the reason of the failure.
+     */
+    ValidationResult validateInvitation(InvitationValidationDTO invitationValidationDTO, RequestContextDTO recipientContext);
+
     /**
      * Validates whether an invitation has already been sent to a specific user for a specific repository.
      *
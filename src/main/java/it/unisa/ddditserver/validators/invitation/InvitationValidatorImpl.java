@@ -6,6 +6,8 @@ import it.unisa.ddditserver.subsystems.auth.dto.UserDTO;
 import it.unisa.ddditserver.subsystems.invitation.exceptions.AlreadyInvitedException;
 import it.unisa.ddditserver.subsystems.invitation.exceptions.InvitationException;
 import it.unisa.ddditserver.subsystems.versioning.dto.RepositoryDTO;
+import it.unisa.ddditserver.subsystems.versioning.dto.RequestContextDTO;
+import it.unisa.ddditserver.subsystems.versioning.exceptions.repo.RepositoryNotFoundException;
 import it.unisa.ddditserver.validators.ValidationResult;
 import it.unisa.ddditserver.validators.versioning.repo.RepositoryValidationDTO;
 import it.unisa.ddditserver.validators.versioning.repo.RepositoryValidator;
@@ -28,7 +30,7 @@ import org.springframework.stereotype.Component;
  * </ul>
  *
  * @author Angelo Antonio Prisco
- * @version 1.0
+ * @version 1.1
  * @since 2025-08-15
  */
 @Component
@@ -71,6 +73,34 @@ public class InvitationValidatorImpl implements InvitationValidator {
         return ValidationResult.valid();
     }
 
+    @Override
+    public ValidationResult validateInvitation(InvitationValidationDTO invitationValidationDTO, RequestContextDTO recipientContext) {
+        String fromUsername = invitationValidationDTO.getFromUsername();
+        String toUsername = invitationValidationDTO.getToUsername();
+        String repositoryName = invitationValidationDTO.getRepositoryName();
+
+        if (fromUsername.equals(toUsername)) {
+            throw new InvitationException("Can't invite yourself to any repository or accept an invitation from yourself");
+        }
+
+        if (recipientContext.isMember()) {
+            throw new InvitationException("Can't invite an owner or a contributor to their repository");
+        }
+
+        // Check if the repository is well-formed and if it exists in the resolved context
+        RepositoryValidationDTO repositoryValidationDTO = new RepositoryValidationDTO(repositoryName);
+        ValidationResult repositoryValidationResult = repositoryValidator.validateRepository(repositoryValidationDTO);
+        if (!repositoryValidationResult.isValid()) {
+            return repositoryValidationResult;
+        }
+
+        if (recipientContext.getRepositoryId() == null) {
+            throw new RepositoryNotFoundException(repositoryName + " does not exist as repository name");
+        }
+
+        return ValidationResult.valid();
+    }
+
     @Override
     public ValidationResult validatePendingInvitation(InvitationValidationDTO invitationValidationDTO, boolean exists) {
         String fromUsername = invitationValidationDTO.getFromUsername();
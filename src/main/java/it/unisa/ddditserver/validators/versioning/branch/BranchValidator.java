@@ -19,6 +19,15 @@ public interface BranchValidator {
      */
     ValidationResult validateBranch(BranchValidationDTO branchValidationDTO);
 
+    /**
+     * Validates only the name of the given branch, without checking the parent resource and repository.
+     *
+     * @param branchValidationDTO the branch data transfer object containing branch's information to validate
+     * @return a ValidationResult indicating if the branch name is valid or not.
+     *         If not, the method throws a custom exception with the reason of the failure.
+     */
+    ValidationResult validateBranchName(BranchValidationDTO branchValidationDTO);
+
     /**
      * Validates whether the branch exists.
      *
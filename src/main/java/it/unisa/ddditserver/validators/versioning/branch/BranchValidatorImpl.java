@@ -67,7 +67,6 @@ public class BranchValidatorImpl implements BranchValidator {
     public ValidationResult validateBranch(BranchValidationDTO branchValidationDTO) {
         String repositoryName = branchValidationDTO.getRepositoryName();
         String resourceName = branchValidationDTO.getResourceName();
-        String branchName = branchValidationDTO.getBranchName();
 
         // Check if the repository is valid before check for the resource because a resource depends on a repository
         RepositoryValidationDTO repositoryValidationDTO = new RepositoryValidationDTO(repositoryName);
@@ -84,6 +83,13 @@ public class BranchValidatorImpl implements BranchValidator {
         }
 
         // Check if the branch is valid
+        return validateBranchName(branchValidationDTO);
+    }
+
+    @Override
+    public ValidationResult validateBranchName(BranchValidationDTO branchValidationDTO) {
+        String branchName = branchValidationDTO.getBranchName();
+
         if (!isValidBranchName(branchName)) {
             throw new InvalidBranchNameException("Branch name must be 3-30 chars long and can contain letters, digits and _ only");
         }
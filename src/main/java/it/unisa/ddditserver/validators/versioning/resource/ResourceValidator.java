@@ -19,6 +19,15 @@ public interface ResourceValidator {
      */
     ValidationResult validateResource(ResourceValidationDTO resourceValidationDTO);
 
+    /**
+     * Validates only the name of the given resource, without checking the parent repository.
+     *
+     * @param resourceValidationDTO the resource data transfer object containing resource's information to validate
+     * @return a ValidationResult indicating if the resource name is valid or not.
+     *         If not, the method throws a custom exception with the reason of the failure.
+     */
+    ValidationResult validateResourceName(ResourceValidationDTO resourceValidationDTO);
+
     /**
      * Validates whether the resource exists.
      *
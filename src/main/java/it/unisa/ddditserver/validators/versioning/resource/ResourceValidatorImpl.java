@@ -57,7 +57,6 @@ public class ResourceValidatorImpl implements ResourceValidator {
     @Override
     public ValidationResult validateResource(ResourceValidationDTO resourceValidationDTO) {
         String repositoryName = resourceValidationDTO.getRepositoryName();
-        String resourceName = resourceValidationDTO.getResourceName();
 
         // Check if the repository is valid before check for the resource because a resource depends on a repository
         RepositoryValidationDTO repositoryValidationDTO = new RepositoryValidationDTO(repositoryName);
@@ -66,6 +65,13 @@ public class ResourceValidatorImpl implements ResourceValidator {
             return repositoryValidationResult;
         }
 
+        return validateResourceName(resourceValidationDTO);
+    }
+
+    @Override
+    public ValidationResult validateResourceName(ResourceValidationDTO resourceValidationDTO) {
+        String resourceName = resourceValidationDTO.getResourceName();
+
         if (!isValidResourceName(resourceName)) {
             throw new InvalidResourceNameException("Resource name must be 3-30 chars long and can contain letters, digits and _ only");
         }
@@ -6,7 +6,7 @@ import it.unisa.ddditserver.validators.ValidationResult;
  * Interface for validating version's data.
  *
  * @author Angelo Antonio Prisco
- * @version 1.1
+ * @version 1.2
  * @since 2025-08-13
  */
 public interface VersionValidator {
@@ -20,6 +20,29 @@ public interface VersionValidator {
      */
     ValidationResult validateVersion(VersionValidationDTO versionValidationDTO, boolean resourceType);
 
+    /**
+     * Validates only the comment, the name and the files of the given version, without checking the parent
+     * branch, resource and repository.
+     *
+     * @param versionValidationDTO the version data transfer object containing version's information to validate
+     * @param resourceType indicates a mesh version validation if true or a material version validation if false
+     * @return a ValidationResult indicating if the version data is valid or not.
+     *         If not, the method throws a custom exception with the reason of the failure.
+     */
+    ValidationResult validateVersionData(VersionValidationDTO versionValidationDTO, boolean resourceType);
+
+    /**
+     * Validates only the comment, the name and the mesh of a mesh version whose content is streamed,
+     * so the mesh is described by its file name and size only.
+     *
+     * @param versionValidationDTO the version data transfer object containing version's information to validate
+     * @param meshFileName the file name of the streamed mesh
+     * @param meshSize the size of the streamed mesh in bytes, -1 if not known in advance
+     * @return a ValidationResult indicating if the version data is valid or not.
+     *         If not, the method throws a custom exception with the reason of the failure.
+     */
+    ValidationResult validateStreamedMeshData(VersionValidationDTO versionValidationDTO, String meshFileName, long meshSize);
+
     /**
      * Validates whether the version exists.
      *
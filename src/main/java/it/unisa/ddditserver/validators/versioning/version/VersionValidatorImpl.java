@@ -44,7 +44,7 @@ import java.util.regex.Pattern;
  * </ul>
  *
  * @author Angelo Antonio Prisco
- * @version 1.1
+ * @version 1.2
  * @since 2025-08-14
  */
 @Component
@@ -54,6 +54,8 @@ public class VersionValidatorImpl implements VersionValidator {
     private final BranchValidator branchValidator;
     private final GremlinVersionRepository gremlinService;
 
+    public static final long MAX_FILE_SIZE = 1024L * 1024L * 1024L; // 1 GB in byte
+
     private static final int FILE_NAME_MIN_LENGTH = 3;
     private static final int FILE_NAME_MAX_LENGTH = 30;
     private static final Pattern FILE_NAME_PATTERN = Pattern.compile("^[a-zA-Z0-9_]+$");
@@ -90,10 +92,13 @@ public class VersionValidatorImpl implements VersionValidator {
     public boolean isValidMesh(MultipartFile mesh) {
         if (mesh == null || mesh.isEmpty()) return false;
 
-        long maxSize = 1024L * 1024L * 1024L; // 1 GB in byte
-        if (mesh.getSize() > maxSize) return false;
+        return isValidMesh(mesh.getOriginalFilename(), mesh.getSize());
+    }
+
+    // A negative size means a size not known in advance, the limit is then enforced while the mesh is read
+    public boolean isValidMesh(String name, long size) {
+        if (size == 0 || size > MAX_FILE_SIZE) return false;
 
-        String name = mesh.getOriginalFilename();
         if (name == null) return false;
         return name.length() >= FILE_NAME_MIN_LENGTH &&
                 name.length() <= FILE_NAME_MAX_LENGTH &&
@@ -120,10 +125,6 @@ public class VersionValidatorImpl implements VersionValidator {
         String repositoryName = versionValidationDTO.getRepositoryName();
         String resourceName = versionValidationDTO.getResourceName();
         String branchName = versionValidationDTO.getBranchName();
-        String versionName = versionValidationDTO.getVersionName();
-        String comment = versionValidationDTO.getComment();
-        MultipartFile mesh = versionValidationDTO.getMesh();
-        List<MultipartFile> material =  versionValidationDTO.getMaterial();
 
         // Check if the repository is valid before check for the resource because a resource depends on a repository
         RepositoryValidationDTO repositoryValidationDTO = new RepositoryValidationDTO(repositoryName);
@@ -146,6 +147,16 @@ public class VersionValidatorImpl implements VersionValidator {
             return branchValidationResult;
         }
 
+        return validateVersionData(versionValidationDTO, resourceType);
+    }
+
+    @Override
+    public ValidationResult validateVersionData(VersionValidationDTO versionValidationDTO, boolean resourceType) {
+        String versionName = versionValidationDTO.getVersionName();
+        String comment = versionValidationDTO.getComment();
+        MultipartFile mesh = versionValidationDTO.getMesh();
+        List<MultipartFile> material =  versionValidationDTO.getMaterial();
+
         if (!isValidComment(comment)) {
             throw new InvalidCommentException("Comment must be 0-200 chars long and contain only !, ? and - as special characters");
         }
@@ -175,6 +186,24 @@ public class VersionValidatorImpl implements VersionValidator {
         return ValidationResult.valid();
     }
 
+    @Override
+    public ValidationResult validateStreamedMeshData(VersionValidationDTO versionValidationDTO, String meshFileName, long meshSize) {
+        if (!isValidComment(versionValidationDTO.getComment())) {
+            throw new InvalidCommentException("Comment must be 0-200 chars long and contain only !, ? and - as special characters");
+        }
+
+        if (!isValidVersionName(versionValidationDTO.getVersionName())) {
+            throw new InvalidVersionNameException("Version name must be 3-30 chars long and can contain letters, digits and _ only");
+        }
+
+        if (!isValidMesh(meshFileName, meshSize)) {
+            throw new InvalidMeshException("Mesh name must be 3-30 chars long and can contain letters," +
+                    " digits and _ only, and must end with .fbx, other than being less than 1GB");
+        }
+
+        return ValidationResult.valid();
+    }
+
     @Override
     public ValidationResult validateExistence(VersionValidationDTO versionValidationDTO, boolean exists) {
         String repositoryName = versionValidationDTO.getRepositoryName();
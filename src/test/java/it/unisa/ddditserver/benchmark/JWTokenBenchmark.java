@@ -0,0 +1,66 @@
+package it.unisa.ddditserver.benchmark;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import it.unisa.ddditserver.validators.auth.JWT.JWTokenProviderImpl;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import javax.crypto.SecretKey;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+// Compares the verification of the same bearer token with a new parser on every call, with the shared parser
+// and with the verified tokens cache. Run it with the main method from the test classpath.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JWTokenBenchmark {
+    private SecretKey secretKey;
+    private JWTokenProviderImpl uncachedProvider;
+    private JWTokenProviderImpl cachedProvider;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        String secretBase64 = Base64.getEncoder().encodeToString(Keys.secretKeyFor(SignatureAlgorithm.HS256).getEncoded());
+
+        secretKey = Keys.hmacShaKeyFor(Base64.getDecoder().decode(secretBase64));
+        uncachedProvider = new JWTokenProviderImpl(secretBase64, 0);
+        cachedProvider = new JWTokenProviderImpl(secretBase64, 10000);
+        token = cachedProvider.generateToken("benchmark_user");
+    }
+
+    @Benchmark
+    public String parserPerCall() {
+        Claims claims = Jwts.parserBuilder()
+                .setSigningKey(secretKey)
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+
+        return claims.getSubject();
+    }
+
+    @Benchmark
+    public String sharedParser() {
+        return uncachedProvider.verifyToken(token);
+    }
+
+    @Benchmark
+    public String verifiedCache() {
+        return cachedProvider.verifyToken(token);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JWTokenBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,294 @@
+package it.unisa.ddditserver.db.unit.blobstorage;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import it.unisa.ddditserver.db.blobstorage.BlobDiskCache;
+import it.unisa.ddditserver.db.blobstorage.BlobStorageConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+class BlobDiskCacheTest {
+    @Mock
+    private BlobStorageConfig config;
+
+    @TempDir
+    Path folder;
+
+    private SimpleMeterRegistry meterRegistry;
+    private final List<BlobDiskCache> caches = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(config.getDiskCacheMaxBytes()).thenReturn(1024L * 1024);
+        when(config.getDiskCachePath()).thenReturn(folder.toString());
+        when(config.getDiskCacheFillConcurrency()).thenReturn(2);
+
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        caches.forEach(BlobDiskCache::shutdown);
+    }
+
+    private BlobDiskCache newCache() {
+        BlobDiskCache cache = new BlobDiskCache(config, meterRegistry);
+        caches.add(cache);
+        return cache;
+    }
+
+    private BlobDiskCache.Filler filler(byte[] content) {
+        return target -> {
+            Files.write(target, content);
+            return "model/fbx";
+        };
+    }
+
+    // Keeps a download in progress until the test releases it
+    private void hold(CountDownLatch release) throws IOException {
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            throw new IOException("Download interrupted");
+        }
+    }
+
+    // Fills run in background, so the cache is polled until the expected state is reached
+    private void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertTrue(condition.getAsBoolean());
+    }
+
+    private BlobDiskCache.CachedBlob awaitCached(BlobDiskCache cache, String blobPath, String eTag) throws Exception {
+        BlobDiskCache.CachedBlob[] cachedBlob = new BlobDiskCache.CachedBlob[1];
+        await(() -> (cachedBlob[0] = cache.open(blobPath, eTag, target -> {
+            throw new IOException("Already filled");
+        })) != null);
+        return cachedBlob[0];
+    }
+
+    private long countFiles(String glob) throws IOException {
+        try (Stream<Path> files = Files.list(folder)) {
+            return files.filter(file -> folder.getFileSystem().getPathMatcher("glob:" + glob).matches(file.getFileName())).count();
+        }
+    }
+
+    private long countFilesQuietly(String glob) {
+        try {
+            return countFiles(glob);
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    @Test
+    // Happy path: a miss returns immediately while the BLOB is cached in background, then later reads are served from the disk
+    void missFilledInBackground() throws Exception {
+        BlobDiskCache cache = newCache();
+        CountDownLatch release = new CountDownLatch(1);
+
+        BlobDiskCache.CachedBlob missed = assertTimeoutPreemptively(Duration.ofSeconds(1), () ->
+                cache.open("meshes/mesh.fbx", "etag", target -> {
+                    hold(release);
+                    Files.write(target, new byte[]{1, 2, 3});
+                    return "model/fbx";
+                }));
+
+        assertNull(missed);
+        release.countDown();
+
+        try (BlobDiskCache.CachedBlob cachedBlob = awaitCached(cache, "meshes/mesh.fbx", "etag");
+             InputStream inputStream = cachedBlob.newInputStream()) {
+            assertEquals(3, cachedBlob.getSize());
+            assertEquals("model/fbx", cachedBlob.getContentType());
+            assertArrayEquals(new byte[]{1, 2, 3}, inputStream.readAllBytes());
+        }
+
+        assertEquals(3.0, meterRegistry.counter("blob.cache.bytes.saved").count());
+    }
+
+    @Test
+    // Happy path: a range of a cached BLOB is copied to the stream
+    void transferRange() throws Exception {
+        BlobDiskCache cache = newCache();
+        assertNull(cache.open("meshes/mesh.fbx", null, filler(new byte[]{1, 2, 3, 4, 5})));
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        try (BlobDiskCache.CachedBlob cachedBlob = awaitCached(cache, "meshes/mesh.fbx", null)) {
+            cachedBlob.transferTo(outputStream, 1, 3);
+        }
+
+        assertArrayEquals(new byte[]{2, 3, 4}, outputStream.toByteArray());
+    }
+
+    @Test
+    // Concurrent misses of the same BLOB start a single download
+    void concurrentMissesFillOnce() throws Exception {
+        BlobDiskCache cache = newCache();
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger fills = new AtomicInteger();
+        ExecutorService readers = Executors.newFixedThreadPool(8);
+
+        try {
+            List<Future<BlobDiskCache.CachedBlob>> reads = new ArrayList<>();
+
+            for (int i = 0; i < 16; i++) {
+                reads.add(readers.submit(() -> cache.open("meshes/mesh.fbx", "etag", target -> {
+                    fills.incrementAndGet();
+                    hold(release);
+                    Files.write(target, new byte[]{1});
+                    return null;
+                })));
+            }
+
+            // No read waits for the download in progress
+            for (Future<BlobDiskCache.CachedBlob> read : reads) {
+                assertNull(read.get(1, TimeUnit.SECONDS));
+            }
+
+            release.countDown();
+            awaitCached(cache, "meshes/mesh.fbx", "etag").close();
+
+            assertEquals(1, fills.get());
+            assertEquals(1, countFiles("*.blob"));
+        } finally {
+            readers.shutdownNow();
+        }
+    }
+
+    @Test
+    // A different ETag is a different key, so a changed BLOB is never served from the stale copy
+    void changedETagMissed() throws Exception {
+        BlobDiskCache cache = newCache();
+        cache.open("meshes/mesh.fbx", "etag1", filler(new byte[]{1}));
+        awaitCached(cache, "meshes/mesh.fbx", "etag1").close();
+
+        assertNull(cache.open("meshes/mesh.fbx", "etag2", filler(new byte[]{2})));
+    }
+
+    @Test
+    // A failed download leaves no file behind and is started again by the next read
+    void failedFillRetried() throws Exception {
+        BlobDiskCache cache = newCache();
+        AtomicInteger failures = new AtomicInteger();
+        AtomicInteger fills = new AtomicInteger();
+
+        cache.open("meshes/mesh.fbx", "etag", target -> {
+            failures.incrementAndGet();
+            Files.write(target, new byte[]{1});
+            throw new IOException("Connection reset");
+        });
+        await(() -> failures.get() == 1);
+
+        // The failed download is removed from the cache, so a later read starts a new one
+        await(() -> {
+            cache.open("meshes/mesh.fbx", "etag", target -> {
+                fills.incrementAndGet();
+                Files.write(target, new byte[]{1, 2});
+                return null;
+            });
+            return fills.get() > 0;
+        });
+
+        try (BlobDiskCache.CachedBlob cachedBlob = awaitCached(cache, "meshes/mesh.fbx", "etag")) {
+            assertEquals(2, cachedBlob.getSize());
+        }
+
+        assertEquals(1, fills.get());
+        assertEquals(0, countFiles("*.tmp"));
+        assertEquals(1, countFiles("*.blob"));
+    }
+
+    @Test
+    // Files left by a crash are discarded at startup, while complete files are served again without downloading them
+    void crashLeftoversDiscardedOnLoad() throws Exception {
+        // Complete entry
+        Files.write(folder.resolve("a.blob"), new byte[]{1, 2, 3});
+        Files.writeString(folder.resolve("a.index"), "key=meshes/a.fbx@etag\nsize=3\ncontentType=model/fbx\n");
+        // Download interrupted before being moved in place
+        Files.write(folder.resolve("b.blob.tmp"), new byte[]{1});
+        Files.write(folder.resolve("b.index.tmp"), new byte[]{1});
+        // File moved in place without its index
+        Files.write(folder.resolve("c.blob"), new byte[]{1});
+        // Index without its file, left by an eviction interrupted halfway
+        Files.writeString(folder.resolve("d.index"), "key=meshes/d.fbx\nsize=1\n");
+        // Index of a file with another size
+        Files.write(folder.resolve("e.blob"), new byte[]{1, 2});
+        Files.writeString(folder.resolve("e.index"), "key=meshes/e.fbx\nsize=5\n");
+
+        BlobDiskCache cache = newCache();
+
+        assertEquals(0, countFiles("*.tmp"));
+        assertEquals(List.of("a.blob", "a.index"), listFiles());
+
+        try (BlobDiskCache.CachedBlob cachedBlob = cache.open("meshes/a.fbx", "etag", target -> {
+            throw new IOException("Already cached");
+        })) {
+            assertNotNull(cachedBlob);
+            assertEquals(3, cachedBlob.getSize());
+            assertEquals("model/fbx", cachedBlob.getContentType());
+        }
+    }
+
+    private List<String> listFiles() throws IOException {
+        try (Stream<Path> files = Files.list(folder)) {
+            return files.map(file -> file.getFileName().toString()).sorted().toList();
+        }
+    }
+
+    @Test
+    // BLOBs beyond the maximum size are evicted and their files deleted
+    void evictionDeletesFiles() throws Exception {
+        when(config.getDiskCacheMaxBytes()).thenReturn(2048L);
+        BlobDiskCache cache = newCache();
+
+        for (int i = 0; i < 4; i++) {
+            String blobPath = "meshes/mesh" + i + ".fbx";
+            cache.open(blobPath, null, filler(new byte[1024]));
+            awaitCached(cache, blobPath, null).close();
+        }
+
+        await(() -> countFilesQuietly("*.blob") == 2 && countFilesQuietly("*.index") == 2);
+    }
+
+    @Test
+    // A disabled cache never downloads and always reads from BLOB storage
+    void disabledCacheNeverFills() throws Exception {
+        when(config.getDiskCacheMaxBytes()).thenReturn(0L);
+        BlobDiskCache cache = newCache();
+
+        assertNull(cache.open("meshes/mesh.fbx", "etag", target -> {
+            fail("A disabled cache must not download");
+            return null;
+        }));
+        assertEquals(0, listFiles().size());
+    }
+}
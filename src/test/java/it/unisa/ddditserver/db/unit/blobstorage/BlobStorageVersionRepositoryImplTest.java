@@ -4,13 +4,24 @@ import com.azure.core.http.rest.PagedIterable;
 import com.azure.storage.blob.BlobClient;
 import com.azure.storage.blob.BlobContainerClient;
 import com.azure.storage.blob.models.BlobItem;
+import com.azure.storage.blob.models.BlobItemProperties;
 import com.azure.storage.blob.models.BlobProperties;
+import com.azure.storage.blob.models.BlobRange;
+import com.azure.storage.blob.models.BlobRequestConditions;
+import com.azure.storage.blob.models.BlobStorageException;
 import com.azure.storage.blob.models.ListBlobsOptions;
+import com.azure.storage.blob.options.BlobInputStreamOptions;
+import com.azure.storage.blob.options.BlobParallelUploadOptions;
+import com.azure.storage.blob.options.BlockBlobCommitBlockListOptions;
+import com.azure.storage.blob.specialized.BlockBlobClient;
 import com.azure.storage.blob.specialized.BlobInputStream;
+import it.unisa.ddditserver.db.blobstorage.BlobDiskCache;
 import it.unisa.ddditserver.db.blobstorage.BlobStorageConfig;
 import it.unisa.ddditserver.db.blobstorage.versioning.BlobStorageVersionRepositoryImpl;
 import it.unisa.ddditserver.subsystems.versioning.dto.version.VersionDTO;
-import org.apache.commons.lang3.tuple.Triple;
+import it.unisa.ddditserver.subsystems.versioning.dto.version.VersionFileDTO;
+import it.unisa.ddditserver.subsystems.versioning.exceptions.version.VersionException;
+import org.apache.commons.lang3.tuple.Pair;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -18,11 +29,21 @@ import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.web.multipart.MultipartFile;
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.Field;
+import java.security.MessageDigest;
 import java.time.Duration;
+import java.util.Base64;
+import java.util.HexFormat;
 import java.util.List;
-import java.util.stream.Stream;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
@@ -38,12 +59,20 @@ public class BlobStorageVersionRepositoryImplTest {
     @Mock
     private BlobContainerClient materialsContainerClient;
 
+    @Mock
+    private BlobDiskCache diskCache;
+
     @Mock
     private BlobClient blobClient;
 
-    // Can't use @InjectMocks because findMeshByUrl()/findMaterialByUrl() test need to mock existsMeshByUrl()/existsMaterialByUrl()
+    @Mock
+    private BlockBlobClient blockBlobClient;
+
+    // Can't use @InjectMocks because the container clients and the executors are built by init(), so they are set through reflection
     @Spy
-    private BlobStorageVersionRepositoryImpl repository = new BlobStorageVersionRepositoryImpl(config);
+    private BlobStorageVersionRepositoryImpl repository = new BlobStorageVersionRepositoryImpl(config, diskCache);
+
+    private final Semaphore readAheadBudget = new Semaphore(1024);
 
     @BeforeEach
     public void setUp() throws Exception {
@@ -54,10 +83,45 @@ public class BlobStorageVersionRepositoryImplTest {
         Field materialsField = BlobStorageVersionRepositoryImpl.class.getDeclaredField("materialsContainerClient");
         materialsField.setAccessible(true);
         materialsField.set(repository, materialsContainerClient);
+
+        // The spy is built before the mocks are created, so the config is injected here
+        Field configField = BlobStorageVersionRepositoryImpl.class.getDeclaredField("config");
+        configField.setAccessible(true);
+        configField.set(repository, config);
+
+        // The cache mock never has a BLOB, so every read goes to BLOB storage
+        Field diskCacheField = BlobStorageVersionRepositoryImpl.class.getDeclaredField("diskCache");
+        diskCacheField.setAccessible(true);
+        diskCacheField.set(repository, diskCache);
+
+        lenient().when(config.getBlockSizeBytes()).thenReturn(8L * 1024 * 1024);
+        lenient().when(config.getMaxConcurrency()).thenReturn(4);
+
+        Field executorField = BlobStorageVersionRepositoryImpl.class.getDeclaredField("uploadExecutor");
+        executorField.setAccessible(true);
+        executorField.set(repository, Executors.newFixedThreadPool(2));
+
+        Field downloadExecutorField = BlobStorageVersionRepositoryImpl.class.getDeclaredField("downloadExecutor");
+        downloadExecutorField.setAccessible(true);
+        downloadExecutorField.set(repository, Executors.newFixedThreadPool(2));
+
+        Field readAheadField = BlobStorageVersionRepositoryImpl.class.getDeclaredField("readAheadBudget");
+        readAheadField.setAccessible(true);
+        readAheadField.set(repository, readAheadBudget);
+    }
+
+    private String sha256(byte[] content) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+    }
+
+    private BlobStorageException notFound() {
+        BlobStorageException exception = mock(BlobStorageException.class);
+        when(exception.getStatusCode()).thenReturn(404);
+        return exception;
     }
 
     @Test
-    // Happy path: Valid VersionDTO with a mesh file uploads successfully and returns the blob URL
+    // Happy path: a new mesh is uploaded under its content hash with one reference and the hash is returned
     void saveMeshSuccess() throws Exception {
         VersionDTO version = new VersionDTO();
         version.setRepositoryName("repo");
@@ -65,26 +129,149 @@ public class BlobStorageVersionRepositoryImplTest {
         version.setResourceName("res");
         version.setVersionName("v1");
 
+        byte[] content = new byte[]{1,2,3};
+        String hash = sha256(content);
+
         MultipartFile mesh = mock(MultipartFile.class);
         when(mesh.getOriginalFilename()).thenReturn("mesh.fbx");
-        when(mesh.getSize()).thenReturn(100L);
-        when(mesh.getInputStream()).thenReturn(new ByteArrayInputStream(new byte[]{1,2,3}));
+        when(mesh.getInputStream()).thenAnswer(invocation -> new ByteArrayInputStream(content));
         when(mesh.getContentType()).thenReturn("application/octet-stream");
 
         version.setMesh(mesh);
-        
-        when(meshesContainerClient.getBlobClient(anyString())).thenReturn(blobClient);
+
+        BlobStorageException notFound = notFound();
+
+        when(meshesContainerClient.getBlobClient("sha256/" + hash)).thenReturn(blobClient);
+        when(blobClient.getProperties()).thenThrow(notFound);
+
+        Map<String, String> contentHashes = repository.saveMesh(version);
+
+        ArgumentCaptor<BlobParallelUploadOptions> options = ArgumentCaptor.forClass(BlobParallelUploadOptions.class);
+        verify(blobClient, times(1)).uploadWithResponse(options.capture(), isNull(), any());
+        verify(blobClient, never()).setHttpHeaders(any());
+
+        assertEquals(Map.of("mesh.fbx", hash), contentHashes);
+        assertEquals(Map.of("references", "1"), options.getValue().getMetadata());
+    }
+
+    @Test
+    // Happy path: a mesh whose content is already stored is not uploaded again and only gains a reference
+    void saveMeshSkipsStoredContent() throws Exception {
+        VersionDTO version = new VersionDTO();
+        version.setRepositoryName("repo");
+        version.setBranchName("main");
+        version.setResourceName("res");
+        version.setVersionName("v1");
+
+        byte[] content = new byte[]{1,2,3};
+        String hash = sha256(content);
+
+        MultipartFile mesh = mock(MultipartFile.class);
+        when(mesh.getOriginalFilename()).thenReturn("mesh.fbx");
+        when(mesh.getInputStream()).thenAnswer(invocation -> new ByteArrayInputStream(content));
+
+        version.setMesh(mesh);
+
+        BlobProperties properties = mock(BlobProperties.class);
+        when(properties.getMetadata()).thenReturn(Map.of("references", "1"));
+        when(properties.getETag()).thenReturn("etag");
+
+        when(meshesContainerClient.getBlobClient("sha256/" + hash)).thenReturn(blobClient);
+        when(blobClient.getProperties()).thenReturn(properties);
+
+        Map<String, String> contentHashes = repository.saveMesh(version);
+
+        ArgumentCaptor<BlobRequestConditions> conditions = ArgumentCaptor.forClass(BlobRequestConditions.class);
+        verify(blobClient, times(1)).setMetadataWithResponse(eq(Map.of("references", "2")), conditions.capture(), isNull(), any());
+        verify(blobClient, never()).uploadWithResponse(any(BlobParallelUploadOptions.class), any(), any());
+
+        assertEquals(Map.of("mesh.fbx", hash), contentHashes);
+        assertEquals("etag", conditions.getValue().getIfMatch());
+    }
+
+    @Test
+    // Happy path: releasing the last reference to a mesh deletes its content if it has not been referenced meanwhile
+    void releaseMeshDeletesUnreferencedContent() {
+        BlobProperties properties = mock(BlobProperties.class);
+        when(properties.getMetadata()).thenReturn(Map.of("references", "1"));
+        when(properties.getETag()).thenReturn("etag");
+
+        when(meshesContainerClient.getBlobClient("sha256/hash")).thenReturn(blobClient);
+        when(blobClient.getProperties()).thenReturn(properties);
+
+        repository.releaseMesh(List.of("hash"));
+
+        ArgumentCaptor<BlobRequestConditions> conditions = ArgumentCaptor.forClass(BlobRequestConditions.class);
+        verify(blobClient, times(1)).deleteWithResponse(isNull(), conditions.capture(), isNull(), any());
+
+        assertEquals("etag", conditions.getValue().getIfMatch());
+    }
+
+    @Test
+    // Happy path: a mesh stream is uploaded in blocks with its headers and the blob URL is returned
+    void saveMeshStreamSuccess() {
+        VersionDTO version = new VersionDTO();
+        version.setRepositoryName("repo");
+        version.setBranchName("main");
+        version.setResourceName("res");
+        version.setVersionName("v1");
+
+        when(meshesContainerClient.getBlobClient("repo/res/main/v1/mesh.fbx")).thenReturn(blobClient);
         when(blobClient.getBlobUrl()).thenReturn("http://mock/mesh.fbx");
 
-        String url = repository.saveMesh(version);
+        String url = repository.saveMesh(version, "mesh.fbx", null, new ByteArrayInputStream(new byte[]{1,2,3}));
 
         assertEquals("http://mock/mesh.fbx", url);
-        verify(blobClient, times(1)).upload(any(InputStream.class), eq(100L), eq(true));
-        verify(blobClient, times(1)).setHttpHeaders(any());
+        verify(blobClient, times(1)).uploadWithResponse(any(BlobParallelUploadOptions.class), isNull(), any());
+        verify(blobClient, never()).setHttpHeaders(any());
     }
 
     @Test
-    // Happy path: Valid VersionDTO with material files uploads successfully and returns the folder URL
+    // Happy path: a chunk is staged as a block of the mesh BLOB with its checksum
+    void stageMeshChunkSuccess() {
+        VersionDTO version = new VersionDTO();
+        version.setRepositoryName("repo");
+        version.setBranchName("main");
+        version.setResourceName("res");
+        version.setVersionName("v1");
+
+        byte[] md5 = new byte[16];
+
+        when(meshesContainerClient.getBlobClient("repo/res/main/v1/mesh.fbx")).thenReturn(blobClient);
+        when(blobClient.getBlockBlobClient()).thenReturn(blockBlobClient);
+
+        repository.stageMeshChunk(version, "mesh.fbx", 2, new ByteArrayInputStream(new byte[]{1,2,3}), 3L, md5);
+
+        verify(blockBlobClient, times(1)).stageBlockWithResponse(
+                eq(Base64.getEncoder().encodeToString("000002".getBytes())), any(InputStream.class), eq(3L), eq(md5),
+                isNull(), isNull(), any());
+    }
+
+    @Test
+    // Happy path: the staged chunks are committed in order of index and the mesh URL is returned
+    void commitMeshChunksSuccess() {
+        VersionDTO version = new VersionDTO();
+        version.setRepositoryName("repo");
+        version.setBranchName("main");
+        version.setResourceName("res");
+        version.setVersionName("v1");
+
+        when(meshesContainerClient.getBlobClient("repo/res/main/v1/mesh.fbx")).thenReturn(blobClient);
+        when(blobClient.getBlockBlobClient()).thenReturn(blockBlobClient);
+        when(blockBlobClient.getBlobUrl()).thenReturn("http://mock/mesh.fbx");
+
+        String url = repository.commitMeshChunks(version, "mesh.fbx", 2, null);
+
+        ArgumentCaptor<BlockBlobCommitBlockListOptions> options = ArgumentCaptor.forClass(BlockBlobCommitBlockListOptions.class);
+        verify(blockBlobClient, times(1)).commitBlockListWithResponse(options.capture(), isNull(), any());
+
+        assertEquals("http://mock/mesh.fbx", url);
+        assertEquals(List.of(Base64.getEncoder().encodeToString("000000".getBytes()),
+                Base64.getEncoder().encodeToString("000001".getBytes())), options.getValue().getBase64BlockIds());
+    }
+
+    @Test
+    // Happy path: new textures are uploaded under their content hash and the hash of every texture is returned
     void saveMaterialSuccess() throws Exception {
         VersionDTO version = new VersionDTO();
         version.setRepositoryName("repo");
@@ -92,22 +279,26 @@ public class BlobStorageVersionRepositoryImplTest {
         version.setResourceName("res");
         version.setVersionName("v1");
 
+        byte[] content = new byte[]{1,2,3};
+        String hash = sha256(content);
+
         MultipartFile texture = mock(MultipartFile.class);
         when(texture.getOriginalFilename()).thenReturn("texture.png");
-        when(texture.getInputStream()).thenReturn(new ByteArrayInputStream(new byte[]{1,2,3}));
-        when(texture.getSize()).thenReturn(50L);
+        when(texture.getInputStream()).thenAnswer(invocation -> new ByteArrayInputStream(content));
         when(texture.getContentType()).thenReturn("image/png");
 
         version.setMaterial(List.of(texture));
 
-        when(materialsContainerClient.getBlobClient(anyString())).thenReturn(blobClient);
-        when(blobClient.getBlobUrl()).thenReturn("http://mock/material/");
+        BlobStorageException notFound = notFound();
+
+        when(materialsContainerClient.getBlobClient("sha256/" + hash)).thenReturn(blobClient);
+        when(blobClient.getProperties()).thenThrow(notFound);
 
-        String folderUrl = repository.saveMaterial(version);
+        Map<String, String> contentHashes = repository.saveMaterial(version);
 
-        assertEquals("http://mock/material/", folderUrl);
-        verify(blobClient, times(1)).upload(any(InputStream.class), eq(50L), eq(false));
-        verify(blobClient, times(1)).setHttpHeaders(any());
+        assertEquals(Map.of("texture.png", hash), contentHashes);
+        verify(blobClient, times(1)).uploadWithResponse(any(BlobParallelUploadOptions.class), isNull(), any());
+        verify(blobClient, never()).setHttpHeaders(any());
     }
 
     @Test
@@ -191,7 +382,7 @@ public class BlobStorageVersionRepositoryImplTest {
     }
 
     @Test
-    // Happy path: Finds mesh by valid URL and returns InputStream, content type, and mesh name
+    // Happy path: Finds mesh by valid URL with a single download, taking content type and size from its response
     void findMeshByUrlSuccess() {
         String meshUrl = "http://mock/container/path/to/mesh.fbx";
 
@@ -203,46 +394,158 @@ public class BlobStorageVersionRepositoryImplTest {
 
         BlobProperties properties = mock(BlobProperties.class);
         when(properties.getContentType()).thenReturn("application/octet-stream");
-        when(blobClient.getProperties()).thenReturn(properties);
-
-        doReturn(true).when(repository).existsMeshByUrl(anyString());
+        when(properties.getBlobSize()).thenReturn(3L);
+        when(blobStream.getProperties()).thenReturn(properties);
 
-        Triple<InputStream, String, String> result = repository.findMeshByUrl(meshUrl);
+        Pair<InputStream, VersionFileDTO> result = repository.findMeshByUrl(meshUrl);
 
-        assertEquals("mesh.fbx", result.getRight());
-        assertEquals("application/octet-stream", result.getMiddle());
+        assertEquals("mesh.fbx", result.getRight().getFileName());
+        assertEquals("application/octet-stream", result.getRight().getContentType());
+        assertEquals(3L, result.getRight().getSize());
         assertEquals(blobStream, result.getLeft());
+        verify(blobClient, never()).exists();
+        verify(blobClient, never()).getProperties();
     }
 
-    @Test
-    void findMaterialByUrlSuccess() {
-        String materialFolderUrl = "http://mock/container/materials/";
-
+    private BlobInputStream mockListedTexture() {
         BlobItem blobItem = mock(BlobItem.class);
         PagedIterable<BlobItem> pagedIterableForFind = mock(PagedIterable.class);
-        
+
         BlobInputStream blobInputStream = mock(BlobInputStream.class);
-        BlobProperties properties = mock(BlobProperties.class);
+        BlobItemProperties properties = mock(BlobItemProperties.class);
 
-        when(blobClient.getBlobName()).thenReturn("path/to/texture.png");
         when(blobItem.getName()).thenReturn("materials/texture.png");
-        when(pagedIterableForFind.stream()).thenReturn(Stream.of(blobItem));
+        when(blobItem.getProperties()).thenReturn(properties);
+        when(pagedIterableForFind.iterator()).thenReturn(List.of(blobItem).iterator());
         when(materialsContainerClient.getBlobContainerUrl()).thenReturn("http://mock/container");
-        when(materialsContainerClient.listBlobsByHierarchy(anyString())).thenReturn(pagedIterableForFind);
+        when(materialsContainerClient.listBlobsByHierarchy("materials/")).thenReturn(pagedIterableForFind);
         when(materialsContainerClient.getBlobClient("materials/texture.png")).thenReturn(blobClient);
-        when(blobClient.openInputStream()).thenReturn(blobInputStream);
-        when(blobClient.getProperties()).thenReturn(properties);
+        when(blobClient.openInputStream(any(BlobInputStreamOptions.class))).thenReturn(blobInputStream);
         when(properties.getContentType()).thenReturn("image/png");
+        when(properties.getContentLength()).thenReturn(5L);
 
-        doReturn(true).when(repository).existsMaterialByUrl(anyString());
+        return blobInputStream;
+    }
 
-        List<Triple<InputStream, String, String>> results = repository.findMaterialByUrl(materialFolderUrl);
+    @Test
+    // Happy path: a texture listed with its properties is downloaded and read ahead in memory, and its budget is given back once it is written
+    void findMaterialByUrlSuccess() throws Exception {
+        String materialFolderUrl = "http://mock/container/materials/";
+
+        BlobInputStream blobInputStream = mockListedTexture();
+        when(blobInputStream.readNBytes(5)).thenReturn(new byte[]{1,2,3,4,5});
+
+        List<CompletableFuture<Pair<InputStream, VersionFileDTO>>> results = repository.findMaterialByUrl(materialFolderUrl);
 
         assertEquals(1, results.size());
-        Triple<InputStream, String, String> triple = results.get(0);
-        assertEquals("texture.png", triple.getRight());
-        assertEquals("image/png", triple.getMiddle());
-        assertEquals(blobInputStream, triple.getLeft());
+        Pair<InputStream, VersionFileDTO> pair = results.get(0).get(5, TimeUnit.SECONDS);
+        assertEquals("texture.png", pair.getRight().getFileName());
+        assertEquals("image/png", pair.getRight().getContentType());
+        assertEquals(5L, pair.getRight().getSize());
+        assertEquals(1023, readAheadBudget.availablePermits());
+        assertArrayEquals(new byte[]{1,2,3,4,5}, pair.getLeft().readAllBytes());
+        verify(blobInputStream, times(1)).close();
+        verify(materialsContainerClient, times(1)).listBlobsByHierarchy("materials/");
+        verify(blobClient, never()).getProperties();
+
+        // Closing twice releases the budget once
+        pair.getLeft().close();
+        pair.getLeft().close();
+        assertEquals(1024, readAheadBudget.availablePermits());
+    }
+
+    @Test
+    // A texture whose download fails completes its future with an error and gives its budget back
+    void findMaterialByUrlFailedReadAheadReleasesBudget() throws Exception {
+        BlobInputStream blobInputStream = mockListedTexture();
+        when(blobInputStream.readNBytes(5)).thenThrow(new IOException("Connection reset"));
+
+        List<CompletableFuture<Pair<InputStream, VersionFileDTO>>> results =
+                repository.findMaterialByUrl("http://mock/container/materials/");
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> results.get(0).get(5, TimeUnit.SECONDS));
+        assertInstanceOf(VersionException.class, e.getCause());
+        assertEquals(1024, readAheadBudget.availablePermits());
+        verify(blobInputStream, times(1)).close();
+    }
+
+    @Test
+    // A texture that doesn't fit in what is left of the budget is streamed from BLOB storage without reserving memory
+    void findMaterialByUrlOverBudgetStreamed() throws Exception {
+        BlobInputStream blobInputStream = mockListedTexture();
+        readAheadBudget.acquire(1024);
+
+        Pair<InputStream, VersionFileDTO> pair = repository.findMaterialByUrl("http://mock/container/materials/")
+                .get(0).get(5, TimeUnit.SECONDS);
+
+        assertEquals(blobInputStream, pair.getLeft());
+        verify(blobInputStream, never()).readNBytes(anyInt());
+        assertEquals(0, readAheadBudget.availablePermits());
+
+        readAheadBudget.release(1024);
+        assertEquals(1024, readAheadBudget.availablePermits());
+    }
+
+    @Test
+    // Happy path: the properties of a content-addressed mesh are read with one request and its download is unconditional
+    void findMeshPropertiesByHashSuccess() {
+        BlobProperties properties = mock(BlobProperties.class);
+        when(properties.getContentType()).thenReturn("application/octet-stream");
+        when(properties.getBlobSize()).thenReturn(3L);
+
+        when(meshesContainerClient.getBlobClient("sha256/hash")).thenReturn(blobClient);
+        when(blobClient.getProperties()).thenReturn(properties);
+        when(blobClient.getBlobUrl()).thenReturn("http://mock/container/sha256/hash");
+
+        VersionFileDTO meshFile = repository.findMeshPropertiesByHash("mesh.fbx", "hash");
+
+        assertEquals("mesh.fbx", meshFile.getFileName());
+        assertEquals(3L, meshFile.getSize());
+        assertNull(meshFile.getBlobETag());
+        verify(blobClient, times(1)).getProperties();
+    }
+
+    @Test
+    // Happy path: a range of a mesh is downloaded straight to the output stream only if its BLOB is unchanged
+    void downloadMeshRangeSuccess() {
+        VersionFileDTO meshFile = new VersionFileDTO("mesh.fbx", "application/octet-stream", 10L,
+                "http://mock/container/repo/res/main/v1/mesh.fbx", "\"etag\"");
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        when(meshesContainerClient.getBlobContainerUrl()).thenReturn("http://mock/container");
+        when(meshesContainerClient.getBlobClient("repo/res/main/v1/mesh.fbx")).thenReturn(blobClient);
+
+        repository.downloadMesh(meshFile, outputStream, 4L, 6L);
+
+        ArgumentCaptor<BlobRange> range = ArgumentCaptor.forClass(BlobRange.class);
+        ArgumentCaptor<BlobRequestConditions> conditions = ArgumentCaptor.forClass(BlobRequestConditions.class);
+        verify(blobClient, times(1)).downloadStreamWithResponse(eq(outputStream), range.capture(), any(),
+                conditions.capture(), eq(false), isNull(), any());
+
+        assertEquals(4L, range.getValue().getOffset());
+        assertEquals(6L, range.getValue().getCount());
+        assertEquals("\"etag\"", conditions.getValue().getIfMatch());
+    }
+
+    @Test
+    // Happy path: a range of a cached mesh is written from the disk without any download
+    void downloadMeshFromDiskCacheSuccess() throws Exception {
+        VersionFileDTO meshFile = new VersionFileDTO("mesh.fbx", "application/octet-stream", 10L,
+                "http://mock/container/repo/res/main/v1/mesh.fbx", "\"etag\"");
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        BlobDiskCache.CachedBlob cachedBlob = mock(BlobDiskCache.CachedBlob.class);
+
+        when(meshesContainerClient.getBlobContainerUrl()).thenReturn("http://mock/container");
+        when(meshesContainerClient.getBlobClient("repo/res/main/v1/mesh.fbx")).thenReturn(blobClient);
+        when(blobClient.getContainerName()).thenReturn("meshes");
+        when(blobClient.getBlobName()).thenReturn("repo/res/main/v1/mesh.fbx");
+        when(diskCache.open(eq("meshes/repo/res/main/v1/mesh.fbx"), eq("\"etag\""), any())).thenReturn(cachedBlob);
+
+        repository.downloadMesh(meshFile, outputStream, 4L, 6L);
+
+        verify(cachedBlob, times(1)).transferTo(outputStream, 4L, 6L);
+        verify(cachedBlob, times(1)).close();
+        verify(blobClient, never()).downloadStreamWithResponse(any(), any(), any(), any(), anyBoolean(), any(), any());
     }
 
     @Test
@@ -3,6 +3,11 @@ package it.unisa.ddditserver.db.unit.cosmos.auth;
 import com.auth0.jwt.algorithms.Algorithm;
 import com.azure.cosmos.*;
 import com.azure.cosmos.models.CosmosItemResponse;
+import com.azure.cosmos.models.CosmosQueryRequestOptions;
+import com.azure.cosmos.models.SqlQuerySpec;
+import com.azure.cosmos.util.CosmosPagedIterable;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.azure.cosmos.models.PartitionKey;
 import com.auth0.jwt.JWT;
 import it.unisa.ddditserver.db.cosmos.auth.CosmosAuthRepositoryImpl;
@@ -11,6 +16,8 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
 import java.lang.reflect.Field;
+import java.util.List;
+import java.util.Map;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
@@ -78,4 +85,24 @@ public class CosmosAuthRepositoryImplTest {
         assertFalse(result);
         verify(blacklistContainer, times(1)).readItem(eq(token), any(PartitionKey.class), eq(BlacklistedTokenDTO.class));
     }
+
+    @Test
+    // Happy path: Returns the blacklisted tokens with the expiry of their entries
+    void findBlacklistedTokensSuccess() {
+        ObjectNode item = new ObjectMapper().createObjectNode()
+                .put("id", "test-token")
+                .put("ttl", 60)
+                .put("_ts", 1000);
+
+        CosmosPagedIterable<ObjectNode> mockIterable = mock(CosmosPagedIterable.class);
+        when(mockIterable.iterator()).thenReturn(List.of(item).iterator());
+
+        when(blacklistContainer.queryItems(any(SqlQuerySpec.class), any(CosmosQueryRequestOptions.class), eq(ObjectNode.class)))
+                .thenReturn(mockIterable);
+
+        Map<String, Long> result = repository.findBlacklistedTokens(0);
+
+        assertEquals(Map.of("test-token", 1060L), result);
+        verify(blacklistContainer, times(1)).queryItems(any(SqlQuerySpec.class), any(CosmosQueryRequestOptions.class), eq(ObjectNode.class));
+    }
 }
@@ -4,17 +4,21 @@ import com.azure.cosmos.CosmosContainer;
 import com.azure.cosmos.models.CosmosItemResponse;
 import com.azure.cosmos.models.PartitionKey;
 import com.azure.cosmos.models.CosmosItemRequestOptions;
+import com.azure.cosmos.models.CosmosPatchOperations;
 import it.unisa.ddditserver.db.cosmos.versioning.CosmosVersionRepositoryImpl;
 import it.unisa.ddditserver.subsystems.versioning.dto.version.CosmosVersionDTO;
+import it.unisa.ddditserver.subsystems.versioning.dto.version.TagsStatus;
 import it.unisa.ddditserver.subsystems.versioning.dto.version.VersionDTO;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import java.lang.reflect.Field;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
@@ -101,6 +105,27 @@ public class CosmosVersionRepositoryImplTest {
         assertEquals(cosmosVersion.getBlobUrl(), blobUrl);
     }
 
+    @Test
+    // Happy path: saveVersion stores the content hashes of a content-addressed version in its document
+    void saveVersionStoresContentHashes() {
+        VersionDTO versionDTO = new VersionDTO(
+                "repo1", "res1",
+                "br1", "v1",
+                "user", LocalDateTime.now(),
+                "comment", List.of("tag1"),
+                null, null
+        );
+
+        String resultUrl = repository.saveVersion(versionDTO, null, Map.of("mesh.fbx", "hash"));
+
+        ArgumentCaptor<CosmosVersionDTO> document = ArgumentCaptor.forClass(CosmosVersionDTO.class);
+        verify(container, times(1)).createItem(document.capture(), any(PartitionKey.class), any(CosmosItemRequestOptions.class));
+
+        assertTrue(resultUrl.contains(versionDTO.getResourceName()));
+        assertNull(document.getValue().getBlobUrl());
+        assertEquals(Map.of("mesh.fbx", "hash"), document.getValue().getContentHashes());
+    }
+
     @Test
     // Happy path: deleteVersionByUrl successfully calls container.deleteItem without exceptions
     void deleteVersionByUrlSuccess() {
@@ -112,4 +137,16 @@ public class CosmosVersionRepositoryImplTest {
         verify(container, times(1))
                 .deleteItem(eq(versionId), any(PartitionKey.class), any(CosmosItemRequestOptions.class));
     }
+
+    @Test
+    // Happy path: updateTags patches the tags and their status in the document
+    void updateTagsSuccess() {
+        String versionId = "version-123";
+        String partitionKey = "res1";
+        String cosmosUrl = "https://dummy.documents.azure.com/dbs/metadata/colls/versions/docs/" + versionId + "?partitionKey=" + partitionKey;
+
+        assertDoesNotThrow(() -> repository.updateTags(cosmosUrl, List.of("tag1"), TagsStatus.COMPLETE));
+        verify(container, times(1))
+                .patchItem(eq(versionId), any(PartitionKey.class), any(CosmosPatchOperations.class), eq(CosmosVersionDTO.class));
+    }
 }
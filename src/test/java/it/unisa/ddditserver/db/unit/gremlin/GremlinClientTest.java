@@ -0,0 +1,69 @@
+package it.unisa.ddditserver.db.unit.gremlin;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import it.unisa.ddditserver.db.gremlin.GremlinClient;
+import org.apache.tinkerpop.gremlin.driver.Client;
+import org.apache.tinkerpop.gremlin.driver.ResultSet;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class GremlinClientTest {
+    @Mock
+    private Client client;
+
+    @Mock
+    private ResultSet resultSet;
+
+    private SimpleMeterRegistry meterRegistry;
+    private GremlinClient gremlinClient;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        gremlinClient = new GremlinClient(client, meterRegistry);
+    }
+
+    private double inFlight() {
+        return meterRegistry.get("gremlin.requests.inflight").gauge().value();
+    }
+
+    private long requests(String outcome) {
+        return meterRegistry.get("gremlin.requests").tag("outcome", outcome).timer().count();
+    }
+
+    @Test
+    // Happy path: a request is in flight until all of its results are available, then its latency is recorded
+    void requestTrackedUntilResultsAvailable() {
+        CompletableFuture<Void> available = new CompletableFuture<>();
+        when(resultSet.allItemsAvailableAsync()).thenReturn(available);
+        when(client.submit(anyString(), anyMap())).thenReturn(resultSet);
+
+        assertSame(resultSet, gremlinClient.submit("g.V(id)", Map.of("id", "1")));
+        assertEquals(1, inFlight());
+        assertEquals(0, requests("success"));
+
+        available.complete(null);
+
+        assertEquals(0, inFlight());
+        assertEquals(1, requests("success"));
+    }
+
+    @Test
+    // A request that can't be submitted is no longer in flight and is recorded as failed
+    void failedSubmissionRecorded() {
+        when(client.submit(anyString())).thenThrow(new RuntimeException("No connection available"));
+
+        assertThrows(RuntimeException.class, () -> gremlinClient.submit("g.V()"));
+        assertEquals(0, inFlight());
+        assertEquals(1, requests("error"));
+    }
+}
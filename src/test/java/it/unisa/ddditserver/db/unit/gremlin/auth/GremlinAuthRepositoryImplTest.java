@@ -1,11 +1,11 @@
 package it.unisa.ddditserver.db.unit.gremlin.auth;
 
-import it.unisa.ddditserver.db.gremlin.GremlinConfig;
+import it.unisa.ddditserver.db.gremlin.GremlinClient;
+import it.unisa.ddditserver.db.gremlin.GremlinConnectionPool;
 import it.unisa.ddditserver.db.gremlin.auth.GremlinAuthRepositoryImpl;
 import it.unisa.ddditserver.subsystems.auth.dto.UserDTO;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.apache.tinkerpop.gremlin.driver.Client;
 import org.apache.tinkerpop.gremlin.driver.Result;
 import java.lang.reflect.Field;
 import java.util.List;
@@ -23,10 +23,10 @@ import static org.mockito.ArgumentMatchers.anyString;
 // ATTENTION: at the moment due to time restrictions only tests for happy paths are available
 class GremlinAuthRepositoryImplTest {
     @Mock
-    private GremlinConfig config;
+    private GremlinConnectionPool connectionPool;
 
     @Mock
-    private Client client;
+    private GremlinClient client;
 
     @InjectMocks
     private GremlinAuthRepositoryImpl repository;
@@ -34,7 +34,7 @@ class GremlinAuthRepositoryImplTest {
     @BeforeEach
     void setUp() throws Exception {
         MockitoAnnotations.openMocks(this);
-        repository = new GremlinAuthRepositoryImpl(config);
+        repository = new GremlinAuthRepositoryImpl(connectionPool);
 
         Field clientField = GremlinAuthRepositoryImpl.class.getDeclaredField("client");
         clientField.setAccessible(true);
@@ -1,11 +1,14 @@
 package it.unisa.ddditserver.db.unit.gremlin.invitation;
 
-import it.unisa.ddditserver.db.gremlin.GremlinConfig;
+import it.unisa.ddditserver.db.gremlin.GremlinClient;
+import it.unisa.ddditserver.db.gremlin.GremlinConnectionPool;
+import it.unisa.ddditserver.db.gremlin.GremlinPagination;
 import it.unisa.ddditserver.db.gremlin.invitation.GremlinInvitationRepositoryImpl;
 import it.unisa.ddditserver.subsystems.auth.dto.UserDTO;
 import it.unisa.ddditserver.subsystems.invitation.dto.InvitationDTO;
+import it.unisa.ddditserver.subsystems.versioning.dto.PageRequestDTO;
 import it.unisa.ddditserver.subsystems.versioning.dto.RepositoryDTO;
-import org.apache.tinkerpop.gremlin.driver.Client;
+import it.unisa.ddditserver.subsystems.versioning.exceptions.InvalidPageTokenException;
 import org.apache.tinkerpop.gremlin.driver.Result;
 import org.apache.tinkerpop.gremlin.driver.ResultSet;
 import org.junit.jupiter.api.BeforeEach;
@@ -23,10 +26,10 @@ import static org.mockito.ArgumentMatchers.anyString;
 // ATTENTION: at the moment due to time restrictions only tests for happy paths are available
 class GremlinInvitationRepositoryImplTest {
     @Mock
-    private GremlinConfig config;
+    private GremlinConnectionPool connectionPool;
 
     @Mock
-    private Client client;
+    private GremlinClient client;
 
     @InjectMocks
     private GremlinInvitationRepositoryImpl repository;
@@ -34,7 +37,7 @@ class GremlinInvitationRepositoryImplTest {
     @BeforeEach
     void setUp() throws Exception {
         MockitoAnnotations.openMocks(this);
-        repository = new GremlinInvitationRepositoryImpl(config);
+        repository = new GremlinInvitationRepositoryImpl(connectionPool);
 
         Field clientField = GremlinInvitationRepositoryImpl.class.getDeclaredField("client");
         clientField.setAccessible(true);
@@ -168,5 +171,17 @@ class GremlinInvitationRepositoryImplTest {
         assertEquals("repo1", invitations.get(0).getRepositoryName());
         verify(client, times(1)).submit(anyString(), any(Map.class));
     }
-}
 
+    @Test
+    // findInvitationsByUser rejects a malformed, non-numeric or negative continuation token before querying
+    void findInvitationsByUserWithInvalidTokenFails() {
+        UserDTO user = new UserDTO("user1", null);
+
+        for (String token : List.of("not base64!", GremlinPagination.encode("next"), GremlinPagination.encode("-1"))) {
+            assertThrows(InvalidPageTokenException.class,
+                    () -> repository.findInvitationsByUser(user, new PageRequestDTO(10, token)));
+        }
+
+        verify(client, never()).submit(anyString(), any(Map.class));
+    }
+}
@@ -1,10 +1,12 @@
 package it.unisa.ddditserver.db.unit.gremlin.versioning;
 
-import it.unisa.ddditserver.db.gremlin.GremlinConfig;
+import it.unisa.ddditserver.db.gremlin.GremlinClient;
+import it.unisa.ddditserver.db.gremlin.GremlinConnectionPool;
 import it.unisa.ddditserver.db.gremlin.versioning.branch.GremlinBranchRepositoryImpl;
 import it.unisa.ddditserver.subsystems.versioning.dto.BranchDTO;
+import it.unisa.ddditserver.subsystems.versioning.dto.PageDTO;
+import it.unisa.ddditserver.subsystems.versioning.dto.PageRequestDTO;
 import it.unisa.ddditserver.subsystems.versioning.dto.ResourceDTO;
-import org.apache.tinkerpop.gremlin.driver.Client;
 import org.apache.tinkerpop.gremlin.driver.Result;
 import org.apache.tinkerpop.gremlin.driver.ResultSet;
 import org.junit.jupiter.api.BeforeEach;
@@ -22,10 +24,10 @@ import static org.mockito.Mockito.*;
 // ATTENTION: at the moment due to time restrictions only tests for happy paths are available
 class GremlinBranchRepositoryImplTest {
     @Mock
-    private GremlinConfig config;
+    private GremlinConnectionPool connectionPool;
 
     @Mock
-    private Client client;
+    private GremlinClient client;
 
     @InjectMocks
     private GremlinBranchRepositoryImpl repository;
@@ -33,7 +35,7 @@ class GremlinBranchRepositoryImplTest {
     @BeforeEach
     void setUp() throws Exception {
         MockitoAnnotations.openMocks(this);
-        repository = new GremlinBranchRepositoryImpl(config);
+        repository = new GremlinBranchRepositoryImpl(connectionPool);
 
         Field clientField = GremlinBranchRepositoryImpl.class.getDeclaredField("client");
         clientField.setAccessible(true);
@@ -106,5 +108,27 @@ class GremlinBranchRepositoryImplTest {
         assertEquals("resource1", branches.get(0).getResourceName());
         verify(client, times(1)).submit(anyString(), any(Map.class));
     }
-}
 
+    @Test
+    // Happy path: findBranchesByResource returns a page and a continuation token when more branches are available
+    void findBranchesByResourcePageSuccess() {
+        ResourceDTO resource = new ResourceDTO("repo1", "resource1");
+
+        Result firstResult = mock(Result.class);
+        when(firstResult.getObject()).thenReturn(Map.of("branchName", List.of("branch1")));
+        Result secondResult = mock(Result.class);
+        when(secondResult.getObject()).thenReturn(Map.of("branchName", List.of("branch2")));
+
+        ResultSet mockResultSet = mock(ResultSet.class);
+        CompletableFuture<List<Result>> future = CompletableFuture.completedFuture(List.of(firstResult, secondResult));
+        when(mockResultSet.all()).thenReturn(future);
+        when(client.submit(anyString(), any(Map.class))).thenReturn(mockResultSet);
+
+        PageDTO<BranchDTO> page = repository.findBranchesByResource(resource, new PageRequestDTO(1, null));
+
+        assertEquals(1, page.getItems().size());
+        assertEquals("branch1", page.getItems().get(0).getBranchName());
+        assertNotNull(page.getContinuationToken());
+        verify(client, times(1)).submit(anyString(), any(Map.class));
+    }
+}
@@ -1,10 +1,13 @@
 package it.unisa.ddditserver.db.unit.gremlin.versioning;
 
-import it.unisa.ddditserver.db.gremlin.GremlinConfig;
+import it.unisa.ddditserver.db.gremlin.GremlinClient;
+import it.unisa.ddditserver.db.gremlin.GremlinConnectionPool;
 import it.unisa.ddditserver.db.gremlin.versioning.repo.GremlinRepositoryRepositoryImpl;
+import it.unisa.ddditserver.db.gremlin.versioning.repo.GremlinRoleCache;
 import it.unisa.ddditserver.subsystems.auth.dto.UserDTO;
 import it.unisa.ddditserver.subsystems.versioning.dto.RepositoryDTO;
-import org.apache.tinkerpop.gremlin.driver.Client;
+import it.unisa.ddditserver.subsystems.versioning.dto.RepositoryRole;
+import it.unisa.ddditserver.subsystems.versioning.dto.RequestContextDTO;
 import org.apache.tinkerpop.gremlin.driver.Result;
 import org.apache.tinkerpop.gremlin.driver.ResultSet;
 import org.junit.jupiter.api.BeforeEach;
@@ -22,10 +25,13 @@ import static org.mockito.ArgumentMatchers.anyString;
 // ATTENTION: at the moment due to time restrictions only tests for happy paths are available
 class GremlinRepositoryRepositoryImplTest {
     @Mock
-    private GremlinConfig config;
+    private GremlinConnectionPool connectionPool;
 
     @Mock
-    private Client client;
+    private GremlinRoleCache roleCache;
+
+    @Mock
+    private GremlinClient client;
 
     @InjectMocks
     private GremlinRepositoryRepositoryImpl repository;
@@ -33,7 +39,7 @@ class GremlinRepositoryRepositoryImplTest {
     @BeforeEach
     void setUp() throws Exception {
         MockitoAnnotations.openMocks(this);
-        repository = new GremlinRepositoryRepositoryImpl(config);
+        repository = new GremlinRepositoryRepositoryImpl(connectionPool, roleCache);
 
         Field clientField = GremlinRepositoryRepositoryImpl.class.getDeclaredField("client");
         clientField.setAccessible(true);
@@ -46,6 +52,10 @@ class GremlinRepositoryRepositoryImplTest {
         UserDTO user = new UserDTO("user1", null);
         RepositoryDTO repo = new RepositoryDTO("repo1");
 
+        ResultSet mockResultSet = mock(ResultSet.class);
+        when(mockResultSet.all()).thenReturn(CompletableFuture.completedFuture(List.of()));
+        when(client.submit(anyString(), any(Map.class))).thenReturn(mockResultSet);
+
         assertDoesNotThrow(() -> repository.saveRepository(repo, user));
         verify(client, times(1)).submit(anyString(), any(Map.class));
     }
@@ -180,6 +190,10 @@ class GremlinRepositoryRepositoryImplTest {
         RepositoryDTO repo = new RepositoryDTO("repo1");
         UserDTO user = new UserDTO("user1", null);
 
+        ResultSet mockResultSet = mock(ResultSet.class);
+        when(mockResultSet.all()).thenReturn(CompletableFuture.completedFuture(List.of()));
+        when(client.submit(anyString(), any(Map.class))).thenReturn(mockResultSet);
+
         assertDoesNotThrow(() -> repository.addContributor(repo, user));
         verify(client, times(1)).submit(anyString(), any(Map.class));
     }
@@ -225,4 +239,34 @@ class GremlinRepositoryRepositoryImplTest {
         assertEquals("repo1", repos.get(0).getRepositoryName());
         verify(client, times(1)).submit(anyString(), any(Map.class));
     }
+
+    @Test
+    // Happy path: isOwner and isContributor answer from the role cache without querying Gremlin DB
+    void isOwnerUsesCachedRole() {
+        UserDTO user = new UserDTO("user1", null);
+        RepositoryDTO repo = new RepositoryDTO("repo1");
+        when(roleCache.get("user1", "repo1")).thenReturn(
+                new RequestContextDTO("user-id", RepositoryRole.OWNER, "repo-id", null, null, null));
+
+        assertTrue(repository.isOwner(repo, user));
+        assertFalse(repository.isContributor(repo, user));
+        verify(client, never()).submit(anyString(), any(Map.class));
+    }
+
+    @Test
+    // Happy path: addContributor invalidates the cached role of the new contributor only after the write is completed
+    void addContributorInvalidatesRole() {
+        UserDTO user = new UserDTO("user1", null);
+        RepositoryDTO repo = new RepositoryDTO("repo1");
+
+        ResultSet mockResultSet = mock(ResultSet.class);
+        when(mockResultSet.all()).thenReturn(CompletableFuture.completedFuture(List.of()));
+        when(client.submit(anyString(), any(Map.class))).thenReturn(mockResultSet);
+
+        assertDoesNotThrow(() -> repository.addContributor(repo, user));
+
+        InOrder inOrder = inOrder(mockResultSet, roleCache);
+        inOrder.verify(mockResultSet).all();
+        inOrder.verify(roleCache, times(1)).invalidate("user1", "repo1");
+    }
 }
@@ -0,0 +1,134 @@
+package it.unisa.ddditserver.db.unit.gremlin.versioning;
+
+import it.unisa.ddditserver.db.gremlin.GremlinClient;
+import it.unisa.ddditserver.db.gremlin.GremlinConnectionPool;
+import it.unisa.ddditserver.db.gremlin.versioning.context.GremlinRequestContextRepositoryImpl;
+import it.unisa.ddditserver.subsystems.versioning.dto.RepositoryRole;
+import it.unisa.ddditserver.subsystems.versioning.dto.RequestContextDTO;
+import org.apache.tinkerpop.gremlin.driver.Result;
+import org.apache.tinkerpop.gremlin.driver.ResultSet;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.*;
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+// ATTENTION: at the moment due to time restrictions only tests for happy paths are available
+class GremlinRequestContextRepositoryImplTest {
+    @Mock
+    private GremlinConnectionPool connectionPool;
+
+    @Mock
+    private GremlinClient client;
+
+    @InjectMocks
+    private GremlinRequestContextRepositoryImpl repository;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        repository = new GremlinRequestContextRepositoryImpl(connectionPool);
+
+        Field clientField = GremlinRequestContextRepositoryImpl.class.getDeclaredField("client");
+        clientField.setAccessible(true);
+        clientField.set(repository, client);
+    }
+
+    private void mockContext(Map<String, Object> context) {
+        Result mockResult = mock(Result.class);
+        when(mockResult.getObject()).thenReturn(context);
+
+        ResultSet mockResultSet = mock(ResultSet.class);
+        CompletableFuture<List<Result>> future = CompletableFuture.completedFuture(List.of(mockResult));
+        when(mockResultSet.all()).thenReturn(future);
+        when(client.submit(anyString(), any(Map.class))).thenReturn(mockResultSet);
+    }
+
+    @Test
+    // Happy path: findRequestContext resolves every vertex ID and the owner role with a single query
+    void findRequestContextReturnsOwnerContext() {
+        mockContext(Map.of(
+                "userIds", List.of("user-id"),
+                "repositoryIds", List.of("repo-id"),
+                "ownerIds", List.of("user-id"),
+                "contributorIds", List.of(),
+                "resourceIds", List.of("resource-id"),
+                "branchIds", List.of("branch-id"),
+                "versionIds", List.of("version-id")
+        ));
+
+        RequestContextDTO context = repository.findRequestContext("user1", "repo1", "resource1", "branch1", "version1");
+
+        assertEquals("user-id", context.getUserId());
+        assertEquals(RepositoryRole.OWNER, context.getRole());
+        assertEquals("repo-id", context.getRepositoryId());
+        assertEquals("resource-id", context.getResourceId());
+        assertEquals("branch-id", context.getBranchId());
+        assertEquals("version-id", context.getVersionId());
+        assertTrue(context.isMember());
+        verify(client, times(1)).submit(anyString(), any(Map.class));
+    }
+
+    @Test
+    // Happy path: findRequestContext returns null IDs for names not requested or not found
+    void findRequestContextReturnsPartialContributorContext() {
+        mockContext(Map.of(
+                "userIds", List.of("user-id"),
+                "repositoryIds", List.of("repo-id"),
+                "ownerIds", List.of(),
+                "contributorIds", List.of("user-id"),
+                "resourceIds", List.of(),
+                "branchIds", List.of(),
+                "versionIds", List.of()
+        ));
+
+        RequestContextDTO context = repository.findRequestContext("user1", "repo1", null, null, null);
+
+        assertEquals(RepositoryRole.CONTRIBUTOR, context.getRole());
+        assertEquals("repo-id", context.getRepositoryId());
+        assertNull(context.getResourceId());
+        assertNull(context.getBranchId());
+        assertNull(context.getVersionId());
+        verify(client, times(1)).submit(anyString(), any(Map.class));
+    }
+
+    @Test
+    // Happy path: findRequestContext finds a version saved without versionKey by walking the resolved branch
+    void findRequestContextFindsVersionWithoutVersionKey() {
+        Result contextResult = mock(Result.class);
+        when(contextResult.getObject()).thenReturn(Map.of(
+                "userIds", List.of("user-id"),
+                "repositoryIds", List.of("repo-id"),
+                "ownerIds", List.of("user-id"),
+                "contributorIds", List.of(),
+                "resourceIds", List.of("resource-id"),
+                "branchIds", List.of("branch-id"),
+                "versionIds", List.of()
+        ));
+        ResultSet contextResultSet = mock(ResultSet.class);
+        when(contextResultSet.all()).thenReturn(CompletableFuture.completedFuture(List.of(contextResult)));
+
+        Result versionResult = mock(Result.class);
+        when(versionResult.getObject()).thenReturn("version-id");
+        ResultSet versionResultSet = mock(ResultSet.class);
+        when(versionResultSet.all()).thenReturn(CompletableFuture.completedFuture(List.of(versionResult)));
+
+        when(client.submit(anyString(), any(Map.class))).thenReturn(contextResultSet, versionResultSet);
+
+        RequestContextDTO context = repository.findRequestContext("user1", "repo1", "resource1", "branch1", "version1");
+
+        assertEquals("version-id", context.getVersionId());
+        verify(client).submit(contains("property('versionKey', versionKey)"), eq(Map.of(
+                "branchId", "branch-id",
+                "versionName", "version1",
+                "versionKey", "repo1/resource1/branch1/version1")));
+    }
+}
@@ -1,10 +1,10 @@
 package it.unisa.ddditserver.db.unit.gremlin.versioning;
 
-import it.unisa.ddditserver.db.gremlin.GremlinConfig;
+import it.unisa.ddditserver.db.gremlin.GremlinClient;
+import it.unisa.ddditserver.db.gremlin.GremlinConnectionPool;
 import it.unisa.ddditserver.db.gremlin.versioning.resource.GremlinResourceRepositoryImpl;
 import it.unisa.ddditserver.subsystems.versioning.dto.ResourceDTO;
 import it.unisa.ddditserver.subsystems.versioning.dto.RepositoryDTO;
-import org.apache.tinkerpop.gremlin.driver.Client;
 import org.apache.tinkerpop.gremlin.driver.Result;
 import org.apache.tinkerpop.gremlin.driver.ResultSet;
 import org.junit.jupiter.api.BeforeEach;
@@ -22,10 +22,10 @@ import static org.mockito.ArgumentMatchers.anyString;
 // ATTENTION: at the moment due to time restrictions only tests for happy paths are available
 class GremlinResourceRepositoryImplTest {
     @Mock
-    private GremlinConfig config;
+    private GremlinConnectionPool connectionPool;
 
     @Mock
-    private Client client;
+    private GremlinClient client;
 
     @InjectMocks
     private GremlinResourceRepositoryImpl repository;
@@ -33,7 +33,7 @@ class GremlinResourceRepositoryImplTest {
     @BeforeEach
     void setUp() throws Exception {
         MockitoAnnotations.openMocks(this);
-        repository = new GremlinResourceRepositoryImpl(config);
+        repository = new GremlinResourceRepositoryImpl(connectionPool);
 
         Field clientField = GremlinResourceRepositoryImpl.class.getDeclaredField("client");
         clientField.setAccessible(true);
@@ -2,11 +2,14 @@ package it.unisa.ddditserver.db.unit.gremlin.versioning;
 
 import it.unisa.ddditserver.db.blobstorage.versioning.BlobStorageVersionRepository;
 import it.unisa.ddditserver.db.cosmos.versioning.CosmosVersionRepository;
-import it.unisa.ddditserver.db.gremlin.GremlinConfig;
+import it.unisa.ddditserver.db.gremlin.GremlinClient;
+import it.unisa.ddditserver.db.gremlin.GremlinConnectionPool;
 import it.unisa.ddditserver.db.gremlin.versioning.version.GremlinVersionRepositoryImpl;
 import it.unisa.ddditserver.subsystems.versioning.dto.BranchDTO;
+import it.unisa.ddditserver.subsystems.versioning.dto.ResourceDTO;
+import it.unisa.ddditserver.subsystems.versioning.dto.version.CosmosVersionDTO;
 import it.unisa.ddditserver.subsystems.versioning.dto.version.VersionDTO;
-import org.apache.tinkerpop.gremlin.driver.Client;
+import it.unisa.ddditserver.subsystems.versioning.dto.version.VersionFileDTO;
 import org.apache.tinkerpop.gremlin.driver.Result;
 import org.apache.tinkerpop.gremlin.driver.ResultSet;
 import org.junit.jupiter.api.BeforeEach;
@@ -16,15 +19,21 @@ import java.lang.reflect.Field;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 
 // ATTENTION: at the moment due to time restrictions only tests for happy paths are available
 class GremlinVersionRepositoryImplTest {
     @Mock
-    private GremlinConfig config;
+    private GremlinConnectionPool connectionPool;
 
     @Mock
     private CosmosVersionRepository cosmosService;
@@ -33,7 +42,7 @@ class GremlinVersionRepositoryImplTest {
     private BlobStorageVersionRepository blobStorageService;
 
     @Mock
-    private Client client;
+    private GremlinClient client;
 
     @InjectMocks
     private GremlinVersionRepositoryImpl repository;
@@ -41,7 +50,7 @@ class GremlinVersionRepositoryImplTest {
     @BeforeEach
     void setUp() throws Exception {
         MockitoAnnotations.openMocks(this);
-        repository = new GremlinVersionRepositoryImpl(config, cosmosService, blobStorageService);
+        repository = new GremlinVersionRepositoryImpl(connectionPool, cosmosService, blobStorageService);
 
         Field clientField = GremlinVersionRepositoryImpl.class.getDeclaredField("client");
         clientField.setAccessible(true);
@@ -78,7 +87,30 @@ class GremlinVersionRepositoryImplTest {
         boolean exists = repository.existsByVersion(version);
 
         assertFalse(exists);
-        verify(client, times(1)).submit(anyString(), any(Map.class));
+        // The key lookup is followed by the walk of the branch, since the version could be saved without a key
+        verify(client, times(2)).submit(anyString(), any(Map.class));
+    }
+
+    @Test
+    // Happy path: existsByVersion finds a version saved without versionKey by walking its branch and sets the key on it
+    void existsByVersionWithoutVersionKeyReturnTrue() throws Exception {
+        VersionDTO version = new VersionDTO("repo1", "res1", "branch1", "v1", null, null, null, null, null, null);
+
+        ResultSet emptyResultSet = mock(ResultSet.class);
+        when(emptyResultSet.all()).thenReturn(CompletableFuture.completedFuture(List.of()));
+        ResultSet mockResultSet = mock(ResultSet.class);
+        when(mockResultSet.all()).thenReturn(CompletableFuture.completedFuture(List.of(mock(Result.class))));
+        when(client.submit(anyString(), any(Map.class))).thenReturn(emptyResultSet, mockResultSet);
+
+        assertTrue(repository.existsByVersion(version));
+
+        ArgumentCaptor<String> queries = ArgumentCaptor.forClass(String.class);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<String, Object>> parameters = ArgumentCaptor.forClass(Map.class);
+        verify(client, times(2)).submit(queries.capture(), parameters.capture());
+        assertTrue(queries.getAllValues().get(1).contains("has('versionName', versionName)"));
+        assertTrue(queries.getAllValues().get(1).contains("property('versionKey', versionKey)"));
+        assertEquals("repo1/res1/branch1/v1", parameters.getAllValues().get(1).get("versionKey"));
     }
 
     @Test
@@ -124,4 +156,191 @@ class GremlinVersionRepositoryImplTest {
         assertEquals("v1", versions.get(0).getVersionName());
         verify(client, times(1)).submit(anyString(), any(Map.class));
     }
+
+    @Test
+    // Happy path: saveVersion reads the last version from the branch pointer and appends with a single traversal
+    void saveVersionWithLastVersionPointerSuccess() throws Exception {
+        VersionDTO version = new VersionDTO("repo1", "res1", "branch1", "v1", null, null, null, null, null, null);
+        when(blobStorageService.saveMesh(version)).thenReturn(Map.of("mesh.fbx", "hash"));
+        when(cosmosService.saveVersion(version, null, Map.of("mesh.fbx", "hash"))).thenReturn("cosmosUrl");
+
+        Result mockResult = mock(Result.class);
+        when(mockResult.getObject()).thenReturn("lastVersionId");
+
+        ResultSet mockResultSet = mock(ResultSet.class);
+        CompletableFuture<List<Result>> future = CompletableFuture.completedFuture(List.of(mockResult));
+        when(mockResultSet.all()).thenReturn(future);
+        when(client.submit(anyString(), any(Map.class))).thenReturn(mockResultSet);
+
+        assertDoesNotThrow(() -> repository.saveVersion(version, true, "branchId"));
+        verify(client, times(1)).submit(anyString(), any(Map.class));
+        verify(blobStorageService, never()).releaseMesh(any());
+    }
+
+    @Test
+    // Happy path: saveVersion repairs a missing branch pointer and appends again when the first append finds no tail
+    void saveVersionWithoutLastVersionPointerSuccess() throws Exception {
+        VersionDTO version = new VersionDTO("repo1", "res1", "branch1", "v1", null, null, null, null, null, null);
+        when(blobStorageService.saveMesh(version)).thenReturn(Map.of("mesh.fbx", "hash"));
+        when(cosmosService.saveVersion(version, null, Map.of("mesh.fbx", "hash"))).thenReturn("cosmosUrl");
+
+        Result mockResult = mock(Result.class);
+        when(mockResult.getObject()).thenReturn("versionId");
+
+        ResultSet emptyResultSet = mock(ResultSet.class);
+        when(emptyResultSet.all()).thenReturn(CompletableFuture.completedFuture(List.of()));
+        ResultSet mockResultSet = mock(ResultSet.class);
+        when(mockResultSet.all()).thenReturn(CompletableFuture.completedFuture(List.of(mockResult)));
+        when(client.submit(anyString(), any(Map.class))).thenReturn(emptyResultSet, mockResultSet);
+
+        assertEquals("cosmosUrl", repository.saveVersion(version, true, "branchId"));
+        // Append, tail lookup and pointer of the repair, append again
+        verify(client, times(4)).submit(anyString(), any(Map.class));
+        verify(blobStorageService, never()).releaseMesh(any());
+    }
+
+    @Test
+    // Happy path: saveVersion merges a chain forked by concurrent appends and appends after the merged tail
+    void saveVersionWithForkedChainSuccess() throws Exception {
+        VersionDTO version = new VersionDTO("repo1", "res1", "branch1", "v1", null, null, null, null, null, null);
+        when(blobStorageService.saveMesh(version)).thenReturn(Map.of("mesh.fbx", "hash"));
+        when(cosmosService.saveVersion(version, null, Map.of("mesh.fbx", "hash"))).thenReturn("cosmosUrl");
+
+        Result firstTail = mock(Result.class);
+        when(firstTail.getObject()).thenReturn("tailA");
+        Result secondTail = mock(Result.class);
+        when(secondTail.getObject()).thenReturn("tailB");
+
+        ResultSet emptyResultSet = mock(ResultSet.class);
+        when(emptyResultSet.all()).thenReturn(CompletableFuture.completedFuture(List.of()));
+        ResultSet forkedResultSet = mock(ResultSet.class);
+        when(forkedResultSet.all()).thenReturn(CompletableFuture.completedFuture(List.of(secondTail, firstTail)));
+        ResultSet mockResultSet = mock(ResultSet.class);
+        when(mockResultSet.all()).thenReturn(CompletableFuture.completedFuture(List.of(mock(Result.class))));
+        when(client.submit(anyString(), any(Map.class))).thenReturn(emptyResultSet, forkedResultSet, mockResultSet);
+
+        assertEquals("cosmosUrl", repository.saveVersion(version, true, "branchId"));
+        // Append, tail lookup, merge of the extra tail, pointer, append again
+        verify(client, times(5)).submit(anyString(), any(Map.class));
+        verify(client).submit(anyString(), eq(Map.of("previousId", "tailA", "tailId", "tailB")));
+        verify(client).submit(anyString(), eq(Map.of("branchId", "branchId", "lastVersionId", "tailB")));
+        verify(blobStorageService, never()).releaseMesh(any());
+    }
+
+    @Test
+    // Concurrent appends to the same branch on this instance are serialized, so they can't read the same tail
+    void saveVersionSerializesAppendsPerBranch() throws Exception {
+        VersionDTO version = new VersionDTO("repo1", "res1", "branch1", "v1", null, null, null, null, null, null);
+        when(blobStorageService.saveMesh(version)).thenReturn(Map.of("mesh.fbx", "hash"));
+        when(cosmosService.saveVersion(version, null, Map.of("mesh.fbx", "hash"))).thenReturn("cosmosUrl");
+
+        ResultSet mockResultSet = mock(ResultSet.class);
+        when(mockResultSet.all()).thenReturn(CompletableFuture.completedFuture(List.of(mock(Result.class))));
+
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        when(client.submit(anyString(), any(Map.class))).thenAnswer(invocation -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.sleep(50);
+            running.decrementAndGet();
+            return mockResultSet;
+        });
+
+        ExecutorService pushers = Executors.newFixedThreadPool(2);
+
+        try {
+            Future<String> first = pushers.submit(() -> repository.saveVersion(version, true, "branchId"));
+            Future<String> second = pushers.submit(() -> repository.saveVersion(version, true, "branchId"));
+
+            assertEquals("cosmosUrl", first.get(5, TimeUnit.SECONDS));
+            assertEquals("cosmosUrl", second.get(5, TimeUnit.SECONDS));
+        } finally {
+            pushers.shutdownNow();
+        }
+
+        assertEquals(1, maxRunning.get());
+    }
+
+    @Test
+    // Happy path: saveUploadedMeshVersion stores the version of a mesh already uploaded without uploading it again
+    void saveUploadedMeshVersionSuccess() throws Exception {
+        VersionDTO version = new VersionDTO("repo1", "res1", "branch1", "v1", null, null, null, null, null, null);
+        when(cosmosService.saveVersion(version, "blobUrl", null)).thenReturn("cosmosUrl");
+
+        Result mockResult = mock(Result.class);
+        when(mockResult.getObject()).thenReturn("lastVersionId");
+
+        ResultSet mockResultSet = mock(ResultSet.class);
+        CompletableFuture<List<Result>> future = CompletableFuture.completedFuture(List.of(mockResult));
+        when(mockResultSet.all()).thenReturn(future);
+        when(client.submit(anyString(), any(Map.class))).thenReturn(mockResultSet);
+
+        assertEquals("cosmosUrl", repository.saveUploadedMeshVersion(version, "blobUrl", "branchId"));
+        verify(blobStorageService, never()).saveMesh(any(VersionDTO.class));
+        verify(blobStorageService, never()).deleteMeshByUrl(anyString());
+    }
+
+    @Test
+    // Happy path: repairLastVersion returns the ID of the last version of the branch
+    void repairLastVersionSuccess() {
+        Result mockResult = mock(Result.class);
+        when(mockResult.getObject()).thenReturn("lastVersionId");
+
+        ResultSet mockResultSet = mock(ResultSet.class);
+        CompletableFuture<List<Result>> future = CompletableFuture.completedFuture(List.of(mockResult));
+        when(mockResultSet.all()).thenReturn(future);
+        when(client.submit(anyString(), any(Map.class))).thenReturn(mockResultSet);
+
+        String lastVersionId = repository.repairLastVersion("branchId");
+
+        assertEquals("lastVersionId", lastVersionId);
+        // Tail lookup and pointer, no merge for a chain with a single tail
+        verify(client, times(2)).submit(anyString(), any(Map.class));
+    }
+
+    @Test
+    // Happy path: findVersionTreeByResource returns every branch with its ordered versions using a single query
+    void findVersionTreeByResourceSuccess() {
+        ResourceDTO resource = new ResourceDTO("repo1", "res1");
+
+        Result mockResult = mock(Result.class);
+        when(mockResult.getObject()).thenReturn(Map.of(
+                "main", List.of("v1", "v2"),
+                "dev", List.of()));
+
+        ResultSet mockResultSet = mock(ResultSet.class);
+        CompletableFuture<List<Result>> future = CompletableFuture.completedFuture(List.of(mockResult));
+        when(mockResultSet.all()).thenReturn(future);
+        when(client.submit(anyString(), any(Map.class))).thenReturn(mockResultSet);
+
+        Map<String, List<String>> versionTree = repository.findVersionTreeByResource(resource, null);
+
+        assertEquals(List.of("v1", "v2"), versionTree.get("main"));
+        assertEquals(List.of(), versionTree.get("dev"));
+        verify(client, times(1)).submit(anyString(), any(Map.class));
+    }
+
+    @Test
+    // Happy path: getMeshPropertiesByVersionId reads the mesh of a content-addressed version by its hash
+    void getMeshPropertiesByVersionIdSuccess() {
+        Result mockResult = mock(Result.class);
+        when(mockResult.getObject()).thenReturn(Map.of(
+                "cosmosDocumentUrl", List.of("cosmosUrl"),
+                "resourceType", List.of("mesh")));
+
+        ResultSet mockResultSet = mock(ResultSet.class);
+        CompletableFuture<List<Result>> future = CompletableFuture.completedFuture(List.of(mockResult));
+        when(mockResultSet.all()).thenReturn(future);
+        when(client.submit(anyString(), any(Map.class))).thenReturn(mockResultSet);
+
+        CosmosVersionDTO document = new CosmosVersionDTO();
+        document.setContentHashes(Map.of("mesh.fbx", "hash"));
+        when(cosmosService.findVersionDocumentByUrl("cosmosUrl")).thenReturn(document);
+
+        VersionFileDTO meshFile = new VersionFileDTO("mesh.fbx", "application/octet-stream", 3L, "blobUrl", null);
+        when(blobStorageService.findMeshPropertiesByHash("mesh.fbx", "hash")).thenReturn(meshFile);
+
+        assertEquals(meshFile, repository.getMeshPropertiesByVersionId("versionId"));
+        verify(blobStorageService, never()).findMeshByHash(anyString(), anyString());
+    }
 }
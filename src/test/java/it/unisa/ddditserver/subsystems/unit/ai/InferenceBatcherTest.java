@@ -0,0 +1,150 @@
+package it.unisa.ddditserver.subsystems.unit.ai;
+
+import ai.onnxruntime.OrtSession;
+import it.unisa.ddditserver.subsystems.ai.exceptions.TagClassificationException;
+import it.unisa.ddditserver.subsystems.ai.service.InferenceBatcher;
+import it.unisa.ddditserver.subsystems.ai.service.OnnxSessionRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class InferenceBatcherTest {
+    private ExecutorService executor;
+    private OnnxSessionRegistry.OnnxModels models;
+    private OrtSession session;
+    private List<float[][]> batches;
+    private AtomicInteger runs;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(2);
+        models = mock(OnnxSessionRegistry.OnnxModels.class);
+        when(models.retain()).thenReturn(models);
+        session = mock(OrtSession.class);
+        batches = new CopyOnWriteArrayList<>();
+        runs = new AtomicInteger();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    // Predicts the first feature of every row, so each request can check it received its own row
+    private long[] run(float[][] inputFeatures, String modelName, OrtSession session) {
+        runs.incrementAndGet();
+        batches.add(inputFeatures);
+
+        long[] predictions = new long[inputFeatures.length];
+
+        for (int i = 0; i < inputFeatures.length; i++) {
+            predictions[i] = (long) inputFeatures[i][0];
+        }
+
+        return predictions;
+    }
+
+    @Test
+    // Happy path: two classifications submitted concurrently on the same model share a single run of the session
+    void concurrentInferencesShareOneRun() throws Exception {
+        InferenceBatcher batcher = new InferenceBatcher(executor, this::run, 2, 10000);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService classifications = Executors.newFixedThreadPool(2);
+
+        try {
+            Future<Long> first = classifications.submit(() -> {
+                start.await();
+                return batcher.submit(models, "model_a_tag.onnx", session, new float[]{1}).get(5, TimeUnit.SECONDS);
+            });
+            Future<Long> second = classifications.submit(() -> {
+                start.await();
+                return batcher.submit(models, "model_a_tag.onnx", session, new float[]{2}).get(5, TimeUnit.SECONDS);
+            });
+
+            start.countDown();
+
+            assertEquals(1L, first.get(5, TimeUnit.SECONDS));
+            assertEquals(2L, second.get(5, TimeUnit.SECONDS));
+            assertEquals(1, runs.get());
+            assertEquals(2, batches.get(0).length);
+            // References are released right after the predictions are completed
+            verify(models, timeout(5000).times(2)).close();
+        } finally {
+            classifications.shutdownNow();
+            batcher.shutdown();
+        }
+    }
+
+    @Test
+    // Happy path: a single inference is run alone once the maximum wait has elapsed
+    void singleInferenceRunAfterWait() throws Exception {
+        InferenceBatcher batcher = new InferenceBatcher(executor, this::run, 16, 10);
+
+        try {
+            assertEquals(3L, batcher.submit(models, "model_a_tag.onnx", session, new float[]{3}).get(5, TimeUnit.SECONDS));
+            assertEquals(1, runs.get());
+            assertEquals(1, batches.get(0).length);
+        } finally {
+            batcher.shutdown();
+        }
+    }
+
+    @Test
+    // Inferences on different models are never run in the same batch
+    void inferencesOnDifferentModelsRunApart() throws Exception {
+        InferenceBatcher batcher = new InferenceBatcher(executor, this::run, 2, 10);
+        OrtSession otherSession = mock(OrtSession.class);
+
+        try {
+            CompletableFuture<Long> first = batcher.submit(models, "model_a_tag.onnx", session, new float[]{1});
+            CompletableFuture<Long> second = batcher.submit(models, "model_b_tag.onnx", otherSession, new float[]{0});
+
+            assertEquals(1L, first.get(5, TimeUnit.SECONDS));
+            assertEquals(0L, second.get(5, TimeUnit.SECONDS));
+            assertEquals(2, runs.get());
+        } finally {
+            batcher.shutdown();
+        }
+    }
+
+    @Test
+    // An inference cancelled before its batch has run is left out of the batch and releases its sessions
+    void cancelledInferenceLeftOutOfBatch() throws Exception {
+        InferenceBatcher batcher = new InferenceBatcher(executor, this::run, 16, 200);
+
+        try {
+            CompletableFuture<Long> cancelled = batcher.submit(models, "model_a_tag.onnx", session, new float[]{1});
+            CompletableFuture<Long> kept = batcher.submit(models, "model_a_tag.onnx", session, new float[]{2});
+            cancelled.cancel(false);
+
+            assertEquals(2L, kept.get(5, TimeUnit.SECONDS));
+            assertEquals(1, batches.get(0).length);
+            // References are released right after the predictions are completed
+            verify(models, timeout(5000).times(2)).close();
+        } finally {
+            batcher.shutdown();
+        }
+    }
+
+    @Test
+    // A batch rejected by a full executor fails every inference with a classification error
+    void rejectedBatchFailsInferences() {
+        executor.shutdownNow();
+        InferenceBatcher batcher = new InferenceBatcher(executor, this::run, 1, 10);
+
+        try {
+            CompletableFuture<Long> prediction = batcher.submit(models, "model_a_tag.onnx", session, new float[]{1});
+            ExecutionException e = assertThrows(ExecutionException.class, () -> prediction.get(5, TimeUnit.SECONDS));
+
+            assertInstanceOf(TagClassificationException.class, e.getCause());
+            assertEquals(0, runs.get());
+        } finally {
+            batcher.shutdown();
+        }
+    }
+}
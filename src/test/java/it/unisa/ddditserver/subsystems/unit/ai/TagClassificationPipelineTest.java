@@ -0,0 +1,200 @@
+package it.unisa.ddditserver.subsystems.unit.ai;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import it.unisa.ddditserver.db.blobstorage.versioning.BlobStorageVersionRepository;
+import it.unisa.ddditserver.db.cosmos.versioning.CosmosVersionRepository;
+import it.unisa.ddditserver.subsystems.ai.TagClassificationModelConfig;
+import it.unisa.ddditserver.subsystems.ai.exceptions.TagClassificationException;
+import it.unisa.ddditserver.subsystems.ai.exceptions.TagClassificationUnavailableException;
+import it.unisa.ddditserver.subsystems.ai.service.TagClassificationPipeline;
+import it.unisa.ddditserver.subsystems.ai.service.TagClassificationService;
+import it.unisa.ddditserver.subsystems.versioning.dto.version.CosmosVersionDTO;
+import it.unisa.ddditserver.subsystems.versioning.dto.version.TagsStatus;
+import it.unisa.ddditserver.subsystems.versioning.dto.version.VersionFileDTO;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class TagClassificationPipelineTest {
+    @Mock
+    private TagClassificationModelConfig config;
+
+    @Mock
+    private TagClassificationService tagClassificationService;
+
+    @Mock
+    private CosmosVersionRepository cosmosVersionRepository;
+
+    @Mock
+    private BlobStorageVersionRepository blobStorageVersionRepository;
+
+    @TempDir
+    Path folder;
+
+    private SimpleMeterRegistry meterRegistry;
+    private TagClassificationPipeline pipeline;
+    private Path spool;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        when(config.getClassificationPipelineWorkers()).thenReturn(2);
+        when(config.getClassificationJournalPath()).thenReturn(folder.resolve("journal").toString());
+        when(config.getClassificationMaxAttempts()).thenReturn(2);
+        when(config.getClassificationRetryDelayMs()).thenReturn(0L);
+
+        meterRegistry = new SimpleMeterRegistry();
+        pipeline = new TagClassificationPipeline(config, tagClassificationService,
+                cosmosVersionRepository, blobStorageVersionRepository, meterRegistry);
+        pipeline.init();
+
+        spool = Files.write(folder.resolve("mesh.fbx"), new byte[]{1, 2, 3});
+    }
+
+    @AfterEach
+    void tearDown() {
+        pipeline.shutdown();
+    }
+
+    // The journal and the metrics are updated by the worker right after the document
+    private void await(BooleanSupplier condition) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private long journalSize() throws Exception {
+        try (var entries = Files.list(folder.resolve("journal"))) {
+            return entries.count();
+        }
+    }
+
+    @Test
+    // Happy path: a classified mesh completes its tags and leaves nothing in the journal
+    void submitCompletesTags() throws Exception {
+        when(tagClassificationService.classify(eq("hash"), any())).thenAnswer(invocation -> {
+            TagClassificationService.MeshSource meshSource = invocation.getArgument(1);
+            Pair<InputStream, VersionFileDTO> mesh = meshSource.open();
+
+            try (InputStream inputStream = mesh.getLeft()) {
+                assertArrayEquals(new byte[]{1, 2, 3}, inputStream.readAllBytes());
+            }
+
+            assertEquals(3L, mesh.getRight().getSize());
+            assertEquals("mesh.fbx", mesh.getRight().getFileName());
+            return List.of("tag");
+        });
+
+        pipeline.submit("cosmosUrl", spool, "hash");
+
+        verify(cosmosVersionRepository, timeout(5000)).updateTags("cosmosUrl", List.of("tag"), TagsStatus.COMPLETE);
+        verify(tagClassificationService, times(1)).classify(any(), any());
+        await(() -> !Files.exists(spool));
+        assertFalse(Files.exists(spool));
+        assertEquals(0, journalSize());
+    }
+
+    @Test
+    // A rejected classification is retried instead of being marked as failed
+    void rejectedClassificationRetried() {
+        when(tagClassificationService.classify(any(), any()))
+                .thenThrow(new TagClassificationUnavailableException("Too many classifications in progress, retry later"))
+                .thenReturn(List.of("tag"));
+
+        pipeline.submit("cosmosUrl", spool, null);
+
+        verify(cosmosVersionRepository, timeout(5000)).updateTags("cosmosUrl", List.of("tag"), TagsStatus.COMPLETE);
+        verify(cosmosVersionRepository, never()).updateTags(anyString(), anyList(), eq(TagsStatus.FAILED));
+        assertEquals(1.0, meterRegistry.counter("ai.classification.pipeline.retried").count());
+    }
+
+    @Test
+    // A mesh that can't be imported is marked as failed without retrying
+    void invalidMeshFailed() throws Exception {
+        when(tagClassificationService.classify(any(), any()))
+                .thenThrow(new TagClassificationException("Error during fbx file reading"));
+
+        pipeline.submit("cosmosUrl", spool, null);
+
+        verify(cosmosVersionRepository, timeout(5000)).updateTags("cosmosUrl", List.of(), TagsStatus.FAILED);
+        verify(tagClassificationService, times(1)).classify(any(), any());
+        assertEquals(0.0, meterRegistry.counter("ai.classification.pipeline.retried").count());
+    }
+
+    @Test
+    // A classification still unavailable after the last attempt is marked as failed and removed from the journal
+    void exhaustedClassificationFailed() throws Exception {
+        when(tagClassificationService.classify(any(), any()))
+                .thenThrow(new TagClassificationUnavailableException("Model not completed within the timeout"));
+
+        pipeline.submit("cosmosUrl", spool, null);
+
+        verify(cosmosVersionRepository, timeout(5000)).updateTags("cosmosUrl", List.of(), TagsStatus.FAILED);
+        verify(tagClassificationService, times(2)).classify(any(), any());
+        assertEquals(1.0, meterRegistry.counter("ai.classification.pipeline.exhausted").count());
+        assertEquals(0.0, meterRegistry.get("ai.classification.pipeline.stuck").gauge().value());
+    }
+
+    @Test
+    // A classification whose document can't be updated after the last attempt stays in the journal and is reported as stuck
+    void exhaustedClassificationStuck() throws Exception {
+        when(tagClassificationService.classify(any(), any())).thenReturn(List.of("tag"));
+        doThrow(new RuntimeException("CosmosDB not available"))
+                .when(cosmosVersionRepository).updateTags(anyString(), anyList(), any(TagsStatus.class));
+
+        pipeline.submit("cosmosUrl", spool, null);
+
+        verify(cosmosVersionRepository, timeout(5000).times(3)).updateTags(anyString(), anyList(), any(TagsStatus.class));
+        await(() -> meterRegistry.get("ai.classification.pipeline.stuck").gauge().value() == 1);
+
+        assertEquals(1.0, meterRegistry.get("ai.classification.pipeline.stuck").gauge().value());
+        assertEquals(1, journalSize());
+        assertTrue(Files.exists(spool));
+    }
+
+    @Test
+    // A version resumed from the journal without its local copy is classified with the content hash recorded at the push
+    void resumedEntryKeepsContentHash() throws Exception {
+        pipeline.shutdown();
+        Files.writeString(folder.resolve("journal").resolve("entry.job"), "cosmosUrl\n\nhash", StandardCharsets.UTF_8);
+        when(cosmosVersionRepository.findVersionDocumentByUrl("cosmosUrl")).thenReturn(new CosmosVersionDTO());
+        when(tagClassificationService.classify(eq("hash"), any())).thenReturn(List.of("tag"));
+
+        pipeline = new TagClassificationPipeline(config, tagClassificationService,
+                cosmosVersionRepository, blobStorageVersionRepository, meterRegistry);
+        pipeline.init();
+
+        verify(cosmosVersionRepository, timeout(5000)).updateTags("cosmosUrl", List.of("tag"), TagsStatus.COMPLETE);
+        verify(blobStorageVersionRepository, never()).findMeshByUrl(anyString());
+    }
+
+    @Test
+    // A content-addressed mesh is classified with the hash of its CosmosDB document, so a cached mesh is not downloaded
+    void blobClassifiedWithDocumentHash() throws Exception {
+        CosmosVersionDTO cosmosVersion = new CosmosVersionDTO();
+        cosmosVersion.setContentHashes(Map.of("mesh.fbx", "documentHash"));
+        when(cosmosVersionRepository.findVersionDocumentByUrl("cosmosUrl")).thenReturn(cosmosVersion);
+        when(tagClassificationService.classify(eq("documentHash"), any())).thenReturn(List.of("tag"));
+
+        pipeline.submit("cosmosUrl");
+
+        verify(cosmosVersionRepository, timeout(5000)).updateTags("cosmosUrl", List.of("tag"), TagsStatus.COMPLETE);
+        verify(blobStorageVersionRepository, never()).findMeshByHash(anyString(), anyString());
+    }
+}
@@ -0,0 +1,78 @@
+package it.unisa.ddditserver.subsystems.unit.ai;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import it.unisa.ddditserver.subsystems.ai.TagClassificationModelConfig;
+import it.unisa.ddditserver.subsystems.ai.alert.InferenceAlertService;
+import it.unisa.ddditserver.subsystems.ai.exceptions.TagClassificationUnavailableException;
+import it.unisa.ddditserver.subsystems.ai.service.MeshClassificationCache;
+import it.unisa.ddditserver.subsystems.ai.service.OnnxSessionRegistry;
+import it.unisa.ddditserver.subsystems.ai.service.TagClassificationServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import java.io.IOException;
+import java.util.Map;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TagClassificationServiceImplTest {
+    @Mock
+    private TagClassificationModelConfig config;
+
+    @Mock
+    private OnnxSessionRegistry sessionRegistry;
+
+    @Mock
+    private OnnxSessionRegistry.OnnxModels models;
+
+    @Mock
+    private InferenceAlertService alertService;
+
+    private MeshClassificationCache classificationCache;
+    private TagClassificationServiceImpl tagClassificationService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(config.getClassificationThreads()).thenReturn(1);
+        when(config.getClassificationQueueCapacity()).thenReturn(8);
+        when(config.getClassificationBatchMaxSize()).thenReturn(1);
+        when(config.getClassificationBatchMaxWaitMs()).thenReturn(10L);
+        when(config.getClassificationModelTimeoutMs()).thenReturn(5000L);
+        when(config.getClassificationCacheMaxSize()).thenReturn(16L);
+        // No model is loaded, so the classification ends right after the mesh is found or imported
+        when(sessionRegistry.acquire()).thenReturn(models);
+        when(models.getSessions()).thenReturn(Map.of());
+        when(models.getVersions()).thenReturn(Map.of());
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        classificationCache = new MeshClassificationCache(config, meterRegistry);
+        tagClassificationService = new TagClassificationServiceImpl(config, sessionRegistry, classificationCache,
+                alertService, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        tagClassificationService.shutdown();
+    }
+
+    @Test
+    // Happy path: a mesh whose content hash is already cached is classified without being opened
+    void cachedHashNeverOpensMesh() {
+        classificationCache.put("hash", new float[8]);
+
+        assertTrue(tagClassificationService.classify("hash", () -> {
+            throw new AssertionError("A cached mesh must not be read");
+        }).isEmpty());
+    }
+
+    @Test
+    // A mesh that can't be opened is reported as unavailable, so the classification is retried
+    void unopenedMeshUnavailable() {
+        assertThrows(TagClassificationUnavailableException.class, () -> tagClassificationService.classify("hash", () -> {
+            throw new IOException("Connection reset");
+        }));
+    }
+}
@@ -0,0 +1,237 @@
+package it.unisa.ddditserver.subsystems.unit.versioning;
+
+import it.unisa.ddditserver.db.blobstorage.versioning.BlobStorageVersionRepository;
+import it.unisa.ddditserver.db.gremlin.versioning.version.GremlinVersionRepository;
+import it.unisa.ddditserver.subsystems.ai.service.TagClassificationPipeline;
+import it.unisa.ddditserver.subsystems.versioning.VersioningConfig;
+import it.unisa.ddditserver.subsystems.versioning.dto.RequestContextDTO;
+import it.unisa.ddditserver.subsystems.versioning.dto.version.UploadSessionDTO;
+import it.unisa.ddditserver.subsystems.versioning.dto.version.VersionDTO;
+import it.unisa.ddditserver.subsystems.versioning.exceptions.version.InvalidMeshException;
+import it.unisa.ddditserver.subsystems.versioning.exceptions.version.UploadSessionNotFoundException;
+import it.unisa.ddditserver.subsystems.versioning.exceptions.version.VersionException;
+import it.unisa.ddditserver.subsystems.versioning.service.context.RequestContextResolver;
+import it.unisa.ddditserver.subsystems.versioning.service.version.UploadSessionServiceImpl;
+import it.unisa.ddditserver.validators.auth.JWT.JWTokenValidator;
+import it.unisa.ddditserver.validators.versioning.version.VersionValidator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class UploadSessionServiceImplTest {
+    @Mock
+    private GremlinVersionRepository gremlinVersionRepository;
+
+    @Mock
+    private BlobStorageVersionRepository blobStorageVersionRepository;
+
+    @Mock
+    private RequestContextResolver requestContextResolver;
+
+    @Mock
+    private JWTokenValidator jwTokenValidator;
+
+    @Mock
+    private VersionValidator versionValidator;
+
+    @Mock
+    private TagClassificationPipeline tagClassificationPipeline;
+
+    @Mock
+    private VersioningConfig versioningConfig;
+
+    @InjectMocks
+    private UploadSessionServiceImpl uploadSessionService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(jwTokenValidator.isTokenValid("token")).thenReturn("user");
+        when(jwTokenValidator.isTokenValid("otherToken")).thenReturn("otherUser");
+        when(requestContextResolver.authorize(eq("user"), eq("repo"), eq("resource"), eq("main"), anyString(), eq(false)))
+                .thenReturn(new RequestContextDTO("userId", null, "repoId", "resourceId", "branchId", null));
+        when(versioningConfig.getUploadSessionMaxCount()).thenReturn(100L);
+        when(versioningConfig.getUploadSessionTtlSeconds()).thenReturn(3600L);
+        when(versioningConfig.getUploadChunkMaxBytes()).thenReturn(1024L);
+
+        uploadSessionService.init();
+    }
+
+    private String openSession(long meshSize) {
+        UploadSessionDTO uploadSessionDTO = new UploadSessionDTO("repo", "resource", "main", "version", "comment",
+                "mesh.fbx", meshSize, "model/fbx");
+
+        return (String) uploadSessionService.openSession(uploadSessionDTO, "token").getBody().get("sessionId");
+    }
+
+    private Map<String, Object> uploadChunk(String sessionId, int chunkIndex, int chunkSize) {
+        return uploadSessionService.uploadChunk(sessionId, chunkIndex, new ByteArrayInputStream(new byte[chunkSize]),
+                chunkSize, null, "token").getBody();
+    }
+
+    @Test
+    // Happy path: a session is opened for a generated version name after checking the mesh and the permissions
+    void openSessionSuccess() {
+        UploadSessionDTO uploadSessionDTO = new UploadSessionDTO("repo", "resource", "main", "version", "comment",
+                "mesh.fbx", 10L, "model/fbx");
+
+        Map<String, Object> response = uploadSessionService.openSession(uploadSessionDTO, "token").getBody();
+
+        assertNotNull(response.get("sessionId"));
+        assertEquals(1024L, response.get("chunkMaxBytes"));
+        verify(versionValidator).validateStreamedMeshData(any(), eq("mesh.fbx"), eq(10L));
+        verify(requestContextResolver).authorize(eq("user"), eq("repo"), eq("resource"), eq("main"), startsWith("ver"), eq(false));
+    }
+
+    @Test
+    // Happy path: contiguous chunks with the declared size are committed as a version and submitted to the classification
+    void commitSessionSuccess() {
+        when(blobStorageVersionRepository.commitMeshChunks(any(VersionDTO.class), eq("mesh.fbx"), eq(2), eq("model/fbx")))
+                .thenReturn("meshUrl");
+        when(gremlinVersionRepository.saveUploadedMeshVersion(any(VersionDTO.class), eq("meshUrl"), eq("branchId")))
+                .thenReturn("cosmosUrl");
+        String sessionId = openSession(10L);
+
+        uploadChunk(sessionId, 1, 4);
+        assertEquals(10L, uploadChunk(sessionId, 0, 6).get("receivedBytes"));
+        uploadSessionService.commitSession(sessionId, "token");
+
+        verify(tagClassificationPipeline).submit("cosmosUrl");
+        // The session is closed once committed
+        assertThrows(UploadSessionNotFoundException.class, () -> uploadSessionService.showSession(sessionId, "token"));
+    }
+
+    @Test
+    // A chunk sent again replaces the size of the previous upload instead of adding to it
+    void reuploadedChunkReplacesSize() {
+        String sessionId = openSession(10L);
+
+        uploadChunk(sessionId, 0, 6);
+        uploadChunk(sessionId, 0, 6);
+
+        Map<String, Object> session = uploadSessionService.showSession(sessionId, "token").getBody();
+        assertEquals(6L, session.get("receivedBytes"));
+        assertEquals(List.of(0), session.get("chunks"));
+    }
+
+    @Test
+    // A mesh with a hole between its chunks is not committed
+    void commitWithMissingChunkFails() {
+        String sessionId = openSession(10L);
+
+        uploadChunk(sessionId, 0, 5);
+        uploadChunk(sessionId, 2, 5);
+
+        assertThrows(InvalidMeshException.class, () -> uploadSessionService.commitSession(sessionId, "token"));
+        verify(blobStorageVersionRepository, never()).commitMeshChunks(any(), anyString(), anyInt(), anyString());
+    }
+
+    @Test
+    // Chunks beyond the declared size of the mesh are rejected before being staged
+    void chunkExceedingDeclaredSizeFails() {
+        String sessionId = openSession(10L);
+        uploadChunk(sessionId, 0, 6);
+
+        assertThrows(InvalidMeshException.class, () -> uploadChunk(sessionId, 1, 6));
+        verify(blobStorageVersionRepository, times(1)).stageMeshChunk(any(), anyString(), anyInt(), any(), anyLong(), any());
+    }
+
+    @Test
+    // Chunks staged at the same time are reserved, so together they can't exceed the declared size or be committed halfway
+    void concurrentChunksReserveDeclaredSize() throws Exception {
+        CountDownLatch staging = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            staging.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(blobStorageVersionRepository).stageMeshChunk(any(), anyString(), eq(0), any(), anyLong(), any());
+        String sessionId = openSession(10L);
+        ExecutorService uploader = Executors.newSingleThreadExecutor();
+
+        try {
+            Future<Map<String, Object>> first = uploader.submit(() -> uploadChunk(sessionId, 0, 6));
+            assertTrue(staging.await(5, TimeUnit.SECONDS));
+
+            assertThrows(InvalidMeshException.class, () -> uploadChunk(sessionId, 1, 6));
+            assertThrows(InvalidMeshException.class, () -> uploadChunk(sessionId, 0, 6));
+            assertThrows(InvalidMeshException.class, () -> uploadSessionService.commitSession(sessionId, "token"));
+
+            release.countDown();
+            assertEquals(6L, first.get(5, TimeUnit.SECONDS).get("receivedBytes"));
+        } finally {
+            uploader.shutdownNow();
+        }
+
+        assertEquals(10L, uploadChunk(sessionId, 1, 4).get("receivedBytes"));
+    }
+
+    @Test
+    // A chunk whose staging failed is not recorded, so it can be sent again
+    void failedChunkNotRecorded() {
+        doThrow(new VersionException("Error staging mesh chunk in BLOB storage"))
+                .when(blobStorageVersionRepository).stageMeshChunk(any(), anyString(), eq(0), any(), anyLong(), any());
+        String sessionId = openSession(10L);
+
+        assertThrows(VersionException.class, () -> uploadChunk(sessionId, 0, 6));
+
+        Map<String, Object> session = uploadSessionService.showSession(sessionId, "token").getBody();
+        assertEquals(0L, session.get("receivedBytes"));
+        assertEquals(List.of(), session.get("chunks"));
+    }
+
+    @Test
+    // A malformed Content-MD5 is rejected before the chunk is staged
+    void invalidContentMd5Fails() {
+        String sessionId = openSession(10L);
+
+        assertThrows(InvalidMeshException.class, () -> uploadSessionService.uploadChunk(sessionId, 0,
+                new ByteArrayInputStream(new byte[5]), 5, "not base64!", "token"));
+        verify(blobStorageVersionRepository, never()).stageMeshChunk(any(), anyString(), anyInt(), any(), anyLong(), any());
+    }
+
+    @Test
+    // A session of another user is reported as missing, so session IDs can't be probed
+    void sessionOfAnotherUserNotFound() {
+        String sessionId = openSession(10L);
+
+        assertThrows(UploadSessionNotFoundException.class, () -> uploadSessionService.showSession(sessionId, "otherToken"));
+        assertThrows(UploadSessionNotFoundException.class, () -> uploadSessionService.abortSession(sessionId, "otherToken"));
+    }
+
+    @Test
+    // An aborted session discards its staged chunks
+    void abortSessionDiscardsChunks() {
+        String sessionId = openSession(10L);
+        uploadChunk(sessionId, 0, 5);
+
+        uploadSessionService.abortSession(sessionId, "token");
+
+        verify(blobStorageVersionRepository).discardMeshChunks(any(VersionDTO.class), eq("mesh.fbx"));
+        assertThrows(UploadSessionNotFoundException.class, () -> uploadSessionService.showSession(sessionId, "token"));
+    }
+
+    @Test
+    // An expired session discards its staged chunks even if no other session is used
+    void expiredSessionDiscardsChunks() {
+        when(versioningConfig.getUploadSessionTtlSeconds()).thenReturn(1L);
+        uploadSessionService.init();
+        String sessionId = openSession(10L);
+        uploadChunk(sessionId, 0, 5);
+
+        verify(blobStorageVersionRepository, timeout(5000)).discardMeshChunks(any(VersionDTO.class), eq("mesh.fbx"));
+    }
+}
@@ -0,0 +1,337 @@
+package it.unisa.ddditserver.subsystems.unit.versioning;
+
+import it.unisa.ddditserver.db.blobstorage.versioning.BlobStorageVersionRepository;
+import it.unisa.ddditserver.db.gremlin.versioning.version.GremlinVersionRepository;
+import it.unisa.ddditserver.subsystems.ai.service.TagClassificationPipeline;
+import it.unisa.ddditserver.subsystems.versioning.VersioningConfig;
+import it.unisa.ddditserver.subsystems.versioning.dto.RequestContextDTO;
+import it.unisa.ddditserver.subsystems.versioning.dto.version.TagsStatus;
+import it.unisa.ddditserver.subsystems.versioning.dto.version.VersionDTO;
+import it.unisa.ddditserver.subsystems.versioning.dto.version.VersionFileDTO;
+import it.unisa.ddditserver.subsystems.versioning.exceptions.version.VersionException;
+import it.unisa.ddditserver.subsystems.versioning.service.context.RequestContextResolver;
+import it.unisa.ddditserver.subsystems.versioning.service.version.NonClosingInputStreamResource;
+import it.unisa.ddditserver.subsystems.versioning.service.version.VersionServiceImpl;
+import it.unisa.ddditserver.validators.auth.JWT.JWTokenValidator;
+import it.unisa.ddditserver.validators.versioning.version.VersionValidator;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class VersionServiceImplTest {
+    @Mock
+    private GremlinVersionRepository gremlinVersionRepository;
+
+    @Mock
+    private RequestContextResolver requestContextResolver;
+
+    @Mock
+    private JWTokenValidator jwTokenValidator;
+
+    @Mock
+    private VersionValidator versionValidator;
+
+    @Mock
+    private TagClassificationPipeline tagClassificationPipeline;
+
+    @Mock
+    private BlobStorageVersionRepository blobStorageVersionRepository;
+
+    @Mock
+    private VersioningConfig versioningConfig;
+
+    @InjectMocks
+    private VersionServiceImpl versionService;
+
+    private VersionDTO versionDTO;
+
+    // A file content which records whether it has been released
+    private static final class TrackedStream extends ByteArrayInputStream {
+        private volatile boolean closed = false;
+
+        private TrackedStream(String content) {
+            super(content.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(jwTokenValidator.isTokenValid("token")).thenReturn("user");
+        when(requestContextResolver.authorize(eq("user"), eq("repo"), eq("resource"), eq("main"), eq("v1"), eq(true)))
+                .thenReturn(new RequestContextDTO("userId", null, "repoId", "resourceId", "branchId", "versionId"));
+        // Every write reaches the response, so the test can see which files have been written
+        when(versioningConfig.getPullBufferBytes()).thenReturn(1);
+        when(versioningConfig.getPullCacheMaxAgeSeconds()).thenReturn(60L);
+
+        versionDTO = new VersionDTO();
+        versionDTO.setRepositoryName("repo");
+        versionDTO.setResourceName("resource");
+        versionDTO.setBranchName("main");
+        versionDTO.setVersionName("v1");
+    }
+
+    private CompletableFuture<Pair<NonClosingInputStreamResource, String>> file(TrackedStream content, String fileName) {
+        return CompletableFuture.completedFuture(Pair.of(
+                new NonClosingInputStreamResource(content, fileName, "image/png", content.available()), "image/png"));
+    }
+
+    private void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertTrue(condition.getAsBoolean());
+    }
+
+    @Test
+    // Happy path: a file is written as soon as it is downloaded, without waiting for the files after it
+    void pullVersionWritesReadyFilesFirst() throws Exception {
+        TrackedStream first = new TrackedStream("first-texture");
+        TrackedStream second = new TrackedStream("second-texture");
+        CompletableFuture<Pair<NonClosingInputStreamResource, String>> pending = new CompletableFuture<>();
+        when(gremlinVersionRepository.getFileByVersionId("versionId")).thenReturn(List.of(file(first, "a.png"), pending));
+
+        ResponseEntity<StreamingResponseBody> response = versionService.pullVersion(versionDTO, null, null, "token");
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ExecutorService writer = Executors.newSingleThreadExecutor();
+
+        try {
+            Future<?> written = writer.submit(() -> {
+                response.getBody().writeTo(outputStream);
+                return null;
+            });
+
+            await(() -> outputStream.toString(StandardCharsets.UTF_8).contains("first-texture"));
+            assertFalse(written.isDone());
+
+            pending.complete(file(second, "b.png").join());
+            written.get(5, TimeUnit.SECONDS);
+        } finally {
+            writer.shutdownNow();
+        }
+
+        String body = outputStream.toString(StandardCharsets.UTF_8);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertTrue(body.indexOf("first-texture") < body.indexOf("second-texture"));
+        assertTrue(first.closed);
+        assertTrue(second.closed);
+    }
+
+    @Test
+    // A body never written releases its files when it is closed, including the ones still downloading
+    void pullVersionBodyNeverWrittenReleasesFiles() throws Exception {
+        TrackedStream downloaded = new TrackedStream("texture");
+        TrackedStream late = new TrackedStream("late-texture");
+        CompletableFuture<Pair<NonClosingInputStreamResource, String>> pending = new CompletableFuture<>();
+        when(gremlinVersionRepository.getFileByVersionId("versionId")).thenReturn(List.of(file(downloaded, "a.png"), pending));
+
+        ResponseEntity<StreamingResponseBody> response = versionService.pullVersion(versionDTO, null, null, "token");
+
+        assertInstanceOf(Closeable.class, response.getBody());
+        ((Closeable) response.getBody()).close();
+        assertTrue(downloaded.closed);
+
+        pending.complete(file(late, "b.png").join());
+        assertTrue(late.closed);
+    }
+
+    @Test
+    // A file whose download failed aborts the response and the files after it are released
+    void pullVersionFailedFileReleasesOthers() throws Exception {
+        TrackedStream next = new TrackedStream("texture");
+        when(gremlinVersionRepository.getFileByVersionId("versionId")).thenReturn(List.of(
+                CompletableFuture.failedFuture(new VersionException("Error during material retrieving in BLOB storage")),
+                file(next, "b.png")));
+
+        ResponseEntity<StreamingResponseBody> response = versionService.pullVersion(versionDTO, null, null, "token");
+
+        IOException e = assertThrows(IOException.class, () -> response.getBody().writeTo(new ByteArrayOutputStream()));
+        assertInstanceOf(VersionException.class, e.getCause());
+        assertTrue(next.closed);
+    }
+
+    @Test
+    // A client holding the version receives no body, so no file is retrieved and nothing must be released
+    void pullVersionNotModifiedRetrievesNothing() {
+        ResponseEntity<StreamingResponseBody> response = versionService.pullVersion(versionDTO, null, "*", "token");
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertNull(response.getBody());
+        verify(gremlinVersionRepository, never()).getFileByVersionId(anyString());
+    }
+
+    private VersionDTO storedVersion(TagsStatus tagsStatus) {
+        VersionDTO stored = new VersionDTO();
+        stored.setVersionName("v1");
+        stored.setTags(List.of());
+        stored.setTagsStatus(tagsStatus);
+        return stored;
+    }
+
+    @Test
+    // Metadata with pending tags is always sent, even to a client asking for any representation it already holds
+    void showVersionMetadataPendingIgnoresConditions() {
+        when(gremlinVersionRepository.findVersionById("versionId")).thenReturn(storedVersion(TagsStatus.PENDING));
+
+        ResponseEntity<Map<String, Object>> response = versionService.showVersionMetadata(versionDTO, "*", "token");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(TagsStatus.PENDING, response.getBody().get("tagsStatus"));
+        assertNull(response.getHeaders().getETag());
+    }
+
+    @Test
+    // Happy path: metadata with final tags is not sent again to a client holding it
+    void showVersionMetadataCompleteNotModified() {
+        when(gremlinVersionRepository.findVersionById("versionId")).thenReturn(storedVersion(TagsStatus.COMPLETE));
+
+        String eTag = versionService.showVersionMetadata(versionDTO, null, "token").getHeaders().getETag();
+        ResponseEntity<Map<String, Object>> wildcard = versionService.showVersionMetadata(versionDTO, "*", "token");
+        ResponseEntity<Map<String, Object>> matching = versionService.showVersionMetadata(versionDTO, eTag, "token");
+
+        assertNotNull(eTag);
+        assertEquals(HttpStatus.NOT_MODIFIED, wildcard.getStatusCode());
+        assertEquals(HttpStatus.NOT_MODIFIED, matching.getStatusCode());
+        assertNull(matching.getBody());
+    }
+
+    private VersionFileDTO storedMesh() {
+        VersionFileDTO meshFile = new VersionFileDTO("mesh.fbx", "application/octet-stream", 10L, "meshUrl", "\"blobETag\"");
+        when(gremlinVersionRepository.getMeshPropertiesByVersionId("versionId")).thenReturn(meshFile);
+        return meshFile;
+    }
+
+    private ResponseEntity<StreamingResponseBody> pullVersionFile(String range, String ifRange) {
+        return versionService.pullVersionFile(versionDTO, range, ifRange, null, "token");
+    }
+
+    @Test
+    // Happy path: a single range held by the client is sent as partial content
+    void pullVersionFileRangeSuccess() throws Exception {
+        VersionFileDTO meshFile = storedMesh();
+        String eTag = pullVersionFile(null, null).getHeaders().getETag();
+
+        ResponseEntity<StreamingResponseBody> response = pullVersionFile("bytes=2-5", eTag);
+        response.getBody().writeTo(new ByteArrayOutputStream());
+
+        assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatusCode());
+        assertEquals("bytes 2-5/10", response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+        assertEquals(4L, response.getHeaders().getContentLength());
+        verify(blobStorageVersionRepository).downloadMesh(eq(meshFile), any(), eq(2L), eq(4L));
+    }
+
+    @Test
+    // Happy path: a suffix range sends the last bytes of the mesh
+    void pullVersionFileSuffixRange() {
+        storedMesh();
+
+        ResponseEntity<StreamingResponseBody> response = pullVersionFile("bytes=-3", null);
+
+        assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatusCode());
+        assertEquals("bytes 7-9/10", response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+        assertEquals(3L, response.getHeaders().getContentLength());
+    }
+
+    @Test
+    // A range of the client that holds a different content is ignored and the whole mesh is sent
+    void pullVersionFileMismatchedIfRangeSendsWholeMesh() throws Exception {
+        VersionFileDTO meshFile = storedMesh();
+
+        ResponseEntity<StreamingResponseBody> response = pullVersionFile("bytes=2-5", "\"otherETag\"");
+        response.getBody().writeTo(new ByteArrayOutputStream());
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+        assertEquals(10L, response.getHeaders().getContentLength());
+        verify(blobStorageVersionRepository).downloadMesh(eq(meshFile), any(), eq(0L), eq(10L));
+    }
+
+    @Test
+    // An empty suffix range selects no byte, so it can't be satisfied
+    void pullVersionFileEmptySuffixNotSatisfiable() {
+        storedMesh();
+
+        ResponseEntity<StreamingResponseBody> response = pullVersionFile("bytes=-0", null);
+
+        assertEquals(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE, response.getStatusCode());
+        assertEquals("bytes */10", response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+        verify(blobStorageVersionRepository, never()).downloadMesh(any(), any(), anyLong(), anyLong());
+    }
+
+    @Test
+    // A range starting after the end of the mesh can't be satisfied
+    void pullVersionFileRangeAfterEndNotSatisfiable() {
+        storedMesh();
+
+        ResponseEntity<StreamingResponseBody> response = pullVersionFile("bytes=10-", null);
+
+        assertEquals(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE, response.getStatusCode());
+        assertEquals("bytes */10", response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+    }
+
+    @Test
+    // An inverted range is malformed, so the header is ignored and the whole mesh is sent
+    void pullVersionFileInvertedRangeIgnored() {
+        storedMesh();
+
+        ResponseEntity<StreamingResponseBody> response = pullVersionFile("bytes=5-2", null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+        assertEquals(10L, response.getHeaders().getContentLength());
+    }
+
+    @Test
+    // Several ranges are not worth a multipart response, so the whole mesh is sent
+    void pullVersionFileSeveralRangesSendWholeMesh() {
+        storedMesh();
+
+        ResponseEntity<StreamingResponseBody> response = pullVersionFile("bytes=0-1,4-5", null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(10L, response.getHeaders().getContentLength());
+    }
+
+    @Test
+    // A range ending after the end of the mesh is clipped to its last byte
+    void pullVersionFileRangeClippedToEnd() {
+        storedMesh();
+
+        ResponseEntity<StreamingResponseBody> response = pullVersionFile("bytes=8-20", null);
+
+        assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatusCode());
+        assertEquals("bytes 8-9/10", response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+        assertEquals(2L, response.getHeaders().getContentLength());
+    }
+}